@@ -0,0 +1,27 @@
+package com.iflytek.aikit.plugin.bench;
+
+import com.iflytek.aikit.plugin.FakeAiEngine;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 压测用的内置测试音频
+ */
+final class BenchAudio {
+
+    // 与采集线程一致的帧大小：16kHz 16bit 单声道 40ms
+    static final int FRAME_SIZE = 1280;
+
+    private BenchAudio() {
+    }
+
+    static byte[] load(String relativePath) throws IOException {
+        return FakeAiEngine.readPcm(path(relativePath));
+    }
+
+    static String path(String relativePath) {
+        String assets = System.getProperty("aikit.assets", "../assets/iflytek");
+        return assets + File.separator + relativePath;
+    }
+}
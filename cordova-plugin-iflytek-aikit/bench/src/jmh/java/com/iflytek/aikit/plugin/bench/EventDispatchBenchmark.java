@@ -0,0 +1,76 @@
+package com.iflytek.aikit.plugin.bench;
+
+import com.iflytek.aikit.plugin.AiEngine;
+import com.iflytek.aikit.plugin.EsrResultParser;
+import com.iflytek.aikit.plugin.FakeAiEngine;
+import com.iflytek.aikit.plugin.MeteredAiEngine;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件分发耗时：引擎回调 -> 结果解析 -> 组装与插件一致的 { event, data } 事件对象
+ * 不含 Android 主线程投递和 WebView 桥接
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EventDispatchBenchmark {
+
+    private static final String ABILITY_ESR = "e75f07b62";
+
+    private AiEngine engine;
+    private byte[] frame;
+    private Blackhole blackhole;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        frame = new byte[BenchAudio.FRAME_SIZE];
+        engine = new MeteredAiEngine(new FakeAiEngine()
+                .respondOnEnd(ABILITY_ESR, FakeAiEngine.esrFinalResult("打开空调")));
+        engine.registerListener(ABILITY_ESR, new AiEngine.Listener() {
+            @Override
+            public void onResult(int handleId, List<AiEngine.Response> outputData) {
+                EsrResultParser.Result result = EsrResultParser.parse(outputData);
+                try {
+                    JSONObject data = new JSONObject();
+                    data.put("value", result.plainResult);
+                    JSONObject event = new JSONObject();
+                    event.put("event", result.finalEvent());
+                    event.put("data", data);
+                    EventDispatchBenchmark.this.blackhole.consume(event.toString());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public void onEvent(int handleId, int eventType, List<AiEngine.Response> eventData) {
+            }
+
+            @Override
+            public void onError(int handleId, int errCode, String errMsg) {
+            }
+        });
+    }
+
+    @Benchmark
+    public int resultEvent() {
+        AiEngine.Handle handle = engine.start(ABILITY_ESR, new HashMap<String, Object>());
+        int ret = engine.writeAudio(handle, "audio", frame, frame.length, AiEngine.STATUS_END);
+        engine.end(handle);
+        return ret;
+    }
+}
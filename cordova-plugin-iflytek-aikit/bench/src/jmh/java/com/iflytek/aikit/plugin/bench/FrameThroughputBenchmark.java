@@ -0,0 +1,102 @@
+package com.iflytek.aikit.plugin.bench;
+
+import com.iflytek.aikit.plugin.AiEngine;
+import com.iflytek.aikit.plugin.FakeAiEngine;
+import com.iflytek.aikit.plugin.MeteredAiEngine;
+import com.iflytek.aikit.plugin.PcmFilePump;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 音频帧写入吞吐：按采集线程的帧大小把整段测试音频写入引擎
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrameThroughputBenchmark {
+
+    @Param({ "esr/testAudio/cn_test.pcm", "ivw/wav/test.pcm" })
+    public String audio;
+
+    @Param({ "fake", "metered" })
+    public String engineType;
+
+    private byte[] pcm;
+    private byte[] frame;
+    private AiEngine engine;
+    private String audioPath;
+
+    @Setup
+    public void setup() throws IOException {
+        pcm = BenchAudio.load(audio);
+        audioPath = BenchAudio.path(audio);
+        frame = new byte[BenchAudio.FRAME_SIZE];
+        FakeAiEngine fake = new FakeAiEngine()
+                .respondOnEnd("e75f07b62", FakeAiEngine.esrFinalResult("打开空调"))
+                .respondOnEnd("e867a88f2", FakeAiEngine.wakeUpResult("func_wake_up", "小迪小迪"));
+        engine = "metered".equals(engineType) ? new MeteredAiEngine(fake) : fake;
+        AiEngine.Listener sink = new AiEngine.Listener() {
+            @Override
+            public void onResult(int handleId, List<AiEngine.Response> outputData) {
+            }
+
+            @Override
+            public void onEvent(int handleId, int eventType, List<AiEngine.Response> eventData) {
+            }
+
+            @Override
+            public void onError(int handleId, int errCode, String errMsg) {
+            }
+        };
+        engine.registerListener("e75f07b62", sink);
+        engine.registerListener("e867a88f2", sink);
+    }
+
+    /**
+     * 一次会话：start -> 逐帧 write -> end，返回写入帧数
+     */
+    @Benchmark
+    public int session() {
+        AiEngine.Handle handle = engine.start("e75f07b62", new HashMap<String, Object>());
+        int frames = 0;
+        for (int offset = 0; offset < pcm.length; offset += frame.length) {
+            int length = Math.min(frame.length, pcm.length - offset);
+            System.arraycopy(pcm, offset, frame, 0, length);
+            int status = offset == 0 ? AiEngine.STATUS_BEGIN
+                    : offset + length >= pcm.length ? AiEngine.STATUS_END : AiEngine.STATUS_CONTINUE;
+            engine.writeAudio(handle, "audio", frame, length, status);
+            frames++;
+        }
+        engine.end(handle);
+        return frames;
+    }
+
+    /**
+     * 一次文件会话：start -> PcmFilePump 内存映射逐帧 write -> end，返回写入字节数
+     */
+    @Benchmark
+    public long filePump() throws IOException {
+        final AiEngine.Handle handle = engine.start("e75f07b62", new HashMap<String, Object>());
+        long bytes = new PcmFilePump(BenchAudio.FRAME_SIZE).pump(audioPath, new PcmFilePump.FrameSink() {
+            @Override
+            public boolean onFrame(byte[] frame, int length, int status, long offset) {
+                engine.writeAudio(handle, "audio", frame, length, status);
+                return true;
+            }
+        });
+        engine.end(handle);
+        return bytes;
+    }
+}
@@ -0,0 +1,51 @@
+package com.iflytek.aikit.plugin.bench;
+
+import com.iflytek.aikit.plugin.PcmResampler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 采集侧重采样：转换一帧 40ms 的输入到 16kHz 单声道
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResamplerBenchmark {
+
+    @Param({ "48000", "44100" })
+    public int sampleRate;
+
+    @Param({ "1", "2" })
+    public int channels;
+
+    private PcmResampler resampler;
+    private byte[] frame;
+    private byte[] output;
+
+    @Setup
+    public void setup() {
+        resampler = new PcmResampler(sampleRate, channels);
+        frame = new byte[resampler.frameBytesFor40ms()];
+        int samples = frame.length / 2;
+        for (int i = 0; i < samples; i++) {
+            short value = (short) (8000 * Math.sin(2 * Math.PI * 440 * (i / channels) / sampleRate));
+            frame[2 * i] = (byte) value;
+            frame[2 * i + 1] = (byte) (value >> 8);
+        }
+        output = new byte[resampler.maxOutputBytes(frame.length)];
+    }
+
+    @Benchmark
+    public int frame40ms() {
+        return resampler.process(frame, frame.length, output);
+    }
+}
@@ -0,0 +1,65 @@
+package com.iflytek.aikit.plugin.bench;
+
+import com.iflytek.aikit.plugin.AiEngine;
+import com.iflytek.aikit.plugin.EsrResultParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 命令词识别结果解析耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultParsingBenchmark {
+
+    private List<AiEngine.Response> finalResult;
+    private List<AiEngine.Response> progressOnly;
+    private List<AiEngine.Response> vadOnly;
+
+    @Setup
+    public void setup() throws UnsupportedEncodingException {
+        byte[] command = "打开空调".getBytes("GBK");
+        byte[] partial = "打开空".getBytes("GBK");
+
+        finalResult = new ArrayList<>();
+        finalResult.add(new AiEngine.Response("vad", "bg:12 ed:87".getBytes("GBK"), AiEngine.STATUS_END));
+        finalResult.add(new AiEngine.Response("pgs", partial, AiEngine.STATUS_END));
+        finalResult.add(new AiEngine.Response("pgs", command, AiEngine.STATUS_END));
+        finalResult.add(new AiEngine.Response("htk", command, AiEngine.STATUS_END));
+        finalResult.add(new AiEngine.Response("plain", command, AiEngine.STATUS_END));
+
+        progressOnly = new ArrayList<>();
+        progressOnly.add(new AiEngine.Response("pgs", partial, AiEngine.STATUS_CONTINUE));
+        progressOnly.add(new AiEngine.Response("pgs", partial, AiEngine.STATUS_CONTINUE));
+
+        vadOnly = new ArrayList<>();
+        vadOnly.add(new AiEngine.Response("vad", "bg:12".getBytes("GBK"), AiEngine.STATUS_END));
+    }
+
+    @Benchmark
+    public EsrResultParser.Result finalResult() {
+        return EsrResultParser.parse(finalResult);
+    }
+
+    @Benchmark
+    public EsrResultParser.Result progressOnly() {
+        return EsrResultParser.parse(progressOnly);
+    }
+
+    @Benchmark
+    public EsrResultParser.Result vadOnly() {
+        return EsrResultParser.parse(vadOnly);
+    }
+}
@@ -0,0 +1,47 @@
+package com.iflytek.aikit.plugin.bench;
+
+import com.iflytek.aikit.plugin.AudioClip;
+import com.iflytek.aikit.plugin.TimeStretcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存语速变体派生：对 3 秒 16kHz 提示音做 WSOLA 变速
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimeStretchBenchmark {
+
+    @Param({ "0.8", "1.25", "1.5" })
+    public float ratio;
+
+    private AudioClip clip;
+    private TimeStretcher.Config config;
+
+    @Setup
+    public void setup() {
+        int length = 16000 * 3;
+        short[] samples = new short[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) (6000 * Math.sin(2 * Math.PI * 220 * i / 16000.0)
+                    + 3000 * Math.sin(2 * Math.PI * 660 * i / 16000.0));
+        }
+        clip = new AudioClip(samples, length, 16000);
+        config = new TimeStretcher.Config();
+    }
+
+    @Benchmark
+    public AudioClip stretch3s() {
+        return TimeStretcher.stretch(clip, ratio, 1f, config);
+    }
+}
@@ -0,0 +1,299 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 确定性的假引擎
+ * 不依赖 Android 与 AIKit SDK，按预设脚本在写入指定字节数或收到结束帧时回放结果，
+ * 用于在普通 Linux JVM 上测试和压测插件逻辑
+ */
+public class FakeAiEngine implements AiEngine {
+
+    /**
+     * 回放规则：会话写入的音频达到 afterBytes 时回放 responses；afterBytes 为 -1 表示在结束帧时回放
+     */
+    private static class Rule {
+        final long afterBytes;
+        final List<Response> responses;
+
+        Rule(long afterBytes, List<Response> responses) {
+            this.afterBytes = afterBytes;
+            this.responses = responses;
+        }
+    }
+
+    private static class Session {
+        final String ability;
+        long bytesWritten;
+        int nextRule;
+        boolean ended;
+        // 本会话独有的结束帧结果，见 respondOnEndOnce
+        List<Response> onEnd;
+
+        Session(String ability) {
+            this.ability = ability;
+        }
+    }
+
+    private final Map<String, List<Rule>> rules = new HashMap<>();
+    private final Map<String, Deque<List<Response>>> sessionResponses = new HashMap<>();
+    private final Map<String, Listener> listeners = new HashMap<>();
+    private final Map<String, byte[]> ttsOutputs = new HashMap<>();
+    private final Map<Integer, Session> sessions = new HashMap<>();
+    private int ttsChunkSize = 4096;
+    private int nextHandleId = 1;
+    private long totalBytesWritten;
+    private long resultDelayMs;
+
+    /**
+     * 会话写入 afterBytes 字节音频后回放结果
+     */
+    public synchronized FakeAiEngine respondAfter(String ability, long afterBytes, Response... responses) {
+        List<Rule> list = rules.get(ability);
+        if (list == null) {
+            list = new ArrayList<>();
+            rules.put(ability, list);
+        }
+        list.add(new Rule(afterBytes, Arrays.asList(responses)));
+        return this;
+    }
+
+    /**
+     * 收到结束帧时回放结果
+     */
+    public synchronized FakeAiEngine respondOnEnd(String ability, Response... responses) {
+        return respondAfter(ability, -1, responses);
+    }
+
+    /**
+     * 依次为之后开启的每个会话指定一组结束帧结果，每组只用于一个会话（如文件中的多条命令）
+     */
+    public synchronized FakeAiEngine respondOnEndOnce(String ability, Response... responses) {
+        Deque<List<Response>> queue = sessionResponses.get(ability);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            sessionResponses.put(ability, queue);
+        }
+        queue.add(Arrays.asList(responses));
+        return this;
+    }
+
+    /**
+     * 识别结果延迟 delayMs 后在另一个线程回调，模拟真实引擎的异步回调；0 表示在 writeAudio 中同步回调
+     */
+    public synchronized FakeAiEngine resultDelay(long delayMs) {
+        this.resultDelayMs = delayMs;
+        return this;
+    }
+
+    /**
+     * 合成类能力写入文本后按块回放的音频，随后发送结束事件
+     */
+    public synchronized FakeAiEngine ttsOutput(String ability, byte[] pcm, int chunkSize) {
+        ttsOutputs.put(ability, pcm);
+        this.ttsChunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * 构造命令词识别的最终结果（pgs + plain，GBK编码，status=2）
+     */
+    public static Response[] esrFinalResult(String text) {
+        byte[] value = encodeGbk(text);
+        return new Response[] {
+                new Response("pgs", value, STATUS_END),
+                new Response("plain", value, STATUS_END)
+        };
+    }
+
+    /**
+     * 构造唤醒结果
+     */
+    public static Response wakeUpResult(String key, String keyword) {
+        return new Response(key, encodeGbk(keyword), STATUS_END);
+    }
+
+    /**
+     * 读取PCM文件（如 esr/testAudio/cn_test.pcm、ivw/wav/test.pcm）
+     */
+    public static byte[] readPcm(String path) throws IOException {
+        File file = new File(path);
+        byte[] data = new byte[(int) file.length()];
+        InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    /**
+     * 累计写入的音频字节数
+     */
+    public synchronized long getTotalBytesWritten() {
+        return totalBytesWritten;
+    }
+
+    @Override
+    public int engineInit(String ability, Map<String, Object> params) {
+        return 0;
+    }
+
+    @Override
+    public int loadData(String ability, String key, String path, int index) {
+        return 0;
+    }
+
+    @Override
+    public int specifyDataSet(String ability, String key, int[] indexes) {
+        return 0;
+    }
+
+    @Override
+    public synchronized void registerListener(String ability, Listener listener) {
+        listeners.put(ability, listener);
+    }
+
+    @Override
+    public synchronized Handle start(String ability, Map<String, Object> params) {
+        int id = nextHandleId++;
+        Session session = new Session(ability);
+        Deque<List<Response>> queue = sessionResponses.get(ability);
+        session.onEnd = queue != null ? queue.poll() : null;
+        sessions.put(id, session);
+        return new Handle(0, id, null);
+    }
+
+    @Override
+    public int writeAudio(Handle handle, String key, byte[] data, int length, int status) {
+        final List<Response> fire = new ArrayList<>();
+        final Listener listener;
+        long delayMs;
+        synchronized (this) {
+            Session session = sessions.get(handle.getId());
+            if (session == null || session.ended) {
+                return -1;
+            }
+            session.bytesWritten += length;
+            totalBytesWritten += length;
+            List<Rule> list = rules.get(session.ability);
+            if (list != null) {
+                while (session.nextRule < list.size()) {
+                    Rule rule = list.get(session.nextRule);
+                    boolean due = rule.afterBytes < 0 ? status == STATUS_END
+                            : session.bytesWritten >= rule.afterBytes;
+                    if (!due) {
+                        break;
+                    }
+                    fire.addAll(rule.responses);
+                    session.nextRule++;
+                }
+            }
+            if (status == STATUS_END && session.onEnd != null) {
+                fire.addAll(session.onEnd);
+                session.onEnd = null;
+            }
+            listener = listeners.get(session.ability);
+            delayMs = resultDelayMs;
+        }
+        if (listener == null || fire.isEmpty()) {
+            return 0;
+        }
+        final int handleId = handle.getId();
+        if (delayMs <= 0) {
+            listener.onResult(handleId, fire);
+            return 0;
+        }
+        final long delay = delayMs;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                listener.onResult(handleId, fire);
+            }
+        }, "FakeAiEngine-result");
+        thread.setDaemon(true);
+        thread.start();
+        return 0;
+    }
+
+    @Override
+    public int writeText(Handle handle, String key, String text) {
+        byte[] pcm;
+        Listener listener;
+        int chunkSize;
+        synchronized (this) {
+            Session session = sessions.get(handle.getId());
+            if (session == null || session.ended) {
+                return -1;
+            }
+            pcm = ttsOutputs.get(session.ability);
+            listener = listeners.get(session.ability);
+            chunkSize = ttsChunkSize;
+        }
+        if (listener != null) {
+            if (pcm != null) {
+                for (int offset = 0; offset < pcm.length; offset += chunkSize) {
+                    byte[] chunk = Arrays.copyOfRange(pcm, offset, Math.min(pcm.length, offset + chunkSize));
+                    List<Response> output = new ArrayList<>(1);
+                    output.add(new Response("audio", chunk, STATUS_CONTINUE));
+                    listener.onResult(handle.getId(), output);
+                }
+            }
+            listener.onEvent(handle.getId(), EVENT_END, new ArrayList<Response>());
+        }
+        return 0;
+    }
+
+    @Override
+    public int read(String ability, Handle handle) {
+        return 0;
+    }
+
+    @Override
+    public synchronized int end(Handle handle) {
+        Session session = sessions.remove(handle.getId());
+        if (session == null) {
+            return -1;
+        }
+        session.ended = true;
+        return 0;
+    }
+
+    @Override
+    public synchronized void unInit() {
+        sessions.clear();
+        listeners.clear();
+    }
+
+    private static byte[] encodeGbk(String text) {
+        try {
+            return text.getBytes("GBK");
+        } catch (UnsupportedEncodingException e) {
+            return text.getBytes();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.iflytek.aikit.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * FileRecognizer：一个文件中的两条命令分别进入两个会话，结果与时间位置正确，音频一帧不丢
+ */
+public class FileRecognizerTest {
+
+    private static final String ABILITY = "e75f07b62";
+    private static final int FRAME = 1280;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * 0.5s 静音 + 1s 语音 + 1.2s 静音 + 1s 语音 + 1s 静音
+     */
+    private File twoCommandFile() throws IOException {
+        File file = folder.newFile("two_commands.pcm");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[500 * PcmFilePump.BYTES_PER_MS]);
+            out.write(tone(1000));
+            out.write(new byte[1200 * PcmFilePump.BYTES_PER_MS]);
+            out.write(tone(1000));
+            out.write(new byte[1000 * PcmFilePump.BYTES_PER_MS]);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void twoCommandsInTwoSessions() throws IOException {
+        assertTwoCommands(0);
+    }
+
+    @Test
+    public void lateCallbacksDoNotDropAudio() throws IOException {
+        // 结果在结束帧之后 150ms 才回调，推送必须等到结果再开启下一个会话
+        assertTwoCommands(150);
+    }
+
+    private void assertTwoCommands(long delayMs) throws IOException {
+        File file = twoCommandFile();
+        FakeAiEngine engine = new FakeAiEngine()
+                .respondOnEndOnce(ABILITY, FakeAiEngine.esrFinalResult("打开空调"))
+                .respondOnEndOnce(ABILITY, FakeAiEngine.esrFinalResult("关闭空调"))
+                .resultDelay(delayMs);
+        FileRecognizer recognizer = new FileRecognizer(engine, ABILITY, new HashMap<String, Object>(),
+                FRAME, 800, 1000);
+
+        final List<String> values = new ArrayList<>();
+        final List<long[]> ranges = new ArrayList<>();
+        long total = recognizer.recognize(file.getPath(), new FileRecognizer.ResultHandler() {
+            @Override
+            public void onResult(EsrResultParser.Result result, long speechStart, long speechEnd, long inputEnd) {
+                values.add(result.plainResult);
+                ranges.add(new long[]{
+                        PcmFilePump.offsetToMillis(speechStart),
+                        PcmFilePump.offsetToMillis(speechEnd),
+                        PcmFilePump.offsetToMillis(inputEnd)
+                });
+            }
+        });
+
+        assertEquals(file.length(), total);
+        // 每帧都写入了某个会话
+        assertEquals(file.length(), engine.getTotalBytesWritten());
+        assertNull(recognizer.getError());
+
+        assertEquals(2, values.size());
+        assertEquals("打开空调", values.get(0));
+        assertEquals("关闭空调", values.get(1));
+        // 语音段起止按帧对齐（40ms）
+        assertRange(ranges.get(0), 500, 1500);
+        assertRange(ranges.get(1), 2700, 3700);
+    }
+
+    /**
+     * 语音段位置误差不超过一帧，输入在端点静音（800ms）之后结束
+     */
+    private static void assertRange(long[] range, long startMs, long endMs) {
+        assertEquals(startMs, range[0], 40);
+        assertEquals(endMs, range[1], 40);
+        assertTrue("inputEnd " + range[2], range[2] >= range[1] + 800 - 40 && range[2] <= range[1] + 800 + 80);
+    }
+
+    private static byte[] tone(int ms) {
+        int samples = ms * 16;
+        byte[] data = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            int value = (int) Math.round(3000 * Math.sin(2 * Math.PI * 1000 * i / 16000.0));
+            data[2 * i] = (byte) value;
+            data[2 * i + 1] = (byte) (value >> 8);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,82 @@
+package com.iflytek.aikit.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * ImaAdpcm：编码后再解码，样本数不变且误差在 4bit 量化范围内
+ */
+public class ImaAdpcmTest {
+
+    @Test
+    public void roundTripKeepsSamplesAndShape() throws IOException {
+        int rate = 16000;
+        int blockAlign = ImaAdpcm.blockAlignFor(rate);
+        int samplesPerBlock = ImaAdpcm.samplesPerBlock(blockAlign);
+        // 不是整块，最后一块需要补齐
+        int count = samplesPerBlock * 5 + 123;
+        short[] source = new short[count];
+        byte[] pcm = new byte[count * 2];
+        for (int i = 0; i < count; i++) {
+            double t = (double) i / rate;
+            source[i] = (short) Math.round(6000 * Math.sin(2 * Math.PI * 440 * t) + 3000 * Math.sin(2 * Math.PI * 1250 * t));
+            pcm[2 * i] = (byte) source[i];
+            pcm[2 * i + 1] = (byte) (source[i] >> 8);
+        }
+
+        ImaAdpcm.Encoder encoder = new ImaAdpcm.Encoder(blockAlign);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        // 按奇数长度分段写入，覆盖跨调用的半个样本
+        for (int offset = 0; offset < pcm.length; offset += 999) {
+            encoder.write(pcm, offset, Math.min(999, pcm.length - offset), out);
+        }
+        encoder.finish(out);
+        byte[] encoded = bytes.toByteArray();
+
+        assertEquals(count, encoder.getTotalSamples());
+        assertEquals(encoded.length, encoder.getDataBytes());
+        assertEquals(0, encoded.length % blockAlign);
+        // 约为 PCM 的 1/4
+        assertTrue(encoded.length < pcm.length / 3);
+
+        short[] decoded = new short[count];
+        short[] block = new short[samplesPerBlock];
+        int total = 0;
+        byte[] chunk = new byte[blockAlign];
+        for (int offset = 0; offset < encoded.length; offset += blockAlign) {
+            System.arraycopy(encoded, offset, chunk, 0, blockAlign);
+            int n = ImaAdpcm.decodeBlock(chunk, blockAlign, block);
+            assertEquals(samplesPerBlock, n);
+            int copy = Math.min(n, count - total);
+            System.arraycopy(block, 0, decoded, total, copy);
+            total += copy;
+        }
+        assertEquals(count, total);
+
+        // 每块首个样本原样保存
+        for (int i = 0; i < count; i += samplesPerBlock) {
+            assertEquals(source[i], decoded[i]);
+        }
+        double signal = 0;
+        double noise = 0;
+        for (int i = 0; i < count; i++) {
+            signal += (double) source[i] * source[i];
+            double diff = source[i] - decoded[i];
+            noise += diff * diff;
+        }
+        double snr = 10 * Math.log10(signal / noise);
+        assertTrue("SNR " + snr, snr > 20);
+    }
+
+    @Test
+    public void shortBlockDecodesNothing() {
+        assertEquals(0, ImaAdpcm.decodeBlock(new byte[3], 3, new short[8]));
+    }
+}
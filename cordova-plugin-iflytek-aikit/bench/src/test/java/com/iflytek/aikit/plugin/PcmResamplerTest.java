@@ -0,0 +1,85 @@
+package com.iflytek.aikit.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * PcmResampler：常见采集格式转为 16kHz 单声道后的长度与幅度
+ */
+public class PcmResamplerTest {
+
+    @Test
+    public void stereo48kIsOneThirdLength() {
+        assertOneSecond(48000, 2);
+    }
+
+    @Test
+    public void mono44kIsOneSecondAt16k() {
+        assertOneSecond(44100, 1);
+    }
+
+    @Test
+    public void passthroughCopiesInput() {
+        PcmResampler resampler = new PcmResampler(16000, 1);
+        byte[] input = tone(16000, 1, 640);
+        byte[] output = new byte[resampler.maxOutputBytes(input.length)];
+        assertTrue(resampler.isPassthrough());
+        assertEquals(input.length, resampler.process(input, input.length, output));
+    }
+
+    /**
+     * 1 秒 1kHz 正弦按 40ms 一帧送入，再额外拆出一个奇数字节的帧，输出应正好是 1 秒 16kHz，
+     * 且 1kHz 在通带内，幅度基本不变
+     */
+    private static void assertOneSecond(int rate, int channels) {
+        PcmResampler resampler = new PcmResampler(rate, channels);
+        byte[] input = tone(rate, channels, rate);
+        int frameBytes = resampler.frameBytesFor40ms();
+        byte[] output = new byte[resampler.maxOutputBytes(frameBytes + 1)];
+        long outputBytes = 0;
+        double sumSquares = 0;
+        long samples = 0;
+        int offset = 0;
+        while (offset < input.length) {
+            // 帧长故意错开一个字节，覆盖跨帧的不完整采样
+            int length = Math.min(frameBytes + (offset == 0 ? 1 : 0), input.length - offset);
+            byte[] frame = new byte[length];
+            System.arraycopy(input, offset, frame, 0, length);
+            int written = resampler.process(frame, length, output);
+            assertTrue(written <= output.length);
+            for (int i = 0; i + 1 < written; i += 2) {
+                // 跳过滤波器建立阶段
+                if (outputBytes + i >= 2 * 320) {
+                    int sample = (short) ((output[i] & 0xff) | (output[i + 1] << 8));
+                    sumSquares += (double) sample * sample;
+                    samples++;
+                }
+            }
+            outputBytes += written;
+            offset += length;
+        }
+
+        assertEquals(2 * PcmResampler.TARGET_SAMPLE_RATE, outputBytes);
+        double rms = Math.sqrt(sumSquares / samples);
+        double expected = 8000 / Math.sqrt(2);
+        assertEquals(expected, rms, expected * 0.05);
+    }
+
+    /**
+     * 1kHz、幅度 8000 的正弦，各声道相同
+     */
+    private static byte[] tone(int rate, int channels, int frames) {
+        byte[] data = new byte[frames * channels * 2];
+        for (int i = 0; i < frames; i++) {
+            int value = (int) Math.round(8000 * Math.sin(2 * Math.PI * 1000 * i / rate));
+            for (int c = 0; c < channels; c++) {
+                int index = (i * channels + c) * 2;
+                data[index] = (byte) value;
+                data[index + 1] = (byte) (value >> 8);
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,78 @@
+package com.iflytek.aikit.plugin;
+
+import android.app.Service;
+import android.content.Intent;
+import android.os.Binder;
+import android.os.IBinder;
+import android.util.Log;
+
+/**
+ * AIKitService - 语音引擎宿主服务（与应用同进程）
+ * 持有 IflytekAIKit 及其管理器，生命周期独立于 Activity 与 WebView。
+ * 插件启动并绑定本服务，WebView 重载或 Activity 重建后重新绑定即可继续使用已授权、已初始化的引擎，
+ * 只有调用 unInit 或服务被销毁时才释放引擎
+ */
+public class AIKitService extends Service {
+    private static final String TAG = "AIKitService";
+
+    private final LocalBinder binder = new LocalBinder();
+    private IflytekAIKit aiKit;
+
+    /**
+     * 同进程绑定，直接返回服务实例
+     */
+    public class LocalBinder extends Binder {
+        public AIKitService getService() {
+            return AIKitService.this;
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        aiKit = new IflytekAIKit(getApplicationContext());
+        Log.d(TAG, "Service created");
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_STICKY; // 服务被杀死后自动重启
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public boolean onUnbind(Intent intent) {
+        // 插件解绑时只断开事件监听，引擎保持运行
+        if (aiKit != null) {
+            aiKit.registerListener(null);
+        }
+        Log.d(TAG, "Service unbound");
+        return true;
+    }
+
+    @Override
+    public void onRebind(Intent intent) {
+        Log.d(TAG, "Service rebound");
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (aiKit != null) {
+            aiKit.unInit();
+            aiKit = null;
+        }
+        Log.d(TAG, "Service destroyed");
+    }
+
+    /**
+     * 获取引擎宿主
+     */
+    public IflytekAIKit getAIKit() {
+        return aiKit;
+    }
+}
@@ -0,0 +1,140 @@
+package com.iflytek.aikit.plugin;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 语音引擎抽象
+ * 屏蔽 AiHelper 的具体调用，便于在纯JVM环境下用假引擎测试和压测缓冲、解析与状态机逻辑
+ * 所有类型都不依赖 Android 或 AIKit SDK
+ */
+public interface AiEngine {
+
+    // 数据状态，与 AiStatus 一致
+    int STATUS_BEGIN = 0;
+    int STATUS_CONTINUE = 1;
+    int STATUS_END = 2;
+    int STATUS_ONCE = 3;
+
+    // 事件类型，与 AeeEvent 一致
+    int EVENT_UNKNOWN = 0;
+    int EVENT_START = 1;
+    int EVENT_END = 2;
+    int EVENT_TIMEOUT = 3;
+    int EVENT_PROGRESS = 4;
+
+    /**
+     * 初始化能力引擎
+     */
+    int engineInit(String ability, Map<String, Object> params);
+
+    /**
+     * 加载个性化数据（如FSA、唤醒词文件）
+     */
+    int loadData(String ability, String key, String path, int index);
+
+    /**
+     * 指定会话使用的数据集
+     */
+    int specifyDataSet(String ability, String key, int[] indexes);
+
+    /**
+     * 注册能力监听器，同一能力重复注册时后者覆盖前者
+     */
+    void registerListener(String ability, Listener listener);
+
+    /**
+     * 启动会话，返回的句柄 code 非0表示失败
+     */
+    Handle start(String ability, Map<String, Object> params);
+
+    /**
+     * 写入音频数据，只写入 data 的前 length 个字节
+     */
+    int writeAudio(Handle handle, String key, byte[] data, int length, int status);
+
+    /**
+     * 写入文本数据
+     */
+    int writeText(Handle handle, String key, String text);
+
+    /**
+     * 主动读取结果
+     */
+    int read(String ability, Handle handle);
+
+    /**
+     * 结束会话
+     */
+    int end(Handle handle);
+
+    /**
+     * 释放SDK
+     */
+    void unInit();
+
+    /**
+     * 会话句柄
+     */
+    class Handle {
+        private final int code;
+        private final int id;
+        private final Object nativeHandle;
+
+        public Handle(int code, int id, Object nativeHandle) {
+            this.code = code;
+            this.id = id;
+            this.nativeHandle = nativeHandle;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Object getNativeHandle() {
+            return nativeHandle;
+        }
+    }
+
+    /**
+     * 引擎输出
+     */
+    class Response {
+        private final String key;
+        private final byte[] value;
+        private final int status;
+
+        public Response(String key, byte[] value, int status) {
+            this.key = key;
+            this.value = value;
+            this.status = status;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public byte[] getValue() {
+            return value;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * 能力监听器
+     */
+    interface Listener {
+        void onResult(int handleId, List<Response> outputData);
+
+        void onEvent(int handleId, int eventType, List<Response> eventData);
+
+        void onError(int handleId, int errCode, String errMsg);
+    }
+}
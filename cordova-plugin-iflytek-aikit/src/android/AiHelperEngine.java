@@ -0,0 +1,165 @@
+package com.iflytek.aikit.plugin;
+
+import com.iflytek.aikit.core.AeeEvent;
+import com.iflytek.aikit.core.AiAudio;
+import com.iflytek.aikit.core.AiHandle;
+import com.iflytek.aikit.core.AiHelper;
+import com.iflytek.aikit.core.AiInput;
+import com.iflytek.aikit.core.AiListener;
+import com.iflytek.aikit.core.AiRequest;
+import com.iflytek.aikit.core.AiResponse;
+import com.iflytek.aikit.core.AiStatus;
+import com.iflytek.aikit.core.AiText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 AiHelper 的引擎实现
+ * 插件中唯一直接调用 AIKit 会话接口的地方
+ */
+public class AiHelperEngine implements AiEngine {
+
+    @Override
+    public int engineInit(String ability, Map<String, Object> params) {
+        AiRequest.Builder builder = AiRequest.builder();
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Integer) {
+                builder.param(entry.getKey(), (Integer) value);
+            } else if (value instanceof Boolean) {
+                builder.param(entry.getKey(), (Boolean) value);
+            } else if (value instanceof Number) {
+                builder.param(entry.getKey(), ((Number) value).doubleValue());
+            } else {
+                builder.param(entry.getKey(), String.valueOf(value));
+            }
+        }
+        return AiHelper.getInst().engineInit(ability, builder.build());
+    }
+
+    @Override
+    public int loadData(String ability, String key, String path, int index) {
+        AiRequest.Builder builder = AiRequest.builder();
+        builder.customText(key, path, index);
+        return AiHelper.getInst().loadData(ability, builder.build());
+    }
+
+    @Override
+    public int specifyDataSet(String ability, String key, int[] indexes) {
+        return AiHelper.getInst().specifyDataSet(ability, key, indexes);
+    }
+
+    @Override
+    public void registerListener(String ability, Listener listener) {
+        AiHelper.getInst().registerListener(ability, new AiListener() {
+            @Override
+            public void onResult(int handleID, List<AiResponse> outputData, Object usrContext) {
+                listener.onResult(handleID, convert(outputData));
+            }
+
+            @Override
+            public void onEvent(int handleID, int eventType, List<AiResponse> eventData, Object usrContext) {
+                listener.onEvent(handleID, convertEvent(eventType), convert(eventData));
+            }
+
+            @Override
+            public void onError(int handleID, int errCode, String errMsg, Object usrContext) {
+                listener.onError(handleID, errCode, errMsg);
+            }
+        });
+    }
+
+    @Override
+    public Handle start(String ability, Map<String, Object> params) {
+        AiInput.Builder builder = AiInput.builder();
+        for (Map.Entry<String, Object> entry : params.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Integer) {
+                builder.param(entry.getKey(), (Integer) value);
+            } else if (value instanceof Boolean) {
+                builder.param(entry.getKey(), (Boolean) value);
+            } else if (value instanceof Number) {
+                builder.param(entry.getKey(), ((Number) value).doubleValue());
+            } else {
+                builder.param(entry.getKey(), String.valueOf(value));
+            }
+        }
+        AiHandle aiHandle = AiHelper.getInst().start(ability, builder.build(), null);
+        if (aiHandle == null) {
+            return new Handle(-1, -1, null);
+        }
+        return new Handle(aiHandle.getCode(), aiHandle.getI(), aiHandle);
+    }
+
+    @Override
+    public int writeAudio(Handle handle, String key, byte[] data, int length, int status) {
+        byte[] payload = length == data.length ? data : Arrays.copyOf(data, length);
+        AiRequest.Builder builder = AiRequest.builder();
+        AiAudio aiAudio = AiAudio.get(key).data(payload).status(toAiStatus(status)).valid();
+        builder.payload(aiAudio);
+        return AiHelper.getInst().write(builder.build(), (AiHandle) handle.getNativeHandle());
+    }
+
+    @Override
+    public int writeText(Handle handle, String key, String text) {
+        AiRequest.Builder builder = AiRequest.builder();
+        AiText aiText = AiText.get(key).data(text).valid();
+        builder.payload(aiText);
+        return AiHelper.getInst().write(builder.build(), (AiHandle) handle.getNativeHandle());
+    }
+
+    @Override
+    public int read(String ability, Handle handle) {
+        return AiHelper.getInst().read(ability, (AiHandle) handle.getNativeHandle());
+    }
+
+    @Override
+    public int end(Handle handle) {
+        return AiHelper.getInst().end((AiHandle) handle.getNativeHandle());
+    }
+
+    @Override
+    public void unInit() {
+        AiHelper.getInst().unInit();
+    }
+
+    private static AiStatus toAiStatus(int status) {
+        switch (status) {
+            case STATUS_BEGIN:
+                return AiStatus.BEGIN;
+            case STATUS_END:
+                return AiStatus.END;
+            case STATUS_ONCE:
+                return AiStatus.ONCE;
+            default:
+                return AiStatus.CONTINUE;
+        }
+    }
+
+    private static int convertEvent(int eventType) {
+        if (eventType == AeeEvent.AEE_EVENT_END.getValue()) {
+            return EVENT_END;
+        } else if (eventType == AeeEvent.AEE_EVENT_PROGRESS.getValue()) {
+            return EVENT_PROGRESS;
+        } else if (eventType == AeeEvent.AEE_EVENT_START.getValue()) {
+            return EVENT_START;
+        } else if (eventType == AeeEvent.AEE_EVENT_TIMEOUT.getValue()) {
+            return EVENT_TIMEOUT;
+        }
+        return EVENT_UNKNOWN;
+    }
+
+    private static List<Response> convert(List<AiResponse> responses) {
+        if (responses == null) {
+            return null;
+        }
+        List<Response> result = new ArrayList<>(responses.size());
+        for (AiResponse response : responses) {
+            result.add(new Response(response.getKey(), response.getValue(), response.getStatus()));
+        }
+        return result;
+    }
+}
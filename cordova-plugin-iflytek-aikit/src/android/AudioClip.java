@@ -0,0 +1,105 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * 内存中的单声道 16bit 音频片段
+ * 读取裸 PCM、PCM WAV 或 IMA-ADPCM WAV 文件为样本数组，处理后再按指定格式写出，供缓存音频的变速、拼接使用
+ */
+public class AudioClip {
+
+    public final short[] samples;
+    public final int length;
+    public final int sampleRate;
+
+    public AudioClip(short[] samples, int length, int sampleRate) {
+        this.samples = samples;
+        this.length = length;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * 读取音频文件，WAV 以文件头为准，裸 PCM 使用 defaultSampleRate
+     */
+    public static AudioClip read(File file, int defaultSampleRate) throws IOException {
+        ByteBuffer buffer;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        WavFile.Info info = WavFile.parse(buffer);
+        if (info == null) {
+            return fromPcm(buffer, defaultSampleRate);
+        }
+        if (info.channels != 1) {
+            throw new IOException("只支持单声道音频: " + file);
+        }
+        buffer.position((int) info.dataOffset);
+        buffer.limit((int) (info.dataOffset + info.dataLength));
+        ByteBuffer data = buffer.slice();
+        if (info.format == WavFile.FORMAT_PCM && info.bitsPerSample == 16) {
+            return fromPcm(data, info.sampleRate);
+        }
+        if (info.format == WavFile.FORMAT_IMA_ADPCM && info.blockAlign > 4) {
+            return fromAdpcm(data, info);
+        }
+        throw new IOException("不支持的WAV格式: format=" + info.format + ", bits=" + info.bitsPerSample);
+    }
+
+    /**
+     * 按格式写出（pcm、wav 或 adpcm）
+     */
+    public void write(File file, String format) throws IOException {
+        AudioFileWriter writer = new AudioFileWriter(file, format, sampleRate);
+        try {
+            byte[] chunk = new byte[4096];
+            for (int offset = 0; offset < length; offset += chunk.length / 2) {
+                int count = Math.min(chunk.length / 2, length - offset);
+                for (int i = 0; i < count; i++) {
+                    short sample = samples[offset + i];
+                    chunk[2 * i] = (byte) sample;
+                    chunk[2 * i + 1] = (byte) (sample >> 8);
+                }
+                writer.write(chunk, 0, count * 2);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    public long durationMillis() {
+        return length * 1000L / sampleRate;
+    }
+
+    private static AudioClip fromPcm(ByteBuffer data, int sampleRate) {
+        int count = data.remaining() / 2;
+        short[] samples = new short[count];
+        data.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(samples);
+        return new AudioClip(samples, count, sampleRate);
+    }
+
+    private static AudioClip fromAdpcm(ByteBuffer data, WavFile.Info info) {
+        int samplesPerBlock = ImaAdpcm.samplesPerBlock(info.blockAlign);
+        int blocks = (data.remaining() + info.blockAlign - 1) / info.blockAlign;
+        long capacity = (long) blocks * samplesPerBlock;
+        if (info.totalSamples > 0 && info.totalSamples < capacity) {
+            capacity = info.totalSamples;
+        }
+        short[] samples = new short[(int) capacity];
+        byte[] block = new byte[info.blockAlign];
+        short[] decoded = new short[samplesPerBlock];
+        int count = 0;
+        while (data.hasRemaining() && count < samples.length) {
+            int length = Math.min(block.length, data.remaining());
+            data.get(block, 0, length);
+            int decodedCount = Math.min(ImaAdpcm.decodeBlock(block, length, decoded), samples.length - count);
+            System.arraycopy(decoded, 0, samples, count, decodedCount);
+            count += decodedCount;
+        }
+        return new AudioClip(samples, count, info.sampleRate);
+    }
+}
@@ -0,0 +1,269 @@
+package com.iflytek.aikit.plugin;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 采集音频转储（现场诊断用）
+ * 采集线程把送入引擎前的 16kHz 单声道帧拷贝到预分配的缓冲池并入队，后台线程写入 WAV 文件。
+ * 缓冲池耗尽时直接丢帧并计数，采集线程永不阻塞；未开启时管理器持有的引用为null，没有任何开销。
+ * 文件按 流名_会话号_时间_序号.wav 命名，超过大小上限时滚动，超过数量上限时删除最旧的文件
+ */
+public class AudioDumper {
+    private static final String TAG = "AudioDumper";
+
+    public static final String STREAM_WAKEUP = "wakeup";
+    public static final String STREAM_COMMAND = "command";
+
+    /**
+     * 转储配置
+     */
+    public static class Config {
+        // 队列可缓存的帧数（40ms/帧，默认约20秒）
+        public int queueFrames = 512;
+        // 单个文件的最大字节数（默认约5分钟）
+        public long maxFileBytes = 10L * 1024 * 1024;
+        // 目录中保留的最大文件数
+        public int maxFiles = 20;
+    }
+
+    private static class Chunk {
+        String stream;
+        byte[] data;
+        int length;
+        // 非0时先结束该流的当前文件，本帧起写入此会话的新文件
+        int session;
+    }
+
+    /**
+     * 单个流当前写入的文件
+     */
+    private static class Output {
+        RandomAccessFile file;
+        String path;
+        int session;
+        int sequence;
+        long bytes;
+    }
+
+    private final File dir;
+    private final Config config;
+    private final ArrayBlockingQueue<Chunk> pool;
+    private final ArrayBlockingQueue<Chunk> queue;
+    private final Map<String, Output> outputs = new HashMap<>();
+    private final Map<String, Integer> sessions = new HashMap<>();
+    // 已开始但尚未随帧入队的会话号，由该流的下一帧带给写入线程
+    private final ConcurrentHashMap<String, Integer> pendingSessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCounter = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AudioDumper(File dir, Config config) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("无法创建转储目录: " + dir);
+        }
+        this.dir = dir;
+        this.config = config;
+        // 留出重采样输出比 40ms 略长的余量
+        int frameBytes = PcmFilePump.BYTES_PER_MS * 80;
+        this.pool = new ArrayBlockingQueue<>(config.queueFrames);
+        this.queue = new ArrayBlockingQueue<>(config.queueFrames);
+        for (int i = 0; i < config.queueFrames; i++) {
+            Chunk chunk = new Chunk();
+            chunk.data = new byte[frameBytes];
+            pool.offer(chunk);
+        }
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "AudioDumper");
+        writer.setDaemon(true);
+        writer.start();
+        Log.d(TAG, "音频转储已开启: " + dir);
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * 标记一个流的新会话开始（下一帧写入新文件），返回会话号
+     * 会话号随该流下一个入队的帧交给写入线程，缓冲池耗尽时也不会丢失
+     */
+    public int beginSession(String stream) {
+        int session = sessionCounter.incrementAndGet();
+        pendingSessions.put(stream, session);
+        return session;
+    }
+
+    /**
+     * 转储一帧（采集线程调用，不阻塞）
+     */
+    public void offer(String stream, byte[] frame, int length) {
+        if (!running) {
+            return;
+        }
+        Chunk chunk = pool.poll();
+        if (chunk == null) {
+            VoiceMetrics.getInstance().increment(VoiceMetrics.DUMP_DROPPED_FRAMES);
+            return;
+        }
+        if (chunk.data.length < length) {
+            chunk.data = new byte[length];
+        }
+        System.arraycopy(frame, 0, chunk.data, 0, length);
+        Integer session = pendingSessions.remove(stream);
+        chunk.stream = stream;
+        chunk.length = length;
+        chunk.session = session != null ? session : 0;
+        queue.offer(chunk);
+    }
+
+    /**
+     * 停止转储：写完队列中剩余的帧并关闭文件
+     */
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Chunk chunk;
+            try {
+                chunk = running ? queue.take() : queue.poll();
+            } catch (InterruptedException e) {
+                chunk = queue.poll();
+            }
+            if (chunk == null) {
+                if (!running) {
+                    break;
+                }
+                continue;
+            }
+            try {
+                if (chunk.session != 0) {
+                    closeOutput(chunk.stream);
+                    sessions.put(chunk.stream, chunk.session);
+                }
+                write(chunk.stream, chunk.data, chunk.length);
+            } catch (IOException e) {
+                Log.e(TAG, "写入转储文件失败: " + e.getMessage());
+                closeOutputQuietly(chunk.stream);
+            } finally {
+                pool.offer(chunk);
+            }
+        }
+        for (String stream : outputs.keySet().toArray(new String[0])) {
+            closeOutputQuietly(stream);
+        }
+        Log.d(TAG, "音频转储已停止");
+    }
+
+    private void write(String stream, byte[] data, int length) throws IOException {
+        Output output = outputs.get(stream);
+        if (output != null && output.bytes + length > config.maxFileBytes) {
+            int session = output.session;
+            int sequence = output.sequence + 1;
+            closeOutput(stream);
+            output = open(stream, session, sequence);
+        } else if (output == null) {
+            Integer session = sessions.get(stream);
+            output = open(stream, session != null ? session : sessionCounter.incrementAndGet(), 0);
+        }
+        output.file.write(data, 0, length);
+        output.bytes += length;
+    }
+
+    private Output open(String stream, int session, int sequence) throws IOException {
+        String time = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        File file = new File(dir, stream + "_" + session + "_" + time + "_" + sequence + ".wav");
+        Output output = new Output();
+        output.file = new RandomAccessFile(file, "rw");
+        output.file.setLength(0);
+        output.file.write(WavFile.pcmHeader(PcmResampler.TARGET_SAMPLE_RATE, 1, 0));
+        output.path = file.getAbsolutePath();
+        output.session = session;
+        output.sequence = sequence;
+        outputs.put(stream, output);
+        pruneOldFiles();
+        return output;
+    }
+
+    private void closeOutput(String stream) throws IOException {
+        Output output = outputs.remove(stream);
+        if (output == null) {
+            return;
+        }
+        try {
+            WavFile.patchSizes(output.file, output.bytes);
+        } finally {
+            output.file.close();
+        }
+        Log.d(TAG, "转储文件完成: " + output.path + ", " + PcmFilePump.offsetToMillis(output.bytes) + "ms");
+    }
+
+    private void closeOutputQuietly(String stream) {
+        try {
+            closeOutput(stream);
+        } catch (IOException e) {
+            Log.e(TAG, "关闭转储文件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 转储文件超过数量上限时删除最旧的（目录中的其他文件不计数也不删除）
+     */
+    private void pruneOldFiles() {
+        File[] files = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File parent, String name) {
+                return name.endsWith(".wav");
+            }
+        });
+        if (files == null || files.length <= config.maxFiles) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(a.lastModified(), b.lastModified());
+            }
+        });
+        for (int i = 0; i < files.length - config.maxFiles; i++) {
+            if (!isOpen(files[i])) {
+                files[i].delete();
+            }
+        }
+    }
+
+    private boolean isOpen(File file) {
+        for (Output output : outputs.values()) {
+            if (file.getAbsolutePath().equals(output.path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
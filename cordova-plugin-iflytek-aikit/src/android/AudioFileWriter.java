@@ -0,0 +1,99 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * 合成音频文件写入
+ * 支持裸 PCM、PCM WAV 与 IMA-ADPCM WAV 三种格式。WAV 先写占位头，合成结束关闭时回填长度；
+ * ADPCM 边收边按块编码，体积约为 PCM 的 1/4，适合缓存的提示音
+ */
+public class AudioFileWriter {
+
+    public static final String FORMAT_PCM = "pcm";
+    public static final String FORMAT_WAV = "wav";
+    public static final String FORMAT_ADPCM = "adpcm";
+
+    private final RandomAccessFile file;
+    private final String format;
+    private final ImaAdpcm.Encoder encoder;
+    private long dataBytes;
+
+    public AudioFileWriter(File output, String format, int sampleRate) throws IOException {
+        this.format = format;
+        this.file = new RandomAccessFile(output, "rw");
+        file.setLength(0);
+        if (FORMAT_WAV.equals(format)) {
+            file.write(WavFile.pcmHeader(sampleRate, 1, 0));
+            encoder = null;
+        } else if (FORMAT_ADPCM.equals(format)) {
+            int blockAlign = ImaAdpcm.blockAlignFor(sampleRate);
+            file.write(WavFile.adpcmHeader(sampleRate, blockAlign, 0, 0));
+            encoder = new ImaAdpcm.Encoder(blockAlign);
+        } else {
+            encoder = null;
+        }
+    }
+
+    /**
+     * 解析格式名，未指定时按文件扩展名推断（.wav 为 PCM WAV，其余为裸 PCM）
+     */
+    public static String resolveFormat(String format, String fileName) {
+        if (format != null) {
+            String lower = format.toLowerCase();
+            if (FORMAT_WAV.equals(lower) || FORMAT_ADPCM.equals(lower) || FORMAT_PCM.equals(lower)) {
+                return lower;
+            }
+        }
+        if (fileName != null && fileName.toLowerCase().endsWith(".wav")) {
+            return FORMAT_WAV;
+        }
+        return FORMAT_PCM;
+    }
+
+    /**
+     * 按格式修正文件扩展名（裸 PCM 为 .pcm，WAV/ADPCM 为 .wav）
+     */
+    public static String fileNameFor(String fileName, String format) {
+        String extension = FORMAT_PCM.equals(format) ? ".pcm" : ".wav";
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".pcm") || lower.endsWith(".wav")) {
+            fileName = fileName.substring(0, fileName.length() - 4);
+        }
+        return fileName + extension;
+    }
+
+    public void write(byte[] data) throws IOException {
+        write(data, 0, data.length);
+    }
+
+    public void write(byte[] data, int offset, int length) throws IOException {
+        if (encoder != null) {
+            encoder.write(data, offset, length, file);
+        } else {
+            file.write(data, offset, length);
+            dataBytes += length;
+        }
+    }
+
+    /**
+     * 结束写入：输出最后一个 ADPCM 块并回填头部长度
+     */
+    public void close() throws IOException {
+        try {
+            if (FORMAT_WAV.equals(format)) {
+                WavFile.patchSizes(file, dataBytes);
+            } else if (encoder != null) {
+                encoder.finish(file);
+                WavFile.patchAdpcmSizes(file, encoder.getDataBytes(), encoder.getTotalSamples());
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    public String getFormat() {
+        return format;
+    }
+}
@@ -6,20 +6,23 @@ import android.media.AudioRecord;
 import android.media.AudioTrack;
 import android.util.Log;
 
-import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * 音频播放管理器
- * 用于播放PCM格式的音频文件
+ * 用于播放PCM格式的音频文件。WAV 文件（PCM 或 IMA-ADPCM）按文件头自动识别编码与采样率，
+ * 裸 PCM 使用 setSampleRate 设置的采样率
  * 参考原生代码 AudioTrackManager.java
  */
 public class AudioTrackManager {
     private static final String TAG = "AudioTrackManager";
 
     private AudioTrack mAudioTrack;
-    private DataInputStream mDis; // 播放文件的数据流
+    private volatile ByteBuffer mData; // 播放文件的音频数据（内存映射）
+    private WavFile.Info mWavInfo; // 为null表示裸 PCM
     private Thread mRecordThread;
     private boolean isStart = false;
     private volatile static AudioTrackManager mInstance;
@@ -67,6 +70,13 @@ public class AudioTrackManager {
                 newSampleRate = mSampleRateIn24KHz;
                 break;
         }
+        applySampleRate(newSampleRate);
+    }
+
+    /**
+     * 切换播放采样率，改变时重建 AudioTrack
+     */
+    private void applySampleRate(int newSampleRate) {
         // 如果采样率改变，重新初始化数据
         if (newSampleRate != mSampleRate) {
             mSampleRate = newSampleRate;
@@ -135,23 +145,29 @@ public class AudioTrackManager {
             try {
                 // 设置线程的优先级
                 android.os.Process.setThreadPriority(android.os.Process.THREAD_PRIORITY_URGENT_AUDIO);
-                byte[] tempBuffer = new byte[mMinBufferSize];
-                int readCount = 0;
-                while (mDis.available() > 0) {
-                    readCount = mDis.read(tempBuffer);
-                    if (readCount == AudioTrack.ERROR_INVALID_OPERATION || readCount == AudioTrack.ERROR_BAD_VALUE) {
-                        continue;
-                    }
-                    if (readCount != 0 && readCount != -1) { // 一边播放一边写入语音数据
-                        // 判断AudioTrack未初始化，停止播放的时候释放了，状态就为STATE_UNINITIALIZED
-                        if (mAudioTrack.getState() == mAudioTrack.STATE_UNINITIALIZED) {
-                            initData();
-                        }
-                        mAudioTrack.play();
+                ByteBuffer data = mData;
+                WavFile.Info info = mWavInfo;
+                if (data == null) {
+                    return;
+                }
+                // 判断AudioTrack未初始化，停止播放的时候释放了，状态就为STATE_UNINITIALIZED
+                if (mAudioTrack.getState() == mAudioTrack.STATE_UNINITIALIZED) {
+                    initData();
+                }
+                mAudioTrack.play();
+                if (info != null && info.format == WavFile.FORMAT_IMA_ADPCM) {
+                    playAdpcm(data, info);
+                } else {
+                    byte[] tempBuffer = new byte[mMinBufferSize];
+                    while (isStart && data.hasRemaining()) { // 一边播放一边写入语音数据
+                        int readCount = Math.min(tempBuffer.length, data.remaining());
+                        data.get(tempBuffer, 0, readCount);
                         mAudioTrack.write(tempBuffer, 0, readCount);
                     }
                 }
-                stopPlay(); // 播放完就停止播放
+                if (isStart) {
+                    stopPlay(); // 播放完就停止播放
+                }
             } catch (Exception e) {
                 Log.e(TAG, "播放线程异常: " + e.getMessage());
                 e.printStackTrace();
@@ -159,6 +175,22 @@ public class AudioTrackManager {
         }
     };
 
+    /**
+     * 逐块解码 ADPCM 并写入 AudioTrack，按 fact 块记录的样本数截掉末块补齐部分
+     */
+    private void playAdpcm(ByteBuffer data, WavFile.Info info) {
+        byte[] block = new byte[info.blockAlign];
+        short[] samples = new short[ImaAdpcm.samplesPerBlock(info.blockAlign)];
+        long samplesLeft = info.totalSamples > 0 ? info.totalSamples : Long.MAX_VALUE;
+        while (isStart && data.hasRemaining() && samplesLeft > 0) {
+            int length = Math.min(block.length, data.remaining());
+            data.get(block, 0, length);
+            int count = (int) Math.min(ImaAdpcm.decodeBlock(block, length, samples), samplesLeft);
+            samplesLeft -= count;
+            mAudioTrack.write(samples, 0, count);
+        }
+    }
+
     /**
      * 播放文件
      *
@@ -170,7 +202,26 @@ public class AudioTrackManager {
         if (!file.exists()) {
             throw new Exception("音频文件不存在: " + path);
         }
-        mDis = new DataInputStream(new FileInputStream(file));
+        ByteBuffer buffer;
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        WavFile.Info info = WavFile.parse(buffer);
+        if (info != null) {
+            boolean pcm = info.format == WavFile.FORMAT_PCM && info.bitsPerSample == 16;
+            boolean adpcm = info.format == WavFile.FORMAT_IMA_ADPCM && info.blockAlign > 4;
+            if (info.channels != 1 || (!pcm && !adpcm)) {
+                throw new Exception("不支持的WAV格式: format=" + info.format + ", channels=" + info.channels
+                        + ", bits=" + info.bitsPerSample);
+            }
+            // 文件头中的采样率优先于调用方设置
+            applySampleRate(info.sampleRate);
+            buffer.position((int) info.dataOffset);
+            buffer.limit((int) (info.dataOffset + info.dataLength));
+            buffer = buffer.slice();
+        }
+        mWavInfo = info;
+        mData = buffer;
     }
 
     /**
@@ -202,9 +253,7 @@ public class AudioTrackManager {
                     mAudioTrack.release(); // 释放audioTrack资源
                 }
             }
-            if (mDis != null) {
-                mDis.close(); // 关闭数据输入流
-            }
+            mData = null; // 映射缓冲区由GC回收
             Log.d(TAG, "停止播放");
         } catch (Exception e) {
             Log.e(TAG, "停止播放异常: " + e.getMessage());
@@ -0,0 +1,197 @@
+package com.iflytek.aikit.plugin;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 命令词 -> 串口帧 动作表
+ * 识别到最终结果（plain）后在原生层查表，直接通过 cordova-plugin-serialport-y 已打开的串口写出字节帧，
+ * 写完再通知JS，控制链路不经过 WebView。
+ * 串口插件为可选依赖，通过反射调用 com.yy.serialport.SerialPortPlugin.writeFrame(byte[])
+ */
+public class CommandDispatcher {
+    private static final String TAG = "CommandDispatcher";
+
+    private static final String SERIAL_PLUGIN_CLASS = "com.yy.serialport.SerialPortPlugin";
+    private static final String SERIAL_WRITE_METHOD = "writeFrame";
+
+    /**
+     * 一次分发的结果
+     */
+    public static class Result {
+        public final String command;
+        public final String frameHex;
+        public final boolean written;
+        public final String error;
+        public final long elapsedMicros;
+
+        Result(String command, String frameHex, boolean written, String error, long elapsedMicros) {
+            this.command = command;
+            this.frameHex = frameHex;
+            this.written = written;
+            this.error = error;
+            this.elapsedMicros = elapsedMicros;
+        }
+    }
+
+    // 归一化后的命令词 -> 字节帧
+    private final Map<String, byte[]> frames = new HashMap<>();
+    private final Map<String, String> frameHexes = new HashMap<>();
+    private Method writeMethod;
+    private boolean writeMethodResolved;
+
+    /**
+     * 从JSON构建动作表，支持两种格式：
+     * { "打开空调": "AA 01 01 55", ... }
+     * [ { "command": "打开空调", "frame": "AA010155" }, ... ]
+     */
+    public static CommandDispatcher fromJson(Object json) throws JSONException {
+        CommandDispatcher dispatcher = new CommandDispatcher();
+        if (json instanceof JSONObject) {
+            JSONObject object = (JSONObject) json;
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String command = keys.next();
+                dispatcher.put(command, object.getString(command));
+            }
+        } else if (json instanceof JSONArray) {
+            JSONArray array = (JSONArray) json;
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                dispatcher.put(item.getString("command"), item.getString("frame"));
+            }
+        } else {
+            throw new JSONException("动作表格式错误，应为对象或数组");
+        }
+        return dispatcher;
+    }
+
+    private void put(String command, String hex) throws JSONException {
+        byte[] frame = hexToBytes(hex);
+        if (frame == null || frame.length == 0) {
+            throw new JSONException("命令词 " + command + " 的串口帧无效: " + hex);
+        }
+        String key = normalize(command);
+        frames.put(key, frame);
+        frameHexes.put(key, bytesToHex(frame));
+    }
+
+    public int size() {
+        return frames.size();
+    }
+
+    /**
+     * 查表并写出串口帧
+     *
+     * @return 命令词不在动作表中时返回null
+     */
+    public Result dispatch(String plainResult) {
+        if (plainResult == null) {
+            return null;
+        }
+        String key = normalize(plainResult);
+        byte[] frame = frames.get(key);
+        if (frame == null) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        String error = null;
+        boolean written = false;
+        Method method = resolveWriteMethod();
+        if (method == null) {
+            error = "未安装串口插件 cordova-plugin-serialport-y";
+        } else {
+            try {
+                written = (Boolean) method.invoke(null, (Object) frame);
+                if (!written) {
+                    error = "串口未打开或写入失败";
+                }
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                error = "串口写入失败: " + cause.getMessage();
+            }
+        }
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+        VoiceMetrics.getInstance().record(VoiceMetrics.COMMAND_DISPATCH, elapsedMicros / 1000.0);
+        if (!written) {
+            VoiceMetrics.getInstance().increment(VoiceMetrics.DISPATCH_ERRORS);
+            Log.w(TAG, "分发失败: " + plainResult + " - " + error);
+        } else {
+            Log.d(TAG, "已分发: " + plainResult + " -> " + frameHexes.get(key) + ", 耗时: " + elapsedMicros + "us");
+        }
+        return new Result(plainResult, frameHexes.get(key), written, error, elapsedMicros);
+    }
+
+    /**
+     * 反射查找串口插件的写入方法（只查找一次）
+     */
+    private synchronized Method resolveWriteMethod() {
+        if (!writeMethodResolved) {
+            writeMethodResolved = true;
+            try {
+                Class<?> clazz = Class.forName(SERIAL_PLUGIN_CLASS);
+                writeMethod = clazz.getMethod(SERIAL_WRITE_METHOD, byte[].class);
+            } catch (Exception e) {
+                Log.w(TAG, "未找到串口插件写入方法: " + e.getMessage());
+                writeMethod = null;
+            }
+        }
+        return writeMethod;
+    }
+
+    /**
+     * 归一化命令词：去掉空白与常见标点
+     */
+    static String normalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || "，。！？、,.!?;；:：".indexOf(c) >= 0) {
+                continue;
+            }
+            builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        StringBuilder digits = new StringBuilder(hex.length());
+        for (int i = 0; i < hex.length(); i++) {
+            char c = hex.charAt(i);
+            if (Character.digit(c, 16) >= 0) {
+                digits.append(c);
+            } else if (!Character.isWhitespace(c) && c != '-' && c != ':') {
+                return null;
+            }
+        }
+        if (digits.length() % 2 != 0) {
+            digits.insert(0, '0');
+        }
+        byte[] bytes = new byte[digits.length() / 2];
+        for (int i = 0; i < digits.length(); i += 2) {
+            bytes[i / 2] = (byte) ((Character.digit(digits.charAt(i), 16) << 4)
+                    + Character.digit(digits.charAt(i + 1), 16));
+        }
+        return bytes;
+    }
+
+    private static String bytesToHex(byte[] bytes) {
+        final char[] hexArray = "0123456789ABCDEF".toCharArray();
+        char[] hexChars = new char[bytes.length * 2];
+        for (int j = 0; j < bytes.length; j++) {
+            int v = bytes[j] & 0xFF;
+            hexChars[j * 2] = hexArray[v >>> 4];
+            hexChars[j * 2 + 1] = hexArray[v & 0x0F];
+        }
+        return new String(hexChars);
+    }
+}
@@ -0,0 +1,403 @@
+package com.iflytek.aikit.plugin;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 命令词模糊匹配
+ * 从FSA语法展开全部命令词，按字符二元组建立倒排索引。识别只得到渐进式结果（pgs）而没有最终结果时，
+ * 用二元组召回候选，再按编辑距离打分，把近似的说法纠正为最接近的命令词。
+ * 打分在时间预算内完成，超时返回已算出的最优结果。索引只读，可多线程共用
+ */
+public class CommandMatcher {
+    private static final String TAG = "CommandMatcher";
+
+    // 展开FSA时的命令词数量上限与规则嵌套深度上限
+    private static final int MAX_COMMANDS = 10000;
+    private static final int MAX_RULE_DEPTH = 8;
+
+    /**
+     * 匹配配置
+     */
+    public static class Config {
+        // 最低得分（0-1），低于此值仍按不支持处理
+        public float minScore = 0.6f;
+        // 单次匹配的时间预算
+        public long budgetMicros = 5000;
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static class Match {
+        public final String command;
+        public final float score;
+        public final long elapsedMicros;
+        // 因超出时间预算而未比较全部候选
+        public final boolean truncated;
+
+        Match(String command, float score, long elapsedMicros, boolean truncated) {
+            this.command = command;
+            this.score = score;
+            this.elapsedMicros = elapsedMicros;
+            this.truncated = truncated;
+        }
+    }
+
+    private final String[] commands;
+    private final char[][] normalized;
+    private final Map<String, Integer> exact = new HashMap<>();
+    // 二元组 -> 包含它的命令词序号
+    private final Map<Integer, int[]> bigramIndex = new HashMap<>();
+
+    public CommandMatcher(List<String> commandList) {
+        this.commands = commandList.toArray(new String[0]);
+        this.normalized = new char[commands.length][];
+
+        Map<Integer, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < commands.length; i++) {
+            String key = CommandDispatcher.normalize(commands[i]);
+            normalized[i] = key.toCharArray();
+            exact.put(key, i);
+            Set<Integer> grams = new LinkedHashSet<>();
+            for (int g : bigrams(normalized[i])) {
+                grams.add(g);
+            }
+            for (int g : grams) {
+                List<Integer> list = postings.get(g);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    postings.put(g, list);
+                }
+                list.add(i);
+            }
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : postings.entrySet()) {
+            List<Integer> list = entry.getValue();
+            int[] ids = new int[list.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = list.get(i);
+            }
+            bigramIndex.put(entry.getKey(), ids);
+        }
+    }
+
+    /**
+     * 从FSA文件构建（支持 UTF-8 与 GBK 编码）
+     */
+    public static CommandMatcher fromFsa(String fsaPath) throws IOException {
+        List<String> commandList = parseFsa(readText(fsaPath));
+        Log.d(TAG, "FSA命令词展开完成: " + commandList.size() + " 条");
+        return new CommandMatcher(commandList);
+    }
+
+    public int size() {
+        return commands.length;
+    }
+
+    /**
+     * 把识别文本匹配到最接近的命令词
+     *
+     * @return 得分低于 minScore 或无候选时返回null
+     */
+    public Match match(String text, Config config) {
+        if (text == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        long deadline = start + config.budgetMicros * 1000;
+        char[] query = CommandDispatcher.normalize(text).toCharArray();
+        if (query.length == 0) {
+            return null;
+        }
+
+        Integer hit = exact.get(new String(query));
+        if (hit != null) {
+            return new Match(commands[hit], 1f, (System.nanoTime() - start) / 1000, false);
+        }
+
+        // 二元组召回：按共享二元组数量排序，没有共享时退化为全量比较
+        int[] shared = new int[commands.length];
+        int candidateCount = 0;
+        for (int g : bigrams(query)) {
+            int[] ids = bigramIndex.get(g);
+            if (ids == null) {
+                continue;
+            }
+            for (int id : ids) {
+                if (shared[id]++ == 0) {
+                    candidateCount++;
+                }
+            }
+        }
+        Integer[] candidates;
+        if (candidateCount > 0) {
+            candidates = new Integer[candidateCount];
+            int n = 0;
+            for (int i = 0; i < shared.length; i++) {
+                if (shared[i] > 0) {
+                    candidates[n++] = i;
+                }
+            }
+            final int[] counts = shared;
+            Arrays.sort(candidates, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return counts[b] - counts[a];
+                }
+            });
+        } else {
+            candidates = new Integer[commands.length];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = i;
+            }
+        }
+
+        int best = -1;
+        float bestScore = 0f;
+        boolean truncated = false;
+        int[] row = new int[query.length + 1];
+        for (int i = 0; i < candidates.length; i++) {
+            if (i > 0 && System.nanoTime() > deadline) {
+                truncated = true;
+                break;
+            }
+            int id = candidates[i];
+            float score = score(query, normalized[id], row);
+            if (score > bestScore) {
+                bestScore = score;
+                best = id;
+            }
+        }
+
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+        if (best < 0 || bestScore < config.minScore) {
+            Log.d(TAG, "未匹配: " + text + ", 最高得分: " + bestScore + ", 耗时: " + elapsedMicros + "us");
+            return null;
+        }
+        Log.d(TAG, "模糊匹配: " + text + " -> " + commands[best] + ", 得分: " + bestScore
+                + ", 耗时: " + elapsedMicros + "us");
+        return new Match(commands[best], bestScore, elapsedMicros, truncated);
+    }
+
+    /**
+     * 得分：整句编辑距离相似度，与命令词在识别文本中最佳子串的相似度（容忍“帮我”“一下”等多余字，略打折扣）取较大值
+     */
+    private static float score(char[] query, char[] command, int[] row) {
+        int longest = Math.max(query.length, command.length);
+        float global = 1f - (float) distance(query, command, row, false) / longest;
+        if (command.length < 2 || query.length <= command.length) {
+            return global;
+        }
+        float local = 1f - (float) distance(query, command, row, true) / command.length;
+        return Math.max(global, local * 0.9f);
+    }
+
+    /**
+     * 单行滚动的编辑距离；substring 为 true 时命令词可与识别文本的任意子串对齐（首尾多余字不计代价）
+     */
+    private static int distance(char[] query, char[] command, int[] row, boolean substring) {
+        int n = query.length;
+        for (int j = 0; j <= n; j++) {
+            row[j] = substring ? 0 : j;
+        }
+        for (int i = 1; i <= command.length; i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            char c = command[i - 1];
+            for (int j = 1; j <= n; j++) {
+                int above = row[j];
+                int cost = query[j - 1] == c ? 0 : 1;
+                row[j] = Math.min(Math.min(above + 1, row[j - 1] + 1), diagonal + cost);
+                diagonal = above;
+            }
+        }
+        if (!substring) {
+            return row[n];
+        }
+        int min = row[0];
+        for (int j = 1; j <= n; j++) {
+            min = Math.min(min, row[j]);
+        }
+        return min;
+    }
+
+    /**
+     * 字符二元组（单字时取该字）
+     */
+    private static int[] bigrams(char[] text) {
+        if (text.length == 1) {
+            return new int[] { text[0] };
+        }
+        int[] grams = new int[Math.max(0, text.length - 1)];
+        for (int i = 0; i + 1 < text.length; i++) {
+            grams[i] = (text[i] << 16) | text[i + 1];
+        }
+        return grams;
+    }
+
+    /**
+     * 解析FSA：按状态转移从0号状态走到终止状态，展开路径上的规则引用，得到全部命令词
+     * 格式示例：
+     * #FSA 1.0;
+     * 0	1	<esr>
+     * ;
+     * <esr>:打开空调|关闭空调;
+     */
+    static List<String> parseFsa(String text) {
+        Map<String, List<String>> rules = new HashMap<>();
+        Map<Integer, List<Object[]>> edges = new HashMap<>();
+        Set<Integer> sources = new LinkedHashSet<>();
+        Set<Integer> targets = new LinkedHashSet<>();
+
+        for (String statement : text.split(";")) {
+            String body = statement.trim();
+            if (body.isEmpty() || body.startsWith("#")) {
+                continue;
+            }
+            int colon = body.indexOf(':');
+            if (body.startsWith("<") && colon > 0) {
+                String name = body.substring(0, colon).trim();
+                List<String> alternatives = new ArrayList<>();
+                for (String alternative : body.substring(colon + 1).split("\\|")) {
+                    String value = alternative.trim();
+                    if (!value.isEmpty()) {
+                        alternatives.add(value);
+                    }
+                }
+                rules.put(name, alternatives);
+                continue;
+            }
+            for (String line : body.split("\n")) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 3) {
+                    continue;
+                }
+                try {
+                    int from = Integer.parseInt(parts[0]);
+                    int to = Integer.parseInt(parts[1]);
+                    List<Object[]> out = edges.get(from);
+                    if (out == null) {
+                        out = new ArrayList<>();
+                        edges.put(from, out);
+                    }
+                    out.add(new Object[] { to, parts[2] });
+                    sources.add(from);
+                    targets.add(to);
+                } catch (NumberFormatException ignored) {
+                    // 非状态转移行
+                }
+            }
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        if (!edges.isEmpty()) {
+            walk(0, "", edges, rules, result, 0);
+        } else {
+            // 没有状态转移时，展开所有未被引用的规则
+            for (Map.Entry<String, List<String>> entry : rules.entrySet()) {
+                boolean referenced = false;
+                for (List<String> alternatives : rules.values()) {
+                    for (String alternative : alternatives) {
+                        if (alternative.contains(entry.getKey())) {
+                            referenced = true;
+                        }
+                    }
+                }
+                if (!referenced) {
+                    result.addAll(expand(entry.getKey(), rules, 0));
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static void walk(int state, String prefix, Map<Integer, List<Object[]>> edges,
+            Map<String, List<String>> rules, Set<String> result, int depth) {
+        List<Object[]> out = edges.get(state);
+        if (out == null || depth > MAX_RULE_DEPTH) {
+            if (!prefix.isEmpty() && result.size() < MAX_COMMANDS) {
+                result.add(prefix);
+            }
+            return;
+        }
+        for (Object[] edge : out) {
+            for (String piece : expand((String) edge[1], rules, 0)) {
+                if (result.size() >= MAX_COMMANDS) {
+                    return;
+                }
+                walk((Integer) edge[0], prefix + piece, edges, rules, result, depth + 1);
+            }
+        }
+    }
+
+    /**
+     * 展开一个片段中的 <规则> 引用
+     */
+    private static List<String> expand(String fragment, Map<String, List<String>> rules, int depth) {
+        List<String> out = new ArrayList<>();
+        int open = fragment.indexOf('<');
+        int close = open >= 0 ? fragment.indexOf('>', open) : -1;
+        if (open < 0 || close < 0 || depth > MAX_RULE_DEPTH) {
+            out.add(fragment);
+            return out;
+        }
+        String head = fragment.substring(0, open);
+        List<String> alternatives = rules.get(fragment.substring(open, close + 1));
+        List<String> tails = expand(fragment.substring(close + 1), rules, depth);
+        if (alternatives == null) {
+            alternatives = new ArrayList<>();
+            alternatives.add("");
+        }
+        for (String alternative : alternatives) {
+            for (String middle : expand(alternative, rules, depth + 1)) {
+                for (String tail : tails) {
+                    if (out.size() >= MAX_COMMANDS) {
+                        return out;
+                    }
+                    out.add(head + middle + tail);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 读取文本：优先按 UTF-8 解码，失败时按 GBK（讯飞示例FSA为GBK编码）
+     */
+    private static String readText(String path) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (InputStream in = new FileInputStream(path)) {
+            byte[] chunk = new byte[4096];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+        }
+        byte[] bytes = buffer.toByteArray();
+        try {
+            return Charset.forName("UTF-8").newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, "GBK");
+        }
+    }
+}
@@ -1,29 +1,25 @@
 package com.iflytek.aikit.plugin;
 
-import android.app.Activity;
+import android.content.Context;
 import android.media.AudioFormat;
 import android.media.AudioRecord;
 import android.media.MediaRecorder;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 
-import com.iflytek.aikit.core.AiAudio;
-import com.iflytek.aikit.core.AiHandle;
-import com.iflytek.aikit.core.AiHelper;
-import com.iflytek.aikit.core.AiListener;
-import com.iflytek.aikit.core.AiRequest;
-import com.iflytek.aikit.core.AiResponse;
-import com.iflytek.aikit.core.AiStatus;
-
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.UnsupportedEncodingException;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 命令词识别管理器
@@ -35,10 +31,14 @@ public class CommandRecognitionManager {
     // 能力ID定义
     private static final String ABILITY_ESR = "e75f07b62"; // 命令词识别
 
-    private Activity activity;
-    private Handler mainHandler;
+    private Context context;
+    private AiEngine engine;
+    // 会话定时器（超时、预启动取消、端点收尾）在独立线程执行，不占用主线程
+    private final ScheduledExecutorService scheduler;
+    // 串行化音频写入与结束会话，保证 end 之后不会再写入旧句柄
+    private final Object sessionLock = new Object();
 
-    private AiHandle commandHandle;
+    private AiEngine.Handle commandHandle;
     private AtomicBoolean isCommandEnd = new AtomicBoolean(true);
     private AudioRecord commandAudioRecord;
     private final int BUFFER_SIZE = 1280;
@@ -51,9 +51,67 @@ public class CommandRecognitionManager {
 
     // 超时定时器
     private static final int DEFAULT_TIMEOUT_SECONDS = 10; // 默认超时时间10秒
-    private Runnable timeoutRunnable;
+    private volatile ScheduledFuture<?> timeoutFuture;
     private int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
 
+    // 语音端点：说话后静音达到 endSilenceMs 即结束输入，不再等待固定超时；0表示不启用
+    private static final int DEFAULT_END_SILENCE_MS = 800;
+    // 结束输入后等待引擎返回最终结果的时间
+    private static final long ENDPOINT_RESULT_WAIT_MS = 1500;
+    private volatile int endSilenceMs = DEFAULT_END_SILENCE_MS;
+    // 开始后一直未检测到语音时提前结束；0表示只依赖超时
+    private volatile int noSpeechTimeoutMs = 0;
+    private volatile ScheduledFuture<?> endpointFuture;
+
+    // 前端VAD配置，为null时不启用
+    private volatile EnergyVad.Config vadConfig;
+    // 麦克风采集格式，非 16kHz 单声道时在录音线程内转换
+    private volatile int captureSampleRate = PcmResampler.TARGET_SAMPLE_RATE;
+    private volatile int captureChannels = 1;
+
+    // 预启动状态：空闲 / 已预启动等待确认 / 已确认（音频来自唤醒录音）
+    private static final int SPECULATIVE_IDLE = 0;
+    private static final int SPECULATIVE_PENDING = 1;
+    private static final int SPECULATIVE_COMMITTED = 2;
+    private final AtomicInteger speculativeState = new AtomicInteger(SPECULATIVE_IDLE);
+    private ScheduledFuture<?> speculativeCancelFuture;
+    // 预启动期间缓存的唤醒录音，确认时补写入识别会话
+    private static final int SPECULATIVE_LOOKBACK_FRAMES = 8;
+    private final byte[][] speculativeRing = new byte[SPECULATIVE_LOOKBACK_FRAMES][BUFFER_SIZE];
+    private final int[] speculativeRingLengths = new int[SPECULATIVE_LOOKBACK_FRAMES];
+    private int speculativeRingStart;
+    private int speculativeRingCount;
+    private boolean tapFirstFrame;
+    private int tapFrameCount;
+
+    // 音频转储，为null时不转储
+    private volatile AudioDumper audioDumper;
+
+    // 命令词动作表，为null时不分发
+    private volatile CommandDispatcher commandDispatcher;
+
+    // 模糊匹配配置，为null时不启用；索引按FSA路径缓存
+    private volatile CommandMatcher.Config matcherConfig;
+    private volatile CommandMatcher commandMatcher;
+    private String matcherFsaPath;
+
+    // 中英文并行识别：两种语言的FSA分别加载到独立的数据集序号，两个会话共享同一路录音
+    private static final int BILINGUAL_CN_INDEX = 1;
+    private static final int BILINGUAL_EN_INDEX = 2;
+    private final Map<Integer, String> loadedFsaPaths = new HashMap<>();
+    private volatile AiEngine.Handle secondaryHandle;
+    private volatile boolean bilingual = false;
+    private boolean bilingualDecided;
+    // 各会话已结束但没有 plain 结果时暂存其结果，等另一个会话
+    private EsrResultParser.Result cnOutcome;
+    private EsrResultParser.Result enOutcome;
+
+    // 文件识别每句写入结束帧后等待最终结果的时间
+    private static final long FILE_RESULT_WAIT_MS = 3000;
+
+    // 最近一次VAD事件时间（用于统计语音结束到结果的延迟）
+    private volatile long lastVadNanos = 0;
+
     // 事件回调接口
     public interface CommandResultCallback {
         void onSuccess(Object result);
@@ -67,9 +125,28 @@ public class CommandRecognitionManager {
 
     private CommandEventCallback eventCallback;
 
-    public CommandRecognitionManager(Activity activity) {
-        this.activity = activity;
-        this.mainHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 唤醒后预启动识别的配置
+     */
+    public static class SpeculativeConfig {
+        public String fsaPath;
+        public int languageType;
+        public int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+        // 预唤醒后多久未确认则取消
+        public long cancelAfterMs = 1500;
+    }
+
+    public CommandRecognitionManager(Context context, AiEngine engine) {
+        this.context = context.getApplicationContext();
+        this.engine = engine;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CommandTimer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
     }
 
     /**
@@ -104,212 +181,32 @@ public class CommandRecognitionManager {
             if (commandHandle != null && !isCommandEnd.get()) {
                 Log.w(TAG, "检测到识别正在运行，先停止之前的识别");
                 stopCommandRecognition(null);
-                // 等待一下确保停止完成
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
             }
 
             // 取消之前的超时定时器（如果有）
             cancelTimeoutTimer();
 
-            commandLanguageType = languageType;
-            commandFsaPath = fsaPath;
-
-            // 初始化引擎（如果需要）
-            if (!isCommandEngineInit) {
-                Log.d(TAG, "步骤1: 初始化命令词引擎");
-                initCommandEngine();
-                Log.d(TAG, "引擎初始化结果: " + isCommandEngineInit);
-            } else {
-                Log.d(TAG, "步骤1: 引擎已初始化，跳过");
-            }
-
-            // 加载FSA数据
-            if (!isCommandLoadData) {
-                Log.d(TAG, "步骤2: 加载FSA数据");
-                AiRequest.Builder customBuilder = AiRequest.builder();
-                customBuilder.customText("FSA", fsaPath, commandIndex);
-                int ret = AiHelper.getInst().loadData(ABILITY_ESR, customBuilder.build());
-                Log.d(TAG, "加载FSA数据结果: " + ret);
-                if (ret != 0) {
-                    Log.e(TAG, "加载FSA数据失败: " + ret);
-                    callback.onError("加载FSA数据失败: " + ret);
-                    return;
-                }
-                isCommandLoadData = true;
-            } else {
-                Log.d(TAG, "步骤2: FSA数据已加载，跳过");
-            }
-
-            // 设置数据集
-            Log.d(TAG, "步骤3: 设置数据集");
-            int[] indexs = { commandIndex };
-            int ret = AiHelper.getInst().specifyDataSet(ABILITY_ESR, "FSA", indexs);
-            Log.d(TAG, "设置数据集结果: " + ret);
-            if (ret != 0) {
-                Log.e(TAG, "设置数据集失败: " + ret);
-                callback.onError("设置数据集失败: " + ret);
+            // 步骤1-3: 初始化引擎、加载FSA数据、设置数据集
+            String prepareError = prepareCommandSession(fsaPath, languageType);
+            if (prepareError != null) {
+                callback.onError(prepareError);
                 return;
             }
 
-            // 注册监听器（只注册一次）
+            // 注册监听器
             Log.d(TAG, "步骤4: 注册监听器");
-            AiHelper.getInst().registerListener(ABILITY_ESR, new AiListener() {
-                @Override
-                public void onResult(int handleID, List<AiResponse> outputData, Object usrContext) {
-                    Log.d(TAG, "========== 收到识别结果 ==========");
-                    Log.d(TAG, "handleID: " + handleID);
-                    Log.d(TAG, "outputData数量: " + (outputData != null ? outputData.size() : 0));
-
-                    if (outputData != null && outputData.size() > 0) {
-                        /**
-                         * key的取值以及含义
-                         * pgs:progressive格式的结果，即可以实时刷屏
-                         * htk:带有分词信息的结果，每一个分词结果占一行
-                         * plain:类比于htk，把一句话结果中的所有分词拼成完整一句，若有后处理，则也含有后处理的结果信息，plain是每一段话的最终结果
-                         * vad:语音端点检测结果(需要打开vad功能才会返回)bg:前端点，ed:后端点。单位:帧(10ms)
-                         * readable:json格式的结果。
-                         */
-
-                        // 统计信息
-                        boolean hasVad = false;
-                        boolean hasPgs = false;
-                        boolean hasPlain = false;
-                        String lastPgsResult = null;
-                        String plainResult = null;
-
-                        // 用于pgs结果去重（用于实时进度显示）
-                        Set<String> sentPgsResults = new HashSet<>();
-
-                        // 第一遍遍历：统计所有结果类型
-                        for (AiResponse response : outputData) {
-                            String key = response.getKey();
-                            byte[] valueBytes = response.getValue();
-
-                            Log.d(TAG, "处理响应 - key: " + key + ", status: " + response.getStatus() + ", value长度: "
-                                    + (valueBytes != null ? valueBytes.length : 0));
-
-                            if (key == null)
-                                continue;
-
-                            // 统计VAD事件
-                            if (key.contains("vad")) {
-                                hasVad = true;
-                                Log.d(TAG, "检测到VAD事件: " + key);
-                                continue; // VAD事件不参与后续处理
-                            }
-
-                            // 处理pgs结果（渐进式结果）
-                            if (key.contains("pgs") && valueBytes != null) {
-                                String result = parseResult(valueBytes);
-                                if (result != null && !result.trim().isEmpty()) {
-                                    hasPgs = true;
-                                    lastPgsResult = result;
-                                    // 实时发送进度事件（去重）
-                                    if (!sentPgsResults.contains(result)) {
-                                        sentPgsResults.add(result);
-                                        Log.d(TAG, "发送识别进度（渐进式）: " + result);
-                                        sendEvent("commandProgress", createResultData("value", result));
-                                    }
-                                }
-                            }
-
-                            // 处理plain结果（最终结果）
-                            if (key.contains("plain") && valueBytes != null) {
-                                String result = parseResult(valueBytes);
-                                if (result != null && !result.trim().isEmpty()) {
-                                    hasPlain = true;
-                                    plainResult = result;
-                                }
-                            }
-                        }
-
-                        // 判断识别是否完成（与官方demo一致：检查第一个结果的status）
-                        if (outputData.size() > 0 && outputData.get(0).getStatus() == 2) {
-                            Log.d(TAG, "识别完成（status=2），准备停止识别");
-                            Log.d(TAG, "统计结果 - hasVad: " + hasVad + ", hasPgs: " + hasPgs + ", hasPlain: " + hasPlain);
-
-                            try {
-                                // 统一处理逻辑：根据统计结果决定发送什么事件
-                                if (hasPlain) {
-                                    // 有最终结果，发送成功事件
-                                    Log.d(TAG, "发送最终识别结果: " + plainResult);
-                                    sendEvent("commandResult", createResultData("value", plainResult));
-                                } else if (hasPgs) {
-                                    // 有渐进式结果但没有最终结果，说明识别到了但不在命令词列表中
-                                    Log.w(TAG, "识别到语音但不在命令词列表中: " + lastPgsResult);
-                                    JSONObject unsupportedData = new JSONObject();
-                                    unsupportedData.put("value", lastPgsResult != null ? lastPgsResult : "");
-                                    unsupportedData.put("message", "暂时不支持此操作");
-                                    sendEvent("commandUnsupported", unsupportedData);
-                                } else if (hasVad) {
-                                    // 只有VAD事件，说明未识别到有效语音
-                                    Log.w(TAG, "只有VAD事件，未识别到有效语音");
-                                    JSONObject noMatchData = new JSONObject();
-                                    noMatchData.put("value", "");
-                                    noMatchData.put("message", "未识别到有效命令词");
-                                    sendEvent("commandNoMatch", noMatchData);
-                                } else {
-                                    // 其他情况，也视为未识别到
-                                    Log.w(TAG, "识别完成但无有效结果");
-                                    JSONObject noMatchData = new JSONObject();
-                                    noMatchData.put("value", "");
-                                    noMatchData.put("message", "未识别到有效命令词");
-                                    sendEvent("commandNoMatch", noMatchData);
-                                }
-                            } catch (JSONException e) {
-                                Log.e(TAG, "创建事件数据失败: " + e.getMessage());
-                            }
-
-                            // 取消超时定时器
-                            cancelTimeoutTimer();
-                            // 停止识别，但不重置所有状态，以便可以再次启动
-                            stopCommandRecognitionForNext(null);
-                        }
-                    } else {
-                        Log.w(TAG, "识别结果为空");
-                    }
-                }
-
-                @Override
-                public void onEvent(int handleID, int eventType, List<AiResponse> eventData, Object usrContext) {
-                    Log.d(TAG, "========== 收到识别事件 ==========");
-                    Log.d(TAG, "handleID: " + handleID + ", eventType: " + eventType);
-                    if (eventData != null) {
-                        Log.d(TAG, "事件数据数量: " + eventData.size());
-                    }
-                }
-
-                @Override
-                public void onError(int handleID, int errCode, String errMsg, Object usrContext) {
-                    Log.e(TAG, "========== 识别错误 ==========");
-                    Log.e(TAG, "handleID: " + handleID + ", errCode: " + errCode + ", errMsg: " + errMsg);
-                    sendEvent("commandError", createErrorData(errCode, errMsg));
-                }
-            });
+            registerCommandListener();
 
             // 构建参数
             Log.d(TAG, "步骤5: 构建识别参数");
-            AiRequest.Builder paramBuilder = AiRequest.builder();
-            paramBuilder.param("languageType", languageType);
-            paramBuilder.param("vadEndGap", 60);
-            paramBuilder.param("vadOn", true);
-            paramBuilder.param("beamThreshold", 20);
-            paramBuilder.param("hisGramThreshold", 3000);
-            paramBuilder.param("vadLinkOn", false);
-            paramBuilder.param("vadSpeechEnd", 80);
-            paramBuilder.param("vadResponsetime", 1000);
-            paramBuilder.param("postprocOn", false);
+            Map<String, Object> params = buildSessionParams(languageType);
 
             // 重置状态
             isCommandEnd.set(false);
+            lastVadNanos = 0;
             Log.d(TAG, "步骤6: 启动识别引擎");
-            commandHandle = AiHelper.getInst().start(ABILITY_ESR, paramBuilder.build(), null);
-            Log.d(TAG, "启动识别引擎结果 - code: " + commandHandle.getCode() + ", handleID: " + commandHandle.getI() + ", id: "
-                    + commandHandle.getId());
+            commandHandle = engine.start(ABILITY_ESR, params);
+            Log.d(TAG, "启动识别引擎结果 - code: " + commandHandle.getCode() + ", handleID: " + commandHandle.getId());
 
             if (commandHandle.getCode() != 0) {
                 Log.e(TAG, "启动识别失败: " + commandHandle.getCode());
@@ -333,6 +230,707 @@ public class CommandRecognitionManager {
         }
     }
 
+    /**
+     * 预启动识别会话（收到 func_pre_wakeup 时调用）
+     * 提前完成引擎准备与 start，但不打开录音；cancelAfterMs 内未确认则结束会话。
+     * 预启动期间通过 onCaptureFrame 缓存唤醒录音的最近几帧
+     *
+     * @return 错误信息，成功或已在运行返回null
+     */
+    public synchronized String startSpeculative(String fsaPath, int languageType, int timeoutSeconds,
+            long cancelAfterMs) {
+        if (speculativeState.get() != SPECULATIVE_IDLE || (commandHandle != null && !isCommandEnd.get())) {
+            Log.d(TAG, "识别会话已存在，跳过预启动");
+            return null;
+        }
+
+        long start = System.nanoTime();
+        this.timeoutSeconds = timeoutSeconds > 0 ? timeoutSeconds : DEFAULT_TIMEOUT_SECONDS;
+        String prepareError = prepareCommandSession(fsaPath, languageType);
+        if (prepareError != null) {
+            return prepareError;
+        }
+        registerCommandListener();
+
+        lastVadNanos = 0;
+        AiEngine.Handle handle = engine.start(ABILITY_ESR, buildSessionParams(languageType));
+        if (handle.getCode() != 0) {
+            return "预启动识别失败: " + handle.getCode();
+        }
+
+        synchronized (speculativeRing) {
+            speculativeRingStart = 0;
+            speculativeRingCount = 0;
+            tapFirstFrame = true;
+            tapFrameCount = 0;
+        }
+        commandHandle = handle;
+        isCommandEnd.set(false);
+        speculativeState.set(SPECULATIVE_PENDING);
+        VoiceMetrics.getInstance().recordSince(VoiceMetrics.SPECULATIVE_START, start);
+
+        speculativeCancelFuture = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                cancelSpeculative();
+            }
+        }, cancelAfterMs, TimeUnit.MILLISECONDS);
+        Log.d(TAG, "识别会话已预启动 - handleID: " + handle.getId());
+        return null;
+    }
+
+    /**
+     * 确认预启动的会话（收到 func_wake_up 时调用）
+     * 补写缓存的音频并开始接收唤醒录音，启动识别超时定时器
+     *
+     * @return 没有待确认的预启动会话时返回 false
+     */
+    public synchronized boolean commitSpeculative() {
+        if (!speculativeState.compareAndSet(SPECULATIVE_PENDING, SPECULATIVE_COMMITTED)) {
+            return false;
+        }
+        if (speculativeCancelFuture != null) {
+            speculativeCancelFuture.cancel(false);
+            speculativeCancelFuture = null;
+        }
+
+        synchronized (speculativeRing) {
+            for (int i = 0; i < speculativeRingCount; i++) {
+                int index = (speculativeRingStart + i) % SPECULATIVE_LOOKBACK_FRAMES;
+                writeTapFrame(speculativeRing[index], speculativeRingLengths[index]);
+            }
+            speculativeRingCount = 0;
+        }
+        startTimeoutTimer();
+        VoiceMetrics.getInstance().increment(VoiceMetrics.SPECULATIVE_COMMITTED);
+        Log.d(TAG, "预启动会话已确认");
+        return true;
+    }
+
+    /**
+     * 取消未确认的预启动会话
+     */
+    public synchronized void cancelSpeculative() {
+        if (!speculativeState.compareAndSet(SPECULATIVE_PENDING, SPECULATIVE_IDLE)) {
+            return;
+        }
+        if (speculativeCancelFuture != null) {
+            speculativeCancelFuture.cancel(false);
+            speculativeCancelFuture = null;
+        }
+        if (commandHandle != null && !isCommandEnd.get()) {
+            engine.end(commandHandle);
+            isCommandEnd.set(true);
+            commandHandle = null;
+        }
+        VoiceMetrics.getInstance().increment(VoiceMetrics.SPECULATIVE_CANCELLED);
+        Log.d(TAG, "预启动会话未确认，已取消");
+    }
+
+    /**
+     * 唤醒录音的音频分流：预启动期间缓存最近几帧，确认后写入识别会话
+     */
+    public void onCaptureFrame(byte[] frame, int length) {
+        int state = speculativeState.get();
+        if (state == SPECULATIVE_IDLE) {
+            return;
+        }
+        synchronized (speculativeRing) {
+            if (speculativeState.get() == SPECULATIVE_PENDING) {
+                int index = (speculativeRingStart + speculativeRingCount) % SPECULATIVE_LOOKBACK_FRAMES;
+                if (speculativeRingCount == SPECULATIVE_LOOKBACK_FRAMES) {
+                    speculativeRingStart = (speculativeRingStart + 1) % SPECULATIVE_LOOKBACK_FRAMES;
+                } else {
+                    speculativeRingCount++;
+                }
+                int copy = Math.min(length, BUFFER_SIZE);
+                System.arraycopy(frame, 0, speculativeRing[index], 0, copy);
+                speculativeRingLengths[index] = copy;
+            } else if (speculativeState.get() == SPECULATIVE_COMMITTED) {
+                writeTapFrame(frame, length);
+            }
+        }
+    }
+
+    /**
+     * 写入一帧分流音频，每100帧读取一次识别结果
+     */
+    private void writeTapFrame(byte[] frame, int length) {
+        int status = tapFirstFrame ? AiEngine.STATUS_BEGIN : AiEngine.STATUS_CONTINUE;
+        writeAudioData(frame, length, status);
+        tapFirstFrame = false;
+        tapFrameCount++;
+        AiEngine.Handle handle = commandHandle;
+        if (tapFrameCount % 100 == 0 && handle != null) {
+            engine.read(ABILITY_ESR, handle);
+        }
+    }
+
+    /**
+     * 清除预启动状态（会话停止时调用）
+     */
+    private void resetSpeculative() {
+        speculativeState.set(SPECULATIVE_IDLE);
+        if (speculativeCancelFuture != null) {
+            speculativeCancelFuture.cancel(false);
+            speculativeCancelFuture = null;
+        }
+    }
+
+    /**
+     * 注册命令词识别监听器（实时识别与预启动共用）
+     */
+    private void registerCommandListener() {
+        engine.registerListener(ABILITY_ESR, new AiEngine.Listener() {
+            @Override
+            public void onResult(int handleID, List<AiEngine.Response> outputData) {
+                Log.d(TAG, "========== 收到识别结果 ==========");
+                Log.d(TAG, "handleID: " + handleID);
+                Log.d(TAG, "outputData数量: " + (outputData != null ? outputData.size() : 0));
+
+                if (outputData != null && outputData.size() > 0) {
+                    EsrResultParser.Result result = EsrResultParser.parse(outputData);
+                    if (result.hasVad) {
+                        lastVadNanos = System.nanoTime();
+                    }
+                    if (bilingual) {
+                        handleBilingualResult(handleID, result);
+                        return;
+                    }
+
+                    // 实时发送进度事件（已去重）
+                    for (String progress : result.progress) {
+                        Log.d(TAG, "发送识别进度（渐进式）: " + progress);
+                        sendEvent("commandProgress", createResultData("value", progress));
+                    }
+
+                    if (result.isFinal) {
+                        Log.d(TAG, "识别完成（status=2），准备停止识别");
+                        Log.d(TAG, "统计结果 - hasVad: " + result.hasVad + ", hasPgs: " + result.hasPgs
+                                + ", hasPlain: " + result.hasPlain);
+                        if ((result.hasPlain || result.hasPgs) && lastVadNanos > 0) {
+                            VoiceMetrics.getInstance().recordSince(VoiceMetrics.SPEECH_END_TO_RESULT, lastVadNanos);
+                        }
+
+                        try {
+                            // 统一处理逻辑：根据统计结果决定发送什么事件
+                            CommandMatcher.Match fuzzy = !result.hasPlain && result.hasPgs
+                                    ? matchFuzzy(result.lastPgsResult) : null;
+                            if (result.hasPlain) {
+                                // 有最终结果，发送成功事件
+                                Log.d(TAG, "发送最终识别结果: " + result.plainResult);
+                                sendCommandResult(createResultData("value", result.plainResult));
+                            } else if (fuzzy != null) {
+                                // 渐进式结果与某个命令词足够接近，按该命令词处理，免去用户重说
+                                Log.d(TAG, "模糊匹配命令词: " + result.lastPgsResult + " -> " + fuzzy.command);
+                                sendCommandResult(createFuzzyResultData(fuzzy, result.lastPgsResult));
+                            } else if (result.hasPgs) {
+                                // 有渐进式结果但没有最终结果，说明识别到了但不在命令词列表中
+                                Log.w(TAG, "识别到语音但不在命令词列表中: " + result.lastPgsResult);
+                                JSONObject unsupportedData = new JSONObject();
+                                unsupportedData.put("value", result.lastPgsResult != null ? result.lastPgsResult : "");
+                                unsupportedData.put("message", "暂时不支持此操作");
+                                sendEvent("commandUnsupported", unsupportedData);
+                            } else {
+                                // 只有VAD事件或无有效结果，说明未识别到有效语音
+                                Log.w(TAG, "识别完成但无有效结果 - hasVad: " + result.hasVad);
+                                JSONObject noMatchData = new JSONObject();
+                                noMatchData.put("value", "");
+                                noMatchData.put("message", "未识别到有效命令词");
+                                sendEvent("commandNoMatch", noMatchData);
+                            }
+                        } catch (JSONException e) {
+                            Log.e(TAG, "创建事件数据失败: " + e.getMessage());
+                        }
+
+                        // 取消超时定时器
+                        cancelTimeoutTimer();
+                        // 停止识别，但不重置所有状态，以便可以再次启动
+                        stopCommandRecognitionForNext(null);
+                    }
+                } else {
+                    Log.w(TAG, "识别结果为空");
+                }
+            }
+
+            @Override
+            public void onEvent(int handleID, int eventType, List<AiEngine.Response> eventData) {
+                Log.d(TAG, "========== 收到识别事件 ==========");
+                Log.d(TAG, "handleID: " + handleID + ", eventType: " + eventType);
+                if (eventData != null) {
+                    Log.d(TAG, "事件数据数量: " + eventData.size());
+                }
+            }
+
+            @Override
+            public void onError(int handleID, int errCode, String errMsg) {
+                Log.e(TAG, "========== 识别错误 ==========");
+                Log.e(TAG, "handleID: " + handleID + ", errCode: " + errCode + ", errMsg: " + errMsg);
+                VoiceMetrics.getInstance().increment(VoiceMetrics.COMMAND_ERRORS);
+                sendEvent("commandError", createErrorData(errCode, errMsg));
+            }
+        });
+    }
+
+    /**
+     * 开始中英文并行识别
+     * 中文、英文FSA各启动一个识别会话，录音帧同时写入两个会话，先得到最终结果（plain）的会话胜出并结束另一个；
+     * 两个会话都没有最终结果时，按渐进式结果发送 commandUnsupported，否则发送 commandNoMatch
+     *
+     * @param cnFsaPath      中文FSA文件路径
+     * @param enFsaPath      英文FSA文件路径
+     * @param timeoutSeconds 超时时间（秒），默认10秒
+     * @param callback       回调
+     */
+    public synchronized void startBilingualRecognition(String cnFsaPath, String enFsaPath, int timeoutSeconds,
+            CommandResultCallback callback) {
+        try {
+            this.timeoutSeconds = timeoutSeconds > 0 ? timeoutSeconds : DEFAULT_TIMEOUT_SECONDS;
+            Log.d(TAG, "========== 开始中英文并行识别 ==========");
+            Log.d(TAG, "中文FSA: " + cnFsaPath + ", 英文FSA: " + enFsaPath);
+
+            if (commandHandle != null && !isCommandEnd.get()) {
+                Log.w(TAG, "检测到识别正在运行，先停止之前的识别");
+                stopCommandRecognition(null);
+            }
+            cancelTimeoutTimer();
+
+            if (!isCommandEngineInit) {
+                initCommandEngine();
+                if (!isCommandEngineInit) {
+                    callback.onError("命令词引擎初始化失败");
+                    return;
+                }
+            }
+            String loadError = loadFsa(cnFsaPath, BILINGUAL_CN_INDEX);
+            if (loadError == null) {
+                loadError = loadFsa(enFsaPath, BILINGUAL_EN_INDEX);
+            }
+            if (loadError != null) {
+                callback.onError(loadError);
+                return;
+            }
+
+            cnOutcome = null;
+            enOutcome = null;
+            bilingualDecided = false;
+            bilingual = true;
+            registerCommandListener();
+            lastVadNanos = 0;
+
+            AiEngine.Handle cnHandle = startOnDataSet(BILINGUAL_CN_INDEX, 0);
+            if (cnHandle.getCode() != 0) {
+                bilingual = false;
+                callback.onError("启动中文识别失败: " + cnHandle.getCode());
+                return;
+            }
+            AiEngine.Handle enHandle = startOnDataSet(BILINGUAL_EN_INDEX, 1);
+            if (enHandle.getCode() != 0) {
+                engine.end(cnHandle);
+                bilingual = false;
+                callback.onError("启动英文识别失败: " + enHandle.getCode());
+                return;
+            }
+            Log.d(TAG, "并行识别会话已启动 - 中文handleID: " + cnHandle.getId() + ", 英文handleID: " + enHandle.getId());
+
+            commandHandle = cnHandle;
+            secondaryHandle = enHandle;
+            isCommandEnd.set(false);
+            startCommandRecording();
+            startTimeoutTimer();
+            callback.onSuccess("识别已启动");
+        } catch (Exception e) {
+            Log.e(TAG, "StartBilingualRecognition error: " + e.getMessage(), e);
+            bilingual = false;
+            callback.onError("启动识别失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 把FSA加载到指定数据集序号（同一序号路径不变时跳过）
+     *
+     * @return 错误信息，成功返回null
+     */
+    private String loadFsa(String fsaPath, int index) {
+        if (fsaPath.equals(loadedFsaPaths.get(index))) {
+            return null;
+        }
+        int ret = engine.loadData(ABILITY_ESR, "FSA", fsaPath, index);
+        Log.d(TAG, "加载FSA数据结果: " + ret + ", index: " + index);
+        if (ret != 0) {
+            return "加载FSA数据失败: " + ret + " (" + fsaPath + ")";
+        }
+        loadedFsaPaths.put(index, fsaPath);
+        return null;
+    }
+
+    /**
+     * 指定数据集后启动一个会话（数据集对随后的 start 生效）
+     */
+    private AiEngine.Handle startOnDataSet(int index, int languageType) {
+        int ret = engine.specifyDataSet(ABILITY_ESR, "FSA", new int[] { index });
+        if (ret != 0) {
+            return new AiEngine.Handle(ret, -1, null);
+        }
+        return engine.start(ABILITY_ESR, buildSessionParams(languageType));
+    }
+
+    /**
+     * 处理并行识别的结果：进度事件附带语种，先出 plain 的会话胜出
+     */
+    private void handleBilingualResult(int handleID, EsrResultParser.Result result) {
+        AiEngine.Handle cnHandle = commandHandle;
+        AiEngine.Handle enHandle = secondaryHandle;
+        String language;
+        if (cnHandle != null && handleID == cnHandle.getId()) {
+            language = "cn";
+        } else if (enHandle != null && handleID == enHandle.getId()) {
+            language = "en";
+        } else {
+            return;
+        }
+
+        try {
+            for (String progress : result.progress) {
+                JSONObject data = createResultData("value", progress);
+                data.put("language", language);
+                sendEvent("commandProgress", data);
+            }
+            if (!result.isFinal) {
+                return;
+            }
+
+            EsrResultParser.Result other;
+            synchronized (this) {
+                if (bilingualDecided) {
+                    return;
+                }
+                if (!result.hasPlain) {
+                    if ("cn".equals(language)) {
+                        cnOutcome = result;
+                    } else {
+                        enOutcome = result;
+                    }
+                    other = "cn".equals(language) ? enOutcome : cnOutcome;
+                    if (other == null) {
+                        // 等另一个会话
+                        Log.d(TAG, language + " 会话结束但无最终结果，等待另一语种");
+                        return;
+                    }
+                } else {
+                    other = null;
+                }
+                bilingualDecided = true;
+            }
+            if (lastVadNanos > 0 && (result.hasPlain || result.hasPgs)) {
+                VoiceMetrics.getInstance().recordSince(VoiceMetrics.SPEECH_END_TO_RESULT, lastVadNanos);
+            }
+
+            if (result.hasPlain) {
+                Log.d(TAG, "并行识别结果（" + language + "）: " + result.plainResult);
+                JSONObject data = createResultData("value", result.plainResult);
+                data.put("language", language);
+                sendCommandResult(data);
+            } else {
+                // 两个会话都没有最终结果：优先报告有渐进式结果的语种
+                EsrResultParser.Result pick = result.hasPgs || !other.hasPgs ? result : other;
+                String pickLanguage = pick == result ? language : ("cn".equals(language) ? "en" : "cn");
+                JSONObject data = new JSONObject();
+                data.put("language", pickLanguage);
+                if (pick.hasPgs) {
+                    data.put("value", pick.lastPgsResult != null ? pick.lastPgsResult : "");
+                    data.put("message", "暂时不支持此操作");
+                    sendEvent("commandUnsupported", data);
+                } else {
+                    data.put("value", "");
+                    data.put("message", "未识别到有效命令词");
+                    sendEvent("commandNoMatch", data);
+                }
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "创建事件数据失败: " + e.getMessage());
+        }
+
+        cancelTimeoutTimer();
+        stopCommandRecognitionForNext(null);
+    }
+
+    /**
+     * 结束并行识别的第二个会话
+     */
+    private void endSecondary() {
+        AiEngine.Handle handle = secondaryHandle;
+        secondaryHandle = null;
+        bilingual = false;
+        if (handle != null) {
+            try {
+                engine.end(handle);
+            } catch (Exception e) {
+                Log.e(TAG, "结束英文识别句柄异常: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 发送最终结果事件：动作表中有此命令词时先写串口，再通知JS
+     */
+    private void sendCommandResult(JSONObject resultData) throws JSONException {
+        CommandDispatcher dispatcher = commandDispatcher;
+        CommandDispatcher.Result dispatched = dispatcher != null
+                ? dispatcher.dispatch(resultData.getString("value")) : null;
+        if (dispatched != null) {
+            resultData.put("dispatched", dispatched.written);
+            resultData.put("frame", dispatched.frameHex);
+            resultData.put("dispatchMicros", dispatched.elapsedMicros);
+            if (dispatched.error != null) {
+                resultData.put("dispatchError", dispatched.error);
+            }
+        }
+        sendEvent("commandResult", resultData);
+    }
+
+    /**
+     * 用当前语法的命令词索引匹配渐进式结果，未启用或得分不足时返回null
+     */
+    private CommandMatcher.Match matchFuzzy(String pgsResult) {
+        CommandMatcher matcher = commandMatcher;
+        CommandMatcher.Config config = matcherConfig;
+        if (matcher == null || config == null) {
+            return null;
+        }
+        CommandMatcher.Match match = matcher.match(pgsResult, config);
+        if (match != null) {
+            VoiceMetrics.getInstance().record(VoiceMetrics.FUZZY_MATCH, match.elapsedMicros / 1000.0);
+            VoiceMetrics.getInstance().increment(VoiceMetrics.FUZZY_RESOLVED);
+        }
+        return match;
+    }
+
+    private JSONObject createFuzzyResultData(CommandMatcher.Match match, String heard) throws JSONException {
+        JSONObject data = createResultData("value", match.command);
+        data.put("fuzzy", true);
+        data.put("score", match.score);
+        data.put("heard", heard);
+        data.put("matchMicros", match.elapsedMicros);
+        return data;
+    }
+
+    /**
+     * 设置模糊匹配：识别只有渐进式结果时，把它匹配到当前FSA中最接近的命令词（下次开始识别时建立索引）
+     *
+     * @param config 匹配配置，null表示关闭
+     */
+    public void setFuzzyMatch(CommandMatcher.Config config) {
+        this.matcherConfig = config;
+    }
+
+    /**
+     * 按需为当前FSA建立命令词索引（FSA路径变化时重建）
+     */
+    private void prepareMatcher(String fsaPath) {
+        if (matcherConfig == null) {
+            return;
+        }
+        if (commandMatcher != null && fsaPath.equals(matcherFsaPath)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            commandMatcher = CommandMatcher.fromFsa(fsaPath);
+            matcherFsaPath = fsaPath;
+            Log.d(TAG, "命令词索引建立完成: " + commandMatcher.size() + " 条, 耗时: "
+                    + (System.nanoTime() - start) / 1000000 + "ms");
+        } catch (Exception e) {
+            // 索引失败不影响识别，只是不做模糊匹配
+            Log.w(TAG, "建立命令词索引失败: " + e.getMessage());
+            commandMatcher = null;
+            matcherFsaPath = null;
+        }
+    }
+
+    /**
+     * 设置前端VAD，静音期间不写入引擎（句尾拖尾需长于引擎的 vadEndGap）
+     *
+     * @param config VAD配置，null表示关闭
+     */
+    public void setVadConfig(EnergyVad.Config config) {
+        this.vadConfig = config;
+    }
+
+    /**
+     * 设置音频转储（下次开始录音时生效），null表示关闭
+     */
+    public void setAudioDumper(AudioDumper dumper) {
+        this.audioDumper = dumper;
+    }
+
+    /**
+     * 设置命令词动作表，识别到表中的命令词时直接写出串口帧
+     *
+     * @param dispatcher 动作表，null表示关闭
+     */
+    public void setCommandDispatcher(CommandDispatcher dispatcher) {
+        this.commandDispatcher = dispatcher;
+    }
+
+    /**
+     * 设置麦克风采集格式（下次开始录音时生效），如部分USB声卡只支持 48kHz 立体声
+     *
+     * @param sampleRate 采样率
+     * @param channels   声道数 1 或 2
+     */
+    public void setCaptureFormat(int sampleRate, int channels) {
+        this.captureSampleRate = sampleRate;
+        this.captureChannels = channels;
+    }
+
+    /**
+     * 准备识别会话：初始化引擎（如果需要）、加载FSA数据、设置数据集
+     *
+     * @return 错误信息，成功返回null
+     */
+    private String prepareCommandSession(String fsaPath, int languageType) {
+        commandLanguageType = languageType;
+        commandFsaPath = fsaPath;
+        prepareMatcher(fsaPath);
+
+        // 初始化引擎（如果需要）
+        if (!isCommandEngineInit) {
+            Log.d(TAG, "步骤1: 初始化命令词引擎");
+            initCommandEngine();
+            Log.d(TAG, "引擎初始化结果: " + isCommandEngineInit);
+        } else {
+            Log.d(TAG, "步骤1: 引擎已初始化，跳过");
+        }
+
+        // 加载FSA数据
+        if (!isCommandLoadData) {
+            Log.d(TAG, "步骤2: 加载FSA数据");
+            int ret = engine.loadData(ABILITY_ESR, "FSA", fsaPath, commandIndex);
+            Log.d(TAG, "加载FSA数据结果: " + ret);
+            if (ret != 0) {
+                Log.e(TAG, "加载FSA数据失败: " + ret);
+                return "加载FSA数据失败: " + ret;
+            }
+            isCommandLoadData = true;
+        } else {
+            Log.d(TAG, "步骤2: FSA数据已加载，跳过");
+        }
+
+        // 设置数据集
+        Log.d(TAG, "步骤3: 设置数据集");
+        int[] indexs = { commandIndex };
+        int ret = engine.specifyDataSet(ABILITY_ESR, "FSA", indexs);
+        Log.d(TAG, "设置数据集结果: " + ret);
+        if (ret != 0) {
+            Log.e(TAG, "设置数据集失败: " + ret);
+            return "设置数据集失败: " + ret;
+        }
+        return null;
+    }
+
+    /**
+     * 构建识别会话参数
+     */
+    private Map<String, Object> buildSessionParams(int languageType) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("languageType", languageType);
+        params.put("vadEndGap", 60);
+        params.put("vadOn", true);
+        params.put("beamThreshold", 20);
+        params.put("hisGramThreshold", 3000);
+        params.put("vadLinkOn", false);
+        params.put("vadSpeechEnd", 80);
+        params.put("vadResponsetime", 1000);
+        params.put("postprocOn", false);
+        return params;
+    }
+
+    /**
+     * 离线识别PCM文件（16kHz 16bit 单声道）
+     * 以内存映射方式读取文件并尽快推送给引擎，按语音端点分句（静音达到 setEndpoint 的 endSilenceMs，未启用时为 800ms），
+     * 每句等到最终结果后再开启新会话识别剩余音频，返回全部结果及其在文件中的时间位置。
+     * 与实时识别共用引擎，实时识别运行时不可调用
+     *
+     * @param filePath     PCM文件路径
+     * @param fsaPath      FSA文件路径
+     * @param languageType 语种类型 0:中文, 1:英文
+     * @param callback     回调，成功时返回 JSONObject
+     */
+    public void recognizeFile(String filePath, String fsaPath, int languageType, CommandResultCallback callback) {
+        if (commandHandle != null && !isCommandEnd.get()) {
+            callback.onError("命令词识别正在运行，请先停止");
+            return;
+        }
+
+        try {
+            Log.d(TAG, "========== 开始文件识别: " + filePath + " ==========");
+            String prepareError = prepareCommandSession(fsaPath, languageType);
+            if (prepareError != null) {
+                callback.onError(prepareError);
+                return;
+            }
+
+            final JSONArray results = new JSONArray();
+            final long beginNanos = System.nanoTime();
+            int endSilence = endSilenceMs > 0 ? endSilenceMs : DEFAULT_END_SILENCE_MS;
+            FileRecognizer recognizer = new FileRecognizer(engine, ABILITY_ESR, buildSessionParams(languageType),
+                    BUFFER_SIZE, endSilence, FILE_RESULT_WAIT_MS);
+
+            long totalBytes = recognizer.recognize(filePath, new FileRecognizer.ResultHandler() {
+                @Override
+                public void onResult(EsrResultParser.Result result, long speechStart, long speechEnd, long inputEnd) {
+                    try {
+                        JSONObject item = new JSONObject();
+                        CommandMatcher.Match fuzzy = !result.hasPlain && result.hasPgs
+                                ? matchFuzzy(result.lastPgsResult) : null;
+                        if (fuzzy != null) {
+                            item.put("event", "commandResult");
+                            item.put("value", fuzzy.command);
+                            item.put("fuzzy", true);
+                            item.put("score", fuzzy.score);
+                            item.put("heard", result.lastPgsResult);
+                        } else {
+                            item.put("event", result.finalEvent());
+                            item.put("value", result.hasPlain ? result.plainResult
+                                    : (result.lastPgsResult != null ? result.lastPgsResult : ""));
+                        }
+                        item.put("startMs", PcmFilePump.offsetToMillis(speechStart));
+                        item.put("endMs", PcmFilePump.offsetToMillis(speechEnd));
+                        item.put("offsetMs", PcmFilePump.offsetToMillis(inputEnd));
+                        item.put("elapsedMs", (System.nanoTime() - beginNanos) / 1000000);
+                        results.put(item);
+                    } catch (JSONException e) {
+                        Log.e(TAG, "创建文件识别结果失败: " + e.getMessage());
+                    }
+                }
+            });
+
+            String error = recognizer.getError();
+            if (error != null) {
+                Log.e(TAG, "文件识别错误: " + error);
+                if (results.length() == 0) {
+                    callback.onError("文件识别失败: " + error);
+                    return;
+                }
+            }
+
+            long elapsedMs = (System.nanoTime() - beginNanos) / 1000000;
+            long audioMs = PcmFilePump.offsetToMillis(totalBytes);
+            JSONObject data = new JSONObject();
+            data.put("filePath", filePath);
+            data.put("audioMs", audioMs);
+            data.put("elapsedMs", elapsedMs);
+            data.put("speedup", elapsedMs > 0 ? (double) audioMs / elapsedMs : 0);
+            data.put("results", results);
+            Log.d(TAG, "文件识别完成 - 结果数: " + results.length() + ", 音频时长: " + audioMs + "ms, 耗时: " + elapsedMs + "ms");
+            callback.onSuccess(data);
+        } catch (Exception e) {
+            Log.e(TAG, "RecognizeFile error: " + e.getMessage(), e);
+            callback.onError("文件识别失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 停止命令词识别（用于识别完成后，保持状态以便再次启动）
      * 注意：这里不完全释放资源，以便可以快速再次启动
@@ -341,22 +939,18 @@ public class CommandRecognitionManager {
         Log.d(TAG, "========== 停止识别（准备下次启动）==========");
         // 取消超时定时器
         cancelTimeoutTimer();
+        resetSpeculative();
 
         try {
             // 先设置标志位，让录音线程自然退出
+            // 不等待录音线程：停止 AudioRecord 后阻塞中的 read 立即返回，线程检测到标志位后自行退出；
+            // 结束句柄与写入共用 sessionLock，之后录音线程不会再写入旧句柄
             if (isCommandRecording.get()) {
-                Log.d(TAG, "设置停止标志，等待录音线程退出");
+                Log.d(TAG, "设置停止标志");
                 isCommandRecording.set(false);
-
-                // 等待一小段时间，让录音线程检测到标志位变化并退出
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
             }
 
-            // 然后停止AudioRecord
+            // 然后停止AudioRecord，释放由录音线程在退出时完成
             if (commandAudioRecord != null) {
                 try {
                     int state = commandAudioRecord.getRecordingState();
@@ -367,19 +961,23 @@ public class CommandRecognitionManager {
                 } catch (Exception e) {
                     Log.e(TAG, "停止AudioRecord异常: " + e.getMessage());
                 }
+                commandAudioRecord = null;
             }
 
             // 结束识别句柄
-            if (commandHandle != null && !isCommandEnd.get()) {
-                Log.d(TAG, "结束识别句柄");
-                try {
-                    int ret = AiHelper.getInst().end(commandHandle);
-                    Log.d(TAG, "结束识别句柄结果: " + ret);
-                } catch (Exception e) {
-                    Log.e(TAG, "结束识别句柄异常: " + e.getMessage());
+            synchronized (sessionLock) {
+                if (commandHandle != null && !isCommandEnd.get()) {
+                    Log.d(TAG, "结束识别句柄");
+                    try {
+                        int ret = engine.end(commandHandle);
+                        Log.d(TAG, "结束识别句柄结果: " + ret);
+                    } catch (Exception e) {
+                        Log.e(TAG, "结束识别句柄异常: " + e.getMessage());
+                    }
+                    isCommandEnd.set(true);
+                    commandHandle = null;
                 }
-                isCommandEnd.set(true);
-                commandHandle = null;
+                endSecondary();
             }
 
             // 注意：这里不释放 AudioRecord，也不重置 isCommandLoadData，以便下次启动时可以直接使用
@@ -403,22 +1001,18 @@ public class CommandRecognitionManager {
         Log.d(TAG, "========== 停止识别（完全停止）==========");
         // 取消超时定时器
         cancelTimeoutTimer();
+        resetSpeculative();
 
         try {
             // 先设置标志位，让录音线程自然退出
+            // 不等待录音线程：停止 AudioRecord 后阻塞中的 read 立即返回，线程检测到标志位后自行退出；
+            // 结束句柄与写入共用 sessionLock，之后录音线程不会再写入旧句柄
             if (isCommandRecording.get()) {
-                Log.d(TAG, "设置停止标志，等待录音线程退出");
+                Log.d(TAG, "设置停止标志");
                 isCommandRecording.set(false);
-
-                // 等待一小段时间，让录音线程检测到标志位变化并退出
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
             }
 
-            // 然后停止AudioRecord
+            // 然后停止AudioRecord，释放由录音线程在退出时完成
             if (commandAudioRecord != null) {
                 try {
                     int state = commandAudioRecord.getRecordingState();
@@ -429,22 +1023,19 @@ public class CommandRecognitionManager {
                 } catch (Exception e) {
                     Log.e(TAG, "停止AudioRecord异常: " + e.getMessage());
                 }
-            }
-
-            // 释放AudioRecord资源
-            if (commandAudioRecord != null) {
-                Log.d(TAG, "释放AudioRecord资源");
-                commandAudioRecord.release();
                 commandAudioRecord = null;
             }
 
             // 结束识别句柄
-            if (commandHandle != null && !isCommandEnd.get()) {
-                Log.d(TAG, "结束识别句柄");
-                int ret = AiHelper.getInst().end(commandHandle);
-                Log.d(TAG, "结束识别句柄结果: " + ret);
-                isCommandEnd.set(true);
-                commandHandle = null;
+            synchronized (sessionLock) {
+                if (commandHandle != null && !isCommandEnd.get()) {
+                    Log.d(TAG, "结束识别句柄");
+                    int ret = engine.end(commandHandle);
+                    Log.d(TAG, "结束识别句柄结果: " + ret);
+                    isCommandEnd.set(true);
+                    commandHandle = null;
+                }
+                endSecondary();
             }
 
             Log.d(TAG, "识别已完全停止");
@@ -461,24 +1052,60 @@ public class CommandRecognitionManager {
 
     /**
      * 写入音频数据
+     *
+     * @param status 数据状态，取值见 AiEngine.STATUS_*
      */
-    public void writeAudioData(byte[] audioData, AiStatus status) {
-        if (isCommandEnd.get() || commandHandle == null) {
-            Log.d(TAG,
-                    "跳过写入音频数据 - isCommandEnd: " + isCommandEnd.get() + ", commandHandle: " + (commandHandle != null));
-            return;
+    public void writeAudioData(byte[] audioData, int status) {
+        writeAudioData(audioData, audioData.length, status);
+    }
+
+    /**
+     * 写入音频数据（只写入前 length 个字节）
+     */
+    public void writeAudioData(byte[] audioData, int length, int status) {
+        synchronized (sessionLock) {
+            if (isCommandEnd.get() || commandHandle == null) {
+                Log.d(TAG, "跳过写入音频数据 - isCommandEnd: " + isCommandEnd.get() + ", commandHandle: "
+                        + (commandHandle != null));
+                return;
+            }
+
+            try {
+                int ret = engine.writeAudio(commandHandle, "audio", audioData, length, status);
+                if (ret != 0) {
+                    Log.w(TAG, "写入音频数据返回非0: " + ret);
+                }
+                // 并行识别时同一帧写入第二个会话
+                AiEngine.Handle secondary = secondaryHandle;
+                if (secondary != null) {
+                    ret = engine.writeAudio(secondary, "audio", audioData, length, status);
+                    if (ret != 0) {
+                        Log.w(TAG, "写入第二会话音频数据返回非0: " + ret);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Write command audio error: " + e.getMessage(), e);
+            }
         }
+    }
 
-        try {
-            AiRequest.Builder dataBuilder = AiRequest.builder();
-            AiAudio aiAudio = AiAudio.get("audio").data(audioData).status(status).valid();
-            dataBuilder.payload(aiAudio);
-            int ret = AiHelper.getInst().write(dataBuilder.build(), commandHandle);
-            if (ret != 0) {
-                Log.w(TAG, "写入音频数据返回非0: " + ret);
+    /**
+     * 主动读取识别结果（会话已结束时跳过）
+     */
+    private void readResults() {
+        synchronized (sessionLock) {
+            if (isCommandEnd.get() || commandHandle == null) {
+                return;
+            }
+            try {
+                engine.read(ABILITY_ESR, commandHandle);
+                AiEngine.Handle secondary = secondaryHandle;
+                if (secondary != null) {
+                    engine.read(ABILITY_ESR, secondary);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "读取识别结果失败: " + e.getMessage());
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Write command audio error: " + e.getMessage(), e);
         }
     }
 
@@ -488,11 +1115,11 @@ public class CommandRecognitionManager {
     private void initCommandEngine() {
         try {
             Log.d(TAG, "初始化命令词引擎 - decNetType: fsa, punishCoefficient: 0.0, wfst_addType: " + commandLanguageType);
-            AiRequest.Builder engineBuilder = AiRequest.builder();
-            engineBuilder.param("decNetType", "fsa");
-            engineBuilder.param("punishCoefficient", 0.0);
-            engineBuilder.param("wfst_addType", commandLanguageType);
-            int ret = AiHelper.getInst().engineInit(ABILITY_ESR, engineBuilder.build());
+            Map<String, Object> params = new HashMap<>();
+            params.put("decNetType", "fsa");
+            params.put("punishCoefficient", 0.0);
+            params.put("wfst_addType", commandLanguageType);
+            int ret = engine.engineInit(ABILITY_ESR, params);
             Log.d(TAG, "引擎初始化结果: " + ret);
             if (ret == 0) {
                 isCommandEngineInit = true;
@@ -514,30 +1141,40 @@ public class CommandRecognitionManager {
             return;
         }
 
-        // 如果AudioRecord已存在但状态不对，先释放
+        // 如果AudioRecord已存在，先停止；旧录音线程退出时释放它
         if (commandAudioRecord != null) {
             try {
                 if (commandAudioRecord.getRecordingState() == AudioRecord.RECORDSTATE_RECORDING) {
                     Log.w(TAG, "检测到AudioRecord正在录音，先停止");
                     commandAudioRecord.stop();
                 }
-                commandAudioRecord.release();
-                commandAudioRecord = null;
             } catch (Exception e) {
-                Log.e(TAG, "释放旧AudioRecord失败: " + e.getMessage());
+                Log.e(TAG, "停止旧AudioRecord失败: " + e.getMessage());
             }
+            commandAudioRecord = null;
         }
 
-        Log.d(TAG, "创建AudioRecord - 采样率: 16000, 声道: MONO, 编码: PCM_16BIT, 缓冲区: " + BUFFER_SIZE);
+        final PcmResampler resampler = new PcmResampler(captureSampleRate, captureChannels);
+        final int readSize = resampler.frameBytesFor40ms();
+        int channelConfig = resampler.getChannels() == 2 ? AudioFormat.CHANNEL_IN_STEREO : AudioFormat.CHANNEL_IN_MONO;
+        int bufferSize = resampler.isPassthrough() ? BUFFER_SIZE
+                : Math.max(AudioRecord.getMinBufferSize(resampler.getInputRate(), channelConfig,
+                        AudioFormat.ENCODING_PCM_16BIT), readSize * 2);
+
+        Log.d(TAG, "创建AudioRecord - 采样率: " + resampler.getInputRate() + ", 声道数: " + resampler.getChannels()
+                + ", 编码: PCM_16BIT, 缓冲区: " + bufferSize);
         commandAudioRecord = new AudioRecord(
                 MediaRecorder.AudioSource.MIC,
-                16000,
-                AudioFormat.CHANNEL_IN_MONO,
+                resampler.getInputRate(),
+                channelConfig,
                 AudioFormat.ENCODING_PCM_16BIT,
-                BUFFER_SIZE);
+                bufferSize);
 
         if (commandAudioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
             Log.e(TAG, "AudioRecord初始化失败");
+            // 没有录音线程，直接释放
+            commandAudioRecord.release();
+            commandAudioRecord = null;
             return;
         }
 
@@ -545,46 +1182,101 @@ public class CommandRecognitionManager {
         commandAudioRecord.startRecording();
         Log.d(TAG, "录音已启动");
 
+        final EnergyVad.Config config = vadConfig;
+        final int endSilence = endSilenceMs;
+        final int noSpeechTimeout = noSpeechTimeoutMs;
+        // 录音线程只使用本次创建的 AudioRecord，停止后旧线程不会读到新会话的录音；
+        // 释放也由该线程在退出时完成，避免其他线程在 read 进行中释放
+        final AudioRecord record = commandAudioRecord;
+
         // 启动录音线程
         new Thread(new Runnable() {
+            private boolean isFirstFrame = true;
+
             @Override
             public void run() {
+                try {
+                    capture();
+                } finally {
+                    record.release();
+                    Log.d(TAG, "AudioRecord已释放");
+                }
+            }
+
+            private void capture() {
                 Log.d(TAG, "录音线程已启动");
-                byte[] buffer = new byte[BUFFER_SIZE];
-                boolean isFirstFrame = true;
+                byte[] buffer = new byte[readSize];
+                byte[] converted = resampler.isPassthrough() ? buffer : new byte[resampler.maxOutputBytes(readSize)];
                 int frameCount = 0;
+                EnergyVad vad = config != null ? new EnergyVad(config, converted.length) : null;
+                // 端点检测独立于前端VAD，始终看到全部音频
+                EnergyVad endpoint = endSilence > 0 || noSpeechTimeout > 0
+                        ? new EnergyVad(EnergyVad.Config.forEndpoint(endSilence > 0 ? endSilence : DEFAULT_END_SILENCE_MS),
+                                converted.length)
+                        : null;
+                boolean heardSpeech = false;
+                boolean inputEnded = false;
+                long audioMs = 0;
+                AudioDumper dumper = audioDumper;
+                if (dumper != null) {
+                    dumper.beginSession(AudioDumper.STREAM_COMMAND);
+                }
+                EnergyVad.Sink sink = new EnergyVad.Sink() {
+                    @Override
+                    public void onFrame(byte[] frame, int length) {
+                        int status = isFirstFrame ? AiEngine.STATUS_BEGIN : AiEngine.STATUS_CONTINUE;
+                        writeAudioData(frame, length, status);
+                        isFirstFrame = false;
+                    }
+                };
 
                 while (isCommandRecording.get() && commandHandle != null && !isCommandEnd.get()) {
                     // 检查AudioRecord状态，如果已停止则退出
-                    if (commandAudioRecord.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+                    if (record.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
                         Log.d(TAG, "AudioRecord已停止，退出录音线程");
                         break;
                     }
 
-                    int read = commandAudioRecord.read(buffer, 0, BUFFER_SIZE);
+                    int read = record.read(buffer, 0, readSize);
                     if (read > 0 && AudioRecord.ERROR_INVALID_OPERATION != read) {
-                        AiStatus status = isFirstFrame ? AiStatus.BEGIN : AiStatus.CONTINUE;
-                        writeAudioData(buffer, status);
-                        isFirstFrame = false;
+                        int length = resampler.process(buffer, read, converted);
+                        // 输入已结束时继续读取（丢弃），等待最终结果或定时器停止会话
+                        if (length > 0 && !inputEnded) {
+                            if (dumper != null) {
+                                dumper.offer(AudioDumper.STREAM_COMMAND, converted, length);
+                            }
+                            if (vad != null) {
+                                vad.process(converted, length, sink);
+                            } else {
+                                sink.onFrame(converted, length);
+                            }
+                            if (endpoint != null) {
+                                audioMs += length / PcmFilePump.BYTES_PER_MS;
+                                boolean speaking = endpoint.update(converted, length);
+                                heardSpeech |= speaking;
+                                if ((endSilence > 0 && heardSpeech && !speaking)
+                                        || (noSpeechTimeout > 0 && !heardSpeech && audioMs >= noSpeechTimeout)) {
+                                    inputEnded = true;
+                                    endInput(heardSpeech, !isFirstFrame);
+                                }
+                            }
+                        }
                         frameCount++;
 
                         // 每100帧读取一次识别结果（避免过于频繁）
-                        if (frameCount % 100 == 0 && commandHandle != null) {
-                            try {
-                                AiHelper.getInst().read(ABILITY_ESR, commandHandle);
-                            } catch (Exception e) {
-                                Log.e(TAG, "读取识别结果失败: " + e.getMessage());
-                            }
+                        if (frameCount % 100 == 0) {
+                            readResults();
                         }
                     } else if (read < 0) {
                         // 如果读取失败且不是正常的停止操作，记录警告
                         // -38 (ERROR_INVALID_OPERATION) 通常表示AudioRecord已停止，这是正常的
                         if (read != AudioRecord.ERROR_INVALID_OPERATION) {
                             Log.w(TAG, "读取音频数据失败: " + read);
+                            VoiceMetrics.getInstance().increment(VoiceMetrics.DROPPED_FRAMES);
                         }
                         // 如果AudioRecord已停止，退出循环
                         if (!isCommandRecording.get()
-                                || commandAudioRecord.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
+                                || record.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) {
                             break;
                         }
                     }
@@ -630,27 +1322,6 @@ public class CommandRecognitionManager {
         }
     }
 
-    /**
-     * 解析识别结果（支持GBK和UTF-8编码）
-     */
-    private String parseResult(byte[] valueBytes) {
-        if (valueBytes == null) {
-            return null;
-        }
-        try {
-            // 优先使用GBK编码（与官方demo一致）
-            return new String(valueBytes, "GBK");
-        } catch (UnsupportedEncodingException e) {
-            Log.e(TAG, "使用GBK编码解析失败，尝试UTF-8: " + e.getMessage());
-            try {
-                return new String(valueBytes, "UTF-8");
-            } catch (UnsupportedEncodingException ex) {
-                Log.e(TAG, "使用UTF-8编码也失败，使用系统默认编码");
-                return new String(valueBytes);
-            }
-        }
-    }
-
     /**
      * 启动超时定时器
      */
@@ -660,7 +1331,7 @@ public class CommandRecognitionManager {
 
         Log.d(TAG, "启动超时定时器，超时时间: " + timeoutSeconds + "秒");
 
-        timeoutRunnable = new Runnable() {
+        timeoutFuture = scheduler.schedule(new Runnable() {
             @Override
             public void run() {
                 if (!isCommandEnd.get() && commandHandle != null) {
@@ -675,24 +1346,71 @@ public class CommandRecognitionManager {
                     } catch (JSONException e) {
                         Log.e(TAG, "创建超时事件数据失败: " + e.getMessage());
                     }
-                    // 自动停止识别
+                    // 自动停止识别（在定时器线程执行，不阻塞主线程）
                     stopCommandRecognitionForNext(null);
                 }
             }
-        };
+        }, timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 语音端点：写入结束帧让引擎立即给出最终结果，限定时间内仍无结果则结束会话
+     *
+     * @param heardSpeech 是否检测到过语音
+     * @param hasAudio    是否已向引擎写入过音频
+     */
+    private void endInput(final boolean heardSpeech, boolean hasAudio) {
+        Log.d(TAG, heardSpeech ? "检测到句尾静音，提前结束输入" : "未检测到语音，提前结束输入");
+        VoiceMetrics.getInstance().increment(VoiceMetrics.ENDPOINT_ENDS);
+        if (hasAudio) {
+            writeAudioData(new byte[0], 0, AiEngine.STATUS_END);
+            readResults();
+        }
+        endpointFuture = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (isCommandEnd.get() || commandHandle == null) {
+                    return;
+                }
+                Log.w(TAG, "结束输入后未返回最终结果，停止识别");
+                try {
+                    JSONObject noMatchData = new JSONObject();
+                    noMatchData.put("value", "");
+                    noMatchData.put("message", heardSpeech ? "未识别到有效命令词" : "未检测到语音");
+                    sendEvent("commandNoMatch", noMatchData);
+                } catch (JSONException e) {
+                    Log.e(TAG, "创建事件数据失败: " + e.getMessage());
+                }
+                stopCommandRecognitionForNext(null);
+            }
+        }, hasAudio ? ENDPOINT_RESULT_WAIT_MS : 0, TimeUnit.MILLISECONDS);
+    }
 
-        // 在主线程中延迟执行
-        mainHandler.postDelayed(timeoutRunnable, timeoutSeconds * 1000L);
+    /**
+     * 设置语音端点检测（下次开始录音时生效）
+     *
+     * @param endSilenceMs      说话后静音多久结束输入，0表示不启用
+     * @param noSpeechTimeoutMs 一直未说话多久结束识别，0表示只依赖超时
+     */
+    public void setEndpoint(int endSilenceMs, int noSpeechTimeoutMs) {
+        this.endSilenceMs = Math.max(0, endSilenceMs);
+        this.noSpeechTimeoutMs = Math.max(0, noSpeechTimeoutMs);
     }
 
     /**
-     * 取消超时定时器
+     * 取消超时定时器与端点定时器
      */
     private void cancelTimeoutTimer() {
-        if (timeoutRunnable != null) {
+        ScheduledFuture<?> future = timeoutFuture;
+        if (future != null) {
             Log.d(TAG, "取消超时定时器");
-            mainHandler.removeCallbacks(timeoutRunnable);
-            timeoutRunnable = null;
+            future.cancel(false);
+            timeoutFuture = null;
+        }
+        future = endpointFuture;
+        if (future != null) {
+            future.cancel(false);
+            endpointFuture = null;
         }
     }
 }
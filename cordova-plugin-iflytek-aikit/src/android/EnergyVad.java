@@ -0,0 +1,247 @@
+package com.iflytek.aikit.plugin;
+
+/**
+ * 轻量级前端能量VAD（16kHz 16bit 单声道）
+ * 按帧计算短时能量（RMS）与过零率，长时间静音时不再把帧写入引擎，降低待机CPU占用。
+ * 语音开始时先补发回看缓冲中的帧，避免截掉起音；语音结束后保持拖尾时间再关闭。
+ * 直接在 PCM 字节数组上计算，不做任何分配，非线程安全（每个采集线程一个实例）
+ */
+public class EnergyVad {
+
+    /**
+     * VAD配置，时间单位为毫秒
+     */
+    public static class Config {
+        // 能量下限（RMS，0-32767），低于此值一定判为静音
+        public int minEnergy = 300;
+        // 能量需高于噪声基底的倍数
+        public float noiseRatio = 3.0f;
+        // 能量较低但过零率在此区间内时也判为语音（清辅音）
+        public float minZcr = 0.15f;
+        public float maxZcr = 0.5f;
+        // 清辅音判定的能量下限占主门限的比例
+        public float zcrEnergyRatio = 0.5f;
+        // 最后一帧语音之后继续写入的时间
+        public int hangoverMs = 800;
+        // 语音开始前补发的音频时长
+        public int lookbackMs = 320;
+        // 静音期间每隔多久仍写入一帧，0表示完全不写
+        public int keepAliveMs = 0;
+
+        /**
+         * 命令词识别的默认配置：引擎自身的VAD需要句尾静音判断结束，拖尾更长
+         */
+        public static Config forCommand() {
+            Config config = new Config();
+            config.hangoverMs = 1500;
+            return config;
+        }
+
+        /**
+         * 语音端点检测的配置：静音达到 endSilenceMs 判为说话结束，不需要回看缓冲
+         */
+        public static Config forEndpoint(int endSilenceMs) {
+            Config config = new Config();
+            config.hangoverMs = endSilenceMs;
+            config.lookbackMs = 0;
+            return config;
+        }
+    }
+
+    /**
+     * 放行的帧
+     */
+    public interface Sink {
+        void onFrame(byte[] frame, int length);
+    }
+
+    private final Config config;
+    private final byte[][] ring;
+    private final int[] ringLengths;
+    private int ringStart;
+    private int ringCount;
+    private int ringMs;
+
+    // 噪声基底（RMS），静音期间缓慢跟踪
+    private float noiseFloor;
+    private boolean active;
+    // 最近一帧是否判为语音（不含拖尾）
+    private boolean lastSpeech;
+    private int hangoverLeftMs;
+    private int silenceMs;
+    private long suppressed;
+
+    /**
+     * @param config    配置
+     * @param frameSize 采集帧的最大字节数
+     */
+    public EnergyVad(Config config, int frameSize) {
+        this.config = config;
+        int slots = Math.max(1, config.lookbackMs * PcmFilePump.BYTES_PER_MS / frameSize + 1);
+        this.ring = new byte[slots][frameSize];
+        this.ringLengths = new int[slots];
+        this.noiseFloor = config.minEnergy / config.noiseRatio;
+    }
+
+    /**
+     * 处理一帧：判为语音（含拖尾）时放行，并在语音开始时先放行回看缓冲；否则缓存到回看缓冲
+     *
+     * @return 被抑制（未写入）时返回 false
+     */
+    public boolean process(byte[] frame, int length, Sink sink) {
+        int frameMs = Math.max(1, length / PcmFilePump.BYTES_PER_MS);
+        boolean speech = isSpeech(frame, length);
+
+        if (speech) {
+            if (!active) {
+                active = true;
+                flushLookback(sink);
+            }
+            hangoverLeftMs = config.hangoverMs;
+        } else if (active) {
+            hangoverLeftMs -= frameMs;
+            if (hangoverLeftMs <= 0) {
+                active = false;
+                silenceMs = 0;
+            }
+        }
+
+        if (active || speech) {
+            sink.onFrame(frame, length);
+            return true;
+        }
+
+        // 静音：按需保活，否则存入回看缓冲
+        silenceMs += frameMs;
+        if (config.keepAliveMs > 0 && silenceMs >= config.keepAliveMs) {
+            silenceMs = 0;
+            sink.onFrame(frame, length);
+            return true;
+        }
+        pushLookback(frame, length, frameMs);
+        suppressed++;
+        VoiceMetrics.getInstance().increment(VoiceMetrics.VAD_SUPPRESSED_FRAMES);
+        return false;
+    }
+
+    /**
+     * 只做端点检测：更新语音与拖尾状态，不缓存帧、不计入抑制指标
+     *
+     * @return 处于语音段（含拖尾）时返回 true
+     */
+    public boolean update(byte[] frame, int length) {
+        int frameMs = Math.max(1, length / PcmFilePump.BYTES_PER_MS);
+        lastSpeech = isSpeech(frame, length);
+        if (lastSpeech) {
+            active = true;
+            hangoverLeftMs = config.hangoverMs;
+        } else if (active) {
+            hangoverLeftMs -= frameMs;
+            if (hangoverLeftMs <= 0) {
+                active = false;
+            }
+        }
+        return active;
+    }
+
+    /**
+     * 当前是否处于语音段
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 最近一次 update 的帧本身是否判为语音（拖尾中的静音帧返回 false）
+     */
+    public boolean isLastFrameSpeech() {
+        return lastSpeech;
+    }
+
+    /**
+     * 累计被抑制的帧数（不含语音开始时补发的回看帧）
+     */
+    public long getSuppressedFrames() {
+        return suppressed;
+    }
+
+    /**
+     * 清空状态（新会话开始时调用）
+     */
+    public void reset() {
+        active = false;
+        lastSpeech = false;
+        hangoverLeftMs = 0;
+        silenceMs = 0;
+        ringStart = 0;
+        ringCount = 0;
+        ringMs = 0;
+        suppressed = 0;
+        noiseFloor = config.minEnergy / config.noiseRatio;
+    }
+
+    /**
+     * 能量 + 过零率判决，静音帧同时更新噪声基底
+     */
+    private boolean isSpeech(byte[] frame, int length) {
+        int samples = length / 2;
+        if (samples == 0) {
+            return false;
+        }
+        long sumSquares = 0;
+        int crossings = 0;
+        int previous = 0;
+        for (int i = 0; i < samples; i++) {
+            int sample = (short) ((frame[2 * i] & 0xff) | (frame[2 * i + 1] << 8));
+            sumSquares += (long) sample * sample;
+            if (i > 0 && (sample >= 0) != (previous >= 0)) {
+                crossings++;
+            }
+            previous = sample;
+        }
+        float rms = (float) Math.sqrt((double) sumSquares / samples);
+        float zcr = (float) crossings / samples;
+
+        float threshold = Math.max(config.minEnergy, noiseFloor * config.noiseRatio);
+        boolean speech = rms >= threshold
+                || (rms >= threshold * config.zcrEnergyRatio && zcr >= config.minZcr && zcr <= config.maxZcr);
+        if (!speech) {
+            // 噪声基底：下降快、上升慢
+            noiseFloor = rms < noiseFloor ? rms : noiseFloor * 0.95f + rms * 0.05f;
+        }
+        return speech;
+    }
+
+    private void pushLookback(byte[] frame, int length, int frameMs) {
+        int slots = ring.length;
+        if (ringCount == slots) {
+            ringMs -= Math.max(1, ringLengths[ringStart] / PcmFilePump.BYTES_PER_MS);
+            ringStart = (ringStart + 1) % slots;
+            ringCount--;
+        }
+        int index = (ringStart + ringCount) % slots;
+        int copy = Math.min(length, ring[index].length);
+        System.arraycopy(frame, 0, ring[index], 0, copy);
+        ringLengths[index] = copy;
+        ringCount++;
+        ringMs += frameMs;
+        // 超出回看时长的旧帧丢弃
+        while (ringCount > 1 && ringMs - Math.max(1, ringLengths[ringStart] / PcmFilePump.BYTES_PER_MS) >= config.lookbackMs) {
+            ringMs -= Math.max(1, ringLengths[ringStart] / PcmFilePump.BYTES_PER_MS);
+            ringStart = (ringStart + 1) % slots;
+            ringCount--;
+        }
+    }
+
+    private void flushLookback(Sink sink) {
+        suppressed -= ringCount;
+        VoiceMetrics.getInstance().add(VoiceMetrics.VAD_SUPPRESSED_FRAMES, -ringCount);
+        for (int i = 0; i < ringCount; i++) {
+            int index = (ringStart + i) % ring.length;
+            sink.onFrame(ring[index], ringLengths[index]);
+        }
+        ringStart = 0;
+        ringCount = 0;
+        ringMs = 0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 命令词识别结果解析
+ * 将一次 onResult 回调的输出归类为 vad / pgs / plain，并给出最终应发送的事件
+ *
+ * key的取值以及含义
+ * pgs:progressive格式的结果，即可以实时刷屏
+ * htk:带有分词信息的结果，每一个分词结果占一行
+ * plain:类比于htk，把一句话结果中的所有分词拼成完整一句，若有后处理，则也含有后处理的结果信息，plain是每一段话的最终结果
+ * vad:语音端点检测结果(需要打开vad功能才会返回)bg:前端点，ed:后端点。单位:帧(10ms)
+ * readable:json格式的结果。
+ */
+public class EsrResultParser {
+
+    public static final String EVENT_RESULT = "commandResult";
+    public static final String EVENT_UNSUPPORTED = "commandUnsupported";
+    public static final String EVENT_NO_MATCH = "commandNoMatch";
+
+    /**
+     * 单次回调的解析结果
+     */
+    public static class Result {
+        public boolean hasVad;
+        public boolean hasPgs;
+        public boolean hasPlain;
+        public String lastPgsResult;
+        public String plainResult;
+        // 去重后的渐进式结果，按出现顺序
+        public final List<String> progress = new ArrayList<>();
+        // 识别是否完成（第一个结果 status=2，与官方demo一致）
+        public boolean isFinal;
+
+        /**
+         * 识别完成时应发送的事件名
+         */
+        public String finalEvent() {
+            if (hasPlain) {
+                return EVENT_RESULT;
+            } else if (hasPgs) {
+                return EVENT_UNSUPPORTED;
+            }
+            return EVENT_NO_MATCH;
+        }
+    }
+
+    /**
+     * 解析一次回调的输出
+     */
+    public static Result parse(List<AiEngine.Response> outputData) {
+        Result result = new Result();
+        if (outputData == null || outputData.isEmpty()) {
+            return result;
+        }
+
+        for (AiEngine.Response response : outputData) {
+            String key = response.getKey();
+            byte[] valueBytes = response.getValue();
+            if (key == null) {
+                continue;
+            }
+
+            // VAD事件不参与后续处理
+            if (key.contains("vad")) {
+                result.hasVad = true;
+                continue;
+            }
+
+            if (key.contains("pgs") && valueBytes != null) {
+                String text = decode(valueBytes);
+                if (text != null && !text.trim().isEmpty()) {
+                    result.hasPgs = true;
+                    result.lastPgsResult = text;
+                    if (!result.progress.contains(text)) {
+                        result.progress.add(text);
+                    }
+                }
+            }
+
+            if (key.contains("plain") && valueBytes != null) {
+                String text = decode(valueBytes);
+                if (text != null && !text.trim().isEmpty()) {
+                    result.hasPlain = true;
+                    result.plainResult = text;
+                }
+            }
+        }
+
+        result.isFinal = outputData.get(0).getStatus() == AiEngine.STATUS_END;
+        return result;
+    }
+
+    /**
+     * 解析识别结果（支持GBK和UTF-8编码）
+     */
+    public static String decode(byte[] valueBytes) {
+        if (valueBytes == null) {
+            return null;
+        }
+        try {
+            // 优先使用GBK编码（与官方demo一致）
+            return new String(valueBytes, "GBK");
+        } catch (UnsupportedEncodingException e) {
+            try {
+                return new String(valueBytes, "UTF-8");
+            } catch (UnsupportedEncodingException ex) {
+                return new String(valueBytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离线文件识别的分句驱动
+ * 用能量VAD在文件中查找语音端点：一句话之后静音达到 endSilenceMs 时给引擎写结束帧，阻塞等待该句的最终结果，
+ * 结束会话后从下一帧开启新会话。每帧音频只写入一个会话，不会因为结果回调晚于推送而丢失后续语句。
+ * 引擎提前给出结果时，同一语音段剩余的音频不再写入，端点到达后再开启新会话。
+ * 不依赖 Android，同一实例只能在一个线程中使用
+ */
+public class FileRecognizer {
+
+    /**
+     * 每句的最终结果，位置均为文件内的字节偏移（用 PcmFilePump.offsetToMillis 换算为毫秒）
+     */
+    public interface ResultHandler {
+        /**
+         * 在推送线程中同步回调
+         *
+         * @param result      引擎的最终结果
+         * @param speechStart 语音段起点：能量VAD判为语音的第一帧；未检测到语音时为会话起点
+         * @param speechEnd   语音段终点：最后一帧语音的末尾；未检测到语音时同 inputEnd
+         * @param inputEnd    该会话最后写入引擎的音频末尾
+         */
+        void onResult(EsrResultParser.Result result, long speechStart, long speechEnd, long inputEnd);
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final AiEngine engine;
+    private final String ability;
+    private final Map<String, Object> params;
+    private final int frameSize;
+    private final long resultWaitMs;
+    private final EnergyVad endpoint;
+
+    // 以下字段由 lock 保护，引擎回调线程与推送线程共用
+    private final Object lock = new Object();
+    private AiEngine.Handle handle;
+    private boolean finished;
+    private EsrResultParser.Result result;
+    private String error;
+
+    // 以下字段只在推送线程中使用
+    private AiEngine.Handle session;
+    private boolean first;
+    private long sessionStart;
+    private long speechStart;
+    private long speechEnd;
+    private long inputEnd;
+    private int frameCount;
+
+    /**
+     * @param ability      命令词识别能力ID
+     * @param params       会话参数，每个会话相同
+     * @param frameSize    每帧字节数
+     * @param endSilenceMs 说话后静音多久判为一句结束
+     * @param resultWaitMs 写入结束帧后等待最终结果的时间
+     */
+    public FileRecognizer(AiEngine engine, String ability, Map<String, Object> params, int frameSize,
+                          int endSilenceMs, long resultWaitMs) {
+        this.engine = engine;
+        this.ability = ability;
+        this.params = params;
+        this.frameSize = frameSize;
+        this.resultWaitMs = resultWaitMs;
+        this.endpoint = new EnergyVad(EnergyVad.Config.forEndpoint(endSilenceMs), frameSize);
+    }
+
+    /**
+     * 识别整个文件，每句结果通过 handler 回调
+     *
+     * @return 推送的字节数
+     * @throws IOException 文件不存在、为空或格式不支持
+     */
+    public long recognize(String filePath, final ResultHandler handler) throws IOException {
+        engine.registerListener(ability, new AiEngine.Listener() {
+            @Override
+            public void onResult(int handleID, List<AiEngine.Response> outputData) {
+                EsrResultParser.Result parsed = EsrResultParser.parse(outputData);
+                if (!parsed.isFinal) {
+                    return;
+                }
+                synchronized (lock) {
+                    if (handle == null || handleID != handle.getId() || finished) {
+                        return;
+                    }
+                    result = parsed;
+                    finished = true;
+                    lock.notifyAll();
+                }
+            }
+
+            @Override
+            public void onEvent(int handleID, int eventType, List<AiEngine.Response> eventData) {
+            }
+
+            @Override
+            public void onError(int handleID, int errCode, String errMsg) {
+                VoiceMetrics.getInstance().increment(VoiceMetrics.COMMAND_ERRORS);
+                synchronized (lock) {
+                    error = errCode + ": " + errMsg;
+                    if (handle != null && handleID == handle.getId()) {
+                        finished = true;
+                        lock.notifyAll();
+                    }
+                }
+            }
+        });
+
+        try {
+            long totalBytes = new PcmFilePump(frameSize).pump(filePath, new PcmFilePump.FrameSink() {
+                @Override
+                public boolean onFrame(byte[] frame, int length, int status, long offset) {
+                    return onFileFrame(frame, length, offset, handler);
+                }
+            });
+            // 文件末尾的最后一句
+            if (session != null) {
+                finishSession(handler);
+            }
+            return totalBytes;
+        } finally {
+            if (session != null) {
+                engine.end(session);
+                session = null;
+            }
+            synchronized (lock) {
+                handle = null;
+            }
+        }
+    }
+
+    /**
+     * 最近一次引擎错误或会话启动失败的原因，没有时返回 null
+     */
+    public String getError() {
+        synchronized (lock) {
+            return error;
+        }
+    }
+
+    private boolean onFileFrame(byte[] frame, int length, long offset, ResultHandler handler) {
+        // 只有一帧时泵会补发空的结束帧，结束由 finishSession 负责
+        if (length == 0) {
+            return true;
+        }
+        if (session == null && !startSession(offset)) {
+            return false;
+        }
+
+        boolean done;
+        synchronized (lock) {
+            done = finished;
+        }
+        if (!done) {
+            engine.writeAudio(session, "audio", frame, length, first ? AiEngine.STATUS_BEGIN : AiEngine.STATUS_CONTINUE);
+            first = false;
+            inputEnd = offset + length;
+            if (++frameCount % 100 == 0) {
+                engine.read(ability, session);
+            }
+        }
+
+        boolean active = endpoint.update(frame, length);
+        if (endpoint.isLastFrameSpeech()) {
+            if (speechStart < 0) {
+                speechStart = offset;
+            }
+            speechEnd = offset + length;
+        }
+        // 语音段结束；或引擎已给出结果而本段没有检测到语音
+        if (speechStart >= 0 ? !active : done) {
+            return finishSession(handler);
+        }
+        return true;
+    }
+
+    private boolean startSession(long offset) {
+        AiEngine.Handle started = engine.start(ability, params);
+        if (started.getCode() != 0) {
+            synchronized (lock) {
+                error = "启动识别失败: " + started.getCode();
+            }
+            return false;
+        }
+        synchronized (lock) {
+            handle = started;
+            finished = false;
+            result = null;
+        }
+        session = started;
+        first = true;
+        sessionStart = offset;
+        speechStart = -1;
+        speechEnd = offset;
+        inputEnd = offset;
+        frameCount = 0;
+        return true;
+    }
+
+    /**
+     * 写结束帧并等待本句结果，然后结束会话（不持锁调用引擎，避免与回调线程互锁）
+     *
+     * @return 等待被中断时返回 false
+     */
+    private boolean finishSession(ResultHandler handler) {
+        AiEngine.Handle ending = session;
+        session = null;
+        boolean done;
+        synchronized (lock) {
+            done = finished;
+        }
+        if (!done) {
+            engine.writeAudio(ending, "audio", EMPTY, 0, AiEngine.STATUS_END);
+        }
+
+        boolean interrupted = false;
+        EsrResultParser.Result outcome;
+        synchronized (lock) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(resultWaitMs);
+            try {
+                while (!finished) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            outcome = result;
+            result = null;
+            handle = null;
+        }
+        engine.end(ending);
+
+        if (outcome != null) {
+            boolean heard = speechStart >= 0;
+            handler.onResult(outcome, heard ? speechStart : sessionStart, heard ? speechEnd : inputEnd, inputEnd);
+        }
+        return !interrupted;
+    }
+}
@@ -1,6 +1,6 @@
 package com.iflytek.aikit.plugin;
 
-import android.app.Activity;
+import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Base64;
@@ -16,8 +16,13 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * 讯飞AIKit核心封装类
@@ -27,10 +32,13 @@ public class IflytekAIKit {
 
     private static final String TAG = "IflytekAIKit";
 
-    private Activity activity;
+    private Context context;
     private Handler mainHandler;
     private boolean isInitialized = false;
 
+    // 语音引擎（封装AiHelper会话接口）
+    private final AiEngine engine = new MeteredAiEngine(new AiHelperEngine());
+
     // 各个功能管理器
     private TTSManager ttsManager;
     private WakeUpManager wakeUpManager;
@@ -41,6 +49,17 @@ public class IflytekAIKit {
     private String wakeUpWorkDir;
     private String ttsOutputDir;
 
+    // writeAudioData 外部音频的转换器，按类型保存以保留滤波器状态
+    private final Map<String, PcmResampler> externalResamplers = new HashMap<>();
+    private byte[] externalBuffer = new byte[0];
+
+    // 唤醒后预启动命令词识别，为null时不启用；预启动在单独线程中执行，保证预唤醒与唤醒的处理顺序
+    private volatile CommandRecognitionManager.SpeculativeConfig speculativeConfig;
+    private final ExecutorService speculativeExecutor = Executors.newSingleThreadExecutor();
+
+    // 采集音频转储，为null时不转储
+    private AudioDumper audioDumper;
+
     // 回调接口
     public interface ResultCallback {
         void onSuccess(Object result);
@@ -52,10 +71,11 @@ public class IflytekAIKit {
         void onEvent(String event, JSONObject data);
     }
 
-    private EventCallback eventCallback;
+    // 插件重新绑定服务时会替换，解绑时置为null
+    private volatile EventCallback eventCallback;
 
-    public IflytekAIKit(Activity activity) {
-        this.activity = activity;
+    public IflytekAIKit(Context context) {
+        this.context = context.getApplicationContext();
         this.mainHandler = new Handler(Looper.getMainLooper());
     }
 
@@ -125,7 +145,7 @@ public class IflytekAIKit {
                         });
 
                         // 初始化SDK
-                        AiHelper.getInst().initEntry(activity.getApplicationContext(), params);
+                        AiHelper.getInst().initEntry(context, params);
 
                         // 创建必要的目录
                         new File(wakeUpWorkDir).mkdirs();
@@ -149,7 +169,7 @@ public class IflytekAIKit {
      */
     private void initManagers() {
         // 初始化TTS管理器
-        ttsManager = new TTSManager(activity, ttsOutputDir);
+        ttsManager = new TTSManager(context, ttsOutputDir, engine);
         ttsManager.setEventCallback(new TTSManager.TTSEventCallback() {
             @Override
             public void onEvent(String event, JSONObject data) {
@@ -158,22 +178,29 @@ public class IflytekAIKit {
         });
 
         // 初始化唤醒管理器
-        wakeUpManager = new WakeUpManager(activity, wakeUpWorkDir);
+        wakeUpManager = new WakeUpManager(context, wakeUpWorkDir, engine);
         wakeUpManager.setEventCallback(new WakeUpManager.WakeUpEventCallback() {
             @Override
-            public void onEvent(String event, JSONObject data) {
-                sendEvent(event, data);
+            public void onEvent(String event, JSONObject data, long detectedAtNanos) {
+                if ("wakeUpResult".equals(event) && speculativeConfig != null) {
+                    handleSpeculativeWakeUp(data);
+                }
+                sendEvent(event, data, detectedAtNanos);
             }
         });
 
         // 初始化命令词识别管理器
-        commandManager = new CommandRecognitionManager(activity);
+        commandManager = new CommandRecognitionManager(context, engine);
         commandManager.setEventCallback(new CommandRecognitionManager.CommandEventCallback() {
             @Override
             public void onEvent(String event, JSONObject data) {
                 sendEvent(event, data);
             }
         });
+        synchronized (this) {
+            wakeUpManager.setAudioDumper(audioDumper);
+            commandManager.setAudioDumper(audioDumper);
+        }
     }
 
     /**
@@ -187,13 +214,214 @@ public class IflytekAIKit {
             if (commandManager != null) {
                 commandManager.stopCommandRecognition(null);
             }
-            AiHelper.getInst().unInit();
+            engine.unInit();
             isInitialized = false;
         } catch (Exception e) {
             Log.e(TAG, "UnInit error: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 开启或关闭采集音频转储（下次开始录音时生效）
+     *
+     * @param config 转储配置，null表示关闭
+     * @param dir    转储目录，为null时使用应用外部文件目录下的 aikit_dump
+     */
+    public synchronized void setAudioDump(AudioDumper.Config config, String dir, ResultCallback callback) {
+        AudioDumper previous = audioDumper;
+        audioDumper = null;
+        if (config != null) {
+            File dumpDir;
+            if (dir != null) {
+                dumpDir = new File(dir);
+            } else {
+                File base = context.getExternalFilesDir(null);
+                dumpDir = new File(base != null ? base : context.getFilesDir(), "aikit_dump");
+            }
+            try {
+                audioDumper = new AudioDumper(dumpDir, config);
+            } catch (IOException e) {
+                callback.onError("开启音频转储失败: " + e.getMessage());
+                return;
+            }
+        }
+        if (wakeUpManager != null) {
+            wakeUpManager.setAudioDumper(audioDumper);
+        }
+        if (commandManager != null) {
+            commandManager.setAudioDumper(audioDumper);
+        }
+        if (previous != null) {
+            previous.close();
+        }
+        callback.onSuccess(audioDumper != null ? audioDumper.getDir().getAbsolutePath() : "音频转储已关闭");
+    }
+
+    /**
+     * 设置命令词识别的语音端点检测（下次开始录音时生效）
+     *
+     * @param endSilenceMs      说话后静音多久提前结束输入，0表示不启用
+     * @param noSpeechTimeoutMs 一直未说话多久提前结束识别，0表示只依赖超时
+     */
+    public void setEndpoint(int endSilenceMs, int noSpeechTimeoutMs) {
+        if (commandManager != null) {
+            commandManager.setEndpoint(endSilenceMs, noSpeechTimeoutMs);
+        }
+    }
+
+    /**
+     * 设置命令词模糊匹配（下次开始识别时生效）
+     *
+     * @param config 匹配配置，null表示关闭
+     */
+    public void setFuzzyMatch(CommandMatcher.Config config) {
+        if (commandManager != null) {
+            commandManager.setFuzzyMatch(config);
+        }
+    }
+
+    /**
+     * 设置TTS缓存变速复用（下次合成时生效）
+     *
+     * @param config 变速配置，null表示关闭
+     */
+    public void setSpeedVariants(TimeStretcher.Config config) {
+        if (ttsManager != null) {
+            ttsManager.setSpeedVariants(config);
+        }
+    }
+
+    /**
+     * 设置前端VAD（下次开始录音时生效）
+     *
+     * @param type   类型: wakeup 或 command
+     * @param config VAD配置，null表示关闭
+     */
+    public void setVadConfig(String type, EnergyVad.Config config) {
+        if ("wakeup".equals(type)) {
+            if (wakeUpManager != null) {
+                wakeUpManager.setVadConfig(config);
+            }
+        } else if ("command".equals(type)) {
+            if (commandManager != null) {
+                commandManager.setVadConfig(config);
+            }
+        }
+    }
+
+    /**
+     * 设置麦克风采集格式（下次开始录音时生效）
+     *
+     * @param type       类型: wakeup 或 command
+     * @param sampleRate 采样率，如 16000、44100、48000
+     * @param channels   声道数 1 或 2
+     */
+    public void setCaptureFormat(String type, int sampleRate, int channels) {
+        if ("wakeup".equals(type)) {
+            if (wakeUpManager != null) {
+                wakeUpManager.setCaptureFormat(sampleRate, channels);
+            }
+        } else if ("command".equals(type)) {
+            if (commandManager != null) {
+                commandManager.setCaptureFormat(sampleRate, channels);
+            }
+        }
+    }
+
+    /**
+     * 设置唤醒后预启动命令词识别
+     * 预唤醒（func_pre_wakeup）时即启动识别会话，唤醒确认（func_wake_up）后直接使用唤醒录音进行识别，
+     * 未确认则在 cancelAfterMs 后取消
+     *
+     * @param config 配置，null表示关闭
+     */
+    public void setSpeculativeCommand(CommandRecognitionManager.SpeculativeConfig config) {
+        this.speculativeConfig = config;
+        if (wakeUpManager != null && commandManager != null) {
+            if (config != null) {
+                final CommandRecognitionManager manager = commandManager;
+                wakeUpManager.setAudioTap(new EnergyVad.Sink() {
+                    @Override
+                    public void onFrame(byte[] frame, int length) {
+                        manager.onCaptureFrame(frame, length);
+                    }
+                });
+            } else {
+                wakeUpManager.setAudioTap(null);
+                commandManager.cancelSpeculative();
+            }
+        }
+    }
+
+    /**
+     * 预唤醒时预启动识别，唤醒确认时提交（没有预启动会话时直接启动并提交）
+     */
+    private void handleSpeculativeWakeUp(JSONObject data) {
+        final CommandRecognitionManager.SpeculativeConfig config = speculativeConfig;
+        if (config == null || commandManager == null) {
+            return;
+        }
+        if (data.has("func_pre_wakeup")) {
+            speculativeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    String error = commandManager.startSpeculative(config.fsaPath, config.languageType,
+                            config.timeoutSeconds, config.cancelAfterMs);
+                    if (error != null) {
+                        Log.w(TAG, "预启动命令词识别失败: " + error);
+                    }
+                }
+            });
+        } else if (data.has("func_wake_up")) {
+            try {
+                // 告知JS命令词识别已由插件启动，无需再调用 startCommandRecognition
+                data.put("commandStarted", true);
+            } catch (JSONException e) {
+                Log.e(TAG, "创建唤醒事件数据失败: " + e.getMessage());
+            }
+            speculativeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (commandManager.commitSpeculative()) {
+                        return;
+                    }
+                    String error = commandManager.startSpeculative(config.fsaPath, config.languageType,
+                            config.timeoutSeconds, config.cancelAfterMs);
+                    if (error != null) {
+                        sendEvent("commandError", createErrorData(-1, error));
+                        return;
+                    }
+                    // 已有识别会话在运行时不会预启动，提交失败即沿用已有会话
+                    commandManager.commitSpeculative();
+                }
+            });
+        }
+    }
+
+    /**
+     * 设置命令词动作表
+     *
+     * @param actions 动作表JSON（对象或数组），null表示清除
+     */
+    public void setCommandActions(Object actions, ResultCallback callback) {
+        if (commandManager == null) {
+            callback.onError("命令词识别管理器未初始化");
+            return;
+        }
+        if (actions == null) {
+            commandManager.setCommandDispatcher(null);
+            callback.onSuccess("动作表已清除");
+            return;
+        }
+        try {
+            CommandDispatcher dispatcher = CommandDispatcher.fromJson(actions);
+            commandManager.setCommandDispatcher(dispatcher);
+            callback.onSuccess("动作表已加载，共 " + dispatcher.size() + " 条");
+        } catch (JSONException e) {
+            callback.onError("动作表解析失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 开始语音唤醒
      */
@@ -248,9 +476,11 @@ public class IflytekAIKit {
 
     /**
      * 开始语音合成（轻量版）
+     *
+     * @param format 输出格式：pcm、wav 或 adpcm，为空时按 fileName 扩展名推断
      */
     public void startTTS(String text, String vcn, int speed, int pitch, int volume, String fileName,
-            ResultCallback callback) {
+            String format, ResultCallback callback) {
         if (!isInitialized) {
             callback.onError("SDK未初始化");
             return;
@@ -259,7 +489,7 @@ public class IflytekAIKit {
             callback.onError("TTS管理器未初始化");
             return;
         }
-        ttsManager.startTTS(text, vcn, speed, pitch, volume, fileName, new TTSManager.TTSResultCallback() {
+        ttsManager.startTTS(text, vcn, speed, pitch, volume, fileName, format, new TTSManager.TTSResultCallback() {
             @Override
             public void onSuccess(Object result) {
                 callback.onSuccess(result);
@@ -272,11 +502,44 @@ public class IflytekAIKit {
         });
     }
 
+    /**
+     * 开始模板播报合成：缓存固定片段，只合成槽位并拼接
+     *
+     * @param template 模板，如 "请 {number} 号到 {window} 窗口办理"
+     * @param slots    槽位值
+     */
+    public void startTemplateTTS(String template, Map<String, String> slots, String vcn, int speed, int pitch,
+            int volume, String fileName, String format, PhraseTemplate.Config config, ResultCallback callback) {
+        if (!isInitialized) {
+            callback.onError("SDK未初始化");
+            return;
+        }
+        if (ttsManager == null) {
+            callback.onError("TTS管理器未初始化");
+            return;
+        }
+        ttsManager.startTemplateTTS(template, slots, vcn, speed, pitch, volume, fileName, format, config,
+                new TTSManager.TTSResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callback.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callback.onError(error);
+                    }
+                });
+    }
+
     /**
      * 开始语音合成（XTTS版本）
+     *
+     * @param format     输出格式：pcm、wav 或 adpcm
+     * @param sampleRate 引擎输出采样率，写入 WAV 头
      */
     public void startXTTS(String text, String vcn, int language, int speed, int pitch, int volume,
-            ResultCallback callback) {
+            String fileName, String format, int sampleRate, ResultCallback callback) {
         if (!isInitialized) {
             callback.onError("SDK未初始化");
             return;
@@ -285,7 +548,7 @@ public class IflytekAIKit {
             callback.onError("TTS管理器未初始化");
             return;
         }
-        ttsManager.startXTTS(text, vcn, language, speed, pitch, volume, new TTSManager.TTSResultCallback() {
+        ttsManager.startXTTS(text, vcn, language, speed, pitch, volume, fileName, format, sampleRate, new TTSManager.TTSResultCallback() {
             @Override
             public void onSuccess(Object result) {
                 callback.onSuccess(result);
@@ -328,6 +591,95 @@ public class IflytekAIKit {
                 });
     }
 
+    /**
+     * 开始中英文并行识别（同一路录音同时送入中文、英文两个识别会话）
+     *
+     * @param cnFsaPath      中文FSA文件路径
+     * @param enFsaPath      英文FSA文件路径
+     * @param timeoutSeconds 超时时间（秒），默认10秒
+     */
+    public void startBilingualRecognition(String cnFsaPath, String enFsaPath, int timeoutSeconds,
+            ResultCallback callback) {
+        if (!isInitialized) {
+            callback.onError("SDK未初始化");
+            return;
+        }
+        if (commandManager == null) {
+            callback.onError("命令词识别管理器未初始化");
+            return;
+        }
+        commandManager.startBilingualRecognition(cnFsaPath, enFsaPath, timeoutSeconds,
+                new CommandRecognitionManager.CommandResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callback.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callback.onError(error);
+                    }
+                });
+    }
+
+    /**
+     * 离线识别PCM文件中的命令词
+     *
+     * @param filePath     PCM文件路径（16kHz 16bit 单声道）
+     * @param fsaPath      FSA文件路径
+     * @param languageType 语种类型 0:中文, 1:英文
+     */
+    public void recognizeFile(String filePath, String fsaPath, int languageType, ResultCallback callback) {
+        if (!isInitialized) {
+            callback.onError("SDK未初始化");
+            return;
+        }
+        if (commandManager == null) {
+            callback.onError("命令词识别管理器未初始化");
+            return;
+        }
+        commandManager.recognizeFile(filePath, fsaPath, languageType,
+                new CommandRecognitionManager.CommandResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callback.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callback.onError(error);
+                    }
+                });
+    }
+
+    /**
+     * 离线扫描PCM文件中的唤醒词
+     *
+     * @param filePath PCM文件路径（16kHz 16bit 单声道）
+     * @param keywords 唤醒词，多个用逗号分隔
+     */
+    public void scanWakeUpFile(String filePath, String keywords, ResultCallback callback) {
+        if (!isInitialized) {
+            callback.onError("SDK未初始化");
+            return;
+        }
+        if (wakeUpManager == null) {
+            callback.onError("唤醒管理器未初始化");
+            return;
+        }
+        wakeUpManager.scanFile(filePath, keywords, new WakeUpManager.WakeUpResultCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        });
+    }
+
     /**
      * 停止命令词识别
      */
@@ -359,18 +711,49 @@ public class IflytekAIKit {
      * 写入音频数据
      */
     public void writeAudioData(String audioDataBase64, String type, boolean isEnd, ResultCallback callback) {
+        writeAudioData(audioDataBase64, type, isEnd, PcmResampler.TARGET_SAMPLE_RATE, 1, callback);
+    }
+
+    /**
+     * 写入音频数据，非 16kHz 单声道时先转换
+     *
+     * @param sampleRate 输入采样率
+     * @param channels   输入声道数（交织存储）
+     */
+    public void writeAudioData(String audioDataBase64, String type, boolean isEnd, int sampleRate, int channels,
+            ResultCallback callback) {
         try {
             byte[] audioData = Base64.decode(audioDataBase64, Base64.DEFAULT);
-            com.iflytek.aikit.core.AiStatus status = isEnd ? com.iflytek.aikit.core.AiStatus.END
-                    : com.iflytek.aikit.core.AiStatus.CONTINUE;
-
-            if (type.equals("wakeup")) {
-                if (wakeUpManager != null) {
-                    wakeUpManager.writeAudioData(audioData, status);
+            int status = isEnd ? AiEngine.STATUS_END : AiEngine.STATUS_CONTINUE;
+
+            synchronized (externalResamplers) {
+                int length = audioData.length;
+                if (sampleRate != PcmResampler.TARGET_SAMPLE_RATE || channels != 1) {
+                    PcmResampler resampler = externalResamplers.get(type);
+                    if (resampler == null || resampler.getInputRate() != sampleRate
+                            || resampler.getChannels() != channels) {
+                        resampler = new PcmResampler(sampleRate, channels);
+                        externalResamplers.put(type, resampler);
+                    }
+                    int maxBytes = resampler.maxOutputBytes(audioData.length);
+                    if (externalBuffer.length < maxBytes) {
+                        externalBuffer = new byte[maxBytes];
+                    }
+                    length = resampler.process(audioData, audioData.length, externalBuffer);
+                    audioData = externalBuffer;
+                    if (isEnd) {
+                        resampler.reset();
+                    }
                 }
-            } else if (type.equals("command")) {
-                if (commandManager != null) {
-                    commandManager.writeAudioData(audioData, status);
+
+                if (type.equals("wakeup")) {
+                    if (wakeUpManager != null) {
+                        wakeUpManager.writeAudioData(audioData, length, status);
+                    }
+                } else if (type.equals("command")) {
+                    if (commandManager != null) {
+                        commandManager.writeAudioData(audioData, length, status);
+                    }
                 }
             }
 
@@ -389,8 +772,8 @@ public class IflytekAIKit {
     /**
      * 播放音频文件
      * 
-     * @param filePath   音频文件路径（PCM格式）
-     * @param sampleRate 采样率类型：16k 或 24k
+     * @param filePath   音频文件路径（PCM 或 WAV 格式）
+     * @param sampleRate 采样率类型：16k 或 24k，仅对裸 PCM 生效，WAV 以文件头为准
      * @param callback   回调
      */
     public void playAudio(String filePath, String sampleRate, ResultCallback callback) {
@@ -435,6 +818,27 @@ public class IflytekAIKit {
         }
     }
 
+    /**
+     * 获取性能指标
+     */
+    public void getMetrics(ResultCallback callback) {
+        try {
+            callback.onSuccess(VoiceMetrics.getInstance().toJson());
+        } catch (JSONException e) {
+            callback.onError("获取性能指标失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 重置性能指标
+     */
+    public void resetMetrics(ResultCallback callback) {
+        VoiceMetrics.getInstance().reset();
+        if (callback != null) {
+            callback.onSuccess("性能指标已重置");
+        }
+    }
+
     /**
      * 注册事件监听器
      */
@@ -448,11 +852,24 @@ public class IflytekAIKit {
      * 发送事件
      */
     private void sendEvent(String event, JSONObject data) {
-        if (eventCallback != null) {
+        sendEvent(event, data, 0);
+    }
+
+    /**
+     * @param detectedAtNanos 唤醒结果到达的时间，非 0 时记录 wakeUp.wakeToEvent
+     */
+    private void sendEvent(String event, JSONObject data, long detectedAtNanos) {
+        final EventCallback callback = eventCallback;
+        if (callback != null) {
+            final long postedAt = System.nanoTime();
             mainHandler.post(new Runnable() {
                 @Override
                 public void run() {
-                    eventCallback.onEvent(event, data);
+                    callback.onEvent(event, data);
+                    VoiceMetrics.getInstance().recordSince(VoiceMetrics.EVENT_DISPATCH, postedAt);
+                    if (detectedAtNanos != 0) {
+                        VoiceMetrics.getInstance().recordSince(VoiceMetrics.WAKE_TO_EVENT, detectedAtNanos);
+                    }
                 }
             });
         }
@@ -488,7 +905,7 @@ public class IflytekAIKit {
                 if (!created) {
                     Log.e(TAG, "创建工作目录失败: " + workDir);
                     // 如果外部存储不可用，尝试使用应用私有目录
-                    File externalFilesDir = activity.getExternalFilesDir(null);
+                    File externalFilesDir = context.getExternalFilesDir(null);
                     if (externalFilesDir != null) {
                         File fallbackDir = new File(externalFilesDir, "iflytek");
                         if (fallbackDir.mkdirs() || fallbackDir.exists()) {
@@ -554,7 +971,7 @@ public class IflytekAIKit {
             // 如果需要复制，从assets复制资源文件
             if (needCopy) {
                 Log.i(TAG, "检测到资源文件缺失，开始从assets复制资源文件...");
-                android.content.res.AssetManager assetManager = activity.getAssets();
+                android.content.res.AssetManager assetManager = context.getAssets();
 
                 for (String dir : resourceDirs) {
                     try {
@@ -1,5 +1,10 @@
 package com.iflytek.aikit.plugin;
 
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.IBinder;
 import android.util.Log;
 import com.hjq.permissions.OnPermission;
 import com.hjq.permissions.XXPermissions;
@@ -9,7 +14,16 @@ import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 讯飞AIKit Cordova插件主类
@@ -19,16 +33,63 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
 
     private static final String TAG = "IflytekAIKitPlugin";
 
-    private IflytekAIKit aiKit;
+    // 引擎宿主在 AIKitService 中，插件只持有引用
+    private volatile IflytekAIKit aiKit;
+    // 服务连接前收到的调用，连接后依次执行
+    private final List<Runnable> pendingActions = new ArrayList<>();
+
+    private final ServiceConnection serviceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            Log.d(TAG, "AIKitService已连接");
+            List<Runnable> actions;
+            synchronized (pendingActions) {
+                aiKit = ((AIKitService.LocalBinder) service).getService().getAIKit();
+                actions = new ArrayList<>(pendingActions);
+                pendingActions.clear();
+            }
+            for (Runnable action : actions) {
+                action.run();
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            Log.w(TAG, "AIKitService连接断开");
+            aiKit = null;
+        }
+    };
     private CallbackContext initCallbackContext;
     private JSONArray initArgs;
 
+    @Override
+    protected void pluginInitialize() {
+        // 先启动再绑定，解绑后服务仍保持运行
+        Context context = cordova.getActivity().getApplicationContext();
+        Intent intent = new Intent(context, AIKitService.class);
+        context.startService(intent);
+        context.bindService(intent, serviceConnection, Context.BIND_AUTO_CREATE);
+    }
+
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        try {
+        synchronized (pendingActions) {
             if (aiKit == null) {
-                aiKit = new IflytekAIKit(cordova.getActivity());
+                pendingActions.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            execute(action, args, callbackContext);
+                        } catch (JSONException e) {
+                            callbackContext.error("Execute error: " + e.getMessage());
+                        }
+                    }
+                });
+                return true;
             }
+        }
+
+        try {
 
             switch (action) {
                 case "init":
@@ -51,6 +112,10 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
                     startTTS(args, callbackContext);
                     return true;
 
+                case "startTemplateTTS":
+                    startTemplateTTS(args, callbackContext);
+                    return true;
+
                 case "startXTTS":
                     startXTTS(args, callbackContext);
                     return true;
@@ -59,10 +124,34 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
                     startCommandRecognition(args, callbackContext);
                     return true;
 
+                case "startBilingualRecognition":
+                    startBilingualRecognition(args, callbackContext);
+                    return true;
+
                 case "stopCommandRecognition":
                     stopCommandRecognition(callbackContext);
                     return true;
 
+                case "setCommandActions":
+                    setCommandActions(args, callbackContext);
+                    return true;
+
+                case "recognizeFile":
+                    recognizeFile(args, callbackContext);
+                    return true;
+
+                case "scanWakeUpFile":
+                    scanWakeUpFile(args, callbackContext);
+                    return true;
+
+                case "setAudioDump":
+                    setAudioDump(args, callbackContext);
+                    return true;
+
+                case "replayDump":
+                    replayDump(args, callbackContext);
+                    return true;
+
                 case "writeAudioData":
                     writeAudioData(args, callbackContext);
                     return true;
@@ -79,6 +168,14 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
                     stopPlayAudio(callbackContext);
                     return true;
 
+                case "getMetrics":
+                    getMetrics(callbackContext);
+                    return true;
+
+                case "resetMetrics":
+                    resetMetrics(callbackContext);
+                    return true;
+
                 default:
                     Log.e(TAG, "Unknown action: " + action);
                     callbackContext.error("Unknown action: " + action);
@@ -265,6 +362,11 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
     private void startWakeUp(JSONArray args, CallbackContext callbackContext) throws JSONException {
         JSONObject options = args.getJSONObject(0);
         String keywords = options.getString("keywords");
+        aiKit.setVadConfig("wakeup", parseVadConfig(options.opt("vad"), new EnergyVad.Config()));
+        if (!setCaptureFormat("wakeup", options, callbackContext)) {
+            return;
+        }
+        aiKit.setSpeculativeCommand(parseSpeculativeConfig(options.optJSONObject("speculativeCommand")));
 
         cordova.getThreadPool().execute(new Runnable() {
             @Override
@@ -284,6 +386,96 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         });
     }
 
+    /**
+     * 设置麦克风采集格式，格式不支持时返回错误
+     */
+    private boolean setCaptureFormat(String type, JSONObject options, CallbackContext callbackContext) {
+        int sampleRate = options.optInt("sampleRate", 16000);
+        int channels = options.optInt("channels", 1);
+        if (sampleRate <= 0 || channels < 1 || channels > 2) {
+            callbackContext.error("不支持的录音格式: " + sampleRate + "Hz, " + channels + "ch");
+            return false;
+        }
+        aiKit.setCaptureFormat(type, sampleRate, channels);
+        return true;
+    }
+
+    /**
+     * 解析唤醒后预启动命令词识别的配置，未配置 fsaPath 时不启用
+     */
+    private CommandRecognitionManager.SpeculativeConfig parseSpeculativeConfig(JSONObject options) {
+        if (options == null || options.optString("fsaPath", "").isEmpty()) {
+            return null;
+        }
+        CommandRecognitionManager.SpeculativeConfig config = new CommandRecognitionManager.SpeculativeConfig();
+        config.fsaPath = options.optString("fsaPath");
+        config.languageType = options.optInt("languageType", 0);
+        config.timeoutSeconds = options.optInt("timeoutSeconds", config.timeoutSeconds);
+        config.cancelAfterMs = options.optLong("cancelAfterMs", config.cancelAfterMs);
+        return config;
+    }
+
+    /**
+     * 解析前端VAD配置：true 使用默认值，对象可覆盖各项参数，其余情况不启用
+     */
+    private EnergyVad.Config parseVadConfig(Object value, EnergyVad.Config defaults) {
+        if (Boolean.TRUE.equals(value)) {
+            return defaults;
+        }
+        if (!(value instanceof JSONObject)) {
+            return null;
+        }
+        JSONObject vad = (JSONObject) value;
+        if (!vad.optBoolean("enabled", true)) {
+            return null;
+        }
+        defaults.minEnergy = vad.optInt("minEnergy", defaults.minEnergy);
+        defaults.noiseRatio = (float) vad.optDouble("noiseRatio", defaults.noiseRatio);
+        defaults.hangoverMs = vad.optInt("hangoverMs", defaults.hangoverMs);
+        defaults.lookbackMs = vad.optInt("lookbackMs", defaults.lookbackMs);
+        defaults.keepAliveMs = vad.optInt("keepAliveMs", defaults.keepAliveMs);
+        return defaults;
+    }
+
+    /**
+     * 解析模糊匹配配置：true 使用默认值，对象可覆盖最低得分与时间预算，其余情况不启用
+     */
+    private CommandMatcher.Config parseFuzzyMatchConfig(Object value) {
+        CommandMatcher.Config config = new CommandMatcher.Config();
+        if (Boolean.TRUE.equals(value)) {
+            return config;
+        }
+        if (!(value instanceof JSONObject)) {
+            return null;
+        }
+        JSONObject fuzzy = (JSONObject) value;
+        if (!fuzzy.optBoolean("enabled", true)) {
+            return null;
+        }
+        config.minScore = (float) fuzzy.optDouble("minScore", config.minScore);
+        config.budgetMicros = (long) (fuzzy.optDouble("budgetMs", config.budgetMicros / 1000.0) * 1000);
+        return config;
+    }
+
+    /**
+     * 解析缓存变速复用配置：true 使用默认配置，对象可覆盖 maxRatio，其它值表示关闭
+     */
+    private TimeStretcher.Config parseSpeedVariantsConfig(Object value) {
+        TimeStretcher.Config config = new TimeStretcher.Config();
+        if (Boolean.TRUE.equals(value)) {
+            return config;
+        }
+        if (!(value instanceof JSONObject)) {
+            return null;
+        }
+        JSONObject reuse = (JSONObject) value;
+        if (!reuse.optBoolean("enabled", true)) {
+            return null;
+        }
+        config.maxRatio = (float) reuse.optDouble("maxRatio", config.maxRatio);
+        return config;
+    }
+
     /**
      * 停止语音唤醒
      */
@@ -317,11 +509,13 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         int pitch = options.optInt("pitch", 50);
         int volume = options.optInt("volume", 50);
         String fileName = options.optString("fileName", "");
+        String format = options.optString("format", "");
+        aiKit.setSpeedVariants(parseSpeedVariantsConfig(options.opt("reuseCache")));
 
         cordova.getThreadPool().execute(new Runnable() {
             @Override
             public void run() {
-                aiKit.startTTS(text, vcn, speed, pitch, volume, fileName, new IflytekAIKit.ResultCallback() {
+                aiKit.startTTS(text, vcn, speed, pitch, volume, fileName, format, new IflytekAIKit.ResultCallback() {
                     @Override
                     public void onSuccess(Object result) {
                         callbackContext.success(result != null ? result.toString() : "");
@@ -336,6 +530,50 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         });
     }
 
+    /**
+     * 开始模板播报合成
+     */
+    private void startTemplateTTS(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        JSONObject options = args.getJSONObject(0);
+        String template = options.getString("template");
+        JSONObject slotValues = options.optJSONObject("slots");
+        Map<String, String> slots = new HashMap<>();
+        if (slotValues != null) {
+            Iterator<String> keys = slotValues.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                slots.put(key, slotValues.optString(key));
+            }
+        }
+        String vcn = options.optString("vcn", "xiaoyan");
+        int speed = options.optInt("speed", 50);
+        int pitch = options.optInt("pitch", 50);
+        int volume = options.optInt("volume", 50);
+        String fileName = options.optString("fileName", "");
+        String format = options.optString("format", "");
+        PhraseTemplate.Config config = new PhraseTemplate.Config();
+        config.crossfadeMs = options.optInt("crossfadeMs", config.crossfadeMs);
+        config.pauseMs = options.optInt("pauseMs", config.pauseMs);
+
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                aiKit.startTemplateTTS(template, slots, vcn, speed, pitch, volume, fileName, format, config,
+                        new IflytekAIKit.ResultCallback() {
+                            @Override
+                            public void onSuccess(Object result) {
+                                callbackContext.success(result != null ? result.toString() : "");
+                            }
+
+                            @Override
+                            public void onError(String error) {
+                                callbackContext.error(error);
+                            }
+                        });
+            }
+        });
+    }
+
     /**
      * 开始语音合成（XTTS版本）
      */
@@ -347,11 +585,15 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         int speed = options.optInt("speed", 50);
         int pitch = options.optInt("pitch", 50);
         int volume = options.optInt("volume", 50);
+        String fileName = options.optString("fileName", "");
+        String format = options.optString("format", "");
+        int sampleRate = options.optInt("sampleRate", TTSManager.TTS_SAMPLE_RATE);
+        aiKit.setSpeedVariants(parseSpeedVariantsConfig(options.opt("reuseCache")));
 
         cordova.getThreadPool().execute(new Runnable() {
             @Override
             public void run() {
-                aiKit.startXTTS(text, vcn, language, speed, pitch, volume, new IflytekAIKit.ResultCallback() {
+                aiKit.startXTTS(text, vcn, language, speed, pitch, volume, fileName, format, sampleRate, new IflytekAIKit.ResultCallback() {
                     @Override
                     public void onSuccess(Object result) {
                         callbackContext.success(result != null ? result.toString() : "");
@@ -375,6 +617,12 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         int languageType = options.optInt("languageType", 0);
         // 超时时间（秒），默认10秒，0表示不超时
         int timeoutSeconds = options.optInt("timeoutSeconds", 10);
+        aiKit.setVadConfig("command", parseVadConfig(options.opt("vad"), EnergyVad.Config.forCommand()));
+        aiKit.setEndpoint(options.optInt("endSilenceMs", 800), options.optInt("noSpeechTimeoutMs", 0));
+        aiKit.setFuzzyMatch(parseFuzzyMatchConfig(options.opt("fuzzyMatch")));
+        if (!setCaptureFormat("command", options, callbackContext)) {
+            return;
+        }
 
         cordova.getThreadPool().execute(new Runnable() {
             @Override
@@ -394,6 +642,200 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         });
     }
 
+    /**
+     * 开始中英文并行识别
+     */
+    private void startBilingualRecognition(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        JSONObject options = args.getJSONObject(0);
+        String cnFsaPath = options.getString("cnFsaPath");
+        String enFsaPath = options.getString("enFsaPath");
+        int timeoutSeconds = options.optInt("timeoutSeconds", 10);
+        aiKit.setVadConfig("command", parseVadConfig(options.opt("vad"), EnergyVad.Config.forCommand()));
+        aiKit.setEndpoint(options.optInt("endSilenceMs", 800), options.optInt("noSpeechTimeoutMs", 0));
+        if (!setCaptureFormat("command", options, callbackContext)) {
+            return;
+        }
+
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                aiKit.startBilingualRecognition(cnFsaPath, enFsaPath, timeoutSeconds, new IflytekAIKit.ResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callbackContext.success(result != null ? result.toString() : "");
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callbackContext.error(error);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 设置命令词动作表：参数为动作表对象/数组，或 { filePath } 指向JSON文件，null清除
+     */
+    private void setCommandActions(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        Object actions = args.isNull(0) ? null : args.get(0);
+
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                Object table = actions;
+                if (table instanceof JSONObject && ((JSONObject) table).has("filePath")) {
+                    try {
+                        table = readJsonFile(((JSONObject) table).getString("filePath"));
+                    } catch (Exception e) {
+                        callbackContext.error("读取动作表文件失败: " + e.getMessage());
+                        return;
+                    }
+                }
+                aiKit.setCommandActions(table, new IflytekAIKit.ResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callbackContext.success(result != null ? result.toString() : "");
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callbackContext.error(error);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 读取JSON文件（对象或数组）
+     */
+    private Object readJsonFile(String filePath) throws IOException, JSONException {
+        byte[] bytes = new byte[(int) new File(filePath).length()];
+        FileInputStream in = new FileInputStream(filePath);
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+        } finally {
+            in.close();
+        }
+        return new JSONTokener(new String(bytes, "UTF-8")).nextValue();
+    }
+
+    /**
+     * 离线识别PCM文件中的命令词
+     */
+    private void recognizeFile(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        JSONObject options = args.getJSONObject(0);
+        String filePath = options.getString("filePath");
+        String fsaPath = options.getString("fsaPath");
+        int languageType = options.optInt("languageType", 0);
+        aiKit.setFuzzyMatch(parseFuzzyMatchConfig(options.opt("fuzzyMatch")));
+
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                aiKit.recognizeFile(filePath, fsaPath, languageType, new IflytekAIKit.ResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callbackContext.success((JSONObject) result);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callbackContext.error(error);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 离线扫描PCM文件中的唤醒词
+     */
+    private void scanWakeUpFile(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        JSONObject options = args.getJSONObject(0);
+        String filePath = options.getString("filePath");
+        String keywords = options.getString("keywords");
+
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                aiKit.scanWakeUpFile(filePath, keywords, new IflytekAIKit.ResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callbackContext.success((JSONObject) result);
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callbackContext.error(error);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 开启或关闭采集音频转储：参数为 true、配置对象 { dir, maxFileMb, maxFiles, queueFrames }，false/null 关闭
+     */
+    private void setAudioDump(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        Object value = args.isNull(0) ? null : args.get(0);
+        AudioDumper.Config config = null;
+        String dir = null;
+        if (Boolean.TRUE.equals(value)) {
+            config = new AudioDumper.Config();
+        } else if (value instanceof JSONObject && ((JSONObject) value).optBoolean("enabled", true)) {
+            JSONObject options = (JSONObject) value;
+            config = new AudioDumper.Config();
+            config.maxFileBytes = (long) (options.optDouble("maxFileMb", config.maxFileBytes / 1048576.0) * 1048576);
+            config.maxFiles = options.optInt("maxFiles", config.maxFiles);
+            config.queueFrames = options.optInt("queueFrames", config.queueFrames);
+            dir = options.has("dir") ? options.getString("dir") : null;
+        }
+        final AudioDumper.Config dumpConfig = config;
+        final String dumpDir = dir;
+
+        cordova.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                aiKit.setAudioDump(dumpConfig, dumpDir, new IflytekAIKit.ResultCallback() {
+                    @Override
+                    public void onSuccess(Object result) {
+                        callbackContext.success(result != null ? result.toString() : "");
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        callbackContext.error(error);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 回放转储文件：按文件名前缀（wakeup_/command_）或 type 参数送入唤醒或命令词引擎
+     */
+    private void replayDump(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        JSONObject options = args.getJSONObject(0);
+        String filePath = options.getString("filePath");
+        String name = new File(filePath).getName();
+        String type = options.optString("type",
+                name.startsWith(AudioDumper.STREAM_WAKEUP + "_") ? AudioDumper.STREAM_WAKEUP : AudioDumper.STREAM_COMMAND);
+        if (AudioDumper.STREAM_WAKEUP.equals(type)) {
+            scanWakeUpFile(args, callbackContext);
+        } else {
+            recognizeFile(args, callbackContext);
+        }
+    }
+
     /**
      * 停止命令词识别
      */
@@ -424,11 +866,18 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         String audioDataBase64 = options.getString("audioData");
         String type = options.getString("type");
         boolean isEnd = options.optBoolean("isEnd", false);
+        // 外部音频格式，默认 16kHz 单声道
+        int sampleRate = options.optInt("sampleRate", 16000);
+        int channels = options.optInt("channels", 1);
+        if (sampleRate <= 0 || channels <= 0) {
+            callbackContext.error("不支持的音频格式: " + sampleRate + "Hz, " + channels + "ch");
+            return;
+        }
 
         cordova.getThreadPool().execute(new Runnable() {
             @Override
             public void run() {
-                aiKit.writeAudioData(audioDataBase64, type, isEnd, new IflytekAIKit.ResultCallback() {
+                aiKit.writeAudioData(audioDataBase64, type, isEnd, sampleRate, channels, new IflytekAIKit.ResultCallback() {
                     @Override
                     public void onSuccess(Object result) {
                         callbackContext.success(result != null ? result.toString() : "");
@@ -521,11 +970,61 @@ public class IflytekAIKitPlugin extends CordovaPlugin {
         });
     }
 
+    /**
+     * 获取性能指标
+     */
+    private void getMetrics(CallbackContext callbackContext) {
+        aiKit.getMetrics(new IflytekAIKit.ResultCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                callbackContext.success((JSONObject) result);
+            }
+
+            @Override
+            public void onError(String error) {
+                callbackContext.error(error);
+            }
+        });
+    }
+
+    /**
+     * 重置性能指标
+     */
+    private void resetMetrics(CallbackContext callbackContext) {
+        aiKit.resetMetrics(new IflytekAIKit.ResultCallback() {
+            @Override
+            public void onSuccess(Object result) {
+                callbackContext.success(result != null ? result.toString() : "");
+            }
+
+            @Override
+            public void onError(String error) {
+                callbackContext.error(error);
+            }
+        });
+    }
+
+    @Override
+    public void onReset() {
+        super.onReset();
+        // WebView重载：旧页面的回调已失效，断开事件监听，引擎保持运行
+        if (aiKit != null) {
+            aiKit.registerListener(null);
+        }
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
+        // 只解绑服务，引擎由 AIKitService 持有，Activity 重建后重新绑定即可继续使用
         if (aiKit != null) {
-            aiKit.unInit();
+            aiKit.registerListener(null);
+        }
+        try {
+            cordova.getActivity().getApplicationContext().unbindService(serviceConnection);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "解绑AIKitService失败: " + e.getMessage());
         }
+        aiKit = null;
     }
 }
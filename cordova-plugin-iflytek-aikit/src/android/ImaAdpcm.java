@@ -0,0 +1,197 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * IMA-ADPCM 编解码（单声道，WAV 格式 0x11）
+ * 每个块以 4 字节头开始（首个样本与步长索引），其后每字节存两个 4bit 样本，低半字节在前。
+ * 16bit PCM 压缩为 4bit，体积约为原来的 1/4，用于缓存的提示音
+ */
+public class ImaAdpcm {
+
+    private static final int[] INDEX_TABLE = {
+            -1, -1, -1, -1, 2, 4, 6, 8,
+            -1, -1, -1, -1, 2, 4, 6, 8
+    };
+
+    private static final int[] STEP_TABLE = {
+            7, 8, 9, 10, 11, 12, 13, 14, 16, 17, 19, 21, 23, 25, 28, 31, 34, 37, 41, 45,
+            50, 55, 60, 66, 73, 80, 88, 97, 107, 118, 130, 143, 157, 173, 190, 209, 230,
+            253, 279, 307, 337, 371, 408, 449, 494, 544, 598, 658, 724, 796, 876, 963,
+            1060, 1166, 1282, 1411, 1552, 1707, 1878, 2066, 2272, 2499, 2749, 3024, 3327,
+            3660, 4026, 4428, 4871, 5358, 5894, 6484, 7132, 7845, 8630, 9493, 10442, 11487,
+            12635, 13899, 15289, 16818, 18500, 20350, 22385, 24623, 27086, 29794, 32767
+    };
+
+    /**
+     * 按采样率选择块大小（与常见编码器一致：11025Hz 以下 256 字节，之后按倍数增加）
+     */
+    public static int blockAlignFor(int sampleRate) {
+        return 256 * Math.max(1, sampleRate / 11025);
+    }
+
+    /**
+     * 每块包含的样本数（块头中的首个样本 + 其余半字节样本）
+     */
+    public static int samplesPerBlock(int blockAlign) {
+        return (blockAlign - 4) * 2 + 1;
+    }
+
+    /**
+     * 流式编码器：按任意长度写入 16bit PCM，凑满一块后输出
+     */
+    public static class Encoder {
+        private final int blockAlign;
+        private final short[] samples;
+        private final byte[] block;
+        private int count;
+        private int index;
+        // 上次写入剩下的奇数字节
+        private int pendingByte = -1;
+        private long totalSamples;
+        private long dataBytes;
+
+        public Encoder(int blockAlign) {
+            this.blockAlign = blockAlign;
+            this.samples = new short[samplesPerBlock(blockAlign)];
+            this.block = new byte[blockAlign];
+        }
+
+        public void write(byte[] pcm, int offset, int length, DataOutput out) throws IOException {
+            int position = offset;
+            int end = offset + length;
+            if (pendingByte >= 0 && position < end) {
+                addSample((short) ((pendingByte & 0xff) | (pcm[position++] << 8)), out);
+                pendingByte = -1;
+            }
+            while (position + 1 < end) {
+                addSample((short) ((pcm[position] & 0xff) | (pcm[position + 1] << 8)), out);
+                position += 2;
+            }
+            if (position < end) {
+                pendingByte = pcm[position] & 0xff;
+            }
+        }
+
+        /**
+         * 输出最后一个不完整的块（用末样本补齐，实际样本数记录在 fact 块中）
+         */
+        public void finish(DataOutput out) throws IOException {
+            if (count == 0) {
+                return;
+            }
+            short last = samples[count - 1];
+            int real = count;
+            while (count < samples.length) {
+                samples[count++] = last;
+            }
+            flushBlock(out);
+            totalSamples -= samples.length - real;
+        }
+
+        public long getTotalSamples() {
+            return totalSamples;
+        }
+
+        public long getDataBytes() {
+            return dataBytes;
+        }
+
+        private void addSample(short sample, DataOutput out) throws IOException {
+            samples[count++] = sample;
+            if (count == samples.length) {
+                flushBlock(out);
+            }
+        }
+
+        private void flushBlock(DataOutput out) throws IOException {
+            int predictor = samples[0];
+            block[0] = (byte) predictor;
+            block[1] = (byte) (predictor >> 8);
+            block[2] = (byte) index;
+            block[3] = 0;
+            for (int i = 1; i < samples.length; i++) {
+                int step = STEP_TABLE[index];
+                int diff = samples[i] - predictor;
+                int nibble = 0;
+                if (diff < 0) {
+                    nibble = 8;
+                    diff = -diff;
+                }
+                int delta = step >> 3;
+                if (diff >= step) {
+                    nibble |= 4;
+                    diff -= step;
+                    delta += step;
+                }
+                step >>= 1;
+                if (diff >= step) {
+                    nibble |= 2;
+                    diff -= step;
+                    delta += step;
+                }
+                step >>= 1;
+                if (diff >= step) {
+                    nibble |= 1;
+                    delta += step;
+                }
+                predictor = clamp16((nibble & 8) != 0 ? predictor - delta : predictor + delta);
+                index = clampIndex(index + INDEX_TABLE[nibble]);
+                int position = 4 + ((i - 1) >> 1);
+                if (((i - 1) & 1) == 0) {
+                    block[position] = (byte) nibble;
+                } else {
+                    block[position] |= (byte) (nibble << 4);
+                }
+            }
+            out.write(block, 0, blockAlign);
+            totalSamples += samples.length;
+            dataBytes += blockAlign;
+            count = 0;
+        }
+    }
+
+    /**
+     * 解码一个块（最后一块可能不满）
+     *
+     * @return 解码得到的样本数，块不足4字节时返回0
+     */
+    public static int decodeBlock(byte[] block, int length, short[] out) {
+        if (length < 4) {
+            return 0;
+        }
+        int predictor = (short) ((block[0] & 0xff) | (block[1] << 8));
+        int index = clampIndex(block[2] & 0xff);
+        out[0] = (short) predictor;
+        int count = 1;
+        for (int position = 4; position < length && count < out.length; position++) {
+            for (int shift = 0; shift <= 4 && count < out.length; shift += 4) {
+                int nibble = (block[position] >> shift) & 0x0f;
+                int step = STEP_TABLE[index];
+                int delta = step >> 3;
+                if ((nibble & 4) != 0) {
+                    delta += step;
+                }
+                if ((nibble & 2) != 0) {
+                    delta += step >> 1;
+                }
+                if ((nibble & 1) != 0) {
+                    delta += step >> 2;
+                }
+                predictor = clamp16((nibble & 8) != 0 ? predictor - delta : predictor + delta);
+                index = clampIndex(index + INDEX_TABLE[nibble]);
+                out[count++] = (short) predictor;
+            }
+        }
+        return count;
+    }
+
+    private static int clamp16(int value) {
+        return value > Short.MAX_VALUE ? Short.MAX_VALUE : (value < Short.MIN_VALUE ? Short.MIN_VALUE : value);
+    }
+
+    private static int clampIndex(int index) {
+        return index < 0 ? 0 : (index > 88 ? 88 : index);
+    }
+}
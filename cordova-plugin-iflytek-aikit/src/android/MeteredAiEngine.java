@@ -0,0 +1,98 @@
+package com.iflytek.aikit.plugin;
+
+import java.util.Map;
+
+/**
+ * 带性能统计的引擎包装
+ * 为每个SDK调用记录耗时，写入失败计入丢帧
+ */
+public class MeteredAiEngine implements AiEngine {
+
+    private final AiEngine delegate;
+    private final VoiceMetrics metrics = VoiceMetrics.getInstance();
+
+    public MeteredAiEngine(AiEngine delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int engineInit(String ability, Map<String, Object> params) {
+        long start = System.nanoTime();
+        int ret = delegate.engineInit(ability, params);
+        metrics.recordSince(VoiceMetrics.SDK_ENGINE_INIT, start);
+        return ret;
+    }
+
+    @Override
+    public int loadData(String ability, String key, String path, int index) {
+        long start = System.nanoTime();
+        int ret = delegate.loadData(ability, key, path, index);
+        metrics.recordSince(VoiceMetrics.SDK_LOAD_DATA, start);
+        return ret;
+    }
+
+    @Override
+    public int specifyDataSet(String ability, String key, int[] indexes) {
+        long start = System.nanoTime();
+        int ret = delegate.specifyDataSet(ability, key, indexes);
+        metrics.recordSince(VoiceMetrics.SDK_SPECIFY_DATA_SET, start);
+        return ret;
+    }
+
+    @Override
+    public void registerListener(String ability, Listener listener) {
+        delegate.registerListener(ability, listener);
+    }
+
+    @Override
+    public Handle start(String ability, Map<String, Object> params) {
+        long start = System.nanoTime();
+        Handle handle = delegate.start(ability, params);
+        metrics.recordSince(VoiceMetrics.SDK_START, start);
+        return handle;
+    }
+
+    @Override
+    public int writeAudio(Handle handle, String key, byte[] data, int length, int status) {
+        long start = System.nanoTime();
+        int ret = delegate.writeAudio(handle, key, data, length, status);
+        metrics.recordSince(VoiceMetrics.SDK_WRITE, start);
+        if (ret != 0) {
+            metrics.increment(VoiceMetrics.WRITE_ERRORS);
+            metrics.increment(VoiceMetrics.DROPPED_FRAMES);
+        }
+        return ret;
+    }
+
+    @Override
+    public int writeText(Handle handle, String key, String text) {
+        long start = System.nanoTime();
+        int ret = delegate.writeText(handle, key, text);
+        metrics.recordSince(VoiceMetrics.SDK_WRITE, start);
+        if (ret != 0) {
+            metrics.increment(VoiceMetrics.WRITE_ERRORS);
+        }
+        return ret;
+    }
+
+    @Override
+    public int read(String ability, Handle handle) {
+        long start = System.nanoTime();
+        int ret = delegate.read(ability, handle);
+        metrics.recordSince(VoiceMetrics.SDK_READ, start);
+        return ret;
+    }
+
+    @Override
+    public int end(Handle handle) {
+        long start = System.nanoTime();
+        int ret = delegate.end(handle);
+        metrics.recordSince(VoiceMetrics.SDK_END, start);
+        return ret;
+    }
+
+    @Override
+    public void unInit() {
+        delegate.unInit();
+    }
+}
@@ -0,0 +1,97 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * PCM文件帧泵
+ * 以内存映射方式读取 16kHz 16bit 单声道 PCM 文件，按采集线程相同的帧大小尽快推给引擎，
+ * 不做任何实时节拍控制。WAV 文件（如音频转储）自动跳过文件头
+ */
+public class PcmFilePump {
+
+    // 16kHz * 16bit 单声道，每毫秒字节数
+    public static final int BYTES_PER_MS = 32;
+
+    /**
+     * 帧接收方
+     */
+    public interface FrameSink {
+        /**
+         * @param frame  帧数据（复用缓冲区，调用返回后即被覆盖）
+         * @param length 有效字节数
+         * @param status 数据状态，取值见 AiEngine.STATUS_*
+         * @param offset 该帧在文件中的字节偏移
+         * @return false 表示提前结束
+         */
+        boolean onFrame(byte[] frame, int length, int status, long offset);
+    }
+
+    private final int frameSize;
+
+    public PcmFilePump(int frameSize) {
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * 推送整个文件，返回实际推送的字节数
+     */
+    public long pump(String filePath, FrameSink sink) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new IOException("音频文件不存在: " + filePath);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("音频文件为空: " + filePath);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            WavFile.Info wav = WavFile.parse(buffer);
+            if (wav != null) {
+                if (wav.format != WavFile.FORMAT_PCM || wav.sampleRate != 16000 || wav.channels != 1
+                        || wav.bitsPerSample != 16) {
+                    throw new IOException("只支持 16kHz 16bit 单声道 WAV: " + filePath);
+                }
+                buffer.limit((int) (wav.dataOffset + wav.dataLength));
+                buffer.position((int) wav.dataOffset);
+                if (!buffer.hasRemaining()) {
+                    throw new IOException("音频文件为空: " + filePath);
+                }
+            }
+            byte[] frame = new byte[frameSize];
+            long offset = 0;
+            int status = AiEngine.STATUS_BEGIN;
+            while (buffer.hasRemaining()) {
+                int length = Math.min(frameSize, buffer.remaining());
+                buffer.get(frame, 0, length);
+                status = offset == 0 ? AiEngine.STATUS_BEGIN
+                        : buffer.hasRemaining() ? AiEngine.STATUS_CONTINUE : AiEngine.STATUS_END;
+                if (!sink.onFrame(frame, length, status, offset)) {
+                    return offset + length;
+                }
+                offset += length;
+            }
+            // 只有一帧时补发一个空的结束帧
+            if (status != AiEngine.STATUS_END) {
+                sink.onFrame(frame, 0, AiEngine.STATUS_END, offset);
+            }
+            return offset;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 字节偏移换算为毫秒
+     */
+    public static long offsetToMillis(long offset) {
+        return offset / BYTES_PER_MS;
+    }
+}
@@ -0,0 +1,218 @@
+package com.iflytek.aikit.plugin;
+
+/**
+ * 流式重采样与混音
+ * 把任意采样率、任意声道数的 16bit PCM 转为引擎需要的 16kHz 单声道。
+ * 多声道先取平均混为单声道，再用预先计算好的多相 FIR 滤波器做有理数倍率重采样（如 48k->16k 为 1/3，44.1k->16k 为 160/441）。
+ * 滤波器历史在多次调用之间保留，可逐帧调用；处理过程中不分配内存，非线程安全
+ */
+public class PcmResampler {
+
+    public static final int TARGET_SAMPLE_RATE = 16000;
+
+    // 每个过零点对应的滤波器抽头数，越大过渡带越窄
+    private static final int TAPS_PER_ZERO_CROSSING = 16;
+
+    private final int inputRate;
+    private final int channels;
+    private final int up;
+    private final int down;
+    private final int tapsPerPhase;
+    // 多相系数：coefficients[phase * tapsPerPhase + k]
+    private final float[] coefficients;
+    // 镜像历史缓冲，长度 2 * tapsPerPhase，避免取模
+    private final float[] history;
+    private int historyPos;
+    // 下一个输出样本对应的输入样本序号与相位
+    private long nextInputIndex;
+    private int phase;
+    private long inputCount;
+    // 跨调用残留的不完整采样帧
+    private final byte[] pending;
+    private int pendingLength;
+
+    /**
+     * @param inputRate 输入采样率
+     * @param channels  输入声道数（交织存储）
+     */
+    public PcmResampler(int inputRate, int channels) {
+        if (inputRate <= 0 || channels <= 0) {
+            throw new IllegalArgumentException("不支持的音频格式: " + inputRate + "Hz, " + channels + "ch");
+        }
+        this.inputRate = inputRate;
+        this.channels = channels;
+        int gcd = gcd(inputRate, TARGET_SAMPLE_RATE);
+        this.up = TARGET_SAMPLE_RATE / gcd;
+        this.down = inputRate / gcd;
+        int ratio = (down + up - 1) / up;
+        this.tapsPerPhase = TAPS_PER_ZERO_CROSSING * Math.max(1, ratio);
+        this.coefficients = designFilter(up, down, tapsPerPhase);
+        this.history = new float[2 * tapsPerPhase];
+        this.pending = new byte[channels * 2];
+    }
+
+    /**
+     * 是否无需转换（已是 16kHz 单声道）
+     */
+    public boolean isPassthrough() {
+        return inputRate == TARGET_SAMPLE_RATE && channels == 1;
+    }
+
+    public int getInputRate() {
+        return inputRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * 输入 inputBytes 字节时输出缓冲区所需的最大字节数
+     */
+    public int maxOutputBytes(int inputBytes) {
+        long frames = (inputBytes + pending.length) / (channels * 2) + 1;
+        return (int) ((frames * up + down - 1) / down + 1) * 2;
+    }
+
+    /**
+     * 40ms 输入对应的字节数，用作采集读取大小
+     */
+    public int frameBytesFor40ms() {
+        return inputRate / 25 * channels * 2;
+    }
+
+    /**
+     * 转换一段交织的 16bit 小端 PCM
+     *
+     * @param input  输入数据
+     * @param length 输入有效字节数
+     * @param output 输出缓冲区，长度至少为 maxOutputBytes(length)
+     * @return 写入 output 的字节数
+     */
+    public int process(byte[] input, int length, byte[] output) {
+        if (isPassthrough()) {
+            System.arraycopy(input, 0, output, 0, length);
+            return length;
+        }
+
+        int frameBytes = channels * 2;
+        int outPos = 0;
+        int offset = 0;
+
+        // 先补齐上次残留的不完整采样帧
+        if (pendingLength > 0) {
+            int need = Math.min(frameBytes - pendingLength, length);
+            System.arraycopy(input, 0, pending, pendingLength, need);
+            pendingLength += need;
+            offset = need;
+            if (pendingLength < frameBytes) {
+                return 0;
+            }
+            outPos = push(mix(pending, 0), output, outPos);
+            pendingLength = 0;
+        }
+
+        int end = offset + (length - offset) / frameBytes * frameBytes;
+        for (; offset < end; offset += frameBytes) {
+            outPos = push(mix(input, offset), output, outPos);
+        }
+
+        // 保存残留
+        pendingLength = length - end;
+        if (pendingLength > 0) {
+            System.arraycopy(input, end, pending, 0, pendingLength);
+        }
+        return outPos;
+    }
+
+    /**
+     * 清空滤波器历史（新会话开始时调用）
+     */
+    public void reset() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] = 0f;
+        }
+        historyPos = 0;
+        nextInputIndex = 0;
+        phase = 0;
+        inputCount = 0;
+        pendingLength = 0;
+    }
+
+    /**
+     * 多声道取平均混为单声道
+     */
+    private float mix(byte[] data, int offset) {
+        int sum = 0;
+        for (int c = 0; c < channels; c++) {
+            int i = offset + 2 * c;
+            sum += (short) ((data[i] & 0xff) | (data[i + 1] << 8));
+        }
+        return (float) sum / channels;
+    }
+
+    /**
+     * 送入一个单声道样本，产生所有到期的输出样本
+     */
+    private int push(float sample, byte[] output, int outPos) {
+        history[historyPos] = sample;
+        history[historyPos + tapsPerPhase] = sample;
+        historyPos = historyPos + 1 == tapsPerPhase ? 0 : historyPos + 1;
+        long latest = inputCount++;
+
+        while (nextInputIndex == latest) {
+            // history[historyPos + tapsPerPhase - 1] 为最新样本 x[i]，向前依次为 x[i-k]
+            int base = phase * tapsPerPhase;
+            int newest = historyPos + tapsPerPhase - 1;
+            float acc = 0f;
+            for (int k = 0; k < tapsPerPhase; k++) {
+                acc += coefficients[base + k] * history[newest - k];
+            }
+            int value = Math.round(acc);
+            if (value > Short.MAX_VALUE) {
+                value = Short.MAX_VALUE;
+            } else if (value < Short.MIN_VALUE) {
+                value = Short.MIN_VALUE;
+            }
+            output[outPos++] = (byte) value;
+            output[outPos++] = (byte) (value >> 8);
+
+            int next = phase + down;
+            nextInputIndex += next / up;
+            phase = next % up;
+        }
+        return outPos;
+    }
+
+    /**
+     * 设计 Blackman 窗 sinc 低通原型并拆分为多相系数
+     */
+    private static float[] designFilter(int up, int down, int tapsPerPhase) {
+        int length = up * tapsPerPhase;
+        // 截止频率（相对上采样后的采样率），略低于两侧较低的奈奎斯特频率
+        double cutoff = 0.5 / Math.max(up, down) * 0.9;
+        double center = (length - 1) / 2.0;
+        float[] polyphase = new float[length];
+        for (int j = 0; j < length; j++) {
+            double x = j - center;
+            double sinc = x == 0 ? 2 * cutoff : Math.sin(2 * Math.PI * cutoff * x) / (Math.PI * x);
+            double window = 0.42 - 0.5 * Math.cos(2 * Math.PI * j / (length - 1))
+                    + 0.08 * Math.cos(4 * Math.PI * j / (length - 1));
+            // 插零上采样损失的增益由 up 补偿
+            double h = sinc * window * up;
+            int phase = j % up;
+            int k = j / up;
+            polyphase[phase * tapsPerPhase + k] = (float) h;
+        }
+        return polyphase;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,147 @@
+package com.iflytek.aikit.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 播报模板
+ * 把 "请 {number} 号到 {window} 窗口办理" 拆成固定片段与变量槽位；固定片段的合成音频可缓存复用，
+ * 播报时只合成槽位，再裁掉各段首尾静音、用短交叉淡化拼接
+ */
+public class PhraseTemplate {
+
+    /**
+     * 拼接配置
+     */
+    public static class Config {
+        // 相邻片段的交叉淡化时长（毫秒）
+        public int crossfadeMs = 10;
+        // 裁剪首尾静音后每段两端保留的停顿（毫秒）
+        public int pauseMs = 30;
+        // 静音判定的幅度阈值（16bit 绝对值）
+        public int silenceThreshold = 256;
+    }
+
+    /**
+     * 模板中的一段：固定文本或槽位名
+     */
+    public static class Part {
+        public final String text;
+        public final boolean slot;
+
+        Part(String text, boolean slot) {
+            this.text = text;
+            this.slot = slot;
+        }
+    }
+
+    private final String template;
+    private final List<Part> parts;
+
+    private PhraseTemplate(String template, List<Part> parts) {
+        this.template = template;
+        this.parts = Collections.unmodifiableList(parts);
+    }
+
+    /**
+     * 解析模板，槽位用 {名称} 表示；固定片段去掉首尾空白，空片段忽略
+     *
+     * @throws IllegalArgumentException 花括号不成对或槽位名为空
+     */
+    public static PhraseTemplate parse(String template) {
+        List<Part> parts = new ArrayList<>();
+        int position = 0;
+        while (position < template.length()) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                addText(parts, template.substring(position));
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("模板缺少 }: " + template);
+            }
+            addText(parts, template.substring(position, open));
+            String name = template.substring(open + 1, close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("模板槽位名为空: " + template);
+            }
+            parts.add(new Part(name, true));
+            position = close + 1;
+        }
+        return new PhraseTemplate(template, parts);
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * 裁掉首尾低于阈值的静音，两端各保留 pauseMs
+     */
+    public static AudioClip trimSilence(AudioClip clip, Config config) {
+        int start = 0;
+        while (start < clip.length && Math.abs(clip.samples[start]) < config.silenceThreshold) {
+            start++;
+        }
+        int end = clip.length;
+        while (end > start && Math.abs(clip.samples[end - 1]) < config.silenceThreshold) {
+            end--;
+        }
+        if (start >= end) {
+            return new AudioClip(new short[0], 0, clip.sampleRate);
+        }
+        int keep = clip.sampleRate * config.pauseMs / 1000;
+        start = Math.max(0, start - keep);
+        end = Math.min(clip.length, end + keep);
+        short[] samples = new short[end - start];
+        System.arraycopy(clip.samples, start, samples, 0, samples.length);
+        return new AudioClip(samples, samples.length, clip.sampleRate);
+    }
+
+    /**
+     * 按顺序拼接，相邻两段重叠 crossfadeMs 做线性交叉淡化
+     *
+     * @throws IllegalArgumentException 各段采样率不一致
+     */
+    public static AudioClip splice(List<AudioClip> clips, Config config) {
+        int sampleRate = clips.isEmpty() ? PcmResampler.TARGET_SAMPLE_RATE : clips.get(0).sampleRate;
+        int total = 0;
+        for (AudioClip clip : clips) {
+            if (clip.sampleRate != sampleRate) {
+                throw new IllegalArgumentException("片段采样率不一致: " + clip.sampleRate + " != " + sampleRate);
+            }
+            total += clip.length;
+        }
+        short[] out = new short[total];
+        int length = 0;
+        int fade = sampleRate * config.crossfadeMs / 1000;
+        for (AudioClip clip : clips) {
+            int overlap = Math.min(fade, Math.min(length, clip.length));
+            int start = length - overlap;
+            for (int i = 0; i < overlap; i++) {
+                float t = (i + 1) / (float) (overlap + 1);
+                int mixed = Math.round(out[start + i] * (1 - t) + clip.samples[i] * t);
+                out[start + i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixed));
+            }
+            System.arraycopy(clip.samples, overlap, out, length, clip.length - overlap);
+            length += clip.length - overlap;
+        }
+        return new AudioClip(out, length, sampleRate);
+    }
+
+    private static void addText(List<Part> parts, String text) {
+        String trimmed = text.trim();
+        if (trimmed.indexOf('}') >= 0) {
+            throw new IllegalArgumentException("模板缺少 {: " + trimmed);
+        }
+        if (!trimmed.isEmpty()) {
+            parts.add(new Part(trimmed, false));
+        }
+    }
+}
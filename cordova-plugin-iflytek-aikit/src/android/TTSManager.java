@@ -1,23 +1,26 @@
 package com.iflytek.aikit.plugin;
 
-import android.app.Activity;
+import android.content.Context;
 import android.util.Log;
 
-import com.iflytek.aikit.core.AiHandle;
-import com.iflytek.aikit.core.AiHelper;
-import com.iflytek.aikit.core.AiInput;
-import com.iflytek.aikit.core.AiListener;
-import com.iflytek.aikit.core.AiRequest;
-import com.iflytek.aikit.core.AiResponse;
-import com.iflytek.aikit.core.AiText;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 语音合成管理器
@@ -29,21 +32,48 @@ public class TTSManager {
     // 能力ID定义
     private static final String ABILITY_AISOUND = "ece9d3c90"; // 语音合成轻量版
     private static final String ABILITY_XTTS = "e2e44feff"; // 语音合成XTTS
-
-    private Activity activity;
+    // 轻量版输出采样率
+    public static final int TTS_SAMPLE_RATE = 16000;
+    // 语速、语调、音量的默认值
+    public static final int DEFAULT_SPEED = 50;
+    public static final int DEFAULT_PITCH = 50;
+    public static final int DEFAULT_VOLUME = 50;
+    // 模板固定片段的缓存目录（位于合成输出目录下）
+    private static final String PHRASE_CACHE_DIR = "phrases";
+    // 单个模板片段的合成超时
+    private static final long FRAGMENT_TIMEOUT_SECONDS = 15;
+    // 单次 startTTS 等待合成结束的上限，超时后放行队列中的下一项
+    private static final long TTS_TIMEOUT_SECONDS = 60;
+    // 基准文件旁的来源记录（文本与发音人的摘要），派生变体前校验
+    private static final String SOURCE_KEY_EXTENSION = ".key";
+
+    private Context context;
     private String ttsOutputDir;
+    private AiEngine engine;
 
     // TTS相关
-    private AiHandle ttsHandle;
-    private FileOutputStream ttsFileOutputStream;
+    private AiEngine.Handle ttsHandle;
+    private AudioFileWriter ttsFileWriter;
     private String currentTtsFilePath;
+    private String currentTtsFormat;
+    private String currentTtsFileName;
+    // 默认参数的具名合成完成后写入来源记录，其余为null
+    private String currentTtsSourceKey;
     private boolean isTTSListenerRegistered = false;
+    private long ttsStartNanos;
+    private volatile boolean ttsFirstChunkReceived;
 
     // XTTS相关
-    private AiHandle xttsHandle;
-    private FileOutputStream xttsFileOutputStream;
+    private AiEngine.Handle xttsHandle;
+    private AudioFileWriter xttsFileWriter;
     private String currentXttsFilePath;
+    private String currentXttsFormat;
+    private String currentXttsFileName;
+    // 默认参数的具名XTTS合成完成后写入来源记录，其余为null
+    private String currentXttsSourceKey;
     private boolean isXTTSListenerRegistered = false;
+    private long xttsStartNanos;
+    private volatile boolean xttsFirstChunkReceived;
 
     // 事件回调接口
     public interface TTSResultCallback {
@@ -57,10 +87,24 @@ public class TTSManager {
     }
 
     private TTSEventCallback eventCallback;
+    // 由默认语速的缓存派生语速/音量变体，null表示关闭
+    private volatile TimeStretcher.Config speedVariants;
+
+    // 模板合成：片段在合成队列线程串行合成，合成结束回调给等待方而不发送 ttsResult
+    private interface SynthesisCallback {
+        void onDone(String error);
+    }
+
+    private volatile SynthesisCallback internalSynthesis;
+    // startTTS 合成结束（或出错）时计数，合成队列据此放行下一项
+    private volatile CountDownLatch ttsFinished;
+    // 轻量版合成队列：startTTS 与模板片段共用文件流、句柄与监听器，必须依次执行
+    private ExecutorService synthesisExecutor;
 
-    public TTSManager(Activity activity, String ttsOutputDir) {
-        this.activity = activity;
+    public TTSManager(Context context, String ttsOutputDir, AiEngine engine) {
+        this.context = context.getApplicationContext();
         this.ttsOutputDir = ttsOutputDir;
+        this.engine = engine;
     }
 
     /**
@@ -70,182 +114,583 @@ public class TTSManager {
         this.eventCallback = callback;
     }
 
+    /**
+     * 设置缓存变速复用（下次合成时生效）
+     * 开启后，带 fileName 且语速或音量不是默认值的合成优先从同名默认语速文件变速派生，
+     * 引擎合成的变体写入 名称_s语速_v音量_p语调 文件，不覆盖默认语速的基准文件
+     *
+     * @param config 变速配置，null表示关闭
+     */
+    public void setSpeedVariants(TimeStretcher.Config config) {
+        this.speedVariants = config;
+    }
+
     /**
      * 开始语音合成（轻量版）
+     * 与模板播报共用合成队列，前一项合成结束后才开始
+     *
+     * @param format 输出格式：pcm、wav 或 adpcm，为空时按 fileName 扩展名推断
      */
-    public void startTTS(String text, String vcn, int speed, int pitch, int volume, String fileName,
-            TTSResultCallback callback) {
+    public void startTTS(final String text, final String vcn, final int speed, final int pitch, final int volume,
+            final String fileName, final String format, final TTSResultCallback callback) {
+        synthesisExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                runTTS(text, vcn, speed, pitch, volume, fileName, format, callback);
+            }
+        });
+    }
+
+    private void runTTS(String text, String vcn, int speed, int pitch, int volume, String fileName,
+            String format, TTSResultCallback callback) {
         try {
             // 关闭之前的文件流（如果存在）
             closeTTSFileStream();
 
             // 生成输出文件名
-            String finalFileName = (fileName != null && !fileName.isEmpty()) ? fileName
-                    : "OutPut_" + System.currentTimeMillis() + ".pcm";
-            if (!finalFileName.endsWith(".pcm")) {
-                finalFileName += ".pcm";
+            String outputFormat = AudioFileWriter.resolveFormat(format, fileName);
+            String finalFileName = AudioFileWriter.fileNameFor((fileName != null && !fileName.isEmpty()) ? fileName
+                    : "OutPut_" + System.currentTimeMillis(), outputFormat);
+            String baseName = finalFileName.substring(0, finalFileName.length() - 4);
+            boolean named = fileName != null && !fileName.isEmpty();
+            boolean defaults = speed == DEFAULT_SPEED && pitch == DEFAULT_PITCH && volume == DEFAULT_VOLUME;
+            TimeStretcher.Config variants = speedVariants;
+            if (variants != null && named && !defaults) {
+                String variantName = AudioFileWriter.fileNameFor(
+                        baseName + "_s" + speed + "_v" + volume + "_p" + pitch, outputFormat);
+                if (pitch == DEFAULT_PITCH && deriveVariant(baseName, variantName, text, vcn, speed, volume,
+                        outputFormat, fileName, variants, TTS_SAMPLE_RATE, "ttsResult")) {
+                    callback.onSuccess("已由缓存派生");
+                    return;
+                }
+                finalFileName = variantName;
+            }
+            // 默认参数的具名合成可作为变体基准：覆盖期间删除旧来源记录，完成后重新写入
+            currentTtsSourceKey = null;
+            if (named && defaults) {
+                new File(ttsOutputDir, baseName + SOURCE_KEY_EXTENSION).delete();
+                currentTtsSourceKey = phraseKey(text, vcn, speed, pitch, volume);
             }
 
             currentTtsFilePath = ttsOutputDir + File.separator + finalFileName;
+            currentTtsFormat = outputFormat;
+            currentTtsFileName = fileName;
             File outputFile = new File(currentTtsFilePath);
             outputFile.getParentFile().mkdirs();
 
             // 创建文件输出流
             try {
-                ttsFileOutputStream = new FileOutputStream(outputFile, false);
+                ttsFileWriter = new AudioFileWriter(outputFile, outputFormat, TTS_SAMPLE_RATE);
             } catch (IOException e) {
                 Log.e(TAG, "创建TTS输出文件失败: " + e.getMessage());
                 callback.onError("创建输出文件失败: " + e.getMessage());
                 return;
             }
 
-            // 注册监听器（只在第一次调用时注册，避免重复注册）
-            if (!isTTSListenerRegistered) {
-                AiHelper.getInst().registerListener(ABILITY_AISOUND, new AiListener() {
-                    @Override
-                    public void onResult(int handleID, List<AiResponse> list, Object usrContext) {
-                        if (list != null && list.size() > 0) {
-                            // 每次收到数据就追加写入文件
-                            for (AiResponse response : list) {
-                                byte[] bytes = response.getValue();
-                                if (bytes != null && bytes.length > 0) {
-                                    try {
-                                        if (ttsFileOutputStream != null) {
-                                            ttsFileOutputStream.write(bytes);
-                                            ttsFileOutputStream.flush();
-                                        }
-                                    } catch (IOException e) {
-                                        Log.e(TAG, "写入TTS文件失败: " + e.getMessage());
+            ensureTTSListener();
+
+            CountDownLatch finished = new CountDownLatch(1);
+            ttsFinished = finished;
+            String error = startAisound(text, vcn, speed, pitch, volume);
+            if (error != null) {
+                ttsFinished = null;
+                callback.onError(error);
+                return;
+            }
+
+            callback.onSuccess("合成已启动");
+
+            // 等待本次合成结束，之后队列中的模板片段才会使用文件流与监听器
+            if (!finished.await(TTS_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Log.w(TAG, "合成未在限时内结束，放弃本次合成");
+                ttsFinished = null;
+                currentTtsSourceKey = null;
+                closeTTSFileStream();
+                if (ttsHandle != null) {
+                    engine.end(ttsHandle);
+                    ttsHandle = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(TAG, "StartTTS error: " + e.getMessage(), e);
+            closeTTSFileStream();
+            callback.onError("启动合成失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 注册轻量版合成监听器（只在第一次调用时注册，避免重复注册）
+     */
+    private void ensureTTSListener() {
+        if (!isTTSListenerRegistered) {
+            engine.registerListener(ABILITY_AISOUND, new AiEngine.Listener() {
+                @Override
+                public void onResult(int handleID, List<AiEngine.Response> list) {
+                    if (list != null && list.size() > 0) {
+                        // 每次收到数据就追加写入文件
+                        for (AiEngine.Response response : list) {
+                            byte[] bytes = response.getValue();
+                            if (bytes != null && bytes.length > 0) {
+                                try {
+                                    if (!ttsFirstChunkReceived) {
+                                        ttsFirstChunkReceived = true;
+                                        VoiceMetrics.getInstance().recordSince(VoiceMetrics.TTS_FIRST_CHUNK,
+                                                ttsStartNanos);
+                                    }
+                                    if (ttsFileWriter != null) {
+                                        ttsFileWriter.write(bytes);
                                     }
+                                } catch (IOException e) {
+                                    Log.e(TAG, "写入TTS文件失败: " + e.getMessage());
                                 }
                             }
                         }
                     }
+                }
 
-                    @Override
-                    public void onEvent(int handleID, int event, List<AiResponse> eventData, Object usrContext) {
-                        if (event == com.iflytek.aikit.core.AeeEvent.AEE_EVENT_END.getValue()) {
-                            // 合成结束，关闭文件流并发送结果事件
-                            closeTTSFileStream();
-                            if (ttsHandle != null) {
-                                AiHelper.getInst().end(ttsHandle);
-                                ttsHandle = null;
-                            }
-                            // 发送合成完成事件
-                            JSONObject data = createResultData("filePath", currentTtsFilePath);
-                            try {
-                                if (fileName != null && !fileName.isEmpty()) {
-                                    data.put("fileName", fileName);
-                                }
-                            } catch (JSONException e) {
-                                Log.e(TAG, "添加fileName到结果失败: " + e.getMessage());
+                @Override
+                public void onEvent(int handleID, int event, List<AiEngine.Response> eventData) {
+                    if (event == AiEngine.EVENT_END) {
+                        // 合成结束，关闭文件流并发送结果事件
+                        closeTTSFileStream();
+                        VoiceMetrics.getInstance().recordSince(VoiceMetrics.TTS_TOTAL, ttsStartNanos);
+                        if (ttsHandle != null) {
+                            engine.end(ttsHandle);
+                            ttsHandle = null;
+                        }
+                        // 模板片段由内部等待方处理，不发送事件
+                        SynthesisCallback internal = internalSynthesis;
+                        if (internal != null) {
+                            internalSynthesis = null;
+                            internal.onDone(null);
+                            return;
+                        }
+                        if (currentTtsSourceKey != null) {
+                            writeSourceKey(currentTtsFilePath, currentTtsSourceKey);
+                            currentTtsSourceKey = null;
+                        }
+                        // 发送合成完成事件
+                        JSONObject data = createResultData("filePath", currentTtsFilePath);
+                        try {
+                            data.put("format", currentTtsFormat);
+                            if (currentTtsFileName != null && !currentTtsFileName.isEmpty()) {
+                                data.put("fileName", currentTtsFileName);
                             }
-                            sendEvent("ttsResult", data);
-                            Log.d(TAG, "TTS合成完成，文件路径: " + currentTtsFilePath);
-                        } else if (event == com.iflytek.aikit.core.AeeEvent.AEE_EVENT_PROGRESS.getValue()) {
-                            // 处理进度事件
-                            int pos = -1;
-                            int len = -1;
-                            if (eventData != null) {
-                                for (AiResponse aiOutput : eventData) {
-                                    if (aiOutput.getKey().equals("progress_pos")) {
-                                        byte[] posBytes = aiOutput.getValue();
-                                        if (posBytes != null && posBytes.length == 4) {
-                                            pos = bytesToInt(posBytes);
-                                        }
-                                    } else if (aiOutput.getKey().equals("progress_len")) {
-                                        byte[] lenBytes = aiOutput.getValue();
-                                        if (lenBytes != null && lenBytes.length == 4) {
-                                            len = bytesToInt(lenBytes);
-                                        }
+                        } catch (JSONException e) {
+                            Log.e(TAG, "添加fileName到结果失败: " + e.getMessage());
+                        }
+                        sendEvent("ttsResult", data);
+                        Log.d(TAG, "TTS合成完成，文件路径: " + currentTtsFilePath);
+                        signalFinished();
+                    } else if (event == AiEngine.EVENT_PROGRESS) {
+                        // 处理进度事件
+                        int pos = -1;
+                        int len = -1;
+                        if (eventData != null) {
+                            for (AiEngine.Response aiOutput : eventData) {
+                                if (aiOutput.getKey().equals("progress_pos")) {
+                                    byte[] posBytes = aiOutput.getValue();
+                                    if (posBytes != null && posBytes.length == 4) {
+                                        pos = bytesToInt(posBytes);
+                                    }
+                                } else if (aiOutput.getKey().equals("progress_len")) {
+                                    byte[] lenBytes = aiOutput.getValue();
+                                    if (lenBytes != null && lenBytes.length == 4) {
+                                        len = bytesToInt(lenBytes);
                                     }
                                 }
                             }
-                            if (pos >= 0 && len > 0) {
-                                JSONObject progressData = new JSONObject();
-                                try {
-                                    progressData.put("pos", pos);
-                                    progressData.put("len", len);
-                                    progressData.put("progress", (int) (pos * 100.0 / len));
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "创建进度数据失败: " + e.getMessage());
-                                }
-                                sendEvent("ttsProgress", progressData);
+                        }
+                        if (pos >= 0 && len > 0 && internalSynthesis == null) {
+                            JSONObject progressData = new JSONObject();
+                            try {
+                                progressData.put("pos", pos);
+                                progressData.put("len", len);
+                                progressData.put("progress", (int) (pos * 100.0 / len));
+                            } catch (JSONException e) {
+                                Log.e(TAG, "创建进度数据失败: " + e.getMessage());
                             }
+                            sendEvent("ttsProgress", progressData);
                         }
                     }
+                }
 
-                    @Override
-                    public void onError(int handleID, int err, String msg, Object usrContext) {
-                        // 错误时关闭文件流
-                        closeTTSFileStream();
-                        sendEvent("ttsError", createErrorData(err, msg));
-                        Log.e(TAG, "TTS合成错误: handleID=" + handleID + ", err=" + err + ", msg=" + msg);
+                @Override
+                public void onError(int handleID, int err, String msg) {
+                    // 错误时关闭文件流，不完整的文件不作为变体基准
+                    closeTTSFileStream();
+                    currentTtsSourceKey = null;
+                    VoiceMetrics.getInstance().increment(VoiceMetrics.TTS_ERRORS);
+                    SynthesisCallback internal = internalSynthesis;
+                    if (internal != null) {
+                        internalSynthesis = null;
+                        internal.onDone("合成错误: " + err + ", " + msg);
+                        return;
                     }
-                });
-                isTTSListenerRegistered = true;
-                Log.d(TAG, "TTS监听器已注册");
-            }
+                    sendEvent("ttsError", createErrorData(err, msg));
+                    Log.e(TAG, "TTS合成错误: handleID=" + handleID + ", err=" + err + ", msg=" + msg);
+                    signalFinished();
+                }
+            });
+            isTTSListenerRegistered = true;
+            Log.d(TAG, "TTS监听器已注册");
+        }
+    }
 
-            // 构建参数
-            AiInput.Builder paramBuilder = AiInput.builder();
-            paramBuilder.param("vcn", vcn); // 必填参数，发音人：xiaoyan(中文 女 晓燕)、xiaofeng(中文 男 晓峰)、catherine(英文 女)
-            paramBuilder.param("textEncoding", "UTF-8"); // 非必填，文本编码：GBK或UTF-8
-            paramBuilder.param("pitch", pitch); // 非必填，语调：最小值0，最大值100
-            paramBuilder.param("volume", volume); // 非必填，音量：最小值0，最大值100
-            paramBuilder.param("speed", speed); // 非必填，语速：最小值0，最大值100
+    private void signalFinished() {
+        CountDownLatch finished = ttsFinished;
+        if (finished != null) {
+            ttsFinished = null;
+            finished.countDown();
+        }
+    }
 
-            // 开始合成
-            ttsHandle = AiHelper.getInst().start(ABILITY_AISOUND, paramBuilder.build(), null);
-            if (ttsHandle.getCode() != 0) {
-                closeTTSFileStream();
-                callback.onError("启动合成失败: " + ttsHandle.getCode());
-                return;
-            }
+    private synchronized ExecutorService synthesisExecutor() {
+        if (synthesisExecutor == null) {
+            synthesisExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "TTSSynthesis");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return synthesisExecutor;
+    }
 
-            // 写入文本数据
-            AiRequest.Builder dataBuilder = AiRequest.builder();
-            AiText input = AiText.get("text").data(text).valid();
-            dataBuilder.payload(input);
+    /**
+     * 启动轻量版合成并写入文本，输出文件需已打开
+     *
+     * @return 成功返回null，失败返回错误信息（已关闭输出文件）
+     */
+    private String startAisound(String text, String vcn, int speed, int pitch, int volume) {
+        // 构建参数
+        Map<String, Object> params = new HashMap<>();
+        params.put("vcn", vcn); // 必填参数，发音人：xiaoyan(中文 女 晓燕)、xiaofeng(中文 男 晓峰)、catherine(英文 女)
+        params.put("textEncoding", "UTF-8"); // 非必填，文本编码：GBK或UTF-8
+        params.put("pitch", pitch); // 非必填，语调：最小值0，最大值100
+        params.put("volume", volume); // 非必填，音量：最小值0，最大值100
+        params.put("speed", speed); // 非必填，语速：最小值0，最大值100
+
+        // 开始合成
+        ttsStartNanos = System.nanoTime();
+        ttsFirstChunkReceived = false;
+        ttsHandle = engine.start(ABILITY_AISOUND, params);
+        if (ttsHandle.getCode() != 0) {
+            closeTTSFileStream();
+            return "启动合成失败: " + ttsHandle.getCode();
+        }
 
-            int ret = AiHelper.getInst().write(dataBuilder.build(), ttsHandle);
-            if (ret != 0) {
-                closeTTSFileStream();
-                if (ttsHandle != null) {
-                    AiHelper.getInst().end(ttsHandle);
-                    ttsHandle = null;
-                }
-                callback.onError("写入文本失败: " + ret);
-                return;
+        // 写入文本数据
+        int ret = engine.writeText(ttsHandle, "text", text);
+        if (ret != 0) {
+            closeTTSFileStream();
+            if (ttsHandle != null) {
+                engine.end(ttsHandle);
+                ttsHandle = null;
             }
+            return "写入文本失败: " + ret;
+        }
+        return null;
+    }
 
-            callback.onSuccess("合成已启动");
+    /**
+     * 开始模板播报合成
+     * 固定片段按 发音人/语速/语调/音量/文本 缓存到 phrases 目录，只有未缓存的片段和槽位需要引擎合成，
+     * 各段裁掉首尾静音后交叉淡化拼接，完成后发送 ttsResult（带 template: true）
+     *
+     * @param template 模板，如 "请 {number} 号到 {window} 窗口办理"
+     * @param slots    槽位值
+     * @param format   输出格式：pcm、wav 或 adpcm，为空时按 fileName 扩展名推断
+     */
+    public void startTemplateTTS(String template, Map<String, String> slots, String vcn, int speed, int pitch,
+            int volume, String fileName, String format, PhraseTemplate.Config config, TTSResultCallback callback) {
+        final PhraseTemplate parsed;
+        try {
+            parsed = PhraseTemplate.parse(template);
+        } catch (IllegalArgumentException e) {
+            callback.onError(e.getMessage());
+            return;
+        }
+        for (PhraseTemplate.Part part : parsed.getParts()) {
+            if (part.slot && !slots.containsKey(part.text)) {
+                callback.onError("缺少槽位值: " + part.text);
+                return;
+            }
+        }
+        final String outputFormat = AudioFileWriter.resolveFormat(format, fileName);
+        final String finalFileName = AudioFileWriter.fileNameFor((fileName != null && !fileName.isEmpty()) ? fileName
+                : "Template_" + System.currentTimeMillis(), outputFormat);
+        synthesisExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                runTemplate(parsed, slots, vcn, speed, pitch, volume, fileName, finalFileName, outputFormat, config);
+            }
+        });
+        callback.onSuccess("合成已启动");
+    }
 
+    private void runTemplate(PhraseTemplate template, Map<String, String> slots, String vcn, int speed, int pitch,
+            int volume, String fileName, String finalFileName, String format, PhraseTemplate.Config config) {
+        long startNanos = System.nanoTime();
+        File cacheDir = new File(ttsOutputDir, PHRASE_CACHE_DIR);
+        cacheDir.mkdirs();
+        // 片段缓存使用 WAV 容器，输出为 ADPCM 时片段同样压缩存储
+        String fragmentFormat = AudioFileWriter.FORMAT_ADPCM.equals(format) ? format : AudioFileWriter.FORMAT_WAV;
+        List<AudioClip> clips = new ArrayList<>();
+        List<File> temporary = new ArrayList<>();
+        int cachedParts = 0;
+        int synthesizedChars = 0;
+        try {
+            for (PhraseTemplate.Part part : template.getParts()) {
+                String text = part.slot ? slots.get(part.text) : part.text;
+                if (text == null || text.trim().isEmpty()) {
+                    continue;
+                }
+                // 槽位每次合成，不缓存
+                File file = part.slot ? null : new File(cacheDir, phraseKey(text, vcn, speed, pitch, volume) + ".wav");
+                if (file != null && file.exists()) {
+                    cachedParts++;
+                } else {
+                    // 先写临时文件，失败时不留下不完整的缓存
+                    File output = new File(cacheDir, "tmp_" + System.nanoTime() + ".wav");
+                    temporary.add(output);
+                    String error = synthesizeFragment(text, vcn, speed, pitch, volume, output, fragmentFormat);
+                    if (error != null) {
+                        throw new IOException(error);
+                    }
+                    synthesizedChars += text.length();
+                    if (file == null || !output.renameTo(file)) {
+                        file = output;
+                    }
+                }
+                clips.add(PhraseTemplate.trimSilence(AudioClip.read(file, TTS_SAMPLE_RATE), config));
+            }
+            AudioClip result = PhraseTemplate.splice(clips, config);
+            File output = new File(ttsOutputDir, finalFileName);
+            result.write(output, format);
+            VoiceMetrics.getInstance().recordSince(VoiceMetrics.TTS_TEMPLATE, startNanos);
+            VoiceMetrics.getInstance().add(VoiceMetrics.TTS_TEMPLATE_CACHED_PARTS, cachedParts);
+
+            JSONObject data = createResultData("filePath", output.getAbsolutePath());
+            if (fileName != null && !fileName.isEmpty()) {
+                data.put("fileName", fileName);
+            }
+            data.put("format", format);
+            data.put("template", true);
+            data.put("cachedParts", cachedParts);
+            data.put("synthesizedChars", synthesizedChars);
+            data.put("durationMs", result.durationMillis());
+            sendEvent("ttsResult", data);
+            Log.d(TAG, "模板合成完成: " + output.getAbsolutePath() + ", 缓存片段=" + cachedParts
+                    + ", 合成字数=" + synthesizedChars);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
-            Log.e(TAG, "StartTTS error: " + e.getMessage(), e);
+            VoiceMetrics.getInstance().increment(VoiceMetrics.TTS_ERRORS);
+            sendEvent("ttsError", createErrorData(-1, "模板合成失败: " + e.getMessage()));
+            Log.e(TAG, "模板合成失败: " + e.getMessage(), e);
+        } finally {
+            for (File file : temporary) {
+                if (file.exists()) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * 合成一个片段并等待结束（合成队列线程调用）
+     *
+     * @return 成功返回null，失败返回错误信息
+     */
+    private String synthesizeFragment(String text, String vcn, int speed, int pitch, int volume, File output,
+            String format) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final String[] error = new String[1];
+        closeTTSFileStream();
+        try {
+            ttsFileWriter = new AudioFileWriter(output, format, TTS_SAMPLE_RATE);
+        } catch (IOException e) {
+            return "创建输出文件失败: " + e.getMessage();
+        }
+        internalSynthesis = new SynthesisCallback() {
+            @Override
+            public void onDone(String message) {
+                error[0] = message;
+                done.countDown();
+            }
+        };
+        ensureTTSListener();
+        String startError = startAisound(text, vcn, speed, pitch, volume);
+        if (startError != null) {
+            internalSynthesis = null;
+            return startError;
+        }
+        if (!done.await(FRAGMENT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            internalSynthesis = null;
             closeTTSFileStream();
-            callback.onError("启动合成失败: " + e.getMessage());
+            if (ttsHandle != null) {
+                engine.end(ttsHandle);
+                ttsHandle = null;
+            }
+            return "片段合成超时: " + text;
+        }
+        return error[0];
+    }
+
+    /**
+     * 片段缓存键：发音参数与文本的 MD5
+     */
+    private static String phraseKey(String text, String vcn, int speed, int pitch, int volume) {
+        String key = vcn + "|" + speed + "|" + pitch + "|" + volume + "|" + text;
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder("phrase_");
+            for (int i = 0; i < 8; i++) {
+                builder.append(String.format("%02x", digest[i]));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return "phrase_" + Integer.toHexString(key.hashCode());
+        }
+    }
+
+    /**
+     * 记录基准文件的来源（与 filePath 同名、扩展名为 .key）
+     */
+    private void writeSourceKey(String filePath, String key) {
+        File file = new File(filePath.substring(0, filePath.length() - 4) + SOURCE_KEY_EXTENSION);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(key.getBytes("UTF-8"));
+        } catch (IOException e) {
+            Log.e(TAG, "写入来源记录失败: " + e.getMessage());
+        }
+    }
+
+    private String readSourceKey(String baseName) {
+        File file = new File(ttsOutputDir, baseName + SOURCE_KEY_EXTENSION);
+        if (!file.exists() || file.length() > 256) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int length = 0;
+            while (length < bytes.length) {
+                int read = in.read(bytes, length, bytes.length - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            return new String(bytes, 0, length, "UTF-8");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 从默认语速的缓存文件变速派生变体，成功时发送 event（ttsResult / xttsResult）
+     * 基准文件须由相同文本与发音人以默认参数合成（按来源记录校验）
+     *
+     * @param sampleRate 裸 PCM 基准文件的采样率，WAV 以文件头为准
+     * @return 没有基准文件、来源不符、比率超出阈值或处理失败时返回false，由调用方回退到引擎合成
+     */
+    private boolean deriveVariant(String baseName, String variantName, String text, String vcn, int speed,
+            int volume, String format, String fileName, TimeStretcher.Config config, int sampleRate, String event) {
+        File base = new File(ttsOutputDir, baseName + ".wav");
+        if (!base.exists()) {
+            base = new File(ttsOutputDir, baseName + ".pcm");
+        }
+        if (!base.exists()) {
+            return false;
+        }
+        String expected = phraseKey(text, vcn, DEFAULT_SPEED, DEFAULT_PITCH, DEFAULT_VOLUME);
+        if (!expected.equals(readSourceKey(baseName))) {
+            Log.d(TAG, "基准文件的文本或发音人不同，使用引擎合成: " + base.getName());
+            return false;
+        }
+        float ratio = TimeStretcher.speedRatio(speed);
+        if (!config.accepts(ratio)) {
+            VoiceMetrics.getInstance().increment(VoiceMetrics.TTS_DERIVE_FALLBACKS);
+            Log.d(TAG, "变速比率超出阈值，回退到引擎合成: ratio=" + ratio);
+            return false;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            AudioClip clip = AudioClip.read(base, sampleRate);
+            AudioClip variant = TimeStretcher.stretch(clip, ratio, TimeStretcher.volumeGain(volume), config);
+            File output = new File(ttsOutputDir, variantName);
+            variant.write(output, format);
+            VoiceMetrics.getInstance().recordSince(VoiceMetrics.TTS_DERIVE, startNanos);
+
+            JSONObject data = createResultData("filePath", output.getAbsolutePath());
+            data.put("fileName", fileName);
+            data.put("format", format);
+            data.put("derived", true);
+            data.put("ratio", ratio);
+            sendEvent(event, data);
+            Log.d(TAG, "由缓存派生语速变体: " + base.getName() + " -> " + variantName + ", ratio=" + ratio);
+            return true;
+        } catch (IOException | JSONException e) {
+            VoiceMetrics.getInstance().increment(VoiceMetrics.TTS_DERIVE_FALLBACKS);
+            Log.e(TAG, "派生语速变体失败，回退到引擎合成: " + e.getMessage());
+            return false;
         }
     }
 
     /**
      * 开始语音合成（XTTS版本）
+     * 带 fileName 时与 startTTS 一样可作为语速变体的基准，开启缓存变速复用后非默认语速/音量优先派生
+     *
+     * @param fileName   预设文件名，为空时使用时间戳
+     * @param format     输出格式：pcm、wav 或 adpcm，为空时按 fileName 扩展名推断，默认 pcm
+     * @param sampleRate 引擎输出采样率，写入 WAV 头供播放时识别
      */
     public void startXTTS(String text, String vcn, int language, int speed, int pitch, int volume,
-            TTSResultCallback callback) {
+            String fileName, String format, int sampleRate, TTSResultCallback callback) {
         try {
             // 关闭之前的文件流（如果存在）
             closeXTTSFileStream();
 
-            // 生成输出文件名（使用时间戳）
-            String fileName = "OutPut_" + System.currentTimeMillis() + ".pcm";
-            currentXttsFilePath = ttsOutputDir + File.separator + fileName;
+            // 生成输出文件名
+            String outputFormat = AudioFileWriter.resolveFormat(format, fileName);
+            boolean named = fileName != null && !fileName.isEmpty();
+            String finalFileName = AudioFileWriter.fileNameFor(named ? fileName
+                    : "OutPut_" + System.currentTimeMillis(), outputFormat);
+            String baseName = finalFileName.substring(0, finalFileName.length() - 4);
+            // 来源记录区分能力、语种与采样率，避免与同名的轻量版合成文件互相派生
+            String sourceVcn = "xtts:" + vcn + ":" + language + ":" + sampleRate;
+            boolean defaults = speed == DEFAULT_SPEED && pitch == DEFAULT_PITCH && volume == DEFAULT_VOLUME;
+            TimeStretcher.Config variants = speedVariants;
+            if (variants != null && named && !defaults) {
+                String variantName = AudioFileWriter.fileNameFor(
+                        baseName + "_s" + speed + "_v" + volume + "_p" + pitch, outputFormat);
+                if (pitch == DEFAULT_PITCH && deriveVariant(baseName, variantName, text, sourceVcn, speed, volume,
+                        outputFormat, fileName, variants, sampleRate, "xttsResult")) {
+                    callback.onSuccess("已由缓存派生");
+                    return;
+                }
+                finalFileName = variantName;
+            }
+            currentXttsSourceKey = null;
+            if (named && defaults) {
+                new File(ttsOutputDir, baseName + SOURCE_KEY_EXTENSION).delete();
+                currentXttsSourceKey = phraseKey(text, sourceVcn, speed, pitch, volume);
+            }
+
+            currentXttsFilePath = ttsOutputDir + File.separator + finalFileName;
+            currentXttsFormat = outputFormat;
+            currentXttsFileName = fileName;
             File outputFile = new File(currentXttsFilePath);
             outputFile.getParentFile().mkdirs();
 
             // 创建文件输出流
             try {
-                xttsFileOutputStream = new FileOutputStream(outputFile, false);
+                xttsFileWriter = new AudioFileWriter(outputFile, outputFormat, sampleRate);
             } catch (IOException e) {
                 Log.e(TAG, "创建XTTS输出文件失败: " + e.getMessage());
                 callback.onError("创建输出文件失败: " + e.getMessage());
@@ -254,18 +699,22 @@ public class TTSManager {
 
             // 注册监听器（只在第一次调用时注册，避免重复注册）
             if (!isXTTSListenerRegistered) {
-                AiHelper.getInst().registerListener(ABILITY_XTTS, new AiListener() {
+                engine.registerListener(ABILITY_XTTS, new AiEngine.Listener() {
                     @Override
-                    public void onResult(int handleID, List<AiResponse> list, Object usrContext) {
+                    public void onResult(int handleID, List<AiEngine.Response> list) {
                         if (list != null && list.size() > 0) {
                             // 每次收到数据就追加写入文件
-                            for (AiResponse response : list) {
+                            for (AiEngine.Response response : list) {
                                 byte[] bytes = response.getValue();
                                 if (bytes != null && bytes.length > 0) {
                                     try {
-                                        if (xttsFileOutputStream != null) {
-                                            xttsFileOutputStream.write(bytes);
-                                            xttsFileOutputStream.flush();
+                                        if (!xttsFirstChunkReceived) {
+                                            xttsFirstChunkReceived = true;
+                                            VoiceMetrics.getInstance().recordSince(VoiceMetrics.TTS_FIRST_CHUNK,
+                                                    xttsStartNanos);
+                                        }
+                                        if (xttsFileWriter != null) {
+                                            xttsFileWriter.write(bytes);
                                             Log.d(TAG, "写入XTTS数据: " + bytes.length + " bytes, handleID: " + handleID);
                                         }
                                     } catch (IOException e) {
@@ -277,25 +726,37 @@ public class TTSManager {
                     }
 
                     @Override
-                    public void onEvent(int handleID, int event, List<AiResponse> eventData, Object usrContext) {
-                        if (event == com.iflytek.aikit.core.AeeEvent.AEE_EVENT_END.getValue()) {
+                    public void onEvent(int handleID, int event, List<AiEngine.Response> eventData) {
+                        if (event == AiEngine.EVENT_END) {
                             // 合成结束，关闭文件流并发送结果事件
                             closeXTTSFileStream();
+                            VoiceMetrics.getInstance().recordSince(VoiceMetrics.TTS_TOTAL, xttsStartNanos);
                             if (xttsHandle != null) {
-                                AiHelper.getInst().end(xttsHandle);
+                                engine.end(xttsHandle);
                                 xttsHandle = null;
                             }
+                            if (currentXttsSourceKey != null) {
+                                writeSourceKey(currentXttsFilePath, currentXttsSourceKey);
+                                currentXttsSourceKey = null;
+                            }
                             // 发送合成完成事件
                             JSONObject data = createResultData("filePath", currentXttsFilePath);
-                            // 这里XTTS没有传fileName参数，但我们可以根据路径获取或以后扩展
+                            try {
+                                data.put("format", currentXttsFormat);
+                                if (currentXttsFileName != null && !currentXttsFileName.isEmpty()) {
+                                    data.put("fileName", currentXttsFileName);
+                                }
+                            } catch (JSONException e) {
+                                Log.e(TAG, "添加format到结果失败: " + e.getMessage());
+                            }
                             sendEvent("xttsResult", data);
                             Log.d(TAG, "XTTS合成完成，文件路径: " + currentXttsFilePath);
-                        } else if (event == com.iflytek.aikit.core.AeeEvent.AEE_EVENT_PROGRESS.getValue()) {
+                        } else if (event == AiEngine.EVENT_PROGRESS) {
                             // 处理进度事件
                             int pos = -1;
                             int len = -1;
                             if (eventData != null) {
-                                for (AiResponse aiOutput : eventData) {
+                                for (AiEngine.Response aiOutput : eventData) {
                                     if (aiOutput.getKey().equals("progress_pos")) {
                                         byte[] posBytes = aiOutput.getValue();
                                         if (posBytes != null && posBytes.length == 4) {
@@ -325,9 +786,11 @@ public class TTSManager {
                     }
 
                     @Override
-                    public void onError(int handleID, int err, String msg, Object usrContext) {
-                        // 错误时关闭文件流
+                    public void onError(int handleID, int err, String msg) {
+                        // 错误时关闭文件流，不完整的文件不作为基准
+                        currentXttsSourceKey = null;
                         closeXTTSFileStream();
+                        VoiceMetrics.getInstance().increment(VoiceMetrics.TTS_ERRORS);
                         sendEvent("xttsError", createErrorData(err, msg));
                         Log.e(TAG, "XTTS合成错误: handleID=" + handleID + ", err=" + err + ", msg=" + msg);
                     }
@@ -337,33 +800,31 @@ public class TTSManager {
             }
 
             // 构建参数
-            AiInput.Builder paramBuilder = AiInput.builder();
-            paramBuilder.param("vcn", vcn); // 必填参数，发音人
-            paramBuilder.param("language", language); // 必填参数，语种：1-中文, 2-英文, 3-法语等
-            paramBuilder.param("textEncoding", "UTF-8"); // 非必填，文本编码
-            paramBuilder.param("pitch", pitch); // 非必填，语调：0-100
-            paramBuilder.param("volume", volume); // 非必填，音量：0-100
-            paramBuilder.param("speed", speed); // 非必填，语速：0-100
+            Map<String, Object> params = new HashMap<>();
+            params.put("vcn", vcn); // 必填参数，发音人
+            params.put("language", language); // 必填参数，语种：1-中文, 2-英文, 3-法语等
+            params.put("textEncoding", "UTF-8"); // 非必填，文本编码
+            params.put("pitch", pitch); // 非必填，语调：0-100
+            params.put("volume", volume); // 非必填，音量：0-100
+            params.put("speed", speed); // 非必填，语速：0-100
 
             // 开始合成
-            xttsHandle = AiHelper.getInst().start(ABILITY_XTTS, paramBuilder.build(), null);
+            xttsStartNanos = System.nanoTime();
+            xttsFirstChunkReceived = false;
+            xttsHandle = engine.start(ABILITY_XTTS, params);
             if (xttsHandle.getCode() != 0) {
                 closeXTTSFileStream();
                 callback.onError("启动合成失败: " + xttsHandle.getCode());
                 return;
             }
-            Log.d(TAG, "XTTS启动成功: handleID=" + xttsHandle.getI() + ", id=" + xttsHandle.getId());
+            Log.d(TAG, "XTTS启动成功: handleID=" + xttsHandle.getId());
 
             // 写入文本数据
-            AiRequest.Builder dataBuilder = AiRequest.builder();
-            AiText input = AiText.get("text").data(text).valid();
-            dataBuilder.payload(input);
-
-            int ret = AiHelper.getInst().write(dataBuilder.build(), xttsHandle);
+            int ret = engine.writeText(xttsHandle, "text", text);
             if (ret != 0) {
                 closeXTTSFileStream();
                 if (xttsHandle != null) {
-                    AiHelper.getInst().end(xttsHandle);
+                    engine.end(xttsHandle);
                     xttsHandle = null;
                 }
                 callback.onError("写入文本失败: " + ret);
@@ -380,17 +841,16 @@ public class TTSManager {
     }
 
     /**
-     * 关闭TTS文件输出流
+     * 关闭TTS文件输出流（WAV/ADPCM 在此回填文件头）
      */
     private void closeTTSFileStream() {
-        if (ttsFileOutputStream != null) {
+        if (ttsFileWriter != null) {
             try {
-                ttsFileOutputStream.flush();
-                ttsFileOutputStream.close();
+                ttsFileWriter.close();
             } catch (IOException e) {
                 Log.e(TAG, "关闭TTS文件流失败: " + e.getMessage());
             } finally {
-                ttsFileOutputStream = null;
+                ttsFileWriter = null;
             }
         }
     }
@@ -399,14 +859,13 @@ public class TTSManager {
      * 关闭XTTS文件输出流
      */
     private void closeXTTSFileStream() {
-        if (xttsFileOutputStream != null) {
+        if (xttsFileWriter != null) {
             try {
-                xttsFileOutputStream.flush();
-                xttsFileOutputStream.close();
+                xttsFileWriter.close();
             } catch (IOException e) {
                 Log.e(TAG, "关闭XTTS文件流失败: " + e.getMessage());
             } finally {
-                xttsFileOutputStream = null;
+                xttsFileWriter = null;
             }
         }
     }
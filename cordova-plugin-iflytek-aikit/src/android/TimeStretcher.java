@@ -0,0 +1,131 @@
+package com.iflytek.aikit.plugin;
+
+/**
+ * WSOLA 变速不变调
+ * 以固定输出步长叠加 Hann 窗帧，每帧在名义输入位置附近搜索与上一帧自然延续最相似的位置，
+ * 避免相位断裂。用于从默认语速的缓存合成音频派生其它语速，比率过大时音质下降，由调用方回退到引擎合成
+ */
+public class TimeStretcher {
+
+    /**
+     * 变速配置
+     */
+    public static class Config {
+        // 允许的最大变速比率，超出（快于 maxRatio 或慢于 1/maxRatio）时回退到引擎合成
+        public float maxRatio = 1.5f;
+        // 帧长（毫秒），输出步长为半帧
+        public int frameMs = 20;
+        // 相似位置的搜索半径（毫秒）
+        public int searchMs = 5;
+
+        public boolean accepts(float ratio) {
+            return ratio <= maxRatio && ratio >= 1f / maxRatio;
+        }
+    }
+
+    /**
+     * 引擎语速（0-100，默认50）到播放速度比率的近似映射：每偏离50个单位速度翻倍或减半
+     */
+    public static float speedRatio(int speed) {
+        return (float) Math.pow(2, (speed - 50) / 50.0);
+    }
+
+    /**
+     * 引擎音量（0-100，默认50）到增益的近似映射
+     */
+    public static float volumeGain(int volume) {
+        return Math.max(0, volume) / 50f;
+    }
+
+    /**
+     * 变速并调整增益
+     *
+     * @param ratio 速度比率，大于1加快（时长缩短），小于1减慢
+     * @param gain  增益，1为不变，超出16bit范围时截断
+     */
+    public static AudioClip stretch(AudioClip clip, float ratio, float gain, Config config) {
+        int frame = Math.max(2, clip.sampleRate * config.frameMs / 1000) & ~1;
+        int hop = frame / 2;
+        int search = clip.sampleRate * config.searchMs / 1000;
+        short[] in = clip.samples;
+        int inLength = clip.length;
+        if (ratio == 1f || inLength < frame + 2 * search) {
+            return applyGain(clip, gain);
+        }
+
+        float[] window = new float[frame];
+        for (int i = 0; i < frame; i++) {
+            window[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / frame));
+        }
+        int outLength = (int) (inLength / ratio);
+        float[] out = new float[outLength + frame];
+        float[] weight = new float[outLength + frame];
+
+        int previous = 0;
+        for (int k = 0; ; k++) {
+            int outPosition = k * hop;
+            int nominal = Math.round(k * hop * ratio);
+            if (outPosition >= outLength || nominal + frame > inLength) {
+                break;
+            }
+            int position = k == 0 ? 0 : bestPosition(in, inLength, previous + hop, nominal, search, frame);
+            for (int i = 0; i < frame; i++) {
+                out[outPosition + i] += in[position + i] * window[i];
+                weight[outPosition + i] += window[i];
+            }
+            previous = position;
+        }
+
+        short[] result = new short[outLength];
+        int length = 0;
+        for (int i = 0; i < outLength; i++) {
+            if (weight[i] < 1e-3f && i > hop) {
+                break;
+            }
+            float value = weight[i] > 1e-3f ? out[i] / weight[i] * gain : 0f;
+            result[i] = clamp(value);
+            length = i + 1;
+        }
+        return new AudioClip(result, length, clip.sampleRate);
+    }
+
+    /**
+     * 在 [nominal - search, nominal + search] 内寻找与 in[natural..] 互相关最大的帧起点
+     */
+    private static int bestPosition(short[] in, int inLength, int natural, int nominal, int search, int frame) {
+        int low = Math.max(0, nominal - search);
+        int high = Math.min(inLength - frame, nominal + search);
+        if (natural + frame > inLength) {
+            return Math.max(low, Math.min(nominal, high));
+        }
+        int best = Math.max(low, Math.min(nominal, high));
+        long bestScore = Long.MIN_VALUE;
+        for (int candidate = low; candidate <= high; candidate++) {
+            long score = 0;
+            // 隔点计算互相关，搜索代价减半，精度足够
+            for (int i = 0; i < frame; i += 2) {
+                score += in[candidate + i] * in[natural + i];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static AudioClip applyGain(AudioClip clip, float gain) {
+        if (gain == 1f) {
+            return clip;
+        }
+        short[] result = new short[clip.length];
+        for (int i = 0; i < clip.length; i++) {
+            result[i] = clamp(clip.samples[i] * gain);
+        }
+        return new AudioClip(result, clip.length, clip.sampleRate);
+    }
+
+    private static short clamp(float value) {
+        return (short) (value > Short.MAX_VALUE ? Short.MAX_VALUE : (value < Short.MIN_VALUE ? Short.MIN_VALUE : value));
+    }
+}
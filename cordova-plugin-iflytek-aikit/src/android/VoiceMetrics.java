@@ -0,0 +1,212 @@
+package com.iflytek.aikit.plugin;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 语音链路性能指标
+ * 记录SDK调用耗时、唤醒/识别/合成延迟的直方图以及丢帧、错误计数，
+ * 通过 getMetrics / resetMetrics 暴露给JS
+ */
+public class VoiceMetrics {
+
+    // SDK调用耗时
+    public static final String SDK_ENGINE_INIT = "sdk.engineInit";
+    public static final String SDK_LOAD_DATA = "sdk.loadData";
+    public static final String SDK_SPECIFY_DATA_SET = "sdk.specifyDataSet";
+    public static final String SDK_START = "sdk.start";
+    public static final String SDK_WRITE = "sdk.write";
+    public static final String SDK_READ = "sdk.read";
+    public static final String SDK_END = "sdk.end";
+
+    // 链路延迟
+    public static final String WAKE_TO_EVENT = "wakeUp.wakeToEvent";
+    public static final String SPEECH_END_TO_RESULT = "command.speechEndToResult";
+    public static final String SPECULATIVE_START = "command.speculativeStart";
+    public static final String COMMAND_DISPATCH = "command.dispatch";
+    public static final String FUZZY_MATCH = "command.fuzzyMatch";
+    public static final String TTS_FIRST_CHUNK = "tts.firstChunk";
+    public static final String TTS_TOTAL = "tts.total";
+    public static final String TTS_DERIVE = "tts.derive";
+    public static final String TTS_TEMPLATE = "tts.template";
+    public static final String EVENT_DISPATCH = "event.dispatch";
+
+    // 计数器
+    public static final String DROPPED_FRAMES = "capture.droppedFrames";
+    public static final String VAD_SUPPRESSED_FRAMES = "capture.vadSuppressedFrames";
+    public static final String SPECULATIVE_COMMITTED = "command.speculativeCommitted";
+    public static final String SPECULATIVE_CANCELLED = "command.speculativeCancelled";
+    public static final String WRITE_ERRORS = "sdk.writeErrors";
+    public static final String WAKE_UP_ERRORS = "wakeUp.errors";
+    public static final String COMMAND_ERRORS = "command.errors";
+    public static final String DISPATCH_ERRORS = "command.dispatchErrors";
+    public static final String FUZZY_RESOLVED = "command.fuzzyResolved";
+    public static final String ENDPOINT_ENDS = "command.endpointEnds";
+    public static final String DUMP_DROPPED_FRAMES = "dump.droppedFrames";
+    public static final String TTS_ERRORS = "tts.errors";
+    public static final String TTS_DERIVE_FALLBACKS = "tts.deriveFallbacks";
+    public static final String TTS_TEMPLATE_CACHED_PARTS = "tts.templateCachedParts";
+
+    // 直方图桶上界（毫秒），最后一个桶为溢出桶
+    private static final double[] BUCKET_BOUNDS_MS = {
+            1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000
+    };
+
+    private volatile static VoiceMetrics mInstance;
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private volatile long resetAt = System.currentTimeMillis();
+
+    /**
+     * 获取单例引用
+     */
+    public static VoiceMetrics getInstance() {
+        if (mInstance == null) {
+            synchronized (VoiceMetrics.class) {
+                if (mInstance == null) {
+                    mInstance = new VoiceMetrics();
+                }
+            }
+        }
+        return mInstance;
+    }
+
+    /**
+     * 记录一次耗时，startNanos 为 System.nanoTime() 起点
+     */
+    public void recordSince(String name, long startNanos) {
+        record(name, (System.nanoTime() - startNanos) / 1e6);
+    }
+
+    /**
+     * 记录一次耗时（毫秒）
+     */
+    public void record(String name, double millis) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            Histogram existing = histograms.putIfAbsent(name, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        histogram.add(millis);
+    }
+
+    /**
+     * 计数器加一
+     */
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * 计数器累加
+     */
+    public void add(String name, long delta) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counter = new AtomicLong();
+            AtomicLong existing = counters.putIfAbsent(name, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public void reset() {
+        histograms.clear();
+        counters.clear();
+        resetAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 导出为JSON
+     */
+    public JSONObject toJson() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("since", resetAt);
+        result.put("durationMs", System.currentTimeMillis() - resetAt);
+
+        JSONObject histogramJson = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            histogramJson.put(entry.getKey(), entry.getValue().toJson());
+        }
+        result.put("histograms", histogramJson);
+
+        JSONObject counterJson = new JSONObject();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            counterJson.put(entry.getKey(), entry.getValue().get());
+        }
+        result.put("counters", counterJson);
+        return result;
+    }
+
+    /**
+     * 固定桶直方图，分位数按桶上界估算
+     */
+    static class Histogram {
+        private final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max;
+
+        synchronized void add(double millis) {
+            int index = 0;
+            while (index < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[index]) {
+                index++;
+            }
+            buckets[index]++;
+            count++;
+            sum += millis;
+            if (millis < min) {
+                min = millis;
+            }
+            if (millis > max) {
+                max = millis;
+            }
+        }
+
+        private double percentile(double p) {
+            long target = (long) Math.ceil(count * p);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], max) : max;
+                }
+            }
+            return max;
+        }
+
+        synchronized JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("min", count > 0 ? min : 0);
+            json.put("max", max);
+            json.put("mean", count > 0 ? sum / count : 0);
+            json.put("p50", count > 0 ? percentile(0.50) : 0);
+            json.put("p90", count > 0 ? percentile(0.90) : 0);
+            json.put("p99", count > 0 ? percentile(0.99) : 0);
+
+            JSONObject bucketJson = new JSONObject();
+            for (int i = 0; i < buckets.length; i++) {
+                String key = i < BUCKET_BOUNDS_MS.length ? "le" + (long) BUCKET_BOUNDS_MS[i] : "inf";
+                bucketJson.put(key, buckets[i]);
+            }
+            json.put("buckets", bucketJson);
+            return json;
+        }
+    }
+}
@@ -1,19 +1,12 @@
 package com.iflytek.aikit.plugin;
 
-import android.app.Activity;
+import android.content.Context;
 import android.media.AudioFormat;
 import android.media.AudioRecord;
 import android.media.MediaRecorder;
 import android.util.Log;
 
-import com.iflytek.aikit.core.AiAudio;
-import com.iflytek.aikit.core.AiHandle;
-import com.iflytek.aikit.core.AiHelper;
-import com.iflytek.aikit.core.AiListener;
-import com.iflytek.aikit.core.AiRequest;
-import com.iflytek.aikit.core.AiResponse;
-import com.iflytek.aikit.core.AiStatus;
-
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -22,7 +15,11 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -35,14 +32,33 @@ public class WakeUpManager {
     // 能力ID定义
     private static final String ABILITY_IVW = "e867a88f2"; // 语音唤醒
 
-    private Activity activity;
+    private Context context;
     private String wakeUpWorkDir;
+    private AiEngine engine;
 
-    private AiHandle wakeUpHandle;
+    private AiEngine.Handle wakeUpHandle;
     private AtomicBoolean isWakeUpEnd = new AtomicBoolean(true);
     private AudioRecord wakeUpAudioRecord;
     private final int BUFFER_SIZE = 1280;
     private AtomicBoolean isWakeUpRecording = new AtomicBoolean(false);
+    // 前端VAD配置，为null时不启用
+    private volatile EnergyVad.Config vadConfig;
+    // 录音分流，每帧转换后的音频（VAD之前）同时交给它，为null时不分流
+    private volatile EnergyVad.Sink audioTap;
+    // 音频转储，为null时不转储
+    private volatile AudioDumper audioDumper;
+    // 麦克风采集格式，非 16kHz 单声道时在录音线程内转换
+    private volatile int captureSampleRate = PcmResampler.TARGET_SAMPLE_RATE;
+    private volatile int captureChannels = 1;
+    private int recordSampleRate;
+    private int recordChannels;
+
+    // 文件扫描结束后等待引擎处理尾部音频的时间
+    private static final long FILE_TAIL_WAIT_MS = 500;
+    // 文件扫描按语音段归属唤醒结果：静音达到此时长视为语音段结束
+    private static final int SCAN_SEGMENT_SILENCE_MS = 300;
+    // 语音段结束且尚无唤醒结果时，暂停推送等待引擎回调的最长时间
+    private static final long SCAN_SEGMENT_DRAIN_MS = 200;
 
     // 事件回调接口
     public interface WakeUpResultCallback {
@@ -51,14 +67,18 @@ public class WakeUpManager {
     }
 
     public interface WakeUpEventCallback {
-        void onEvent(String event, JSONObject data);
+        /**
+         * @param detectedAtNanos func_wake_up 结果到达的时间（System.nanoTime），其他事件为 0
+         */
+        void onEvent(String event, JSONObject data, long detectedAtNanos);
     }
 
     private WakeUpEventCallback eventCallback;
 
-    public WakeUpManager(Activity activity, String wakeUpWorkDir) {
-        this.activity = activity;
+    public WakeUpManager(Context context, String wakeUpWorkDir, AiEngine engine) {
+        this.context = context.getApplicationContext();
         this.wakeUpWorkDir = wakeUpWorkDir;
+        this.engine = engine;
     }
 
     /**
@@ -68,43 +88,65 @@ public class WakeUpManager {
         this.eventCallback = callback;
     }
 
+    /**
+     * 设置前端VAD，静音期间不写入引擎
+     *
+     * @param config VAD配置，null表示关闭
+     */
+    public void setVadConfig(EnergyVad.Config config) {
+        this.vadConfig = config;
+    }
+
+    /**
+     * 设置录音分流（如唤醒后把同一路录音交给命令词识别）
+     *
+     * @param tap 分流接收方，null表示不分流
+     */
+    public void setAudioTap(EnergyVad.Sink tap) {
+        this.audioTap = tap;
+    }
+
+    /**
+     * 设置音频转储（下次开始录音时生效），null表示关闭
+     */
+    public void setAudioDumper(AudioDumper dumper) {
+        this.audioDumper = dumper;
+    }
+
+    /**
+     * 设置麦克风采集格式（下次开始录音时生效），如部分USB声卡只支持 48kHz 立体声
+     *
+     * @param sampleRate 采样率
+     * @param channels   声道数 1 或 2
+     */
+    public void setCaptureFormat(int sampleRate, int channels) {
+        this.captureSampleRate = sampleRate;
+        this.captureChannels = channels;
+    }
+
     /**
      * 开始语音唤醒
      */
     public void startWakeUp(String keywords, WakeUpResultCallback callback) {
         try {
-            // 写入唤醒词文件
-            if (!writeKeywordFile(keywords)) {
-                callback.onError("唤醒词文件写入失败");
-                return;
-            }
-
-            // 加载唤醒词数据
-            AiRequest.Builder customBuilder = AiRequest.builder();
-            customBuilder.customText("key_word", wakeUpWorkDir + "/keyword.txt", 0);
-            int ret = AiHelper.getInst().loadData(ABILITY_IVW, customBuilder.build());
-            if (ret != 0) {
-                callback.onError("加载唤醒词数据失败: " + ret);
-                return;
-            }
-
-            // 设置数据集
-            int[] indexs = { 0 };
-            ret = AiHelper.getInst().specifyDataSet(ABILITY_IVW, "key_word", indexs);
-            if (ret != 0) {
-                callback.onError("设置数据集失败: " + ret);
+            String prepareError = prepareWakeUp(keywords);
+            if (prepareError != null) {
+                callback.onError(prepareError);
                 return;
             }
 
             // 注册监听器
-            AiHelper.getInst().registerListener(ABILITY_IVW, new AiListener() {
+            engine.registerListener(ABILITY_IVW, new AiEngine.Listener() {
                 @Override
-                public void onResult(int handleID, List<AiResponse> outputData, Object usrContext) {
+                public void onResult(int handleID, List<AiEngine.Response> outputData) {
+                    long detectedAt = System.nanoTime();
                     if (outputData != null && outputData.size() > 0) {
-                        for (AiResponse response : outputData) {
+                        for (AiEngine.Response response : outputData) {
                             String key = response.getKey();
                             String value = new String(response.getValue());
-                            if (key.equals("func_wake_up") || key.equals("func_pre_wakeup")) {
+                            if (key.equals("func_wake_up")) {
+                                sendEvent("wakeUpResult", createResultData(key, value), detectedAt);
+                            } else if (key.equals("func_pre_wakeup")) {
                                 sendEvent("wakeUpResult", createResultData(key, value));
                             }
                         }
@@ -112,22 +154,20 @@ public class WakeUpManager {
                 }
 
                 @Override
-                public void onEvent(int i, int i1, List<AiResponse> list, Object o) {
+                public void onEvent(int i, int i1, List<AiEngine.Response> list) {
                     Log.d(TAG, "WakeUp event: " + i1);
                 }
 
                 @Override
-                public void onError(int i, int i1, String s, Object o) {
+                public void onError(int i, int i1, String s) {
+                    VoiceMetrics.getInstance().increment(VoiceMetrics.WAKE_UP_ERRORS);
                     sendEvent("wakeUpError", createErrorData(i1, s));
                 }
             });
 
             // 开始唤醒
-            AiRequest.Builder paramBuilder = AiRequest.builder();
-            paramBuilder.param("wdec_param_nCmThreshold", "0 0:800");
-            paramBuilder.param("gramLoad", true);
             isWakeUpEnd.set(false);
-            wakeUpHandle = AiHelper.getInst().start(ABILITY_IVW, paramBuilder.build(), null);
+            wakeUpHandle = engine.start(ABILITY_IVW, buildWakeUpParams());
 
             if (wakeUpHandle.getCode() != 0) {
                 callback.onError("启动唤醒失败: " + wakeUpHandle.getCode());
@@ -144,6 +184,243 @@ public class WakeUpManager {
         }
     }
 
+    /**
+     * 写入唤醒词文件、加载唤醒词数据并设置数据集
+     *
+     * @return 错误信息，成功返回null
+     */
+    private String prepareWakeUp(String keywords) {
+        // 写入唤醒词文件
+        if (!writeKeywordFile(keywords)) {
+            return "唤醒词文件写入失败";
+        }
+
+        // 加载唤醒词数据
+        int ret = engine.loadData(ABILITY_IVW, "key_word", wakeUpWorkDir + "/keyword.txt", 0);
+        if (ret != 0) {
+            return "加载唤醒词数据失败: " + ret;
+        }
+
+        // 设置数据集
+        int[] indexs = { 0 };
+        ret = engine.specifyDataSet(ABILITY_IVW, "key_word", indexs);
+        if (ret != 0) {
+            return "设置数据集失败: " + ret;
+        }
+        return null;
+    }
+
+    /**
+     * 构建唤醒会话参数
+     */
+    private Map<String, Object> buildWakeUpParams() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("wdec_param_nCmThreshold", "0 0:800");
+        params.put("gramLoad", true);
+        return params;
+    }
+
+    /**
+     * 离线扫描PCM文件中的唤醒词（16kHz 16bit 单声道）
+     * 以内存映射方式读取文件并尽快推送给引擎，返回每次唤醒及其在文件中的时间位置。
+     * 结果按能量VAD划分的语音段归属：回调时若处于语音段中，归到该段，否则归到上一个结束的语音段；
+     * 每个语音段结束后若尚未收到唤醒结果，暂停推送最多 SCAN_SEGMENT_DRAIN_MS 等待引擎，避免回调落后到下一段。
+     * 与实时唤醒共用引擎，实时唤醒运行时不可调用
+     *
+     * @param filePath PCM文件路径
+     * @param keywords 唤醒词，多个用逗号分隔
+     * @param callback 回调，成功时返回 JSONObject
+     */
+    public void scanFile(String filePath, String keywords, WakeUpResultCallback callback) {
+        if (wakeUpHandle != null && !isWakeUpEnd.get()) {
+            callback.onError("语音唤醒正在运行，请先停止");
+            return;
+        }
+
+        try {
+            String prepareError = prepareWakeUp(keywords);
+            if (prepareError != null) {
+                callback.onError(prepareError);
+                return;
+            }
+
+            final JSONArray results = new JSONArray();
+            final ScanSegments segments = new ScanSegments();
+            final long beginNanos = System.nanoTime();
+
+            engine.registerListener(ABILITY_IVW, new AiEngine.Listener() {
+                @Override
+                public void onResult(int handleID, List<AiEngine.Response> outputData) {
+                    if (outputData == null) {
+                        return;
+                    }
+                    for (AiEngine.Response response : outputData) {
+                        String key = response.getKey();
+                        if (!"func_wake_up".equals(key) && !"func_pre_wakeup".equals(key)) {
+                            continue;
+                        }
+                        synchronized (segments) {
+                            try {
+                                JSONObject item = createResultData(key, new String(response.getValue()));
+                                item.put("elapsedMs", (System.nanoTime() - beginNanos) / 1000000);
+                                segments.attach(item, "func_wake_up".equals(key));
+                                results.put(item);
+                            } catch (JSONException e) {
+                                Log.e(TAG, "创建唤醒扫描结果失败: " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public void onEvent(int i, int i1, List<AiEngine.Response> list) {
+                }
+
+                @Override
+                public void onError(int i, int i1, String s) {
+                    Log.e(TAG, "唤醒扫描错误 - errCode: " + i1 + ", errMsg: " + s);
+                    VoiceMetrics.getInstance().increment(VoiceMetrics.WAKE_UP_ERRORS);
+                }
+            });
+
+            final AiEngine.Handle handle = engine.start(ABILITY_IVW, buildWakeUpParams());
+            if (handle.getCode() != 0) {
+                callback.onError("启动唤醒失败: " + handle.getCode());
+                return;
+            }
+
+            final EnergyVad segmenter = new EnergyVad(EnergyVad.Config.forEndpoint(SCAN_SEGMENT_SILENCE_MS), BUFFER_SIZE);
+            long totalBytes;
+            try {
+                totalBytes = new PcmFilePump(BUFFER_SIZE).pump(filePath, new PcmFilePump.FrameSink() {
+                    @Override
+                    public boolean onFrame(byte[] frame, int length, int status, long offset) {
+                        engine.writeAudio(handle, "wav", frame, length, status);
+                        if (length == 0) {
+                            return true;
+                        }
+                        boolean active = segmenter.update(frame, length);
+                        synchronized (segments) {
+                            if (segmenter.isLastFrameSpeech()) {
+                                segments.speech(offset, offset + length);
+                            }
+                            if (!active && segments.isOpen()) {
+                                segments.close();
+                                try {
+                                    segments.drain(SCAN_SEGMENT_DRAIN_MS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                    return false;
+                                }
+                            }
+                        }
+                        return true;
+                    }
+                });
+                synchronized (segments) {
+                    if (segments.isOpen()) {
+                        segments.close();
+                    }
+                }
+                // 给引擎留出处理尾部音频的时间
+                Thread.sleep(FILE_TAIL_WAIT_MS);
+            } finally {
+                engine.end(handle);
+            }
+
+            long elapsedMs = (System.nanoTime() - beginNanos) / 1000000;
+            long audioMs = PcmFilePump.offsetToMillis(totalBytes);
+            JSONObject data = new JSONObject();
+            synchronized (segments) {
+                data.put("filePath", filePath);
+                data.put("audioMs", audioMs);
+                data.put("elapsedMs", elapsedMs);
+                data.put("speedup", elapsedMs > 0 ? (double) audioMs / elapsedMs : 0);
+                data.put("results", results);
+            }
+            Log.d(TAG, "唤醒扫描完成 - 结果数: " + results.length() + ", 音频时长: " + audioMs + "ms, 耗时: " + elapsedMs + "ms");
+            callback.onSuccess(data);
+        } catch (Exception e) {
+            Log.e(TAG, "ScanFile error: " + e.getMessage(), e);
+            callback.onError("唤醒扫描失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 文件扫描的语音段与结果归属，所有方法都在持有本对象锁时调用
+     * 结果的 startMs/endMs 为所属语音段的起止位置，offsetMs 同 endMs（语音段结束即引擎可给出结果的最早位置）
+     */
+    private static class ScanSegments {
+        // 当前语音段，start 为 -1 表示不在语音段中
+        private long start = -1;
+        private long end;
+        // 上一个结束的语音段
+        private long lastStart = -1;
+        private long lastEnd;
+        // 当前语音段中等待结束位置的结果
+        private final List<JSONObject> pending = new ArrayList<>();
+        private boolean wokeUp;
+
+        boolean isOpen() {
+            return start >= 0;
+        }
+
+        void speech(long frameStart, long frameEnd) {
+            if (start < 0) {
+                start = frameStart;
+                wokeUp = false;
+            }
+            end = frameEnd;
+        }
+
+        void attach(JSONObject item, boolean wakeUp) throws JSONException {
+            if (wakeUp) {
+                wokeUp = true;
+                notifyAll();
+            }
+            if (start >= 0) {
+                pending.add(item);
+                return;
+            }
+            // 没有检测到任何语音段时无法定位，记为 0
+            putRange(item, Math.max(0, lastStart), lastEnd);
+        }
+
+        void close() {
+            for (JSONObject item : pending) {
+                try {
+                    putRange(item, start, end);
+                } catch (JSONException e) {
+                    Log.e(TAG, "创建唤醒扫描结果失败: " + e.getMessage());
+                }
+            }
+            pending.clear();
+            lastStart = start;
+            lastEnd = end;
+            start = -1;
+        }
+
+        /**
+         * 刚结束的语音段尚无唤醒结果时等待引擎回调
+         */
+        void drain(long timeoutMs) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (!wokeUp) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+
+        private static void putRange(JSONObject item, long from, long to) throws JSONException {
+            item.put("startMs", PcmFilePump.offsetToMillis(from));
+            item.put("endMs", PcmFilePump.offsetToMillis(to));
+            item.put("offsetMs", PcmFilePump.offsetToMillis(to));
+        }
+    }
+
     /**
      * 停止语音唤醒
      */
@@ -155,7 +432,7 @@ public class WakeUpManager {
             }
 
             if (wakeUpHandle != null && !isWakeUpEnd.get()) {
-                int ret = AiHelper.getInst().end(wakeUpHandle);
+                int ret = engine.end(wakeUpHandle);
                 isWakeUpEnd.set(true);
                 wakeUpHandle = null;
                 if (callback != null) {
@@ -174,17 +451,23 @@ public class WakeUpManager {
 
     /**
      * 写入音频数据
+     *
+     * @param status 数据状态，取值见 AiEngine.STATUS_*
+     */
+    public void writeAudioData(byte[] audioData, int status) {
+        writeAudioData(audioData, audioData.length, status);
+    }
+
+    /**
+     * 写入音频数据（只写入前 length 个字节）
      */
-    public void writeAudioData(byte[] audioData, AiStatus status) {
+    public void writeAudioData(byte[] audioData, int length, int status) {
         if (isWakeUpEnd.get() || wakeUpHandle == null) {
             return;
         }
 
         try {
-            AiRequest.Builder dataBuilder = AiRequest.builder();
-            AiAudio aiAudio = AiAudio.get("wav").data(audioData).status(status).valid();
-            dataBuilder.payload(aiAudio);
-            AiHelper.getInst().write(dataBuilder.build(), wakeUpHandle);
+            engine.writeAudio(wakeUpHandle, "wav", audioData, length, status);
         } catch (Exception e) {
             Log.e(TAG, "Write wakeup audio error: " + e.getMessage());
         }
@@ -226,31 +509,79 @@ public class WakeUpManager {
             return;
         }
 
+        final PcmResampler resampler = new PcmResampler(captureSampleRate, captureChannels);
+        final int readSize = resampler.frameBytesFor40ms();
+
+        // 采集格式变化时重建AudioRecord
+        if (wakeUpAudioRecord != null
+                && (recordSampleRate != resampler.getInputRate() || recordChannels != resampler.getChannels())) {
+            wakeUpAudioRecord.release();
+            wakeUpAudioRecord = null;
+        }
+
         if (wakeUpAudioRecord == null) {
+            int channelConfig = resampler.getChannels() == 2 ? AudioFormat.CHANNEL_IN_STEREO : AudioFormat.CHANNEL_IN_MONO;
+            int bufferSize = resampler.isPassthrough() ? BUFFER_SIZE
+                    : Math.max(AudioRecord.getMinBufferSize(resampler.getInputRate(), channelConfig,
+                            AudioFormat.ENCODING_PCM_16BIT), readSize * 2);
             wakeUpAudioRecord = new AudioRecord(
                     MediaRecorder.AudioSource.MIC,
-                    16000,
-                    AudioFormat.CHANNEL_IN_MONO,
+                    resampler.getInputRate(),
+                    channelConfig,
                     AudioFormat.ENCODING_PCM_16BIT,
-                    BUFFER_SIZE);
+                    bufferSize);
+            recordSampleRate = resampler.getInputRate();
+            recordChannels = resampler.getChannels();
         }
 
         isWakeUpRecording.set(true);
         wakeUpAudioRecord.startRecording();
 
+        final EnergyVad.Config config = vadConfig;
+
         // 启动录音线程
         new Thread(new Runnable() {
+            private boolean isFirstFrame = true;
+
             @Override
             public void run() {
-                byte[] buffer = new byte[BUFFER_SIZE];
-                boolean isFirstFrame = true;
+                byte[] buffer = new byte[readSize];
+                byte[] converted = resampler.isPassthrough() ? buffer : new byte[resampler.maxOutputBytes(readSize)];
+                EnergyVad vad = config != null ? new EnergyVad(config, converted.length) : null;
+                EnergyVad.Sink sink = new EnergyVad.Sink() {
+                    @Override
+                    public void onFrame(byte[] frame, int length) {
+                        int status = isFirstFrame ? AiEngine.STATUS_BEGIN : AiEngine.STATUS_CONTINUE;
+                        writeAudioData(frame, length, status);
+                        isFirstFrame = false;
+                    }
+                };
+                AudioDumper dumper = audioDumper;
+                if (dumper != null) {
+                    dumper.beginSession(AudioDumper.STREAM_WAKEUP);
+                }
 
                 while (isWakeUpRecording.get() && wakeUpHandle != null && !isWakeUpEnd.get()) {
-                    int read = wakeUpAudioRecord.read(buffer, 0, BUFFER_SIZE);
+                    int read = wakeUpAudioRecord.read(buffer, 0, readSize);
                     if (read > 0 && AudioRecord.ERROR_INVALID_OPERATION != read) {
-                        AiStatus status = isFirstFrame ? AiStatus.BEGIN : AiStatus.CONTINUE;
-                        writeAudioData(buffer, status);
-                        isFirstFrame = false;
+                        int length = resampler.process(buffer, read, converted);
+                        if (length == 0) {
+                            continue;
+                        }
+                        if (dumper != null) {
+                            dumper.offer(AudioDumper.STREAM_WAKEUP, converted, length);
+                        }
+                        EnergyVad.Sink tap = audioTap;
+                        if (tap != null) {
+                            tap.onFrame(converted, length);
+                        }
+                        if (vad != null) {
+                            vad.process(converted, length, sink);
+                        } else {
+                            sink.onFrame(converted, length);
+                        }
+                    } else if (read < 0 && read != AudioRecord.ERROR_INVALID_OPERATION) {
+                        VoiceMetrics.getInstance().increment(VoiceMetrics.DROPPED_FRAMES);
                     }
                 }
             }
@@ -261,8 +592,12 @@ public class WakeUpManager {
      * 发送事件
      */
     private void sendEvent(String event, JSONObject data) {
+        sendEvent(event, data, 0);
+    }
+
+    private void sendEvent(String event, JSONObject data, long detectedAtNanos) {
         if (eventCallback != null) {
-            eventCallback.onEvent(event, data);
+            eventCallback.onEvent(event, data, detectedAtNanos);
         }
     }
 
@@ -0,0 +1,159 @@
+package com.iflytek.aikit.plugin;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * WAV 容器读写
+ * 写入时先写占位头，结束后回填 RIFF 与 data 长度；读取时解析 fmt/fact/data 块，得到格式与音频数据位置。
+ * 支持 16bit PCM 与 IMA-ADPCM 两种编码
+ */
+public class WavFile {
+
+    public static final int HEADER_SIZE = 44;
+    public static final int FORMAT_PCM = 1;
+    public static final int FORMAT_IMA_ADPCM = 0x11;
+    // RIFF(12) + fmt(8+20) + fact(8+4) + data(8)
+    public static final int ADPCM_HEADER_SIZE = 60;
+
+    /**
+     * 解析结果
+     */
+    public static class Info {
+        public int format;
+        public int sampleRate;
+        public int channels;
+        public int bitsPerSample;
+        public int blockAlign;
+        // 仅 ADPCM：每块样本数、总样本数（无 fact 块时为0）
+        public int samplesPerBlock;
+        public long totalSamples;
+        // 音频数据在文件中的偏移与长度
+        public long dataOffset;
+        public long dataLength;
+    }
+
+    /**
+     * 生成 44 字节的 PCM WAV 头
+     *
+     * @param dataBytes 音频数据长度，未知时传0，结束后用 patchSizes 回填
+     */
+    public static byte[] pcmHeader(int sampleRate, int channels, long dataBytes) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[] { 'R', 'I', 'F', 'F' });
+        buffer.putInt((int) (36 + dataBytes));
+        buffer.put(new byte[] { 'W', 'A', 'V', 'E', 'f', 'm', 't', ' ' });
+        buffer.putInt(16);
+        buffer.putShort((short) FORMAT_PCM);
+        buffer.putShort((short) channels);
+        buffer.putInt(sampleRate);
+        buffer.putInt(sampleRate * channels * 2);
+        buffer.putShort((short) (channels * 2));
+        buffer.putShort((short) 16);
+        buffer.put(new byte[] { 'd', 'a', 't', 'a' });
+        buffer.putInt((int) dataBytes);
+        return buffer.array();
+    }
+
+    /**
+     * 生成 60 字节的单声道 IMA-ADPCM WAV 头
+     *
+     * @param dataBytes    音频数据长度，未知时传0，结束后用 patchAdpcmSizes 回填
+     * @param totalSamples 实际样本数（最后一块可能有补齐的样本）
+     */
+    public static byte[] adpcmHeader(int sampleRate, int blockAlign, long dataBytes, long totalSamples) {
+        int samplesPerBlock = ImaAdpcm.samplesPerBlock(blockAlign);
+        ByteBuffer buffer = ByteBuffer.allocate(ADPCM_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[] { 'R', 'I', 'F', 'F' });
+        buffer.putInt((int) (ADPCM_HEADER_SIZE - 8 + dataBytes));
+        buffer.put(new byte[] { 'W', 'A', 'V', 'E', 'f', 'm', 't', ' ' });
+        buffer.putInt(20);
+        buffer.putShort((short) FORMAT_IMA_ADPCM);
+        buffer.putShort((short) 1);
+        buffer.putInt(sampleRate);
+        buffer.putInt((int) ((long) sampleRate * blockAlign / samplesPerBlock));
+        buffer.putShort((short) blockAlign);
+        buffer.putShort((short) 4);
+        buffer.putShort((short) 2);
+        buffer.putShort((short) samplesPerBlock);
+        buffer.put(new byte[] { 'f', 'a', 'c', 't' });
+        buffer.putInt(4);
+        buffer.putInt((int) totalSamples);
+        buffer.put(new byte[] { 'd', 'a', 't', 'a' });
+        buffer.putInt((int) dataBytes);
+        return buffer.array();
+    }
+
+    /**
+     * 回填 60 字节 ADPCM 头中的 RIFF 长度、fact 样本数与 data 长度
+     */
+    public static void patchAdpcmSizes(RandomAccessFile file, long dataBytes, long totalSamples) throws IOException {
+        file.seek(4);
+        writeIntLE(file, (int) (ADPCM_HEADER_SIZE - 8 + dataBytes));
+        file.seek(48);
+        writeIntLE(file, (int) totalSamples);
+        file.seek(56);
+        writeIntLE(file, (int) dataBytes);
+    }
+
+    /**
+     * 回填 44 字节头中的 RIFF 长度与 data 长度
+     */
+    public static void patchSizes(RandomAccessFile file, long dataBytes) throws IOException {
+        file.seek(4);
+        writeIntLE(file, (int) (36 + dataBytes));
+        file.seek(40);
+        writeIntLE(file, (int) dataBytes);
+    }
+
+    /**
+     * 解析 WAV 头（buffer 从文件开头开始）
+     *
+     * @return 不是 RIFF/WAVE 文件时返回null
+     */
+    public static Info parse(ByteBuffer buffer) {
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        data.position(0);
+        if (data.remaining() < 12 || data.getInt(0) != 0x46464952 || data.getInt(8) != 0x45564157) {
+            return null;
+        }
+        Info info = new Info();
+        int position = 12;
+        boolean hasFormat = false;
+        while (position + 8 <= data.limit()) {
+            int id = data.getInt(position);
+            long size = data.getInt(position + 4) & 0xffffffffL;
+            int body = position + 8;
+            if (id == 0x20746d66) { // "fmt "
+                info.format = data.getShort(body) & 0xffff;
+                info.channels = data.getShort(body + 2) & 0xffff;
+                info.sampleRate = data.getInt(body + 4);
+                info.blockAlign = data.getShort(body + 12) & 0xffff;
+                info.bitsPerSample = data.getShort(body + 14) & 0xffff;
+                if (info.format == FORMAT_IMA_ADPCM && size >= 20) {
+                    info.samplesPerBlock = data.getShort(body + 18) & 0xffff;
+                }
+                hasFormat = true;
+            } else if (id == 0x74636166 && size >= 4) { // "fact"
+                info.totalSamples = data.getInt(body) & 0xffffffffL;
+            } else if (id == 0x61746164) { // "data"
+                info.dataOffset = body;
+                // 长度未回填（写入中断）时取到文件末尾
+                long available = data.limit() - body;
+                info.dataLength = size == 0 || size > available ? available : size;
+                return hasFormat ? info : null;
+            }
+            position = (int) (body + size + (size & 1));
+        }
+        return null;
+    }
+
+    private static void writeIntLE(RandomAccessFile file, int value) throws IOException {
+        file.write(value & 0xff);
+        file.write((value >> 8) & 0xff);
+        file.write((value >> 16) & 0xff);
+        file.write((value >> 24) & 0xff);
+    }
+}
@@ -37,6 +37,13 @@ var IflytekAIKit = {
      * 开始语音唤醒
      * @param {Object} options 唤醒配置
      * @param {string} options.keywords 唤醒词，多个用逗号分隔，如 "你好小迪,小迪小迪"
+     * @param {boolean|Object} options.vad 前端VAD（可选），静音期间不写入引擎以降低待机CPU。
+     *        true 使用默认值，或 { minEnergy, noiseRatio, hangoverMs, lookbackMs, keepAliveMs }
+     * @param {number} options.sampleRate 麦克风采样率（可选），默认16000，非16k时插件内部转换
+     * @param {number} options.channels 麦克风声道数 1 或 2（可选），默认1
+     * @param {Object} options.speculativeCommand 唤醒后预启动命令词识别（可选）
+     *        { fsaPath, languageType, timeoutSeconds, cancelAfterMs }，预唤醒时即启动识别会话，
+     *        唤醒确认后直接用唤醒录音识别，此时 wakeUpResult 事件带 commandStarted: true
      * @param {Function} successCallback 成功回调
      * @param {Function} errorCallback 失败回调
      */
@@ -62,6 +69,9 @@ var IflytekAIKit = {
      * @param {number} options.pitch 语调 0-100，默认50
      * @param {number} options.volume 音量 0-100，默认50
      * @param {string} options.fileName 预设文件名（可选），如 "hello.pcm"，指定后可避免重复合成
+     * @param {string} options.format 输出格式（可选）：'pcm'（默认）、'wav' 或 'adpcm'（IMA-ADPCM WAV，体积约1/4），扩展名随格式修正
+     * @param {boolean|Object} options.reuseCache 语速变体复用缓存（可选）：true 或 { maxRatio: 1.5 }，
+     *        语速/音量非默认时从同名默认语速文件变速派生，超出 maxRatio 时回退到引擎合成
      * @param {Function} successCallback 成功回调，返回音频文件路径
      * @param {Function} errorCallback 失败回调
      */
@@ -69,6 +79,26 @@ var IflytekAIKit = {
         exec(successCallback, errorCallback, 'IflytekAIKit', 'startTTS', [options]);
     },
 
+    /**
+     * 开始模板播报合成：固定片段缓存复用，只合成槽位，拼接后发送 ttsResult（template: true）
+     * @param {Object} options 合成配置
+     * @param {string} options.template 模板，{名称} 表示槽位，如 "请 {number} 号到 {window} 窗口办理"
+     * @param {Object} options.slots 槽位值，如 { number: "12", window: "3" }
+     * @param {string} options.vcn 发音人，默认 xiaoyan
+     * @param {number} options.speed 语速 0-100，默认50
+     * @param {number} options.pitch 语调 0-100，默认50
+     * @param {number} options.volume 音量 0-100，默认50
+     * @param {string} options.fileName 输出文件名（可选）
+     * @param {string} options.format 输出格式（可选）：'pcm'、'wav' 或 'adpcm'
+     * @param {number} options.crossfadeMs 片段交叉淡化时长（可选），默认10
+     * @param {number} options.pauseMs 裁剪静音后每段两端保留的停顿（可选），默认30
+     * @param {Function} successCallback 成功回调
+     * @param {Function} errorCallback 失败回调（模板格式错误或缺少槽位值）
+     */
+    startTemplateTTS: function (options, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'startTemplateTTS', [options]);
+    },
+
     /**
      * 开始语音合成（XTTS版本）
      * @param {Object} options 合成配置
@@ -78,6 +108,10 @@ var IflytekAIKit = {
      * @param {number} options.speed 语速 0-100
      * @param {number} options.pitch 语调 0-100
      * @param {number} options.volume 音量 0-100
+     * @param {string} options.fileName 预设文件名（可选），同 startTTS，可作为语速变体的基准
+     * @param {string} options.format 输出格式（可选）：'pcm'（默认）、'wav' 或 'adpcm'
+     * @param {number} options.sampleRate 引擎输出采样率（可选），默认16000，写入 WAV 头供播放识别
+     * @param {boolean|Object} options.reuseCache 语速变体复用缓存（可选），同 startTTS，需同时指定 fileName
      * @param {Function} successCallback 成功回调，返回音频文件路径
      * @param {Function} errorCallback 失败回调
      */
@@ -91,6 +125,12 @@ var IflytekAIKit = {
      * @param {string} options.fsaPath FSA命令词文件路径
      * @param {number} options.languageType 语种 0:中文, 1:英文
      * @param {number} options.timeoutSeconds 超时时间（秒），默认10秒，0表示不超时
+     * @param {boolean|Object} options.vad 前端VAD（可选），配置同 startWakeUp，默认拖尾 1500ms
+     * @param {number} options.endSilenceMs 说话后静音多久提前结束输入（毫秒），默认800，0表示只依赖超时
+     * @param {number} options.noSpeechTimeoutMs 一直未说话多久提前结束识别（毫秒），默认0不启用
+     * @param {boolean|Object} options.fuzzyMatch 模糊匹配（可选），true 或 { minScore, budgetMs }，只有渐进式结果时纠正为最接近的命令词
+     * @param {number} options.sampleRate 麦克风采样率（可选），默认16000
+     * @param {number} options.channels 麦克风声道数 1 或 2（可选），默认1
      * @param {Function} successCallback 成功回调，返回识别结果
      * @param {Function} errorCallback 失败回调
      */
@@ -98,6 +138,25 @@ var IflytekAIKit = {
         exec(successCallback, errorCallback, 'IflytekAIKit', 'startCommandRecognition', [options]);
     },
 
+    /**
+     * 开始中英文并行识别：同一路录音同时送入中文、英文两个识别会话，先得到最终结果的语种胜出
+     * 事件数据附带 language: "cn" | "en"，使用 stopCommandRecognition 停止
+     * @param {Object} options 识别配置
+     * @param {string} options.cnFsaPath 中文FSA命令词文件路径
+     * @param {string} options.enFsaPath 英文FSA命令词文件路径
+     * @param {number} options.timeoutSeconds 超时时间（秒），默认10秒
+     * @param {boolean|Object} options.vad 前端VAD（可选），配置同 startCommandRecognition
+     * @param {number} options.endSilenceMs 同 startCommandRecognition
+     * @param {number} options.noSpeechTimeoutMs 同 startCommandRecognition
+     * @param {number} options.sampleRate 麦克风采样率（可选），默认16000
+     * @param {number} options.channels 麦克风声道数 1 或 2（可选），默认1
+     * @param {Function} successCallback 成功回调
+     * @param {Function} errorCallback 失败回调
+     */
+    startBilingualRecognition: function (options, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'startBilingualRecognition', [options]);
+    },
+
     /**
      * 停止命令词识别
      * @param {Function} successCallback 成功回调
@@ -107,12 +166,79 @@ var IflytekAIKit = {
         exec(successCallback, errorCallback, 'IflytekAIKit', 'stopCommandRecognition', []);
     },
 
+    /**
+     * 设置命令词动作表：识别到表中的命令词时，插件在原生层直接通过 cordova-plugin-serialport-y 已打开的串口写出字节帧，
+     * 再发送 commandResult 事件（附带 dispatched、frame、dispatchMicros、dispatchError）
+     * @param {Object|Array|null} actions 动作表，支持 { "打开空调": "AA 01 01 55" }、
+     *        [{ command: "打开空调", frame: "AA010155" }] 或 { filePath: "/sdcard/actions.json" }，传 null 清除
+     * @param {Function} successCallback 成功回调
+     * @param {Function} errorCallback 失败回调
+     */
+    setCommandActions: function (actions, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'setCommandActions', [actions]);
+    },
+
+    /**
+     * 离线识别PCM文件中的命令词（不做实时节拍，尽快处理整个文件）
+     * 返回 { filePath, audioMs, elapsedMs, speedup, results: [{ event, value, startMs, endMs, offsetMs, elapsedMs }] }
+     * startMs/endMs 为该句语音在文件中的起止位置，offsetMs 为该句会话最后写入的音频位置（语音结束后的端点静音之后）
+     * 实时命令词识别运行时不可调用
+     * @param {Object} options 识别配置
+     * @param {string} options.filePath PCM文件路径（16kHz 16bit 单声道）
+     * @param {string} options.fsaPath FSA命令词文件路径
+     * @param {number} options.languageType 语种 0:中文, 1:英文
+     * @param {boolean|Object} options.fuzzyMatch 模糊匹配（可选），同 startCommandRecognition
+     * @param {Function} successCallback 成功回调，返回识别结果
+     * @param {Function} errorCallback 失败回调
+     */
+    recognizeFile: function (options, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'recognizeFile', [options]);
+    },
+
+    /**
+     * 离线扫描PCM文件中的唤醒词（不做实时节拍，尽快处理整个文件）
+     * 返回 { filePath, audioMs, elapsedMs, speedup, results: [{ func_wake_up|func_pre_wakeup, startMs, endMs, offsetMs, elapsedMs }] }
+     * startMs/endMs 为唤醒词所在语音段的起止位置，offsetMs 同 endMs
+     * 实时唤醒运行时不可调用
+     * @param {Object} options 扫描配置
+     * @param {string} options.filePath PCM文件路径（16kHz 16bit 单声道）
+     * @param {string} options.keywords 唤醒词，多个用逗号分隔
+     * @param {Function} successCallback 成功回调，返回扫描结果
+     * @param {Function} errorCallback 失败回调
+     */
+    scanWakeUpFile: function (options, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'scanWakeUpFile', [options]);
+    },
+
+    /**
+     * 开启或关闭采集音频转储（下次开始录音时生效），用于现场问题诊断
+     * 送入引擎前的 16kHz 单声道音频由后台线程写入 WAV 文件，文件名为 流名_会话号_时间_序号.wav
+     * @param {boolean|Object|null} options true 使用默认配置；{ dir, maxFileMb, maxFiles, queueFrames }；false/null 关闭
+     * @param {Function} successCallback 成功回调，返回转储目录
+     * @param {Function} errorCallback 失败回调
+     */
+    setAudioDump: function (options, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'setAudioDump', [options]);
+    },
+
+    /**
+     * 回放转储文件：wakeup_ 开头的文件按 scanWakeUpFile 处理，其余按 recognizeFile 处理
+     * @param {Object} options 同 recognizeFile / scanWakeUpFile，可用 type: "wakeup" | "command" 指定
+     * @param {Function} successCallback 成功回调，返回识别或扫描结果
+     * @param {Function} errorCallback 失败回调
+     */
+    replayDump: function (options, successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'replayDump', [options]);
+    },
+
     /**
      * 写入音频数据（用于唤醒或命令词识别）
      * @param {Object} options 音频数据配置
      * @param {string} options.audioData Base64编码的音频数据
      * @param {string} options.type 类型: 'wakeup' 或 'command'
      * @param {boolean} options.isEnd 是否为最后一帧
+     * @param {number} options.sampleRate 音频采样率（可选），默认16000，如 44100、48000，插件内部重采样
+     * @param {number} options.channels 音频声道数（可选），默认1，多声道为交织存储，插件内部混为单声道
      * @param {Function} successCallback 成功回调
      * @param {Function} errorCallback 失败回调
      */
@@ -131,8 +257,8 @@ var IflytekAIKit = {
     /**
      * 播放音频文件
      * @param {Object} options 播放配置
-     * @param {string} options.filePath 音频文件路径（PCM格式）
-     * @param {string} options.sampleRate 采样率类型：'16k' 或 '24k'，默认 '16k'
+     * @param {string} options.filePath 音频文件路径（PCM 或 WAV 格式，WAV 支持 PCM 与 IMA-ADPCM 编码）
+     * @param {string} options.sampleRate 采样率类型：'16k' 或 '24k'，默认 '16k'；仅对裸 PCM 生效，WAV 按文件头自动识别
      * @param {Function} successCallback 成功回调
      * @param {Function} errorCallback 失败回调
      */
@@ -147,6 +273,26 @@ var IflytekAIKit = {
      */
     stopPlayAudio: function (successCallback, errorCallback) {
         exec(successCallback, errorCallback, 'IflytekAIKit', 'stopPlayAudio', []);
+    },
+
+    /**
+     * 获取性能指标
+     * 返回 { since, durationMs, histograms: { name: { count, min, max, mean, p50, p90, p99, buckets } }, counters: { name: number } }
+     * 耗时单位均为毫秒
+     * @param {Function} successCallback 成功回调，返回指标对象
+     * @param {Function} errorCallback 失败回调
+     */
+    getMetrics: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'getMetrics', []);
+    },
+
+    /**
+     * 重置性能指标
+     * @param {Function} successCallback 成功回调
+     * @param {Function} errorCallback 失败回调
+     */
+    resetMetrics: function (successCallback, errorCallback) {
+        exec(successCallback, errorCallback, 'IflytekAIKit', 'resetMetrics', []);
     }
 };
 
@@ -0,0 +1,175 @@
+package com.yy.serialport.bench;
+
+import com.yy.serialport.Checksums;
+import com.yy.serialport.FrameParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分帧吞吐：把 64KB 左右的编码数据按读线程的块大小推入分帧器，不涉及串口
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FrameParserBenchmark {
+
+    private static final int STREAM_BYTES = 64 * 1024;
+
+    @Param({ FrameParser.TYPE_LENGTH, FrameParser.TYPE_DELIMITER, FrameParser.TYPE_SLIP, FrameParser.TYPE_COBS })
+    public String type;
+
+    @Param({ "16", "256" })
+    public int payloadSize;
+
+    // 每次 push 的字节数，模拟一次 read 返回的数据量
+    @Param({ "32", "1024" })
+    public int chunkSize;
+
+    private byte[] stream;
+    private FrameParser parser;
+    private final CountingSink sink = new CountingSink();
+
+    @Setup
+    public void setup() {
+        FrameParser.Config config = new FrameParser.Config();
+        config.type = type;
+        if (FrameParser.TYPE_LENGTH.equals(type)) {
+            config.header = new byte[]{(byte) 0xAA};
+            config.lengthOffset = 1;
+            config.lengthSize = 2;
+            config.checksum = Checksums.CRC16_MODBUS;
+        } else if (FrameParser.TYPE_DELIMITER.equals(type)) {
+            config.start = new byte[]{0x02};
+            config.end = new byte[]{0x03};
+            config.checksum = Checksums.XOR8;
+            config.checksumStart = 1;
+        }
+        parser = FrameParser.create(config);
+
+        byte[] payload = new byte[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            // 含 0xC0 与 0x00，SLIP/COBS 编码时需要转义
+            payload[i] = (byte) (i % 7 == 0 ? 0xC0 : i % 11 == 0 ? 0x00 : 0x20 + i % 64);
+        }
+        byte[] frame = encode(payload);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(STREAM_BYTES + frame.length);
+        while (out.size() < STREAM_BYTES) {
+            out.write(frame, 0, frame.length);
+        }
+        stream = out.toByteArray();
+    }
+
+    @Benchmark
+    public int push() {
+        sink.frames = 0;
+        for (int offset = 0; offset < stream.length; offset += chunkSize) {
+            parser.push(stream, offset, Math.min(chunkSize, stream.length - offset), sink);
+        }
+        if (sink.errors > 0) {
+            throw new IllegalStateException("Frame error: " + sink.lastError);
+        }
+        return sink.frames;
+    }
+
+    private byte[] encode(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        switch (type) {
+            case FrameParser.TYPE_LENGTH: {
+                out.write(0xAA);
+                out.write(payload.length >>> 8);
+                out.write(payload.length);
+                out.write(payload, 0, payload.length);
+                byte[] body = out.toByteArray();
+                int crc = Checksums.crc16Modbus(body, 0, body.length);
+                out.write(crc);
+                out.write(crc >>> 8);
+                break;
+            }
+            case FrameParser.TYPE_DELIMITER: {
+                // 负载映射到 0x40..0x7F，校验值若与分隔符冲突则调整最后一个字节
+                byte[] text = new byte[payload.length];
+                for (int i = 0; i < text.length; i++) {
+                    text[i] = (byte) (0x40 + (payload[i] & 0x3F));
+                }
+                int xor = Checksums.compute(Checksums.XOR8, text, 0, text.length);
+                if (xor == 0x02 || xor == 0x03) {
+                    text[text.length - 1] ^= 0x04;
+                    xor ^= 0x04;
+                }
+                out.write(0x02);
+                out.write(text, 0, text.length);
+                out.write(xor);
+                out.write(0x03);
+                break;
+            }
+            case FrameParser.TYPE_SLIP:
+                for (byte b : payload) {
+                    int value = b & 0xFF;
+                    if (value == 0xC0) {
+                        out.write(0xDB);
+                        out.write(0xDC);
+                    } else if (value == 0xDB) {
+                        out.write(0xDB);
+                        out.write(0xDD);
+                    } else {
+                        out.write(value);
+                    }
+                }
+                out.write(0xC0);
+                break;
+            default: {
+                // COBS：每段以“到下一个 0 的距离”开头，0 作为帧结束
+                int codeIndex = 0;
+                byte[] encoded = new byte[payload.length + payload.length / 254 + 2];
+                int length = 1;
+                int code = 1;
+                for (byte b : payload) {
+                    if (b == 0) {
+                        encoded[codeIndex] = (byte) code;
+                        codeIndex = length++;
+                        code = 1;
+                    } else {
+                        encoded[length++] = b;
+                        if (++code == 0xFF) {
+                            encoded[codeIndex] = (byte) code;
+                            codeIndex = length++;
+                            code = 1;
+                        }
+                    }
+                }
+                encoded[codeIndex] = (byte) code;
+                out.write(encoded, 0, length);
+                out.write(0);
+                break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static class CountingSink implements FrameParser.Sink {
+        int frames;
+        int errors;
+        String lastError;
+
+        @Override
+        public void onFrame(byte[] frame) {
+            frames++;
+        }
+
+        @Override
+        public void onError(String reason, int droppedBytes) {
+            errors++;
+            lastError = reason;
+        }
+    }
+}
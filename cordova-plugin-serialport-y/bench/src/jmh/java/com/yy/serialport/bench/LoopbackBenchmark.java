@@ -0,0 +1,125 @@
+package com.yy.serialport.bench;
+
+import com.yy.serialport.Checksums;
+import com.yy.serialport.FrameParser;
+import com.yy.serialport.PortConfig;
+import com.yy.serialport.SerialPortSession;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * pty 回环端到端：写队列 -> tty 写 -> 回环（按波特率节流）-> 阻塞读 -> 分帧 -> 监听器。
+ * baudRate 为 0 时不节流，测量插件自身开销
+ */
+@State(Scope.Benchmark)
+public class LoopbackBenchmark {
+
+    // sustained 每次调用保持在途的帧数
+    private static final int WINDOW = 8;
+
+    @Param({ "9600", "115200", "921600", "0" })
+    public int baudRate;
+
+    @Param({ "16", "64", "256" })
+    public int packetSize;
+
+    private final BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+    private SerialPortSession session;
+    private byte[] frame;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        PortConfig config = new PortConfig();
+        config.path = "loopback";
+        config.baudRate = baudRate;
+
+        session = new SerialPortSession(new SerialPortSession.Listener() {
+            @Override
+            public void onData(byte[] data) {
+                received.add(data);
+            }
+
+            @Override
+            public void onBatch(byte[] data, int[] lengths, long[] timestamps) {
+                received.add(data);
+            }
+        });
+        // 帧格式：AA | 长度(2字节大端) | 负载 | CRC16 Modbus
+        FrameParser.Config framer = new FrameParser.Config();
+        framer.header = new byte[]{(byte) 0xAA};
+        framer.lengthOffset = 1;
+        framer.lengthSize = 2;
+        framer.checksum = Checksums.CRC16_MODBUS;
+        session.setFramer(FrameParser.create(framer));
+        session.open(config, new PtyLoopbackConnection(config));
+
+        frame = new byte[packetSize];
+        int payload = packetSize - 5;
+        frame[0] = (byte) 0xAA;
+        frame[1] = (byte) (payload >>> 8);
+        frame[2] = (byte) payload;
+        for (int i = 0; i < payload; i++) {
+            frame[3 + i] = (byte) i;
+        }
+        int crc = Checksums.crc16Modbus(frame, 0, packetSize - 2);
+        frame[packetSize - 2] = (byte) crc;
+        frame[packetSize - 1] = (byte) (crc >>> 8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.dispose();
+    }
+
+    /**
+     * 单帧往返延迟：写出一帧并等待回环的完整帧
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] roundTrip() throws Exception {
+        session.write(frame);
+        return take();
+    }
+
+    /**
+     * 持续吞吐（帧/秒）：保持 WINDOW 帧在途，字节吞吐 = 结果 × packetSize
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(WINDOW)
+    public int sustained() throws Exception {
+        for (int i = 0; i < WINDOW; i++) {
+            session.write(frame);
+        }
+        int bytes = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            bytes += take().length;
+        }
+        return bytes;
+    }
+
+    private byte[] take() throws Exception {
+        byte[] data = received.poll(10, TimeUnit.SECONDS);
+        if (data == null) {
+            throw new IllegalStateException("Loopback frame lost");
+        }
+        return data;
+    }
+}
@@ -0,0 +1,120 @@
+package com.yy.serialport.bench;
+
+import com.yy.serialport.PortConfig;
+import com.yy.serialport.SerialConnection;
+import com.yy.serialport.TtyConnection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 伪终端回环：在 Linux 上创建一对 pty，写入从端的数据由主端按波特率节流后原样回送。
+ * 从端按普通串口设备经 TtyConnection 打开，stty 配置、阻塞读取与写队列都走真实的 tty 路径，
+ * 用于没有串口硬件的 CI 压测（Android 设备没有 python3，不随插件发布）。
+ * Java 无法对 /dev/ptmx 调用 grantpt/unlockpt/ptsname（需要 ioctl），由 python3 辅助进程创建 pty 并负责回送
+ */
+public class PtyLoopbackConnection implements SerialConnection {
+
+    // argv: 波特率（0 为不节流）、每字符位数；输出从端路径后开始回送，标准输入关闭时退出
+    private static final String HELPER = String.join("\n",
+            "import os, pty, select, sys, time",
+            "baud, bits = int(sys.argv[1]), int(sys.argv[2])",
+            "master, slave = pty.openpty()",
+            "print(os.ttyname(slave), flush=True)",
+            "char = bits / baud if baud > 0 else 0",
+            "free_at = time.monotonic()",
+            "while True:",
+            "    ready, _, _ = select.select([master, 0], [], [], 1.0)",
+            "    if 0 in ready and not os.read(0, 1):",
+            "        break",
+            "    if master not in ready:",
+            "        continue",
+            "    try:",
+            "        data = os.read(master, 65536)",
+            "    except OSError:",
+            "        break",
+            "    if char:",
+            "        free_at = max(free_at, time.monotonic()) + len(data) * char",
+            "        delay = free_at - time.monotonic()",
+            "        if delay > 0:",
+            "            time.sleep(delay)",
+            "    os.write(master, data)",
+            "");
+
+    private final PortConfig config;
+    private Process helper;
+    private TtyConnection tty;
+    private String slavePath;
+
+    /**
+     * @param config 波特率用于回送节流（0 为不节流），path 被忽略（使用新建的 pty 从端）
+     */
+    public PtyLoopbackConnection(PortConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void open(Receiver receiver) throws IOException {
+        int bits = 1 + config.databits + (config.parity != 0 ? 1 : 0) + config.stopbits;
+        try {
+            helper = new ProcessBuilder("python3", "-u", "-c", HELPER,
+                    String.valueOf(config.baudRate), String.valueOf(bits)).start();
+        } catch (IOException e) {
+            throw new IOException("Loopback backend requires python3: " + e.getMessage());
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(helper.getInputStream(), StandardCharsets.UTF_8));
+        slavePath = reader.readLine();
+        if (slavePath == null || !slavePath.startsWith("/dev/")) {
+            close();
+            throw new IOException("Failed to create pty loopback");
+        }
+        PortConfig slaveConfig = config.copy();
+        slaveConfig.path = slavePath;
+        if (slaveConfig.baudRate <= 0) {
+            // pty 不受波特率限制，stty 只需要一个合法值
+            slaveConfig.baudRate = 115200;
+        }
+        tty = new TtyConnection(slaveConfig);
+        try {
+            tty.open(receiver);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * pty 从端路径，打开后有效
+     */
+    public String getSlavePath() {
+        return slavePath;
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        TtyConnection currentTty = tty;
+        if (currentTty == null) {
+            throw new IOException("Port is not open: loopback");
+        }
+        currentTty.write(data);
+    }
+
+    @Override
+    public void close() {
+        if (tty != null) {
+            tty.close();
+            tty = null;
+        }
+        if (helper != null) {
+            try {
+                helper.getOutputStream().close();
+            } catch (IOException e) {
+                // 忽略关闭错误
+            }
+            helper.destroy();
+            helper = null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.yy.serialport;
+
+import static com.yy.serialport.ModbusRtuTest.bytes;
+import static com.yy.serialport.ModbusRtuTest.concat;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+/**
+ * 各分帧器：数据在任意位置被拆成两段、夹杂噪声与坏帧时，仍只输出完整且校验正确的帧
+ */
+public class FrameParserTest {
+
+    @Test
+    public void lengthFramerResyncsAfterGarbage() {
+        FrameParser.Config config = new FrameParser.Config();
+        config.header = bytes(0xAA, 0x55);
+        config.lengthOffset = 2;
+        config.checksum = Checksums.CRC16_MODBUS;
+
+        byte[] first = lengthFrame(bytes(0x10, 0x20, 0x30));
+        byte[] second = lengthFrame(bytes(0x01));
+        byte[] corrupt = lengthFrame(bytes(0x11, 0x22));
+        corrupt[4] ^= 0x40;
+        byte[] garbage = bytes(0x00, 0xAA, 0x13);
+
+        assertEverySplit(config, concat(garbage, first, corrupt, second),
+                garbage.length + corrupt.length, first, second);
+    }
+
+    @Test
+    public void delimiterFramerDropsBadChecksumAndPartialFrames() {
+        FrameParser.Config config = new FrameParser.Config();
+        config.type = FrameParser.TYPE_DELIMITER;
+        config.start = bytes(0x02);
+        config.end = bytes(0x03);
+        config.checksum = Checksums.XOR8;
+
+        byte[] first = delimiterFrame("hello");
+        byte[] second = delimiterFrame("world");
+        byte[] corrupt = delimiterFrame("bad");
+        corrupt[1] ^= 0x01;
+        // 没有结束分隔符的半帧：新的起始分隔符出现后丢弃
+        byte[] partial = bytes(0x02, 'x', 'y');
+
+        assertEverySplit(config, concat(bytes('n', 'o'), first, partial, corrupt, second),
+                2 + partial.length + corrupt.length, first, second);
+    }
+
+    @Test
+    public void slipFramerUnescapesAndRejectsBadEscape() {
+        FrameParser.Config config = new FrameParser.Config();
+        config.type = FrameParser.TYPE_SLIP;
+        config.checksum = Checksums.CRC16_MODBUS;
+
+        byte[] first = ModbusRtuTest.withCrc(bytes(0x01, 0xC0, 0xDB, 0x7E));
+        byte[] second = ModbusRtuTest.withCrc(bytes(0xDB, 0xDC));
+        byte[] stream = concat(slip(first), bytes(0x10, 0xDB, 0x01, 0xC0), bytes(0xC0), slip(second));
+
+        ModbusRtuTest.Collector result = assertEverySplit(config, stream, -1, first, second);
+        assertEquals(FrameParser.ERROR_ENCODING, result.errors.get(0));
+    }
+
+    @Test
+    public void cobsFramerDecodesZeros() {
+        FrameParser.Config config = new FrameParser.Config();
+        config.type = FrameParser.TYPE_COBS;
+        config.checksum = Checksums.CRC16_MODBUS;
+
+        byte[] first = ModbusRtuTest.withCrc(bytes(0x00, 0x11, 0x00, 0x00, 0x22));
+        byte[] second = ModbusRtuTest.withCrc(new byte[300]);
+        byte[] corrupt = cobs(ModbusRtuTest.withCrc(bytes(0x33, 0x44)));
+        corrupt[1] ^= 0x01;
+
+        assertEverySplit(config, concat(cobs(first), corrupt, cobs(second)), -1, first, second);
+    }
+
+    /**
+     * 在每个位置把数据拆成两段送入新的分帧器，输出的帧必须与 expected 完全一致
+     *
+     * @param dropped 预期丢弃的字节数，-1 表示不检查
+     * @return 最后一次拆分的收集结果
+     */
+    private static ModbusRtuTest.Collector assertEverySplit(FrameParser.Config config, byte[] stream, int dropped, byte[]... expected) {
+        ModbusRtuTest.Collector last = null;
+        for (int split = 0; split <= stream.length; split++) {
+            FrameParser parser = FrameParser.create(config);
+            ModbusRtuTest.Collector collector = new ModbusRtuTest.Collector();
+            parser.push(stream, 0, split, collector);
+            parser.push(stream, split, stream.length - split, collector);
+
+            assertEquals("split " + split, expected.length, collector.frames.size());
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals("split " + split, expected[i], collector.frames.get(i));
+            }
+            assertTrue("split " + split, !collector.errors.isEmpty());
+            if (dropped >= 0) {
+                assertEquals("split " + split, dropped, collector.droppedBytes);
+            }
+            last = collector;
+        }
+        return last;
+    }
+
+    private static byte[] lengthFrame(byte[] payload) {
+        byte[] head = concat(bytes(0xAA, 0x55, payload.length), payload);
+        return ModbusRtuTest.withCrc(head);
+    }
+
+    private static byte[] delimiterFrame(String text) {
+        byte[] payload = text.getBytes();
+        int xor = 0;
+        for (byte b : payload) {
+            xor ^= b;
+        }
+        return concat(bytes(0x02), payload, bytes(xor, 0x03));
+    }
+
+    private static byte[] slip(byte[] frame) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte value : frame) {
+            int b = value & 0xFF;
+            if (b == SlipFrameParser.END) {
+                out.write(SlipFrameParser.ESC);
+                out.write(SlipFrameParser.ESC_END);
+            } else if (b == SlipFrameParser.ESC) {
+                out.write(SlipFrameParser.ESC);
+                out.write(SlipFrameParser.ESC_ESC);
+            } else {
+                out.write(b);
+            }
+        }
+        out.write(SlipFrameParser.END);
+        return out.toByteArray();
+    }
+
+    private static byte[] cobs(byte[] frame) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] block = new byte[254];
+        int length = 0;
+        for (byte b : frame) {
+            if (b == 0) {
+                out.write(length + 1);
+                out.write(block, 0, length);
+                length = 0;
+            } else {
+                block[length++] = b;
+                if (length == 254) {
+                    out.write(0xFF);
+                    out.write(block, 0, length);
+                    length = 0;
+                }
+            }
+        }
+        out.write(length + 1);
+        out.write(block, 0, length);
+        out.write(0);
+        return out.toByteArray();
+    }
+}
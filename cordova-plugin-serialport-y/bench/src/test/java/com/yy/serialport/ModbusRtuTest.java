@@ -0,0 +1,150 @@
+package com.yy.serialport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * ModbusRtu：CRC16、请求组帧与应答分帧/解析的往返
+ */
+public class ModbusRtuTest {
+
+    @Test
+    public void crc16MatchesReferenceValues() {
+        byte[] check = "123456789".getBytes();
+        assertEquals(0x4B37, Checksums.crc16Modbus(check, 0, check.length));
+        byte[] frame = bytes(0x01, 0x03, 0x00, 0x00, 0x00, 0x0A, 0xC5, 0xCD);
+        assertEquals(0xCDC5, Checksums.crc16Modbus(frame, 0, 6));
+        assertEquals(true, Checksums.verify(Checksums.CRC16_MODBUS, true, frame, 0, frame.length));
+        frame[3] ^= 0x01;
+        assertEquals(false, Checksums.verify(Checksums.CRC16_MODBUS, true, frame, 0, frame.length));
+    }
+
+    @Test
+    public void readHoldingRegistersRoundTrip() throws IOException {
+        byte[] request = ModbusRtu.buildRequest(1, ModbusRtu.READ_HOLDING_REGISTERS, 0, 10, null);
+        assertArrayEquals(bytes(0x01, 0x03, 0x00, 0x00, 0x00, 0x0A, 0xC5, 0xCD), request);
+
+        byte[] data = new byte[20];
+        for (int i = 0; i < 10; i++) {
+            data[2 * i] = (byte) (i * 300 >> 8);
+            data[2 * i + 1] = (byte) (i * 300);
+        }
+        byte[] response = withCrc(concat(bytes(0x01, 0x03, 20), data));
+
+        // 前面带噪声，逐字节送入
+        byte[] stream = concat(bytes(0x07, 0x99, 0x00), response);
+        Collector collector = new Collector();
+        FrameParser parser = new ModbusRtuFrameParser();
+        for (byte b : stream) {
+            parser.push(new byte[]{b}, 0, 1, collector);
+        }
+        assertEquals(1, collector.frames.size());
+        assertArrayEquals(response, collector.frames.get(0));
+        assertEquals(3, collector.droppedBytes);
+
+        int[] registers = ModbusRtu.parseResponse(request, collector.frames.get(0));
+        assertEquals(10, registers.length);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i * 300, registers[i]);
+        }
+    }
+
+    @Test
+    public void writeMultipleRegistersRoundTrip() throws IOException {
+        byte[] request = ModbusRtu.buildRequest(17, ModbusRtu.WRITE_MULTIPLE_REGISTERS, 0x0100, 0, new int[]{1, 65535, 2});
+        assertEquals(9 + 6, request.length);
+        assertEquals(true, Checksums.verify(Checksums.CRC16_MODBUS, true, request, 0, request.length));
+
+        byte[] response = withCrc(bytes(17, 0x10, 0x01, 0x00, 0x00, 0x03));
+        Collector collector = new Collector();
+        new ModbusRtuFrameParser().push(response, 0, response.length, collector);
+        assertEquals(1, collector.frames.size());
+        assertArrayEquals(new int[]{3}, ModbusRtu.parseResponse(request, collector.frames.get(0)));
+    }
+
+    @Test
+    public void readCoilsUnpacksBits() throws IOException {
+        byte[] request = ModbusRtu.buildRequest(1, ModbusRtu.READ_COILS, 0, 10, null);
+        byte[] response = withCrc(bytes(0x01, 0x01, 0x02, 0b1010_0101, 0b10));
+        assertArrayEquals(new int[]{1, 0, 1, 0, 0, 1, 0, 1, 0, 1}, ModbusRtu.parseResponse(request, response));
+    }
+
+    @Test
+    public void exceptionResponseThrowsCode() throws IOException {
+        byte[] request = ModbusRtu.buildRequest(1, ModbusRtu.READ_INPUT_REGISTERS, 0, 1, null);
+        byte[] response = withCrc(bytes(0x01, 0x84, 0x02));
+        Collector collector = new Collector();
+        new ModbusRtuFrameParser().push(response, 0, response.length, collector);
+        assertEquals(1, collector.frames.size());
+        try {
+            ModbusRtu.parseResponse(request, collector.frames.get(0));
+            fail("expected ModbusException");
+        } catch (ModbusRtu.ModbusException e) {
+            assertEquals(2, e.code);
+        }
+    }
+
+    @Test
+    public void silenceFollowsBaudRate() {
+        PortConfig config = new PortConfig();
+        config.baudRate = 9600;
+        // 8N1 每字符 10 位
+        assertEquals(3.5f * 10 / 9600 * 1000, ModbusRtu.silenceMs(config), 0.01f);
+        config.baudRate = 115200;
+        assertEquals(1.75f, ModbusRtu.silenceMs(config), 0f);
+    }
+
+    static byte[] withCrc(byte[] pdu) {
+        int crc = Checksums.crc16Modbus(pdu, 0, pdu.length);
+        return concat(pdu, bytes(crc & 0xFF, crc >>> 8));
+    }
+
+    static byte[] bytes(int... values) {
+        byte[] data = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            data[i] = (byte) values[i];
+        }
+        return data;
+    }
+
+    static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] data = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, data, offset, part.length);
+            offset += part.length;
+        }
+        return data;
+    }
+
+    /**
+     * 收集分帧结果
+     */
+    static class Collector implements FrameParser.Sink {
+        final List<byte[]> frames = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int droppedBytes;
+
+        @Override
+        public void onFrame(byte[] frame) {
+            frames.add(frame);
+        }
+
+        @Override
+        public void onError(String reason, int droppedBytes) {
+            errors.add(reason);
+            this.droppedBytes += droppedBytes;
+        }
+    }
+}
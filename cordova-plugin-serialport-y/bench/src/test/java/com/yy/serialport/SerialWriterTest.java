@@ -0,0 +1,101 @@
+package com.yy.serialport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * SerialWriter 帧间隔：从线路上最后一次发送完毕或最后一次收到数据起算
+ * （pty 回环没有线路时序，只能用记录写出时刻的假输出验证）
+ */
+public class SerialWriterTest {
+
+    private static final long GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final List<Long> writes = new ArrayList<>();
+    private SerialWriter writer;
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private SerialWriter open(long charNanos) {
+        SerialWriter.Config config = new SerialWriter.Config();
+        config.gapMs = 20;
+        writer = new SerialWriter("test", data -> {
+            synchronized (writes) {
+                writes.add(System.nanoTime());
+            }
+        }, charNanos, config, new PortStats());
+        return writer;
+    }
+
+    @Test
+    public void gapCountsFromLastReceivedByte() throws InterruptedException {
+        SerialWriter writer = open(0);
+        send(writer, new byte[8]);
+
+        // 模拟从站应答在请求发出后才到达
+        Thread.sleep(30);
+        long receivedAt = System.nanoTime();
+        writer.noteReceive(receivedAt);
+        send(writer, new byte[8]);
+
+        assertEquals(2, writes.size());
+        assertTrue("written " + (writes.get(1) - receivedAt) + "ns after receive",
+                writes.get(1) - receivedAt >= GAP_NANOS);
+    }
+
+    @Test
+    public void gapCountsFromEndOfPreviousWrite() throws InterruptedException {
+        // 每字符 1ms，10 字节在线路上约 10ms
+        long charNanos = TimeUnit.MILLISECONDS.toNanos(1);
+        SerialWriter writer = open(charNanos);
+        CountDownLatch done = new CountDownLatch(1);
+        writer.enqueue(new byte[][]{new byte[10], new byte[10]}, callback(done));
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        assertEquals(2, writes.size());
+        assertTrue(writes.get(1) - writes.get(0) >= 10 * charNanos + GAP_NANOS);
+    }
+
+    @Test
+    public void oldReceiveDoesNotDelayWrite() throws InterruptedException {
+        SerialWriter writer = open(0);
+        writer.noteReceive(System.nanoTime());
+        Thread.sleep(40);
+        long before = System.nanoTime();
+        send(writer, new byte[4]);
+        // 静默早已满足，不应再等待一个完整的间隔
+        assertTrue(writes.get(0) - before < GAP_NANOS);
+    }
+
+    private static void send(SerialWriter writer, byte[] data) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        writer.enqueue(data, callback(done));
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    private static SerialWriter.Callback callback(CountDownLatch done) {
+        return new SerialWriter.Callback() {
+            @Override
+            public void onComplete(int bytes) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.yy.serialport;
+
+/**
+ * 帧校验算法
+ * CRC16 均为查表实现：Modbus（多项式 0xA001 反射，初值 0xFFFF，低字节在前）与
+ * CCITT（多项式 0x1021，初值 0xFFFF，高字节在前）
+ */
+public final class Checksums {
+
+    public static final String NONE = "none";
+    public static final String SUM8 = "sum8";
+    public static final String XOR8 = "xor8";
+    public static final String CRC16_MODBUS = "crc16modbus";
+    public static final String CRC16_CCITT = "crc16ccitt";
+
+    private static final int[] MODBUS_TABLE = new int[256];
+    private static final int[] CCITT_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0xA001 : crc >>> 1;
+            }
+            MODBUS_TABLE[i] = crc;
+            crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CCITT_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private Checksums() {
+    }
+
+    /**
+     * 校验值所占字节数
+     *
+     * @throws IllegalArgumentException 未知的校验类型
+     */
+    public static int size(String type) {
+        switch (type) {
+            case NONE:
+                return 0;
+            case SUM8:
+            case XOR8:
+                return 1;
+            case CRC16_MODBUS:
+            case CRC16_CCITT:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Unknown checksum: " + type);
+        }
+    }
+
+    /**
+     * 校验值的默认字节序：Modbus CRC 低字节在前，其余高字节在前
+     */
+    public static boolean defaultLittleEndian(String type) {
+        return CRC16_MODBUS.equals(type);
+    }
+
+    public static int compute(String type, byte[] data, int offset, int length) {
+        switch (type) {
+            case SUM8: {
+                int sum = 0;
+                for (int i = offset; i < offset + length; i++) {
+                    sum += data[i];
+                }
+                return sum & 0xFF;
+            }
+            case XOR8: {
+                int xor = 0;
+                for (int i = offset; i < offset + length; i++) {
+                    xor ^= data[i];
+                }
+                return xor & 0xFF;
+            }
+            case CRC16_MODBUS:
+                return crc16Modbus(data, offset, length);
+            case CRC16_CCITT: {
+                int crc = 0xFFFF;
+                for (int i = offset; i < offset + length; i++) {
+                    crc = ((crc << 8) ^ CCITT_TABLE[((crc >>> 8) ^ data[i]) & 0xFF]) & 0xFFFF;
+                }
+                return crc;
+            }
+            default:
+                return 0;
+        }
+    }
+
+    public static int crc16Modbus(byte[] data, int offset, int length) {
+        int crc = 0xFFFF;
+        for (int i = offset; i < offset + length; i++) {
+            crc = (crc >>> 8) ^ MODBUS_TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    /**
+     * 校验 data[offset, offset + length) 末尾的校验值，校验范围为其之前的全部字节
+     */
+    public static boolean verify(String type, boolean littleEndian, byte[] data, int offset, int length) {
+        int size = size(type);
+        if (size == 0) {
+            return true;
+        }
+        if (length < size) {
+            return false;
+        }
+        int expected = compute(type, data, offset, length - size);
+        return readUnsigned(data, offset + length - size, size, littleEndian) == expected;
+    }
+
+    static int readUnsigned(byte[] data, int offset, int size, boolean littleEndian) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            int b = data[offset + (littleEndian ? size - 1 - i : i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return (int) value;
+    }
+}
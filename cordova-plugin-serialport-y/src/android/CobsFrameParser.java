@@ -0,0 +1,87 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+
+/**
+ * COBS 分帧：帧以 0x00 结束，帧内不含 0x00。输出解码后的帧（含末尾校验值）
+ */
+class CobsFrameParser implements FrameParser {
+
+    private final Config config;
+    // 编码后的帧最多比原始数据多 maxLength / 254 + 1 字节
+    private final byte[] encoded;
+    private final byte[] decoded;
+    private int length;
+    private boolean overflow;
+    private int discarded;
+
+    CobsFrameParser(Config config) {
+        this.config = config;
+        this.encoded = new byte[config.maxLength + config.maxLength / 254 + 1];
+        this.decoded = new byte[encoded.length];
+    }
+
+    @Override
+    public void push(byte[] data, int offset, int length, Sink sink) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = data[i];
+            if (b == 0) {
+                endFrame(sink);
+            } else if (overflow) {
+                discarded++;
+            } else if (this.length == encoded.length) {
+                overflow = true;
+                discarded = this.length + 1;
+                this.length = 0;
+            } else {
+                encoded[this.length++] = b;
+            }
+        }
+    }
+
+    private void endFrame(Sink sink) {
+        if (overflow) {
+            sink.onError(ERROR_OVERFLOW, discarded);
+        } else if (length > 0) {
+            int size = decode(encoded, length, decoded);
+            if (size < 0) {
+                sink.onError(ERROR_ENCODING, length);
+            } else if (size > config.maxLength) {
+                sink.onError(ERROR_OVERFLOW, length);
+            } else if (Checksums.verify(config.checksum, config.checksumLittleEndian(), decoded, 0, size)) {
+                sink.onFrame(Arrays.copyOf(decoded, size));
+            } else {
+                sink.onError(ERROR_CHECKSUM, length);
+            }
+        }
+        reset();
+    }
+
+    /**
+     * 解码一帧（不含结尾 0x00），编码长度字节越界时返回 -1
+     */
+    static int decode(byte[] in, int length, byte[] out) {
+        int read = 0;
+        int written = 0;
+        while (read < length) {
+            int code = in[read++] & 0xFF;
+            if (read + code - 1 > length) {
+                return -1;
+            }
+            for (int i = 1; i < code; i++) {
+                out[written++] = in[read++];
+            }
+            if (code < 0xFF && read < length) {
+                out[written++] = 0;
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void reset() {
+        length = 0;
+        overflow = false;
+        discarded = 0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+
+/**
+ * 分隔符分帧：[起始分隔符][...负载...][校验][结束分隔符]，输出的帧包含分隔符
+ * 只配置结束分隔符时，两个结束分隔符之间即为一帧
+ */
+class DelimiterFrameParser implements FrameParser {
+
+    private final Config config;
+    private final int checksumSize;
+    private final StreamBuffer buffer;
+
+    DelimiterFrameParser(Config config) {
+        if (config.end.length == 0) {
+            throw new IllegalArgumentException("delimiter framer requires end");
+        }
+        this.config = config;
+        this.checksumSize = Checksums.size(config.checksum);
+        this.buffer = new StreamBuffer(config.maxLength * 2);
+    }
+
+    @Override
+    public void push(byte[] data, int offset, int length, Sink sink) {
+        buffer.append(data, offset, length);
+        byte[] start = config.start;
+        byte[] end = config.end;
+        while (buffer.available() > 0) {
+            if (start.length > 0) {
+                int frameStart = buffer.indexOf(start, buffer.start);
+                if (frameStart < 0) {
+                    int keep = Math.min(buffer.available(), start.length - 1);
+                    drop(buffer.available() - keep, ERROR_SYNC, sink);
+                    return;
+                }
+                drop(frameStart - buffer.start, ERROR_SYNC, sink);
+            }
+            int payloadStart = buffer.start + start.length;
+            int endIndex = buffer.indexOf(end, payloadStart);
+            if (endIndex < 0) {
+                if (buffer.available() > config.maxLength) {
+                    // 超长仍未结束：丢弃当前帧头，起始分隔符缺省时整段丢弃
+                    drop(start.length > 0 ? start.length : buffer.available() - end.length + 1, ERROR_OVERFLOW, sink);
+                    continue;
+                }
+                return;
+            }
+            int frameLength = endIndex + end.length - buffer.start;
+            if (start.length > 0) {
+                // 帧内出现新的起始分隔符说明前一帧不完整，从新的起点开始
+                int restart = buffer.indexOf(start, payloadStart);
+                if (restart >= 0 && restart < endIndex) {
+                    drop(restart - buffer.start, ERROR_SYNC, sink);
+                    continue;
+                }
+            }
+            int payloadLength = endIndex - payloadStart;
+            if (start.length == 0 && payloadLength == 0) {
+                // 无起始分隔符时连续的结束分隔符不产生空帧
+                buffer.start += frameLength;
+                continue;
+            }
+            int checkOffset = Math.min(Math.max(0, config.checksumStart - start.length), payloadLength);
+            if (frameLength > config.maxLength) {
+                drop(frameLength, ERROR_OVERFLOW, sink);
+                continue;
+            }
+            if (payloadLength < checksumSize || !Checksums.verify(config.checksum, config.checksumLittleEndian(),
+                    buffer.data, payloadStart + checkOffset, payloadLength - checkOffset)) {
+                drop(frameLength, ERROR_CHECKSUM, sink);
+                continue;
+            }
+            byte[] frame = Arrays.copyOfRange(buffer.data, buffer.start, buffer.start + frameLength);
+            buffer.start += frameLength;
+            sink.onFrame(frame);
+        }
+        buffer.clear();
+    }
+
+    private void drop(int count, String reason, Sink sink) {
+        if (count > 0) {
+            buffer.start += count;
+            sink.onError(reason, count);
+        }
+    }
+
+    @Override
+    public void reset() {
+        buffer.clear();
+    }
+}
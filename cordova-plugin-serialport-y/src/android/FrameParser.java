@@ -0,0 +1,98 @@
+package com.yy.serialport;
+
+/**
+ * 原生分帧
+ * 把串口字节流切分为完整帧，只输出通过校验的帧；校验失败或长度异常时丢弃并重新同步。
+ * 同一实例只应在接收线程中调用
+ */
+public interface FrameParser {
+
+    String TYPE_LENGTH = "length";
+    String TYPE_DELIMITER = "delimiter";
+    String TYPE_SLIP = "slip";
+    String TYPE_COBS = "cobs";
+    String TYPE_MODBUS_RTU = "modbusRtu";
+
+    String ERROR_SYNC = "sync";
+    String ERROR_CHECKSUM = "checksum";
+    String ERROR_LENGTH = "length";
+    String ERROR_OVERFLOW = "overflow";
+    String ERROR_ENCODING = "encoding";
+
+    /**
+     * 分帧配置，各类型只使用与其相关的字段
+     */
+    class Config {
+        // 分帧类型：length / delimiter / slip / cobs / modbusRtu
+        public String type = TYPE_LENGTH;
+        // length：帧头，为空时不校验帧头
+        public byte[] header = new byte[0];
+        // length：长度字段在帧内的偏移与字节数（1/2/4）
+        public int lengthOffset = 0;
+        public int lengthSize = 1;
+        public boolean lengthLittleEndian = false;
+        // length：帧总长 = 长度字段值 + lengthAdjust；为 null 时按“长度字段只计负载”推算
+        public Integer lengthAdjust;
+        // delimiter：起始与结束分隔符，起始分隔符可为空
+        public byte[] start = new byte[0];
+        public byte[] end = new byte[0];
+        // 单帧最大字节数，超出视为错误并丢弃
+        public int maxLength = 4096;
+        // 校验类型，见 Checksums；校验值位于帧末尾（分隔符之前）
+        public String checksum = Checksums.NONE;
+        // 校验值字节序，为 null 时使用该算法的默认字节序
+        public Boolean checksumLittleEndian;
+        // length/delimiter：校验范围的起始偏移（相对帧起点，可跳过帧头）
+        public int checksumStart = 0;
+
+        boolean checksumLittleEndian() {
+            return checksumLittleEndian != null ? checksumLittleEndian : Checksums.defaultLittleEndian(checksum);
+        }
+    }
+
+    /**
+     * 分帧结果回调
+     */
+    interface Sink {
+        void onFrame(byte[] frame);
+
+        /**
+         * @param reason       错误原因：sync（帧头前的无效数据）/ checksum / length / overflow / encoding
+         * @param droppedBytes 因该错误丢弃的字节数
+         */
+        void onError(String reason, int droppedBytes);
+    }
+
+    /**
+     * 送入一段接收数据，期间产生的完整帧与错误同步回调给 sink
+     */
+    void push(byte[] data, int offset, int length, Sink sink);
+
+    /**
+     * 丢弃未完成的半帧
+     */
+    void reset();
+
+    /**
+     * 按配置创建分帧器
+     *
+     * @throws IllegalArgumentException 类型未知或配置不完整
+     */
+    static FrameParser create(Config config) {
+        Checksums.size(config.checksum);
+        switch (config.type) {
+            case TYPE_LENGTH:
+                return new LengthFrameParser(config);
+            case TYPE_DELIMITER:
+                return new DelimiterFrameParser(config);
+            case TYPE_SLIP:
+                return new SlipFrameParser(config);
+            case TYPE_COBS:
+                return new CobsFrameParser(config);
+            case TYPE_MODBUS_RTU:
+                return new ModbusRtuFrameParser();
+            default:
+                throw new IllegalArgumentException("Unknown framer type: " + config.type);
+        }
+    }
+}
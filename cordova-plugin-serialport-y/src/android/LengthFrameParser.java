@@ -0,0 +1,84 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+
+/**
+ * 长度字段分帧：[帧头][...][长度字段][...负载...][校验]
+ * 帧头不匹配、长度越界或校验失败时前移一个字节重新查找帧头
+ */
+class LengthFrameParser implements FrameParser {
+
+    private final Config config;
+    private final int checksumSize;
+    private final int lengthAdjust;
+    private final int minLength;
+    private final StreamBuffer buffer;
+
+    LengthFrameParser(Config config) {
+        if (config.lengthSize != 1 && config.lengthSize != 2 && config.lengthSize != 4) {
+            throw new IllegalArgumentException("lengthSize must be 1, 2 or 4");
+        }
+        this.config = config;
+        this.checksumSize = Checksums.size(config.checksum);
+        int fieldEnd = config.lengthOffset + config.lengthSize;
+        this.lengthAdjust = config.lengthAdjust != null ? config.lengthAdjust : fieldEnd + checksumSize;
+        this.minLength = Math.max(config.header.length, fieldEnd) + checksumSize;
+        this.buffer = new StreamBuffer(config.maxLength * 2);
+    }
+
+    @Override
+    public void push(byte[] data, int offset, int length, Sink sink) {
+        buffer.append(data, offset, length);
+        byte[] header = config.header;
+        int fieldEnd = config.lengthOffset + config.lengthSize;
+        while (buffer.available() > 0) {
+            int frameStart = buffer.start;
+            if (header.length > 0) {
+                frameStart = buffer.indexOf(header, buffer.start);
+                if (frameStart < 0) {
+                    // 末尾可能是不完整的帧头，保留 header.length - 1 字节
+                    int keep = Math.min(buffer.available(), header.length - 1);
+                    drop(buffer.available() - keep, ERROR_SYNC, sink);
+                    return;
+                }
+                drop(frameStart - buffer.start, ERROR_SYNC, sink);
+            }
+            if (buffer.available() < fieldEnd) {
+                return;
+            }
+            long value = Checksums.readUnsigned(buffer.data, frameStart + config.lengthOffset,
+                    config.lengthSize, config.lengthLittleEndian) & 0xFFFFFFFFL;
+            long total = value + lengthAdjust;
+            if (total < minLength || total > config.maxLength) {
+                drop(1, ERROR_LENGTH, sink);
+                continue;
+            }
+            int frameLength = (int) total;
+            if (buffer.available() < frameLength) {
+                return;
+            }
+            int checkOffset = Math.min(config.checksumStart, frameLength - checksumSize);
+            if (!Checksums.verify(config.checksum, config.checksumLittleEndian(), buffer.data,
+                    frameStart + checkOffset, frameLength - checkOffset)) {
+                drop(1, ERROR_CHECKSUM, sink);
+                continue;
+            }
+            byte[] frame = Arrays.copyOfRange(buffer.data, frameStart, frameStart + frameLength);
+            buffer.start += frameLength;
+            sink.onFrame(frame);
+        }
+        buffer.clear();
+    }
+
+    private void drop(int count, String reason, Sink sink) {
+        if (count > 0) {
+            buffer.start += count;
+            sink.onError(reason, count);
+        }
+    }
+
+    @Override
+    public void reset() {
+        buffer.clear();
+    }
+}
@@ -0,0 +1,85 @@
+package com.yy.serialport;
+
+import android.app.Application;
+
+import java.io.IOException;
+
+import com.cl.serialportlibrary.SimpleSerialPortManager;
+
+/**
+ * 基于 SimpleSerialPortManager 的串口实现。底层库是单例，同一时间只能有一个端口使用此后端
+ */
+public class LibraryConnection implements SerialConnection {
+
+    private static LibraryConnection owner;
+
+    private final PortConfig config;
+    private final Application application;
+    private SimpleSerialPortManager manager;
+
+    public LibraryConnection(PortConfig config, Application application) {
+        this.config = config;
+        this.application = application;
+    }
+
+    @Override
+    public void open(Receiver receiver) throws IOException {
+        synchronized (LibraryConnection.class) {
+            if (owner != null && owner != this) {
+                throw new IOException("Library backend is in use by " + owner.config.path);
+            }
+            owner = this;
+        }
+        try {
+            new SimpleSerialPortManager.QuickConfig()
+                .setIntervalSleep(config.intervalSleep)
+                .setEnableLog(config.enableLog)
+                .setLogTag(config.logTag)
+                .setDatabits(config.databits)
+                .setParity(config.parity)
+                .setStopbits(config.stopbits)
+                .setStickyPacketStrategy(SimpleSerialPortManager.StickyPacketStrategy.values()[config.strategy])
+                .apply(application);
+        } catch (Exception e) {
+            release();
+            throw new IOException("Failed to configure serial port: " + e.getMessage());
+        }
+        manager = SimpleSerialPortManager.getInstance();
+        if (!manager.openSerialPort(config.path, config.baudRate, receiver::onData)) {
+            manager = null;
+            release();
+            throw new IOException("Failed to open serial port: " + config.path + " at " + config.baudRate);
+        }
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        SimpleSerialPortManager currentManager = manager;
+        if (currentManager == null) {
+            throw new IOException("Port is not open: " + config.path);
+        }
+        currentManager.sendData(data);
+    }
+
+    @Override
+    public void close() {
+        SimpleSerialPortManager currentManager = manager;
+        manager = null;
+        if (currentManager != null) {
+            try {
+                currentManager.closeSerialPort();
+            } catch (Exception e) {
+                // 忽略关闭时的错误
+            }
+        }
+        release();
+    }
+
+    private void release() {
+        synchronized (LibraryConnection.class) {
+            if (owner == this) {
+                owner = null;
+            }
+        }
+    }
+}
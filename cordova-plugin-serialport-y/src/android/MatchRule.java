@@ -0,0 +1,61 @@
+package com.yy.serialport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 应答匹配规则：固定字节（可带掩码）与回显字段（应答中与请求相同的地址、序号等）全部满足时匹配。
+ * 没有任何条件时匹配收到的下一帧
+ */
+public class MatchRule {
+
+    /**
+     * 应答 offset 处的字节与 value 按 mask 比较，mask 为空时全部比较
+     */
+    public static class Bytes {
+        public int offset;
+        public byte[] value = new byte[0];
+        public byte[] mask = new byte[0];
+    }
+
+    /**
+     * 应答 offset 处的 length 个字节与请求 requestOffset 处相同
+     */
+    public static class Echo {
+        public int offset;
+        public int length = 1;
+        public int requestOffset;
+    }
+
+    public int minLength = 0;
+    public final List<Bytes> bytes = new ArrayList<>();
+    public final List<Echo> echoes = new ArrayList<>();
+
+    public boolean matches(byte[] request, byte[] response) {
+        if (response.length < minLength) {
+            return false;
+        }
+        for (Bytes field : bytes) {
+            if (field.offset + field.value.length > response.length) {
+                return false;
+            }
+            for (int i = 0; i < field.value.length; i++) {
+                int mask = i < field.mask.length ? field.mask[i] : 0xFF;
+                if (((response[field.offset + i] ^ field.value[i]) & mask) != 0) {
+                    return false;
+                }
+            }
+        }
+        for (Echo echo : echoes) {
+            if (echo.offset + echo.length > response.length || echo.requestOffset + echo.length > request.length) {
+                return false;
+            }
+            for (int i = 0; i < echo.length; i++) {
+                if (response[echo.offset + i] != request[echo.requestOffset + i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
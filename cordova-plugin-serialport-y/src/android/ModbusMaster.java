@@ -0,0 +1,246 @@
+package com.yy.serialport;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Modbus RTU 主站
+ * 请求经端口的事务队列一问一答地发送，帧间保持 T3.5 静默；轮询任务按固定周期读取寄存器区间，
+ * 只把变化的值交给监听器
+ */
+public class ModbusMaster {
+
+    /**
+     * 单次请求结果回调
+     */
+    public interface Callback {
+        void onResult(int[] values);
+
+        void onError(String message);
+    }
+
+    /**
+     * 轮询结果回调（在接收线程或超时线程调用）
+     */
+    public interface PollListener {
+        /**
+         * @param offsets 变化的值相对 poll.address 的偏移
+         * @param values  对应的新值
+         */
+        void onChange(Poll poll, int[] offsets, int[] values);
+
+        /**
+         * 轮询失败，同一错误连续出现时只回调一次
+         */
+        void onError(Poll poll, String message);
+    }
+
+    /**
+     * 轮询任务
+     */
+    public static class Poll {
+        public String id;
+        public int slave = 1;
+        public int function = ModbusRtu.READ_HOLDING_REGISTERS;
+        public int address;
+        public int quantity = 1;
+        public int intervalMs = 1000;
+        public int timeoutMs = 500;
+
+        private int[] last;
+        private String lastError;
+        private volatile boolean busy;
+        private ScheduledFuture<?> future;
+    }
+
+    private final SerialPortSession session;
+    private final PollListener listener;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Poll> polls = new ConcurrentHashMap<>();
+    // 切换前端口的分帧、写入配置与在途事务数，close 时还原
+    private final FrameParser previousFramer;
+    private final SerialWriter.Config previousWriterConfig;
+    private final int previousMaxInFlight;
+
+    /**
+     * 把端口切换为 Modbus RTU：应答分帧、帧间隔 T3.5、一次一个在途事务，close 时还原
+     *
+     * @throws IOException 端口未打开
+     */
+    public ModbusMaster(SerialPortSession session, PollListener listener) throws IOException {
+        PortConfig config = session.getConfig();
+        if (config == null || !session.isOpen()) {
+            throw new IOException("Serial port is not open");
+        }
+        this.session = session;
+        this.listener = listener;
+        this.previousFramer = session.getFramer();
+        this.previousWriterConfig = session.getWriterConfig();
+        this.previousMaxInFlight = session.getMaxInFlight();
+        FrameParser.Config framerConfig = new FrameParser.Config();
+        framerConfig.type = FrameParser.TYPE_MODBUS_RTU;
+        session.setFramer(FrameParser.create(framerConfig));
+        SerialWriter.Config writerConfig = new SerialWriter.Config();
+        writerConfig.gapMs = ModbusRtu.silenceMs(config);
+        session.setWriterConfig(writerConfig);
+        session.setMaxInFlight(1);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ModbusPoll-" + config.path);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 发送一次请求，从站地址 0 为广播：只写不等应答，写出后回调空结果
+     *
+     * @throws IllegalArgumentException 功能码不支持或数量越界
+     */
+    public void request(int slave, int function, int address, int quantity, int[] values, int timeoutMs,
+                        Callback callback) {
+        byte[] request = ModbusRtu.buildRequest(slave, function, address, quantity, values);
+        try {
+            if (slave == 0) {
+                session.send(request, new SerialWriter.Callback() {
+                    @Override
+                    public void onComplete(int bytes) {
+                        callback.onResult(new int[0]);
+                    }
+
+                    @Override
+                    public void onError(String message) {
+                        callback.onError(message);
+                    }
+                });
+                return;
+            }
+            session.transact(request, matchRule(function), timeoutMs, new TransactionQueue.Callback() {
+                @Override
+                public void onResponse(byte[] response) {
+                    int[] result;
+                    try {
+                        result = ModbusRtu.parseResponse(request, response);
+                    } catch (IOException e) {
+                        callback.onError(e.getMessage());
+                        return;
+                    }
+                    callback.onResult(result);
+                }
+
+                @Override
+                public void onError(String message) {
+                    callback.onError(message);
+                }
+            });
+        } catch (IOException e) {
+            callback.onError(e.getMessage());
+        }
+    }
+
+    /**
+     * 应答的从站地址与请求相同，功能码相同或为其异常码（最高位置 1）
+     */
+    private static MatchRule matchRule(int function) {
+        MatchRule rule = new MatchRule();
+        rule.minLength = 5;
+        MatchRule.Echo slave = new MatchRule.Echo();
+        rule.echoes.add(slave);
+        MatchRule.Bytes code = new MatchRule.Bytes();
+        code.offset = 1;
+        code.value = new byte[]{(byte) function};
+        code.mask = new byte[]{0x7F};
+        rule.bytes.add(code);
+        return rule;
+    }
+
+    /**
+     * 开始轮询，同 id 的任务先停止；上一次轮询未结束时跳过本周期
+     *
+     * @throws IllegalArgumentException 不是读功能码或数量越界
+     */
+    public void startPoll(Poll poll) {
+        if (!ModbusRtu.isRead(poll.function)) {
+            throw new IllegalArgumentException("Poll function must be 1-4");
+        }
+        ModbusRtu.buildRequest(poll.slave, poll.function, poll.address, poll.quantity, null);
+        stopPoll(poll.id);
+        polls.put(poll.id, poll);
+        poll.future = scheduler.scheduleAtFixedRate(() -> runPoll(poll), 0, Math.max(1, poll.intervalMs),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void stopPoll(String id) {
+        Poll poll = polls.remove(id);
+        if (poll != null && poll.future != null) {
+            poll.future.cancel(false);
+        }
+    }
+
+    /**
+     * 停止所有轮询，还原端口原来的分帧、写入配置与在途事务数
+     */
+    public void close() {
+        for (String id : polls.keySet()) {
+            stopPoll(id);
+        }
+        scheduler.shutdownNow();
+        // 还原切换前的端口配置，原分帧器丢弃切换前残留的半帧
+        if (previousFramer != null) {
+            previousFramer.reset();
+        }
+        session.setFramer(previousFramer);
+        session.setWriterConfig(previousWriterConfig);
+        session.setMaxInFlight(previousMaxInFlight);
+    }
+
+    private void runPoll(Poll poll) {
+        if (poll.busy) {
+            return;
+        }
+        poll.busy = true;
+        request(poll.slave, poll.function, poll.address, poll.quantity, null, poll.timeoutMs, new Callback() {
+            @Override
+            public void onResult(int[] values) {
+                poll.busy = false;
+                poll.lastError = null;
+                reportChanges(poll, values);
+            }
+
+            @Override
+            public void onError(String message) {
+                poll.busy = false;
+                if (!message.equals(poll.lastError)) {
+                    poll.lastError = message;
+                    listener.onError(poll, message);
+                }
+            }
+        });
+    }
+
+    private void reportChanges(Poll poll, int[] values) {
+        int[] last = poll.last;
+        int count = 0;
+        int[] offsets = new int[values.length];
+        int[] changed = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (last == null || last[i] != values[i]) {
+                offsets[count] = i;
+                changed[count] = values[i];
+                count++;
+            }
+        }
+        poll.last = values;
+        if (count > 0 && polls.get(poll.id) == poll) {
+            int[] changedOffsets = new int[count];
+            int[] changedValues = new int[count];
+            System.arraycopy(offsets, 0, changedOffsets, 0, count);
+            System.arraycopy(changed, 0, changedValues, 0, count);
+            listener.onChange(poll, changedOffsets, changedValues);
+        }
+    }
+}
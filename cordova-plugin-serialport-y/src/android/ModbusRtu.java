@@ -0,0 +1,213 @@
+package com.yy.serialport;
+
+import java.io.IOException;
+
+/**
+ * Modbus RTU 报文编解码（功能码 1-6、15、16），CRC16 使用 Checksums 的查表实现
+ */
+public final class ModbusRtu {
+
+    public static final int READ_COILS = 1;
+    public static final int READ_DISCRETE_INPUTS = 2;
+    public static final int READ_HOLDING_REGISTERS = 3;
+    public static final int READ_INPUT_REGISTERS = 4;
+    public static final int WRITE_SINGLE_COIL = 5;
+    public static final int WRITE_SINGLE_REGISTER = 6;
+    public static final int WRITE_MULTIPLE_COILS = 15;
+    public static final int WRITE_MULTIPLE_REGISTERS = 16;
+
+    /**
+     * 从站返回的异常应答
+     */
+    public static class ModbusException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final int code;
+
+        ModbusException(int function, int code) {
+            super("Modbus exception " + code + " for function " + function);
+            this.code = code;
+        }
+    }
+
+    private ModbusRtu() {
+    }
+
+    /**
+     * 帧间静默时间 T3.5（毫秒）：波特率不高于 19200 时为 3.5 个字符时间，更高时固定 1.75ms
+     */
+    public static float silenceMs(PortConfig config) {
+        if (config.baudRate > 19200) {
+            return 1.75f;
+        }
+        return config.charNanos() * 3.5f / 1_000_000f;
+    }
+
+    public static boolean isRead(int function) {
+        return function >= READ_COILS && function <= READ_INPUT_REGISTERS;
+    }
+
+    /**
+     * 组装请求帧（含 CRC）
+     *
+     * @param quantity 读功能码的数量；写多个时取 values.length
+     * @param values   写功能码的值：线圈为 0/1，寄存器为 0-65535
+     * @throws IllegalArgumentException 功能码不支持或数量越界
+     */
+    public static byte[] buildRequest(int slave, int function, int address, int quantity, int[] values) {
+        byte[] pdu;
+        switch (function) {
+            case READ_COILS:
+            case READ_DISCRETE_INPUTS:
+                checkRange("quantity", quantity, 1, 2000);
+                pdu = new byte[]{(byte) function, hi(address), lo(address), hi(quantity), lo(quantity)};
+                break;
+            case READ_HOLDING_REGISTERS:
+            case READ_INPUT_REGISTERS:
+                checkRange("quantity", quantity, 1, 125);
+                pdu = new byte[]{(byte) function, hi(address), lo(address), hi(quantity), lo(quantity)};
+                break;
+            case WRITE_SINGLE_COIL:
+                checkRange("values.length", values.length, 1, 1);
+                pdu = new byte[]{(byte) function, hi(address), lo(address), (byte) (values[0] != 0 ? 0xFF : 0), 0};
+                break;
+            case WRITE_SINGLE_REGISTER:
+                checkRange("values.length", values.length, 1, 1);
+                pdu = new byte[]{(byte) function, hi(address), lo(address), hi(values[0]), lo(values[0])};
+                break;
+            case WRITE_MULTIPLE_COILS: {
+                checkRange("values.length", values.length, 1, 1968);
+                int byteCount = (values.length + 7) / 8;
+                pdu = new byte[6 + byteCount];
+                fillHeader(pdu, function, address, values.length, byteCount);
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != 0) {
+                        pdu[6 + i / 8] |= (byte) (1 << (i % 8));
+                    }
+                }
+                break;
+            }
+            case WRITE_MULTIPLE_REGISTERS: {
+                checkRange("values.length", values.length, 1, 123);
+                pdu = new byte[6 + values.length * 2];
+                fillHeader(pdu, function, address, values.length, values.length * 2);
+                for (int i = 0; i < values.length; i++) {
+                    pdu[6 + i * 2] = hi(values[i]);
+                    pdu[7 + i * 2] = lo(values[i]);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported function: " + function);
+        }
+        byte[] frame = new byte[pdu.length + 3];
+        frame[0] = (byte) slave;
+        System.arraycopy(pdu, 0, frame, 1, pdu.length);
+        int crc = Checksums.crc16Modbus(frame, 0, frame.length - 2);
+        frame[frame.length - 2] = (byte) crc;
+        frame[frame.length - 1] = (byte) (crc >>> 8);
+        return frame;
+    }
+
+    /**
+     * 解析应答（CRC 已由分帧校验）
+     *
+     * @return 读线圈/离散输入为各位 0/1，读寄存器为各寄存器值，写单个为写入值，写多个为写入数量
+     * @throws ModbusException 异常应答
+     * @throws IOException     应答与请求不符
+     */
+    public static int[] parseResponse(byte[] request, byte[] response) throws IOException {
+        int function = request[1] & 0xFF;
+        if (response.length >= 5 && (response[1] & 0xFF) == (function | 0x80)) {
+            throw new ModbusException(function, response[2] & 0xFF);
+        }
+        if (response.length < 5 || (response[1] & 0xFF) != function) {
+            throw new IOException("Unexpected Modbus response");
+        }
+        int quantity = u16(request, 4);
+        switch (function) {
+            case READ_COILS:
+            case READ_DISCRETE_INPUTS: {
+                if ((response[2] & 0xFF) < (quantity + 7) / 8 || response.length < 5 + (quantity + 7) / 8) {
+                    throw new IOException("Short Modbus response");
+                }
+                int[] bits = new int[quantity];
+                for (int i = 0; i < quantity; i++) {
+                    bits[i] = (response[3 + i / 8] >> (i % 8)) & 1;
+                }
+                return bits;
+            }
+            case READ_HOLDING_REGISTERS:
+            case READ_INPUT_REGISTERS: {
+                if ((response[2] & 0xFF) < quantity * 2 || response.length < 5 + quantity * 2) {
+                    throw new IOException("Short Modbus response");
+                }
+                int[] registers = new int[quantity];
+                for (int i = 0; i < quantity; i++) {
+                    registers[i] = u16(response, 3 + i * 2);
+                }
+                return registers;
+            }
+            case WRITE_SINGLE_COIL:
+                return new int[]{response[4] != 0 ? 1 : 0};
+            case WRITE_SINGLE_REGISTER:
+                return new int[]{u16(response, 4)};
+            default:
+                return new int[]{u16(response, 4)};
+        }
+    }
+
+    /**
+     * 应答帧的总长度（含 CRC），available 不足以判断时返回 0，功能码无法识别时返回 -1
+     */
+    static int responseLength(byte[] data, int offset, int available) {
+        if (available < 2) {
+            return 0;
+        }
+        int function = data[offset + 1] & 0xFF;
+        if ((function & 0x80) != 0) {
+            return 5;
+        }
+        switch (function) {
+            case READ_COILS:
+            case READ_DISCRETE_INPUTS:
+            case READ_HOLDING_REGISTERS:
+            case READ_INPUT_REGISTERS:
+                return available < 3 ? 0 : 5 + (data[offset + 2] & 0xFF);
+            case WRITE_SINGLE_COIL:
+            case WRITE_SINGLE_REGISTER:
+            case WRITE_MULTIPLE_COILS:
+            case WRITE_MULTIPLE_REGISTERS:
+                return 8;
+            default:
+                return -1;
+        }
+    }
+
+    private static void fillHeader(byte[] pdu, int function, int address, int quantity, int byteCount) {
+        pdu[0] = (byte) function;
+        pdu[1] = hi(address);
+        pdu[2] = lo(address);
+        pdu[3] = hi(quantity);
+        pdu[4] = lo(quantity);
+        pdu[5] = (byte) byteCount;
+    }
+
+    private static void checkRange(String name, int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(name + " must be " + min + "-" + max);
+        }
+    }
+
+    private static int u16(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private static byte hi(int value) {
+        return (byte) (value >>> 8);
+    }
+
+    private static byte lo(int value) {
+        return (byte) value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+
+/**
+ * Modbus RTU 应答分帧（主站侧）：按功能码推算帧长并校验 CRC，失败时前移一个字节重新同步
+ */
+class ModbusRtuFrameParser implements FrameParser {
+
+    // RTU 帧最大 256 字节
+    private static final int MAX_FRAME = 256;
+
+    private final StreamBuffer buffer = new StreamBuffer(MAX_FRAME * 2);
+
+    @Override
+    public void push(byte[] data, int offset, int length, Sink sink) {
+        buffer.append(data, offset, length);
+        while (buffer.available() > 0) {
+            int frameLength = ModbusRtu.responseLength(buffer.data, buffer.start, buffer.available());
+            if (frameLength == 0) {
+                return;
+            }
+            if (frameLength < 0 || frameLength > MAX_FRAME) {
+                drop(ERROR_SYNC, sink);
+                continue;
+            }
+            if (buffer.available() < frameLength) {
+                return;
+            }
+            if (!Checksums.verify(Checksums.CRC16_MODBUS, true, buffer.data, buffer.start, frameLength)) {
+                drop(ERROR_CHECKSUM, sink);
+                continue;
+            }
+            byte[] frame = Arrays.copyOfRange(buffer.data, buffer.start, buffer.start + frameLength);
+            buffer.start += frameLength;
+            sink.onFrame(frame);
+        }
+        buffer.clear();
+    }
+
+    private void drop(String reason, Sink sink) {
+        buffer.start++;
+        sink.onError(reason, 1);
+    }
+
+    @Override
+    public void reset() {
+        buffer.clear();
+    }
+}
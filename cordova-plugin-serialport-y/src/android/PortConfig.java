@@ -0,0 +1,61 @@
+package com.yy.serialport;
+
+/**
+ * 串口参数
+ */
+public class PortConfig {
+
+    public static final String BACKEND_TTY = "tty";
+    public static final String BACKEND_LIBRARY = "library";
+    public static final String READ_BLOCKING = "blocking";
+    public static final String READ_POLL = "poll";
+
+    // 设备路径，同时作为端口 id，例如 /dev/ttyS1
+    public String path;
+    public int baudRate = 115200;
+    public int databits = 8;
+    // 0-None 1-Odd 2-Even 3-Mark 4-Space
+    public int parity = 0;
+    public int stopbits = 1;
+    // 轮询间隔（毫秒），tty 后端仅 poll 模式使用
+    public int intervalSleep = 50;
+    // tty 后端读取方式：blocking 在读线程阻塞等待，数据到达即返回；poll 按 intervalSleep 轮询
+    public String readMode = READ_BLOCKING;
+    // blocking 模式下单次阻塞的最长时间（毫秒，按 100ms 取整），只影响关闭端口时读线程退出的速度
+    public int readTimeoutMs = 100;
+    // 读写实现：tty 为插件自带，每个端口独立读线程；library 为 SimpleSerialPortManager 单例，同时只能打开一个端口
+    public String backend = BACKEND_TTY;
+    // 以下仅 library 后端使用
+    public boolean enableLog = false;
+    public String logTag = "SerialPort";
+    public int strategy = 0;
+
+    public PortConfig copy() {
+        PortConfig copy = new PortConfig();
+        copy.path = path;
+        copy.baudRate = baudRate;
+        copy.databits = databits;
+        copy.parity = parity;
+        copy.stopbits = stopbits;
+        copy.intervalSleep = intervalSleep;
+        copy.readMode = readMode;
+        copy.readTimeoutMs = readTimeoutMs;
+        copy.backend = backend;
+        copy.enableLog = enableLog;
+        copy.logTag = logTag;
+        copy.strategy = strategy;
+        return copy;
+    }
+
+    /**
+     * 每个字符（起始位 + 数据位 + 校验位 + 停止位）在线路上的时长（纳秒），
+     * baudRate 为 0（不节流的回环）时为 0
+     */
+    public long charNanos() {
+        if (baudRate <= 0) {
+            return 0;
+        }
+        int bits = 1 + databits + (parity != 0 ? 1 : 0) + stopbits;
+        return bits * 1_000_000_000L / baudRate;
+    }
+}
@@ -0,0 +1,262 @@
+package com.yy.serialport;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个端口的收发指标
+ * 记录收发字节数与帧数、分帧错误、丢弃数据以及写入、投递、事务延迟的直方图，
+ * 通过 getStats / watchStats 暴露给JS
+ */
+public class PortStats {
+
+    // 计数器
+    public static final String RX_BYTES = "rx.bytes";
+    public static final String RX_CHUNKS = "rx.chunks";
+    public static final String RX_FRAMES = "rx.frames";
+    public static final String RX_UNDELIVERED_BYTES = "rx.undeliveredBytes";
+    public static final String FRAME_DROPPED_BYTES = "frame.droppedBytes";
+    public static final String FRAME_ERRORS = "frame.errors.";
+    public static final String TX_BYTES = "tx.bytes";
+    public static final String TX_FRAMES = "tx.frames";
+    public static final String TX_WRITES = "tx.writes";
+    public static final String TX_ERRORS = "tx.errors";
+    public static final String TX_REJECTED = "tx.rejected";
+    public static final String TRANSACT_COUNT = "transact.count";
+    public static final String TRANSACT_TIMEOUTS = "transact.timeouts";
+    public static final String TRANSACT_ERRORS = "transact.errors";
+
+    // 延迟
+    public static final String TX_WRITE_LATENCY = "tx.writeLatency";
+    public static final String RX_DELIVERY_LATENCY = "rx.deliveryLatency";
+    public static final String TRANSACT_LATENCY = "transact.latency";
+
+    // 直方图桶上界（毫秒），最后一个桶为溢出桶
+    private static final double[] BUCKET_BOUNDS_MS = {
+            0.1, 0.2, 0.5, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000
+    };
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private volatile long resetAt = System.currentTimeMillis();
+    private volatile long resetNanos = System.nanoTime();
+    // getStats 使用的速率快照，watchStats 各自持有独立的快照
+    private final RateWindow defaultWindow = new RateWindow(resetNanos);
+
+    /**
+     * 速率快照：记录上次读取时的计数，每个读取方各持有一个，读取互不影响
+     */
+    public static class RateWindow {
+        private long at;
+        private long rxBytes;
+        private long rxFrames;
+        private long txBytes;
+        private long txFrames;
+
+        RateWindow(long at) {
+            this.at = at;
+        }
+    }
+
+    /**
+     * 记录一次耗时，startNanos 为 System.nanoTime() 起点
+     */
+    public void recordSince(String name, long startNanos) {
+        record(name, (System.nanoTime() - startNanos) / 1e6);
+    }
+
+    /**
+     * 记录一次耗时（毫秒）
+     */
+    public void record(String name, double millis) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram();
+            Histogram existing = histograms.putIfAbsent(name, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        histogram.add(millis);
+    }
+
+    /**
+     * 计数器加一
+     */
+    public void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * 计数器累加
+     */
+    public void add(String name, long delta) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counter = new AtomicLong();
+            AtomicLong existing = counters.putIfAbsent(name, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    public long get(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public synchronized void reset() {
+        histograms.clear();
+        counters.clear();
+        resetAt = System.currentTimeMillis();
+        resetNanos = System.nanoTime();
+    }
+
+    /**
+     * 新建一个从当前计数开始的速率快照
+     */
+    public synchronized RateWindow newRateWindow() {
+        RateWindow window = new RateWindow(System.nanoTime());
+        window.rxBytes = get(RX_BYTES);
+        window.rxFrames = get(RX_FRAMES);
+        window.txBytes = get(TX_BYTES);
+        window.txFrames = get(TX_FRAMES);
+        return window;
+    }
+
+    /**
+     * 导出为JSON，速率使用 getStats 的快照
+     *
+     * @param charNanos 每个字符在线路上的时长（纳秒），端口未打开时为 0
+     */
+    public JSONObject toJson(long charNanos) throws JSONException {
+        return toJson(charNanos, defaultWindow);
+    }
+
+    /**
+     * 导出为JSON；速率按该快照上次读取以来的增量计算（只推进该快照），线路占用率为字节速率 × 每字符时长
+     *
+     * @param charNanos 每个字符在线路上的时长（纳秒），端口未打开时为 0
+     */
+    public synchronized JSONObject toJson(long charNanos, RateWindow window) throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("since", resetAt);
+        result.put("durationMs", System.currentTimeMillis() - resetAt);
+
+        if (window.at < resetNanos) {
+            // 快照早于清空，从清空时刻重新计算
+            window.at = resetNanos;
+            window.rxBytes = 0;
+            window.rxFrames = 0;
+            window.txBytes = 0;
+            window.txFrames = 0;
+        }
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - window.at) / 1e9);
+        long rxBytes = get(RX_BYTES);
+        long rxFrames = get(RX_FRAMES);
+        long txBytes = get(TX_BYTES);
+        long txFrames = get(TX_FRAMES);
+        double rxBytesPerSec = (rxBytes - window.rxBytes) / seconds;
+        double txBytesPerSec = (txBytes - window.txBytes) / seconds;
+        JSONObject rates = new JSONObject();
+        rates.put("intervalMs", Math.round(seconds * 1000));
+        rates.put("rxBytesPerSec", rxBytesPerSec);
+        rates.put("rxFramesPerSec", (rxFrames - window.rxFrames) / seconds);
+        rates.put("txBytesPerSec", txBytesPerSec);
+        rates.put("txFramesPerSec", (txFrames - window.txFrames) / seconds);
+        rates.put("rxUtilization", rxBytesPerSec * charNanos / 1e9);
+        rates.put("txUtilization", txBytesPerSec * charNanos / 1e9);
+        result.put("rates", rates);
+        window.at = now;
+        window.rxBytes = rxBytes;
+        window.rxFrames = rxFrames;
+        window.txBytes = txBytes;
+        window.txFrames = txFrames;
+
+        JSONObject histogramJson = new JSONObject();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            histogramJson.put(entry.getKey(), entry.getValue().toJson());
+        }
+        result.put("histograms", histogramJson);
+
+        JSONObject counterJson = new JSONObject();
+        for (Map.Entry<String, AtomicLong> entry : new TreeMap<>(counters).entrySet()) {
+            counterJson.put(entry.getKey(), entry.getValue().get());
+        }
+        result.put("counters", counterJson);
+        return result;
+    }
+
+    /**
+     * 固定桶直方图，分位数按桶上界估算
+     */
+    static class Histogram {
+        private final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+        private long count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max;
+
+        synchronized void add(double millis) {
+            int index = 0;
+            while (index < BUCKET_BOUNDS_MS.length && millis > BUCKET_BOUNDS_MS[index]) {
+                index++;
+            }
+            buckets[index]++;
+            count++;
+            sum += millis;
+            if (millis < min) {
+                min = millis;
+            }
+            if (millis > max) {
+                max = millis;
+            }
+        }
+
+        // 整数上界不带小数点，与 VoiceMetrics 的桶名一致
+        private static String bucketName(double bound) {
+            return bound == (long) bound ? Long.toString((long) bound) : Double.toString(bound);
+        }
+
+        private double percentile(double p) {
+            long target = (long) Math.ceil(count * p);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return i < BUCKET_BOUNDS_MS.length ? Math.min(BUCKET_BOUNDS_MS[i], max) : max;
+                }
+            }
+            return max;
+        }
+
+        synchronized JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("min", count > 0 ? min : 0);
+            json.put("max", max);
+            json.put("mean", count > 0 ? sum / count : 0);
+            json.put("p50", count > 0 ? percentile(0.50) : 0);
+            json.put("p90", count > 0 ? percentile(0.90) : 0);
+            json.put("p99", count > 0 ? percentile(0.99) : 0);
+
+            JSONObject bucketJson = new JSONObject();
+            for (int i = 0; i < buckets.length; i++) {
+                bucketJson.put(i < BUCKET_BOUNDS_MS.length ? "le" + bucketName(BUCKET_BOUNDS_MS[i]) : "inf", buckets[i]);
+            }
+            json.put("buckets", bucketJson);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接收合并
+ * 把一个时间窗内收到的多个数据块合并为一条消息，减少 WebView 桥的消息数。
+ * 每个数据块的长度与到达时间都会保留，JS 侧可以还原原始分包
+ */
+public class RxCoalescer {
+
+    /**
+     * 合并窗口配置，任一条件满足即发送
+     */
+    public static class Config {
+        // 累计字节数上限
+        public int maxBytes = 4096;
+        // 第一个数据块到达后最多等待的时间（毫秒）
+        public int maxDelayMs = 20;
+        // 数据块个数上限
+        public int maxPackets = 64;
+    }
+
+    /**
+     * 合并结果回调（在接收线程或定时线程调用）
+     */
+    public interface Sink {
+        /**
+         * @param data       合并后的数据
+         * @param lengths    每个数据块的长度
+         * @param timestamps 每个数据块的到达时间（毫秒时间戳）
+         */
+        void onBatch(byte[] data, int[] lengths, long[] timestamps);
+    }
+
+    private final Config config;
+    private final Sink sink;
+    private final ScheduledExecutorService scheduler;
+    private final Runnable flushTask = () -> flush();
+
+    private byte[] buffer;
+    private int length;
+    private int[] lengths;
+    private long[] timestamps;
+    private int count;
+    private ScheduledFuture<?> flushFuture;
+
+    public RxCoalescer(Config config, Sink sink) {
+        this.config = config;
+        this.sink = sink;
+        this.buffer = new byte[Math.max(1, config.maxBytes)];
+        this.lengths = new int[Math.max(1, config.maxPackets)];
+        this.timestamps = new long[lengths.length];
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SerialRxFlush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 加入一个数据块，达到字节数或个数上限时立即发送，否则在 maxDelayMs 后发送
+     */
+    public void offer(byte[] data, long timestampMillis) {
+        synchronized (this) {
+            if (count > 0 && length + data.length > config.maxBytes) {
+                flushLocked();
+            }
+            if (length + data.length > buffer.length) {
+                // 单个数据块超过上限时整块保留
+                buffer = Arrays.copyOf(buffer, length + data.length);
+            }
+            System.arraycopy(data, 0, buffer, length, data.length);
+            length += data.length;
+            lengths[count] = data.length;
+            timestamps[count] = timestampMillis;
+            count++;
+            if (count >= lengths.length || length >= config.maxBytes) {
+                flushLocked();
+            } else if (flushFuture == null) {
+                flushFuture = scheduler.schedule(flushTask, config.maxDelayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 立即发送当前窗口内的数据
+     */
+    public void flush() {
+        synchronized (this) {
+            flushLocked();
+        }
+    }
+
+    /**
+     * 发送剩余数据并停止定时线程
+     */
+    public void close() {
+        flush();
+        scheduler.shutdownNow();
+    }
+
+    private void flushLocked() {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+            flushFuture = null;
+        }
+        if (count == 0) {
+            return;
+        }
+        byte[] data = Arrays.copyOf(buffer, length);
+        int[] batchLengths = Arrays.copyOf(lengths, count);
+        long[] batchTimestamps = Arrays.copyOf(timestamps, count);
+        length = 0;
+        count = 0;
+        if (buffer.length > config.maxBytes) {
+            buffer = new byte[Math.max(1, config.maxBytes)];
+        }
+        // 在锁内回调以保证批次顺序；Sink 只做消息投递，耗时很短
+        sink.onBatch(data, batchLengths, batchTimestamps);
+    }
+}
@@ -0,0 +1,22 @@
+package com.yy.serialport;
+
+import java.io.IOException;
+
+/**
+ * 串口读写实现
+ */
+public interface SerialConnection {
+
+    /**
+     * 接收回调（在读线程调用）
+     */
+    interface Receiver {
+        void onData(byte[] data);
+    }
+
+    void open(Receiver receiver) throws IOException;
+
+    void write(byte[] data) throws IOException;
+
+    void close();
+}
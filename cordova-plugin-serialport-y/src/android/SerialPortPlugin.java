@@ -1,122 +1,566 @@
 package com.yy.serialport;
 
+import android.util.Base64;
+
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CallbackContext;
 import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.json.JSONObject;
 
-import com.cl.serialportlibrary.SimpleSerialPortManager;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class SerialPortPlugin extends CordovaPlugin {
-    private SimpleSerialPortManager serialPortManager;
-    private CallbackContext readCallback;
-    private boolean isInitialized = false;
+    // 已打开的端口，按设备路径索引，供其他插件（如讯飞语音插件）在原生层直接写入，不经过 WebView
+    private static final Map<String, Port> ports = new ConcurrentHashMap<>();
+    // writeFrame 等待写出的上限，写队列中排在前面的帧与帧间隔都计入
+    private static final long WRITE_FRAME_TIMEOUT_MS = 500;
+    // init/listen 等单端口接口当前使用的端口
+    private static volatile Port activePort;
+
+    // 单端口接口（不带端口 id）使用的端口，分帧、合并与监听器在 init 之前即可设置
+    private final Port defaultPort = new Port();
+    // 定时推送指标，首次调用 watchStats 时创建
+    private ScheduledExecutorService statsScheduler;
+
+    /**
+     * 一个端口及其 JS 监听回调
+     */
+    private static class Port implements SerialPortSession.Listener, ModbusMaster.PollListener {
+        final SerialPortSession session = new SerialPortSession(this);
+        volatile CallbackContext readCallback;
+        // 二进制监听：接收数据以 ArrayBuffer 直接回调，不做 hex 转换
+        volatile CallbackContext binaryCallback;
+        // Modbus 主站，首次调用 Modbus 接口时创建
+        volatile ModbusMaster modbus;
+        volatile CallbackContext modbusCallback;
+        // 定时推送指标
+        ScheduledFuture<?> statsFuture;
+
+        synchronized void stopStatsWatch() {
+            if (statsFuture != null) {
+                statsFuture.cancel(false);
+                statsFuture = null;
+            }
+        }
+
+        synchronized ModbusMaster modbus() throws IOException {
+            if (modbus == null) {
+                modbus = new ModbusMaster(session, this);
+            }
+            return modbus;
+        }
+
+        synchronized void closeModbus() {
+            if (modbus != null) {
+                modbus.close();
+                modbus = null;
+            }
+            modbusCallback = null;
+        }
+
+        /**
+         * 推送轮询变化：{ poll, slave, function, changes: [{ address, value }] }
+         */
+        @Override
+        public void onChange(ModbusMaster.Poll poll, int[] offsets, int[] values) {
+            CallbackContext currentCallback = modbusCallback;
+            if (currentCallback == null) {
+                return;
+            }
+            JSONObject event = new JSONObject();
+            try {
+                JSONArray changes = new JSONArray();
+                for (int i = 0; i < offsets.length; i++) {
+                    JSONObject change = new JSONObject();
+                    change.put("address", poll.address + offsets[i]);
+                    change.put("value", values[i]);
+                    changes.put(change);
+                }
+                event.put("poll", poll.id);
+                event.put("slave", poll.slave);
+                event.put("function", poll.function);
+                event.put("changes", changes);
+            } catch (JSONException e) {
+                return;
+            }
+            PluginResult result = new PluginResult(PluginResult.Status.OK, event);
+            result.setKeepCallback(true);
+            currentCallback.sendPluginResult(result);
+        }
+
+        /**
+         * 推送轮询错误：{ poll, slave, function, error }
+         */
+        @Override
+        public void onError(ModbusMaster.Poll poll, String message) {
+            CallbackContext currentCallback = modbusCallback;
+            if (currentCallback == null) {
+                return;
+            }
+            JSONObject event = new JSONObject();
+            try {
+                event.put("poll", poll.id);
+                event.put("slave", poll.slave);
+                event.put("function", poll.function);
+                event.put("error", message);
+            } catch (JSONException e) {
+                return;
+            }
+            PluginResult result = new PluginResult(PluginResult.Status.OK, event);
+            result.setKeepCallback(true);
+            currentCallback.sendPluginResult(result);
+        }
+
+        /**
+         * 把一个数据块推送给已设置的监听器
+         */
+        @Override
+        public void onData(byte[] data) {
+            CallbackContext currentCallback = readCallback;
+            if (currentCallback == null && binaryCallback == null) {
+                session.getStats().add(PortStats.RX_UNDELIVERED_BYTES, data.length);
+                return;
+            }
+            if (currentCallback != null) {
+                String hex = bytesToHex(data);
+                PluginResult dataResult = new PluginResult(PluginResult.Status.OK, hex);
+                dataResult.setKeepCallback(true);
+                currentCallback.sendPluginResult(dataResult);
+            }
+            CallbackContext currentBinaryCallback = binaryCallback;
+            if (currentBinaryCallback != null) {
+                PluginResult dataResult = new PluginResult(PluginResult.Status.OK, data);
+                dataResult.setKeepCallback(true);
+                currentBinaryCallback.sendPluginResult(dataResult);
+            }
+        }
+
+        /**
+         * 推送合并后的数据：回调参数为 (数据, { lengths, timestamps })
+         */
+        @Override
+        public void onBatch(byte[] data, int[] lengths, long[] timestamps) {
+            if (readCallback == null && binaryCallback == null) {
+                session.getStats().add(PortStats.RX_UNDELIVERED_BYTES, data.length);
+                return;
+            }
+            JSONObject packets = new JSONObject();
+            try {
+                JSONArray lengthArray = new JSONArray();
+                JSONArray timestampArray = new JSONArray();
+                for (int i = 0; i < lengths.length; i++) {
+                    lengthArray.put(lengths[i]);
+                    timestampArray.put(timestamps[i]);
+                }
+                packets.put("lengths", lengthArray);
+                packets.put("timestamps", timestampArray);
+            } catch (JSONException e) {
+                // 只包含数字，不会出错
+            }
+            CallbackContext currentCallback = readCallback;
+            if (currentCallback != null) {
+                sendMultipart(currentCallback, new PluginResult(PluginResult.Status.OK, bytesToHex(data)), packets);
+            }
+            CallbackContext currentBinaryCallback = binaryCallback;
+            if (currentBinaryCallback != null) {
+                sendMultipart(currentBinaryCallback, new PluginResult(PluginResult.Status.OK, data), packets);
+            }
+        }
+    }
 
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
         if (action.equals("init")) {
-            String port = args.getString(0);
-            int baudRate = args.getInt(1);
-            int intervalSleep = args.optInt(2, 50);
-            boolean enableLog = args.optBoolean(3, false);
-            String logTag = args.optString(4, "SerialPort");
-            int databits = args.optInt(5, 8);
-            int parity = args.optInt(6, 0);
-            int stopbits = args.optInt(7, 1);
-            int strategy = args.optInt(8, 0);
-            this.initSerialPort(port, baudRate, intervalSleep, enableLog, logTag, databits, parity, stopbits, strategy, callbackContext);
-            return true;
-        } else if (action.equals("listen")) {
-            this.setDataListener(callbackContext);
+            PortConfig config = new PortConfig();
+            config.path = args.getString(0);
+            config.baudRate = args.getInt(1);
+            config.intervalSleep = args.optInt(2, 50);
+            config.enableLog = args.optBoolean(3, false);
+            config.logTag = args.optString(4, "SerialPort");
+            config.databits = args.optInt(5, 8);
+            config.parity = args.optInt(6, 0);
+            config.stopbits = args.optInt(7, 1);
+            config.strategy = args.optInt(8, 0);
+            config.backend = PortConfig.BACKEND_LIBRARY;
+            this.initSerialPort(config, callbackContext);
+            return true;
+        } else if (action.equals("open")) {
+            this.openPort(parsePortConfig(args.getJSONObject(0)), callbackContext);
+            return true;
+        } else if (action.equals("listPorts")) {
+            this.listPorts(callbackContext);
+            return true;
+        }
+
+        // 以下接口的最后一个参数为可选的端口 id，省略时使用 init 打开的端口
+        if (action.equals("listen")) {
+            this.setDataListener(findPort(args, 0, callbackContext), callbackContext);
+            return true;
+        } else if (action.equals("listenBinary")) {
+            this.setBinaryListener(findPort(args, 0, callbackContext), callbackContext);
+            return true;
+        } else if (action.equals("sendBinary")) {
+            // ArrayBuffer 参数经 Cordova 桥以 base64 传入
+            byte[] data = Base64.decode(args.getString(0), Base64.DEFAULT);
+            this.sendBinary(findPort(args, 1, callbackContext), data, callbackContext);
+            return true;
+        } else if (action.equals("sendMany")) {
+            byte[] data = Base64.decode(args.getString(0), Base64.DEFAULT);
+            this.sendMany(findPort(args, 2, callbackContext), data, args.getJSONArray(1), callbackContext);
+            return true;
+        } else if (action.equals("setWriter")) {
+            this.setWriter(findPort(args, 1, callbackContext), args.optJSONObject(0), callbackContext);
+            return true;
+        } else if (action.equals("transact")) {
+            byte[] request = Base64.decode(args.getString(0), Base64.DEFAULT);
+            MatchRule rule = parseMatchRule(args.optJSONObject(1));
+            this.transact(findPort(args, 3, callbackContext), request, rule, args.optLong(2, 1000), callbackContext);
+            return true;
+        } else if (action.equals("setPipelining")) {
+            Port port = findPort(args, 1, callbackContext);
+            if (port != null) {
+                port.session.setMaxInFlight(args.optInt(0, 1));
+                callbackContext.success("Pipelining set");
+            }
+            return true;
+        } else if (action.equals("modbusRequest")) {
+            this.modbusRequest(findPort(args, 1, callbackContext), args.getJSONObject(0), callbackContext);
+            return true;
+        } else if (action.equals("modbusPoll")) {
+            this.modbusPoll(findPort(args, 1, callbackContext), args.getJSONObject(0), callbackContext);
+            return true;
+        } else if (action.equals("modbusStopPoll")) {
+            Port port = findPort(args, 1, callbackContext);
+            if (port != null) {
+                ModbusMaster master = port.modbus;
+                if (master != null) {
+                    master.stopPoll(args.getString(0));
+                }
+                callbackContext.success("Poll stopped");
+            }
+            return true;
+        } else if (action.equals("modbusListen")) {
+            Port port = findPort(args, 0, callbackContext);
+            if (port != null) {
+                port.modbusCallback = callbackContext;
+                PluginResult noResult = new PluginResult(PluginResult.Status.NO_RESULT);
+                noResult.setKeepCallback(true);
+                callbackContext.sendPluginResult(noResult);
+            }
+            return true;
+        } else if (action.equals("getStats")) {
+            Port port = findPort(args, 0, callbackContext);
+            if (port != null) {
+                callbackContext.success(statsJson(port, null));
+            }
+            return true;
+        } else if (action.equals("resetStats")) {
+            Port port = findPort(args, 0, callbackContext);
+            if (port != null) {
+                port.session.getStats().reset();
+                callbackContext.success("Stats reset");
+            }
+            return true;
+        } else if (action.equals("watchStats")) {
+            this.watchStats(findPort(args, 1, callbackContext), args.optInt(0, 0), callbackContext);
+            return true;
+        } else if (action.equals("setFramer")) {
+            this.setFramer(findPort(args, 1, callbackContext), args.optJSONObject(0), callbackContext);
+            return true;
+        } else if (action.equals("setCoalescing")) {
+            this.setCoalescing(findPort(args, 1, callbackContext), args.optJSONObject(0), callbackContext);
             return true;
         } else if (action.equals("sendBytes")) {
             String hexData = args.getString(0);
-            this.sendBytes(hexData, callbackContext);
+            this.sendBytes(findPort(args, 1, callbackContext), hexData, callbackContext);
             return true;
         } else if (action.equals("sendString")) {
             String data = args.getString(0);
-            this.sendString(data, callbackContext);
+            this.sendString(findPort(args, 1, callbackContext), data, callbackContext);
             return true;
         } else if (action.equals("close")) {
-            this.closeSerialPort(callbackContext);
+            this.closeSerialPort(findPort(args, 0, callbackContext), callbackContext);
             return true;
         }
         return false;
     }
 
-    private void initSerialPort(String port, int baudRate, int intervalSleep, boolean enableLog, 
-                                String logTag, int databits, int parity, int stopbits, int strategy,
-                                CallbackContext callbackContext) {
+    /**
+     * 按参数中的端口 id 查找端口，省略时返回默认端口；id 未打开时回调错误并返回 null
+     */
+    private Port findPort(JSONArray args, int index, CallbackContext callbackContext) {
+        String id = args.isNull(index) ? "" : args.optString(index, "");
+        if (id.isEmpty()) {
+            return defaultPort;
+        }
+        Port port = ports.get(id);
+        if (port == null) {
+            callbackContext.error("Serial port is not open: " + id);
+        }
+        return port;
+    }
+
+    private PortConfig parsePortConfig(JSONObject options) throws JSONException {
+        PortConfig config = new PortConfig();
+        config.path = options.getString("port");
+        config.baudRate = options.getInt("baudRate");
+        config.databits = options.optInt("databits", config.databits);
+        config.parity = options.optInt("parity", config.parity);
+        config.stopbits = options.optInt("stopbits", config.stopbits);
+        config.intervalSleep = options.optInt("intervalSleep", config.intervalSleep);
+        config.readMode = options.optString("readMode", config.readMode);
+        config.readTimeoutMs = options.optInt("readTimeoutMs", config.readTimeoutMs);
+        config.backend = options.optString("backend", config.backend);
+        config.enableLog = options.optBoolean("enableLog", config.enableLog);
+        config.logTag = options.optString("logTag", config.logTag);
+        config.strategy = options.optInt("strategy", config.strategy);
+        return config;
+    }
+
+    private SerialConnection createConnection(PortConfig config) {
+        if (PortConfig.BACKEND_LIBRARY.equals(config.backend)) {
+            return new LibraryConnection(config, cordova.getActivity().getApplication());
+        }
+        return new TtyConnection(config);
+    }
+
+    private void initSerialPort(PortConfig config, CallbackContext callbackContext) {
         cordova.getThreadPool().execute(() -> {
+            Port owner = ports.get(config.path);
+            if (owner != null && owner != defaultPort) {
+                callbackContext.error("Serial port is already open: " + config.path);
+                return;
+            }
+            // 如果已经初始化，先关闭之前的串口；Modbus 主站关闭并还原端口配置，下次使用时按新的波特率重新创建
+            defaultPort.closeModbus();
+            PortConfig previous = defaultPort.session.getConfig();
+            if (previous != null) {
+                ports.remove(previous.path, defaultPort);
+            }
             try {
-                // 如果已经初始化，先关闭之前的串口
-                if (isInitialized && serialPortManager != null) {
-                    try {
-                        serialPortManager.closeSerialPort();
-                    } catch (Exception e) {
-                        // 忽略关闭时的错误，继续重新初始化
-                    }
-                    serialPortManager = null;
-                    readCallback = null;
-                }
-
-                // 配置串口参数
-                try {
-                    new SimpleSerialPortManager.QuickConfig()
-                        .setIntervalSleep(intervalSleep)
-                        .setEnableLog(enableLog)
-                        .setLogTag(logTag)
-                        .setDatabits(databits)
-                        .setParity(parity)
-                        .setStopbits(stopbits)
-                        .setStickyPacketStrategy(SimpleSerialPortManager.StickyPacketStrategy.values()[strategy])
-                        .apply(cordova.getActivity().getApplication());
-                } catch (Exception configException) {
-                    isInitialized = false;
-                    callbackContext.error("Failed to configure serial port: " + configException.getMessage());
-                    return;
+                defaultPort.session.open(config, createConnection(config));
+                ports.put(config.path, defaultPort);
+                activePort = defaultPort;
+                callbackContext.success("Serial port initialized and opened successfully");
+            } catch (IOException e) {
+                if (activePort == defaultPort) {
+                    activePort = null;
                 }
+                callbackContext.error(e.getMessage());
+            }
+        });
+    }
 
-                // 打开串口
-                serialPortManager = SimpleSerialPortManager.getInstance();
-                boolean openResult = serialPortManager.openSerialPort(port, baudRate, data -> {
-                    // 数据接收回调，如果有监听器则推送数据
-                    CallbackContext currentCallback = readCallback;
-                    if (currentCallback != null) {
-                        String hex = bytesToHex(data);
-                        PluginResult dataResult = new PluginResult(PluginResult.Status.OK, hex);
-                        dataResult.setKeepCallback(true);
-                        currentCallback.sendPluginResult(dataResult);
-                    }
-                });
-                
-                if (openResult) {
-                    isInitialized = true;
-                    callbackContext.success("Serial port initialized and opened successfully");
-                } else {
-                    isInitialized = false;
-                    serialPortManager = null;
-                    callbackContext.error("Failed to open serial port: " + port + " at " + baudRate);
-                }
-            } catch (Exception e) {
-                isInitialized = false;
+    /**
+     * 打开一个独立端口，成功回调参数为端口 id（设备路径）
+     */
+    private void openPort(PortConfig config, CallbackContext callbackContext) {
+        cordova.getThreadPool().execute(() -> {
+            Port port = new Port();
+            if (ports.putIfAbsent(config.path, port) != null) {
+                callbackContext.error("Serial port is already open: " + config.path);
+                return;
+            }
+            try {
+                port.session.open(config, createConnection(config));
+                callbackContext.success(config.path);
+            } catch (IOException e) {
+                ports.remove(config.path, port);
+                port.session.dispose();
                 callbackContext.error(e.getMessage());
             }
         });
     }
 
-    private void setDataListener(CallbackContext callbackContext) {
+    private void listPorts(CallbackContext callbackContext) {
+        JSONArray result = new JSONArray();
+        try {
+            for (Map.Entry<String, Port> entry : ports.entrySet()) {
+                PortConfig config = entry.getValue().session.getConfig();
+                if (config == null) {
+                    // 正在打开
+                    continue;
+                }
+                JSONObject item = new JSONObject();
+                item.put("id", entry.getKey());
+                item.put("baudRate", config.baudRate);
+                item.put("backend", config.backend);
+                item.put("default", entry.getValue() == defaultPort);
+                result.put(item);
+            }
+        } catch (JSONException e) {
+            callbackContext.error(e.getMessage());
+            return;
+        }
+        callbackContext.success(result);
+    }
+
+    private static void sendMultipart(CallbackContext callbackContext, PluginResult data, JSONObject packets) {
+        List<PluginResult> parts = new ArrayList<>(2);
+        parts.add(data);
+        parts.add(new PluginResult(PluginResult.Status.OK, packets));
+        PluginResult result = new PluginResult(PluginResult.Status.OK, parts);
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    /**
+     * 设置原生分帧，options 为 null 或 type=none 时关闭
+     */
+    private void setFramer(Port port, JSONObject options, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
+        if (options == null || "none".equals(options.optString("type", "none"))) {
+            port.session.setFramer(null);
+            callbackContext.success("Framer disabled");
+            return;
+        }
+        try {
+            port.session.setFramer(FrameParser.create(parseFramerConfig(options)));
+            callbackContext.success("Framer enabled: " + options.optString("type"));
+        } catch (JSONException | IllegalArgumentException e) {
+            callbackContext.error("Invalid framer options: " + e.getMessage());
+        }
+    }
+
+    private FrameParser.Config parseFramerConfig(JSONObject options) throws JSONException {
+        FrameParser.Config config = new FrameParser.Config();
+        config.type = options.getString("type");
+        config.header = optBytes(options, "header");
+        config.lengthOffset = options.optInt("lengthOffset", config.lengthOffset);
+        config.lengthSize = options.optInt("lengthSize", config.lengthSize);
+        config.lengthLittleEndian = "little".equals(options.optString("lengthEndian", "big"));
+        if (options.has("lengthAdjust")) {
+            config.lengthAdjust = options.getInt("lengthAdjust");
+        }
+        config.start = optBytes(options, "start");
+        config.end = optBytes(options, "end");
+        config.maxLength = options.optInt("maxLength", config.maxLength);
+        config.checksum = options.optString("checksum", config.checksum).toLowerCase();
+        if (options.has("checksumEndian")) {
+            config.checksumLittleEndian = "little".equals(options.getString("checksumEndian"));
+        }
+        config.checksumStart = options.optInt("checksumStart", config.checksumStart);
+        return config;
+    }
+
+    // 字节参数支持 hex 字符串（"AA55"）或数字数组（[0xAA, 0x55]）
+    private byte[] optBytes(JSONObject options, String key) throws JSONException {
+        JSONArray array = options.optJSONArray(key);
+        if (array != null) {
+            byte[] bytes = new byte[array.length()];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) array.getInt(i);
+            }
+            return bytes;
+        }
+        return hexToBytes(options.optString(key, ""));
+    }
+
+    /**
+     * 设置接收合并窗口，options 为 null 或 enabled=false 时关闭
+     */
+    private void setCoalescing(Port port, JSONObject options, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
+        if (options == null || !options.optBoolean("enabled", true)) {
+            port.session.setCoalescing(null);
+        } else {
+            RxCoalescer.Config config = new RxCoalescer.Config();
+            config.maxBytes = options.optInt("maxBytes", config.maxBytes);
+            config.maxDelayMs = options.optInt("maxDelayMs", config.maxDelayMs);
+            config.maxPackets = options.optInt("maxPackets", config.maxPackets);
+            port.session.setCoalescing(config);
+        }
+        callbackContext.success(port.session.isCoalescing() ? "Coalescing enabled" : "Coalescing disabled");
+    }
+
+    /**
+     * 原生层直接写入字节帧（供其他插件通过反射调用），写入 init 打开的端口
+     * 帧进入端口写队列，阻塞到实际写出，最多等待 WRITE_FRAME_TIMEOUT_MS
+     *
+     * @return 串口未打开、写入失败或等待超时（帧仍在队列中）时返回 false
+     */
+    public static boolean writeFrame(byte[] data) {
+        Port port = activePort;
+        return port != null && writeQuietly(port, data);
+    }
+
+    /**
+     * 原生层直接写入指定端口
+     *
+     * @param portId 端口 id（设备路径）
+     * @return 端口未打开、写入失败或等待超时时返回 false
+     */
+    public static boolean writeFrame(String portId, byte[] data) {
+        Port port = ports.get(portId);
+        return port != null && writeQuietly(port, data);
+    }
+
+    private static boolean writeQuietly(Port port, byte[] data) {
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean[] written = new boolean[1];
+        try {
+            port.session.send(data, new SerialWriter.Callback() {
+                @Override
+                public void onComplete(int bytes) {
+                    written[0] = true;
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(String message) {
+                    done.countDown();
+                }
+            });
+            return done.await(WRITE_FRAME_TIMEOUT_MS, TimeUnit.MILLISECONDS) && written[0];
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void setDataListener(Port port, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
         // 设置数据接收监听回调
-        this.readCallback = callbackContext;
+        port.readCallback = callbackContext;
         // 返回成功并保持回调，以便后续持续推送数据
         PluginResult successResult = new PluginResult(PluginResult.Status.OK, "Data listener set");
         successResult.setKeepCallback(true);
         callbackContext.sendPluginResult(successResult);
     }
  
+    private void setBinaryListener(Port port, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
+        port.binaryCallback = callbackContext;
+        // 不发送初始消息，回调只会收到 ArrayBuffer
+        PluginResult noResult = new PluginResult(PluginResult.Status.NO_RESULT);
+        noResult.setKeepCallback(true);
+        callbackContext.sendPluginResult(noResult);
+    }
+
     // 将字节数组转换为大写十六进制字符串（无空格），例如: 0x0A -> "0A"
-    private String bytesToHex(byte[] bytes) {
+    private static String bytesToHex(byte[] bytes) {
         if (bytes == null || bytes.length == 0) {
             return "";
         }
@@ -152,57 +596,290 @@ public class SerialPortPlugin extends CordovaPlugin {
     /**
      * 发送字节数组（hex 字符串转换为字节数组）
      */
-    private void sendBytes(String hexData, CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(() -> {
-            try {
-                if (!isInitialized || serialPortManager == null) {
-                    callbackContext.error("Serial port is not initialized. Please call init() first.");
-                    return;
-                }
-                // 将 hex 字符串转换为字节数组
-                byte[] bytes = hexToBytes(hexData);
-                // 使用 sendData(byte[]) 方法发送字节数组
-                serialPortManager.sendData(bytes);
-                callbackContext.success("Bytes sent successfully");
-            } catch (Exception e) {
-                callbackContext.error("Failed to send bytes: " + e.getMessage());
+    private void sendBytes(Port port, String hexData, CallbackContext callbackContext) {
+        // 将 hex 字符串转换为字节数组
+        enqueue(port, new byte[][]{hexToBytes(hexData)}, "Failed to send bytes: ", callbackContext, "Bytes sent successfully");
+    }
+
+    /**
+     * 发送二进制数据（JS 侧 ArrayBuffer，无 hex 编解码）
+     */
+    private void sendBinary(Port port, byte[] data, CallbackContext callbackContext) {
+        enqueue(port, new byte[][]{data}, "Failed to send binary: ", callbackContext, null);
+    }
+
+    /**
+     * 批量发送：data 为各帧首尾相接的字节，lengths 为各帧长度，按顺序写出，帧间隔对每帧生效
+     */
+    private void sendMany(Port port, byte[] data, JSONArray lengths, CallbackContext callbackContext) throws JSONException {
+        byte[][] frames = new byte[lengths.length()][];
+        int offset = 0;
+        for (int i = 0; i < frames.length; i++) {
+            int length = lengths.getInt(i);
+            if (length < 0 || offset + length > data.length) {
+                callbackContext.error("Frame lengths exceed data length");
+                return;
             }
-        });
+            frames[i] = new byte[length];
+            System.arraycopy(data, offset, frames[i], 0, length);
+            offset += length;
+        }
+        enqueue(port, frames, "Failed to send frames: ", callbackContext, null);
     }
 
     /**
-     * 发送字符串
+     * 发送字符串（UTF-8 编码）
      */
-    private void sendString(String data, CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(() -> {
-            try {
-                if (!isInitialized || serialPortManager == null) {
-                    callbackContext.error("Serial port is not initialized. Please call init() first.");
-                    return;
+    private void sendString(Port port, String data, CallbackContext callbackContext) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        enqueue(port, new byte[][]{bytes}, "Failed to send string: ", callbackContext, "String sent successfully");
+    }
+
+    /**
+     * 加入端口写队列，写出后回调 successMessage（为 null 时回调字节数）
+     */
+    private void enqueue(Port port, byte[][] frames, String errorPrefix, CallbackContext callbackContext, String successMessage) {
+        if (port == null) {
+            return;
+        }
+        try {
+            port.session.sendMany(frames, new SerialWriter.Callback() {
+                @Override
+                public void onComplete(int bytes) {
+                    if (successMessage != null) {
+                        callbackContext.success(successMessage);
+                    } else {
+                        callbackContext.success(bytes);
+                    }
                 }
-                // 直接使用 sendData(String) 方法发送字符串
-                serialPortManager.sendData(data);
-                callbackContext.success("String sent successfully");
-            } catch (Exception e) {
-                callbackContext.error("Failed to send string: " + e.getMessage());
+
+                @Override
+                public void onError(String message) {
+                    callbackContext.error(errorPrefix + message);
+                }
+            });
+        } catch (IOException e) {
+            callbackContext.error("Serial port is not initialized. Please call init() first.");
+        }
+    }
+
+    /**
+     * 发送请求并在原生层等待匹配的应答，成功回调参数为应答帧（ArrayBuffer）
+     */
+    private void transact(Port port, byte[] request, MatchRule rule, long timeoutMs, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
+        try {
+            port.session.transact(request, rule, timeoutMs, new TransactionQueue.Callback() {
+                @Override
+                public void onResponse(byte[] response) {
+                    callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, response));
+                }
+
+                @Override
+                public void onError(String message) {
+                    callbackContext.error(message);
+                }
+            });
+        } catch (IOException e) {
+            callbackContext.error("Serial port is not initialized. Please call init() first.");
+        }
+    }
+
+    // 匹配规则：{ minLength, bytes: [{ offset, value, mask }], echo: [{ offset, length, requestOffset }] }
+    private MatchRule parseMatchRule(JSONObject options) throws JSONException {
+        MatchRule rule = new MatchRule();
+        if (options == null) {
+            return rule;
+        }
+        rule.minLength = options.optInt("minLength", rule.minLength);
+        JSONArray bytes = options.optJSONArray("bytes");
+        for (int i = 0; bytes != null && i < bytes.length(); i++) {
+            JSONObject item = bytes.getJSONObject(i);
+            MatchRule.Bytes field = new MatchRule.Bytes();
+            field.offset = item.getInt("offset");
+            field.value = optBytes(item, "value");
+            field.mask = optBytes(item, "mask");
+            rule.bytes.add(field);
+        }
+        JSONArray echoes = options.optJSONArray("echo");
+        for (int i = 0; echoes != null && i < echoes.length(); i++) {
+            JSONObject item = echoes.getJSONObject(i);
+            MatchRule.Echo echo = new MatchRule.Echo();
+            echo.offset = item.getInt("offset");
+            echo.length = item.optInt("length", echo.length);
+            echo.requestOffset = item.optInt("requestOffset", echo.offset);
+            rule.echoes.add(echo);
+        }
+        return rule;
+    }
+
+    /**
+     * Modbus 单次请求，成功回调参数为值数组（见 ModbusRtu.parseResponse）
+     */
+    private void modbusRequest(Port port, JSONObject options, CallbackContext callbackContext) throws JSONException {
+        if (port == null) {
+            return;
+        }
+        JSONArray valueArray = options.optJSONArray("values");
+        int[] values = new int[valueArray != null ? valueArray.length() : 0];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueArray.getInt(i);
+        }
+        try {
+            port.modbus().request(options.optInt("slave", 1), options.getInt("function"), options.getInt("address"),
+                    options.optInt("quantity", 1), values, options.optInt("timeoutMs", 500), new ModbusMaster.Callback() {
+                        @Override
+                        public void onResult(int[] result) {
+                            JSONArray array = new JSONArray();
+                            for (int value : result) {
+                                array.put(value);
+                            }
+                            callbackContext.success(array);
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            callbackContext.error(message);
+                        }
+                    });
+        } catch (IOException | IllegalArgumentException e) {
+            callbackContext.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 开始 Modbus 轮询，变化经 modbusListen 推送
+     */
+    private void modbusPoll(Port port, JSONObject options, CallbackContext callbackContext) throws JSONException {
+        if (port == null) {
+            return;
+        }
+        ModbusMaster.Poll poll = new ModbusMaster.Poll();
+        poll.id = options.getString("id");
+        poll.slave = options.optInt("slave", poll.slave);
+        poll.function = options.optInt("function", poll.function);
+        poll.address = options.getInt("address");
+        poll.quantity = options.optInt("quantity", poll.quantity);
+        poll.intervalMs = options.optInt("intervalMs", poll.intervalMs);
+        poll.timeoutMs = options.optInt("timeoutMs", poll.timeoutMs);
+        try {
+            port.modbus().startPoll(poll);
+            callbackContext.success("Poll started: " + poll.id);
+        } catch (IOException | IllegalArgumentException e) {
+            callbackContext.error(e.getMessage());
+        }
+    }
+
+    private JSONObject statsJson(Port port, PortStats.RateWindow window) throws JSONException {
+        JSONObject stats = port.session.statsJson(window);
+        PortConfig config = port.session.getConfig();
+        stats.put("port", config != null ? config.path : JSONObject.NULL);
+        return stats;
+    }
+
+    /**
+     * 每 intervalMs 推送一次指标，intervalMs 不大于 0 时停止
+     */
+    private void watchStats(Port port, int intervalMs, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
+        port.stopStatsWatch();
+        if (intervalMs <= 0) {
+            callbackContext.success("Stats watch stopped");
+            return;
+        }
+        ScheduledExecutorService scheduler;
+        synchronized (this) {
+            if (statsScheduler == null) {
+                statsScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "SerialStats");
+                    thread.setDaemon(true);
+                    return thread;
+                });
             }
-        });
+            scheduler = statsScheduler;
+        }
+        // 推送使用独立的速率快照，与 getStats 互不切分区间
+        PortStats.RateWindow window = port.session.getStats().newRateWindow();
+        synchronized (port) {
+            port.statsFuture = scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    PluginResult result = new PluginResult(PluginResult.Status.OK, statsJson(port, window));
+                    result.setKeepCallback(true);
+                    callbackContext.sendPluginResult(result);
+                } catch (JSONException e) {
+                    // 只包含数字与字符串，不会出错
+                }
+            }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 设置写队列：帧间隔与相邻小数据合并
+     */
+    private void setWriter(Port port, JSONObject options, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
+        SerialWriter.Config config = new SerialWriter.Config();
+        if (options != null) {
+            config.gapMs = (float) options.optDouble("gapMs", config.gapMs);
+            config.coalesce = options.optBoolean("coalesce", config.coalesce);
+            config.coalesceMaxBytes = options.optInt("coalesceMaxBytes", config.coalesceMaxBytes);
+        }
+        port.session.setWriterConfig(config);
+        callbackContext.success("Writer configured");
     }
 
-    private void closeSerialPort(CallbackContext callbackContext) {
+    private void closeSerialPort(Port port, CallbackContext callbackContext) {
+        if (port == null) {
+            return;
+        }
         cordova.getThreadPool().execute(() -> {
             try {
-                if (serialPortManager != null) {
-                    serialPortManager.closeSerialPort();
+                PortConfig config = port.session.getConfig();
+                if (config != null) {
+                    ports.remove(config.path, port);
+                }
+                // 关闭时清理状态：停止 Modbus 轮询，丢弃未完成的半帧，合并窗口中剩余的数据先推送出去
+                port.closeModbus();
+                port.stopStatsWatch();
+                if (port == defaultPort) {
+                    port.session.close();
+                    if (activePort == port) {
+                        activePort = null;
+                    }
+                } else {
+                    port.session.dispose();
                 }
-                // 关闭时清理状态
-                serialPortManager = null;
-                readCallback = null;
-                isInitialized = false;
+                port.readCallback = null;
+                port.binaryCallback = null;
                 callbackContext.success("Serial port closed successfully");
             } catch (Exception e) {
                 callbackContext.error(e.getMessage());
             }
         });
     }
-}
\ No newline at end of file
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        for (Port port : ports.values()) {
+            port.closeModbus();
+            port.session.dispose();
+        }
+        ports.clear();
+        activePort = null;
+        defaultPort.closeModbus();
+        defaultPort.session.dispose();
+        synchronized (this) {
+            if (statsScheduler != null) {
+                statsScheduler.shutdownNow();
+                statsScheduler = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.yy.serialport;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * 一个串口端口的运行状态：连接、写队列、分帧、接收合并与监听器。
+ * 分帧、合并与写队列配置在端口关闭后保留，重新打开时继续生效
+ */
+public class SerialPortSession {
+
+    /**
+     * 数据回调（在读线程或合并定时线程调用）
+     */
+    public interface Listener {
+        void onData(byte[] data);
+
+        void onBatch(byte[] data, int[] lengths, long[] timestamps);
+    }
+
+    private final Listener listener;
+    private final PortStats stats = new PortStats();
+    // 当前数据块的接收时刻，只在读线程使用
+    private long receivedAt;
+    private volatile PortConfig config;
+    private volatile SerialConnection connection;
+    // 写队列，所有写入按提交顺序由同一线程写出
+    private volatile SerialWriter writer;
+    private volatile SerialWriter.Config writerConfig = new SerialWriter.Config();
+    // 请求/应答事务，匹配的应答帧不再推送给监听器
+    private volatile TransactionQueue transactions;
+    private volatile int maxInFlight = 1;
+    // 原生分帧，为 null 时按读到的数据块原样推送
+    private volatile FrameParser framer;
+    // 接收合并，为 null 时每个数据块单独回调
+    private volatile RxCoalescer coalescer;
+
+    private final FrameParser.Sink framerSink = new FrameParser.Sink() {
+        @Override
+        public void onFrame(byte[] frame) {
+            dispatch(frame);
+        }
+
+        @Override
+        public void onError(String reason, int droppedBytes) {
+            // 校验失败或残缺的数据直接丢弃，不推送给监听器，只计入统计
+            stats.increment(PortStats.FRAME_ERRORS + reason);
+            stats.add(PortStats.FRAME_DROPPED_BYTES, droppedBytes);
+        }
+    };
+
+    public SerialPortSession(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 打开端口，已打开时先关闭原连接
+     */
+    public synchronized void open(PortConfig config, SerialConnection connection) throws IOException {
+        close();
+        connection.open(this::onReceive);
+        this.config = config;
+        this.connection = connection;
+        this.writer = new SerialWriter(config.path, connection::write, config.charNanos(), writerConfig, stats);
+        this.transactions = new TransactionQueue(config.path, this::send, stats);
+        transactions.setMaxInFlight(maxInFlight);
+    }
+
+    public boolean isOpen() {
+        return connection != null;
+    }
+
+    public PortConfig getConfig() {
+        return config;
+    }
+
+    public SerialConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * 加入写队列，不等待写出
+     *
+     * @throws IOException 端口未打开
+     */
+    public void write(byte[] data) throws IOException {
+        send(data, null);
+    }
+
+    /**
+     * 加入写队列，写出后回调
+     *
+     * @throws IOException 端口未打开
+     */
+    public void send(byte[] data, SerialWriter.Callback callback) throws IOException {
+        sendMany(new byte[][]{data}, callback);
+    }
+
+    /**
+     * 按顺序加入多帧，全部写出后回调一次
+     *
+     * @throws IOException 端口未打开
+     */
+    public void sendMany(byte[][] frames, SerialWriter.Callback callback) throws IOException {
+        SerialWriter currentWriter = writer;
+        if (currentWriter == null) {
+            throw new IOException("Serial port is not open");
+        }
+        currentWriter.enqueue(frames, callback);
+    }
+
+    /**
+     * 发送请求并等待匹配的应答帧（开启分帧时按帧匹配，否则按读到的数据块匹配）
+     *
+     * @param timeoutMs 从请求写出开始计时
+     * @throws IOException 端口未打开
+     */
+    public void transact(byte[] request, MatchRule rule, long timeoutMs, TransactionQueue.Callback callback)
+            throws IOException {
+        TransactionQueue currentTransactions = transactions;
+        if (currentTransactions == null) {
+            throw new IOException("Serial port is not open");
+        }
+        currentTransactions.submit(request, rule, timeoutMs, callback);
+    }
+
+    /**
+     * 设置同时等待应答的事务数，协议支持流水线（按地址或序号区分应答）时可大于 1
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        TransactionQueue currentTransactions = transactions;
+        if (currentTransactions != null) {
+            currentTransactions.setMaxInFlight(maxInFlight);
+        }
+    }
+
+    /**
+     * 设置写队列的合并与帧间隔
+     */
+    public SerialWriter.Config getWriterConfig() {
+        return writerConfig;
+    }
+
+    public void setWriterConfig(SerialWriter.Config config) {
+        this.writerConfig = config;
+        SerialWriter currentWriter = writer;
+        if (currentWriter != null) {
+            currentWriter.setConfig(config);
+        }
+    }
+
+    /**
+     * 设置分帧，framer 为 null 时关闭
+     */
+    public FrameParser getFramer() {
+        return framer;
+    }
+
+    public void setFramer(FrameParser framer) {
+        this.framer = framer;
+    }
+
+    /**
+     * 设置接收合并，config 为 null 时关闭；原窗口中的数据先推送
+     */
+    public void setCoalescing(RxCoalescer.Config config) {
+        RxCoalescer previous = coalescer;
+        coalescer = config != null ? new RxCoalescer(config, this::deliverBatch) : null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    public boolean isCoalescing() {
+        return coalescer != null;
+    }
+
+    public PortStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 导出指标，附带当前写队列与事务队列深度
+     */
+    public JSONObject statsJson() throws JSONException {
+        return statsJson(null);
+    }
+
+    /**
+     * 导出指标，速率按 window 上次读取以来计算；window 为 null 时使用 getStats 的快照
+     */
+    public JSONObject statsJson(PortStats.RateWindow window) throws JSONException {
+        PortConfig currentConfig = config;
+        long charNanos = currentConfig != null && isOpen() ? currentConfig.charNanos() : 0;
+        JSONObject result = window != null ? stats.toJson(charNanos, window) : stats.toJson(charNanos);
+        SerialWriter currentWriter = writer;
+        TransactionQueue currentTransactions = transactions;
+        JSONObject queues = new JSONObject();
+        queues.put("write", currentWriter != null ? currentWriter.pending() : 0);
+        queues.put("transactInFlight", currentTransactions != null ? currentTransactions.inFlight() : 0);
+        queues.put("transactWaiting", currentTransactions != null ? currentTransactions.waiting() : 0);
+        result.put("queues", queues);
+        result.put("open", isOpen());
+        return result;
+    }
+
+    /**
+     * 关闭连接：未完成的事务以错误结束，写队列中已提交的数据先写出，丢弃未完成的半帧，合并窗口中剩余的数据先推送
+     */
+    public synchronized void close() {
+        TransactionQueue currentTransactions = transactions;
+        transactions = null;
+        if (currentTransactions != null) {
+            currentTransactions.close();
+        }
+        SerialWriter currentWriter = writer;
+        writer = null;
+        if (currentWriter != null) {
+            currentWriter.close();
+        }
+        SerialConnection currentConnection = connection;
+        connection = null;
+        if (currentConnection != null) {
+            currentConnection.close();
+        }
+        FrameParser currentFramer = framer;
+        if (currentFramer != null) {
+            synchronized (currentFramer) {
+                currentFramer.reset();
+            }
+        }
+        RxCoalescer currentCoalescer = coalescer;
+        if (currentCoalescer != null) {
+            currentCoalescer.flush();
+        }
+    }
+
+    /**
+     * 关闭连接并停止合并定时线程，之后不再使用
+     */
+    public void dispose() {
+        close();
+        setCoalescing(null);
+    }
+
+    private void onReceive(byte[] data) {
+        receivedAt = System.nanoTime();
+        SerialWriter currentWriter = writer;
+        if (currentWriter != null) {
+            currentWriter.noteReceive(receivedAt);
+        }
+        stats.add(PortStats.RX_BYTES, data.length);
+        stats.increment(PortStats.RX_CHUNKS);
+        FrameParser currentFramer = framer;
+        if (currentFramer == null) {
+            dispatch(data);
+            return;
+        }
+        synchronized (currentFramer) {
+            currentFramer.push(data, 0, data.length, framerSink);
+        }
+    }
+
+    private void dispatch(byte[] data) {
+        stats.increment(PortStats.RX_FRAMES);
+        TransactionQueue currentTransactions = transactions;
+        if (currentTransactions != null && currentTransactions.onFrame(data)) {
+            return;
+        }
+        RxCoalescer currentCoalescer = coalescer;
+        if (currentCoalescer != null) {
+            currentCoalescer.offer(data, System.currentTimeMillis());
+        } else {
+            listener.onData(data);
+            // 投递延迟：从读到数据到交给监听器完成（含分帧与回调）
+            stats.recordSince(PortStats.RX_DELIVERY_LATENCY, receivedAt);
+        }
+    }
+
+    private void deliverBatch(byte[] data, int[] lengths, long[] timestamps) {
+        listener.onBatch(data, lengths, timestamps);
+        // 合并时投递延迟从窗口内第一个数据块到达算起
+        stats.record(PortStats.RX_DELIVERY_LATENCY, System.currentTimeMillis() - timestamps[0]);
+    }
+}
@@ -0,0 +1,250 @@
+package com.yy.serialport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 串口写队列
+ * 每个端口一个写线程，按提交顺序写入；可把相邻的小数据合并为一次写入，或在帧之间保持固定间隔。
+ * 帧间隔从上一帧按波特率估算的发送结束时刻算起
+ */
+public class SerialWriter {
+
+    /**
+     * 写队列配置
+     */
+    public static class Config {
+        // 帧间隔（毫秒），从线路上最后一次收或发起算，大于 0 时不做合并
+        public float gapMs = 0;
+        // 合并相邻的小数据为一次写入
+        public boolean coalesce = false;
+        // 单次合并写入的字节数上限
+        public int coalesceMaxBytes = 256;
+    }
+
+    /**
+     * 写入结果回调（在写线程调用）
+     */
+    public interface Callback {
+        void onComplete(int bytes);
+
+        void onError(String message);
+    }
+
+    /**
+     * 实际写出
+     */
+    public interface Output {
+        void write(byte[] data) throws IOException;
+    }
+
+    private static class Item {
+        final byte[][] frames;
+        final int size;
+        final Callback callback;
+        final long enqueuedAt = System.nanoTime();
+
+        Item(byte[][] frames, Callback callback) {
+            int total = 0;
+            for (byte[] frame : frames) {
+                total += frame.length;
+            }
+            this.frames = frames;
+            this.size = total;
+            this.callback = callback;
+        }
+    }
+
+    private static final Item STOP = new Item(new byte[0][], null);
+
+    private final Output output;
+    private final long charNanos;
+    private final PortStats stats;
+    private final LinkedBlockingQueue<Item> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile Config config;
+    private volatile boolean closed;
+    // 上一次写入的数据按波特率估算发送完毕的时刻
+    private long lineIdleAt;
+    // 最近一次收到数据的时刻（接收线程写入）
+    private volatile long lastRxAt;
+
+    /**
+     * @param charNanos 每个字符在线路上的时长（纳秒），用于计算帧间隔
+     */
+    public SerialWriter(String name, Output output, long charNanos, Config config, PortStats stats) {
+        this.output = output;
+        this.charNanos = charNanos;
+        this.stats = stats;
+        this.config = config;
+        this.lineIdleAt = System.nanoTime();
+        this.lastRxAt = lineIdleAt;
+        this.thread = new Thread(this::run, "SerialWrite-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void setConfig(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * 记录收到数据的时刻（接收线程调用）：帧间隔从线路上最后一次收或发起算，
+     * 主站收到应答后发下一个请求前同样保持 gapMs 的静默
+     */
+    public void noteReceive(long nanos) {
+        lastRxAt = nanos;
+    }
+
+    public void enqueue(byte[] data, Callback callback) {
+        enqueue(new byte[][]{data}, callback);
+    }
+
+    /**
+     * 一次提交多帧，按顺序写出，全部写完后回调一次（字节数为总和）
+     */
+    public void enqueue(byte[][] frames, Callback callback) {
+        Item item = new Item(frames, callback);
+        if (closed) {
+            stats.increment(PortStats.TX_REJECTED);
+            fail(item, "Serial port closed");
+            return;
+        }
+        queue.add(item);
+    }
+
+    /**
+     * 队列中尚未写出的数据数
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * 停止写线程，未写出的数据以错误回调
+     */
+    public void close() {
+        closed = true;
+        queue.add(STOP);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Item item = queue.take();
+                if (item == STOP) {
+                    break;
+                }
+                Config current = config;
+                if (current.coalesce && current.gapMs <= 0) {
+                    writeCoalesced(item, current);
+                } else {
+                    writeFrames(item, current);
+                }
+            }
+        } catch (InterruptedException e) {
+            // 退出
+        }
+        Item item;
+        while ((item = queue.poll()) != null) {
+            stats.increment(PortStats.TX_REJECTED);
+            fail(item, "Serial port closed");
+        }
+    }
+
+    private void writeFrames(Item item, Config current) {
+        long gapNanos = (long) (current.gapMs * 1_000_000L);
+        try {
+            for (byte[] frame : item.frames) {
+                if (gapNanos > 0) {
+                    long rxAt = lastRxAt;
+                    long idleAt = rxAt - lineIdleAt > 0 ? rxAt : lineIdleAt;
+                    waitUntil(idleAt + gapNanos);
+                }
+                writeOut(frame);
+            }
+        } catch (IOException e) {
+            stats.increment(PortStats.TX_ERRORS);
+            fail(item, e.getMessage());
+            return;
+        }
+        complete(item);
+    }
+
+    /**
+     * 把队列中紧随其后的数据一并取出，合并为一次写入
+     */
+    private void writeCoalesced(Item first, Config current) {
+        if (first.size >= current.coalesceMaxBytes) {
+            writeFrames(first, current);
+            return;
+        }
+        List<Item> items = new ArrayList<>();
+        items.add(first);
+        int total = first.size;
+        Item next;
+        while ((next = queue.peek()) != null && next != STOP && total + next.size <= current.coalesceMaxBytes) {
+            items.add(queue.poll());
+            total += next.size;
+        }
+        byte[] merged = new byte[total];
+        int offset = 0;
+        for (Item item : items) {
+            for (byte[] frame : item.frames) {
+                System.arraycopy(frame, 0, merged, offset, frame.length);
+                offset += frame.length;
+            }
+        }
+        try {
+            writeOut(merged);
+        } catch (IOException e) {
+            stats.increment(PortStats.TX_ERRORS);
+            for (Item item : items) {
+                fail(item, e.getMessage());
+            }
+            return;
+        }
+        for (Item item : items) {
+            complete(item);
+        }
+    }
+
+    private void writeOut(byte[] data) throws IOException {
+        output.write(data);
+        stats.increment(PortStats.TX_WRITES);
+        long now = System.nanoTime();
+        lineIdleAt = Math.max(now, lineIdleAt) + data.length * charNanos;
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private void complete(Item item) {
+        stats.add(PortStats.TX_BYTES, item.size);
+        stats.add(PortStats.TX_FRAMES, item.frames.length);
+        stats.recordSince(PortStats.TX_WRITE_LATENCY, item.enqueuedAt);
+        if (item.callback != null) {
+            item.callback.onComplete(item.size);
+        }
+    }
+
+    private static void fail(Item item, String message) {
+        if (item.callback != null) {
+            item.callback.onError(message);
+        }
+    }
+}
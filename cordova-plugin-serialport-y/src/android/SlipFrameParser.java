@@ -0,0 +1,95 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+
+/**
+ * SLIP 分帧（RFC 1055）：帧以 0xC0 结束，0xDB 0xDC / 0xDB 0xDD 分别转义 0xC0 / 0xDB。
+ * 输出去转义后的帧（含末尾校验值）
+ */
+class SlipFrameParser implements FrameParser {
+
+    static final int END = 0xC0;
+    static final int ESC = 0xDB;
+    static final int ESC_END = 0xDC;
+    static final int ESC_ESC = 0xDD;
+
+    private final Config config;
+    private final byte[] frame;
+    private int length;
+    private boolean escaping;
+    // 超长或转义错误后丢弃直到下一个 END
+    private boolean discarding;
+    private int discarded;
+    private String errorReason;
+
+    SlipFrameParser(Config config) {
+        this.config = config;
+        this.frame = new byte[config.maxLength];
+    }
+
+    @Override
+    public void push(byte[] data, int offset, int length, Sink sink) {
+        for (int i = offset; i < offset + length; i++) {
+            int b = data[i] & 0xFF;
+            if (b == END) {
+                endFrame(sink);
+                continue;
+            }
+            if (discarding) {
+                discarded++;
+                continue;
+            }
+            if (escaping) {
+                escaping = false;
+                if (b == ESC_END) {
+                    b = END;
+                } else if (b == ESC_ESC) {
+                    b = ESC;
+                } else {
+                    fail(ERROR_ENCODING, 2);
+                    continue;
+                }
+            } else if (b == ESC) {
+                escaping = true;
+                continue;
+            }
+            if (this.length == frame.length) {
+                fail(ERROR_OVERFLOW, 1);
+                continue;
+            }
+            frame[this.length++] = (byte) b;
+        }
+    }
+
+    private void fail(String reason, int bytes) {
+        discarding = true;
+        discarded = this.length + bytes;
+        errorReason = reason;
+        this.length = 0;
+    }
+
+    private void endFrame(Sink sink) {
+        if (discarding) {
+            sink.onError(errorReason, discarded);
+        } else if (escaping) {
+            sink.onError(ERROR_ENCODING, length + 1);
+        } else if (length > 0) {
+            // 空帧（连续 END）按 RFC 1055 忽略
+            if (Checksums.verify(config.checksum, config.checksumLittleEndian(), frame, 0, length)) {
+                sink.onFrame(Arrays.copyOf(frame, length));
+            } else {
+                sink.onError(ERROR_CHECKSUM, length);
+            }
+        }
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        length = 0;
+        escaping = false;
+        discarding = false;
+        discarded = 0;
+        errorReason = null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.yy.serialport;
+
+import java.util.Arrays;
+
+/**
+ * 分帧用的接收缓冲，数据位于 data[start, end)
+ */
+class StreamBuffer {
+
+    byte[] data;
+    int start;
+    int end;
+
+    StreamBuffer(int capacity) {
+        data = new byte[Math.max(16, capacity)];
+    }
+
+    int available() {
+        return end - start;
+    }
+
+    void append(byte[] source, int offset, int length) {
+        if (end + length > data.length) {
+            // 先把未处理数据移到开头，仍不够时扩容
+            int remaining = end - start;
+            if (remaining + length > data.length) {
+                data = Arrays.copyOfRange(data, start, start + Math.max(data.length * 2, remaining + length));
+            } else {
+                System.arraycopy(data, start, data, 0, remaining);
+            }
+            start = 0;
+            end = remaining;
+        }
+        System.arraycopy(source, offset, data, end, length);
+        end += length;
+    }
+
+    /**
+     * 从 from 开始查找 pattern，返回绝对下标，未找到返回 -1
+     */
+    int indexOf(byte[] pattern, int from) {
+        outer:
+        for (int i = from; i + pattern.length <= end; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    void clear() {
+        start = 0;
+        end = 0;
+    }
+}
@@ -0,0 +1,211 @@
+package com.yy.serialport;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求/应答事务
+ * 写出请求后在原生层等待匹配的应答帧，超时从请求写出时开始计时。
+ * 最多 maxInFlight 个事务同时等待应答（协议允许流水线时大于 1），其余排队；
+ * 收到的帧按提交顺序交给第一个匹配的事务，匹配的帧不再推送给监听器
+ */
+public class TransactionQueue {
+
+    /**
+     * 事务结果回调（在接收线程、写线程或超时线程调用）
+     */
+    public interface Callback {
+        void onResponse(byte[] response);
+
+        void onError(String message);
+    }
+
+    /**
+     * 发送请求
+     */
+    interface Sender {
+        void send(byte[] data, SerialWriter.Callback callback) throws IOException;
+    }
+
+    private class Transaction implements SerialWriter.Callback, Runnable {
+        final byte[] request;
+        final MatchRule rule;
+        final long timeoutMs;
+        final Callback callback;
+        ScheduledFuture<?> timeout;
+        boolean finished;
+        // 请求写出时刻，用于统计应答延迟
+        long sentAt = System.nanoTime();
+
+        Transaction(byte[] request, MatchRule rule, long timeoutMs, Callback callback) {
+            this.request = request;
+            this.rule = rule;
+            this.timeoutMs = timeoutMs;
+            this.callback = callback;
+        }
+
+        @Override
+        public void onComplete(int bytes) {
+            synchronized (TransactionQueue.this) {
+                if (!finished && !closed) {
+                    sentAt = System.nanoTime();
+                    timeout = scheduler.schedule(this, timeoutMs, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        @Override
+        public void onError(String message) {
+            // 端口已关闭时写队列在 sender.send 内同步回调，此时 pump 仍持有队列锁
+            postFailure(this, message);
+        }
+
+        // 超时
+        @Override
+        public void run() {
+            stats.increment(PortStats.TRANSACT_TIMEOUTS);
+            finish(this, null, "Transaction timed out after " + timeoutMs + " ms");
+        }
+    }
+
+    private final Sender sender;
+    private final PortStats stats;
+    private final ScheduledExecutorService scheduler;
+    private final ArrayDeque<Transaction> waiting = new ArrayDeque<>();
+    private final List<Transaction> inFlight = new ArrayList<>();
+    private int maxInFlight = 1;
+    private boolean closed;
+
+    TransactionQueue(String name, Sender sender, PortStats stats) {
+        this.sender = sender;
+        this.stats = stats;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SerialTransact-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        pump();
+    }
+
+    public void submit(byte[] request, MatchRule rule, long timeoutMs, Callback callback) {
+        Transaction transaction = new Transaction(request, rule, timeoutMs, callback);
+        synchronized (this) {
+            if (!closed) {
+                waiting.add(transaction);
+                pump();
+                return;
+            }
+        }
+        callback.onError("Serial port closed");
+    }
+
+    /**
+     * 在途事务数
+     */
+    public synchronized int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * 排队等待发送的事务数
+     */
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    /**
+     * 收到一帧：交给第一个匹配的在途事务
+     *
+     * @return 帧被事务消费时返回 true
+     */
+    public boolean onFrame(byte[] frame) {
+        Transaction matched = null;
+        synchronized (this) {
+            for (Transaction transaction : inFlight) {
+                if (transaction.rule.matches(transaction.request, frame)) {
+                    matched = transaction;
+                    break;
+                }
+            }
+        }
+        if (matched == null) {
+            return false;
+        }
+        finish(matched, frame, null);
+        return true;
+    }
+
+    /**
+     * 结束所有事务并停止超时线程
+     */
+    public void close() {
+        List<Transaction> pending = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            pending.addAll(inFlight);
+            pending.addAll(waiting);
+            inFlight.clear();
+            waiting.clear();
+        }
+        for (Transaction transaction : pending) {
+            finish(transaction, null, "Serial port closed");
+        }
+        scheduler.shutdownNow();
+    }
+
+    private void finish(Transaction transaction, byte[] response, String error) {
+        synchronized (this) {
+            if (transaction.finished) {
+                return;
+            }
+            transaction.finished = true;
+            if (transaction.timeout != null) {
+                transaction.timeout.cancel(false);
+            }
+            inFlight.remove(transaction);
+            pump();
+        }
+        stats.increment(PortStats.TRANSACT_COUNT);
+        if (response != null) {
+            stats.recordSince(PortStats.TRANSACT_LATENCY, transaction.sentAt);
+            transaction.callback.onResponse(response);
+        } else {
+            stats.increment(PortStats.TRANSACT_ERRORS);
+            transaction.callback.onError(error);
+        }
+    }
+
+    // 在锁内调用：在途事务未满时发送排队的请求
+    private void pump() {
+        while (!closed && inFlight.size() < maxInFlight && !waiting.isEmpty()) {
+            Transaction transaction = waiting.poll();
+            // 先登记为在途再发送，应答早于写完成回调到达时也能匹配
+            inFlight.add(transaction);
+            try {
+                sender.send(transaction.request, transaction);
+            } catch (IOException e) {
+                postFailure(transaction, e.getMessage());
+            }
+        }
+    }
+
+    // 发送失败在超时线程结束事务，用户回调（可能再次提交事务）不在队列锁内执行
+    private void postFailure(Transaction transaction, String error) {
+        try {
+            scheduler.execute(() -> finish(transaction, null, error));
+        } catch (RejectedExecutionException e) {
+            // 队列已关闭，close 已结束所有事务
+        }
+    }
+}
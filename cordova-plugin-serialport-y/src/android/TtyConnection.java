@@ -0,0 +1,164 @@
+package com.yy.serialport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于设备文件的串口实现：用 stty 配置参数，FileInputStream/FileOutputStream 直接读写，
+ * 每个端口一个读线程，可同时打开多个端口。
+ * 默认阻塞读取：termios 设为 VMIN=0、VTIME>0，read 在有数据时立即返回，空闲时最多阻塞 VTIME
+ */
+public class TtyConnection implements SerialConnection {
+
+    private final PortConfig config;
+    private FileInputStream input;
+    private FileOutputStream output;
+    private Thread readThread;
+    private volatile boolean running;
+
+    public TtyConnection(PortConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public void open(Receiver receiver) throws IOException {
+        configure();
+        input = new FileInputStream(config.path);
+        try {
+            output = new FileOutputStream(config.path);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        running = true;
+        readThread = new Thread(() -> readLoop(receiver), "SerialRead-" + config.path);
+        readThread.setDaemon(true);
+        readThread.start();
+    }
+
+    /**
+     * stty 配置为原始模式：关闭回显、行缓冲与字符转换
+     */
+    private void configure() throws IOException {
+        List<String> command = new ArrayList<>(Arrays.asList("stty", "-F", config.path,
+                String.valueOf(config.baudRate), "raw", "-echo", "-echoe", "-echok", "-ixon", "-ixoff", "-crtscts",
+                "cs" + config.databits, config.stopbits == 2 ? "cstopb" : "-cstopb",
+                "min", "0", "time", String.valueOf(readTimeoutDeciseconds())));
+        switch (config.parity) {
+            case 1:
+                command.addAll(Arrays.asList("parenb", "parodd", "-cmspar"));
+                break;
+            case 2:
+                command.addAll(Arrays.asList("parenb", "-parodd", "-cmspar"));
+                break;
+            case 3:
+                command.addAll(Arrays.asList("parenb", "parodd", "cmspar"));
+                break;
+            case 4:
+                command.addAll(Arrays.asList("parenb", "-parodd", "cmspar"));
+                break;
+            default:
+                command.add("-parenb");
+                break;
+        }
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String message = readAll(process.getInputStream());
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("stty failed for " + config.path + ": " + message.trim());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("stty interrupted");
+        }
+    }
+
+    /**
+     * VTIME 以 0.1 秒为单位，范围 1-255；poll 模式为 0，read 不阻塞
+     */
+    private int readTimeoutDeciseconds() {
+        if (!PortConfig.READ_BLOCKING.equals(config.readMode)) {
+            return 0;
+        }
+        return Math.max(1, Math.min(255, (config.readTimeoutMs + 99) / 100));
+    }
+
+    private void readLoop(Receiver receiver) {
+        boolean blocking = PortConfig.READ_BLOCKING.equals(config.readMode);
+        byte[] buffer = new byte[4096];
+        try {
+            while (running) {
+                if (!blocking && input.available() <= 0) {
+                    Thread.sleep(config.intervalSleep);
+                    continue;
+                }
+                // 阻塞模式下 VTIME 超时返回 0 字节（FileInputStream 报告为 -1），继续等待
+                int count = input.read(buffer);
+                if (count > 0) {
+                    receiver.onData(Arrays.copyOf(buffer, count));
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // 关闭端口时读线程退出
+        }
+    }
+
+    @Override
+    public void write(byte[] data) throws IOException {
+        FileOutputStream currentOutput = output;
+        if (currentOutput == null) {
+            throw new IOException("Port is not open: " + config.path);
+        }
+        synchronized (currentOutput) {
+            currentOutput.write(data);
+            currentOutput.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread currentThread = readThread;
+        readThread = null;
+        if (currentThread != null) {
+            currentThread.interrupt();
+            // 等读线程从 read 返回后再关闭文件，避免文件描述符被复用后读到其他文件
+            try {
+                currentThread.join(config.readTimeoutMs + 100L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeQuietly(input);
+        closeQuietly(output);
+        input = null;
+        output = null;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // 忽略关闭错误
+            }
+        }
+    }
+
+    private static String readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int count;
+        while ((count = stream.read(buffer)) > 0) {
+            bytes.write(buffer, 0, count);
+        }
+        return bytes.toString("UTF-8");
+    }
+}
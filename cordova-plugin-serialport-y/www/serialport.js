@@ -1,5 +1,102 @@
 var exec = require('cordova/exec');
 
+// 统一转换为 ArrayBuffer：支持 ArrayBuffer、TypedArray/DataView 与数字数组
+function toArrayBuffer(data) {
+    if (data instanceof ArrayBuffer) {
+        return data;
+    }
+    if (ArrayBuffer.isView(data)) {
+        return data.buffer.slice(data.byteOffset, data.byteOffset + data.byteLength);
+    }
+    return new Uint8Array(data).buffer;
+}
+
+// 把多帧拼成一个 ArrayBuffer 与长度数组，经桥一次传递
+function packFrames(frames) {
+    var buffers = frames.map(function (frame) {
+        return new Uint8Array(toArrayBuffer(frame));
+    });
+    var total = buffers.reduce(function (sum, buffer) {
+        return sum + buffer.length;
+    }, 0);
+    var packed = new Uint8Array(total);
+    var offset = 0;
+    buffers.forEach(function (buffer) {
+        packed.set(buffer, offset);
+        offset += buffer.length;
+    });
+    return [packed.buffer, buffers.map(function (buffer) {
+        return buffer.length;
+    })];
+}
+
+/**
+ * 按 id 操作的端口句柄，由 SerialPort.open 或 SerialPort.port(id) 获得
+ * 方法与单端口接口相同，只是作用于该端口
+ * @param {String} id - 端口 id（设备路径）
+ */
+function Port(id) {
+    this.id = id;
+}
+
+Port.prototype.listen = function (success, error) {
+    exec(success, error, "SerialPort", "listen", [this.id]);
+};
+Port.prototype.listenBinary = function (success, error) {
+    exec(success, error, "SerialPort", "listenBinary", [this.id]);
+};
+Port.prototype.sendBinary = function (data, success, error) {
+    exec(success, error, "SerialPort", "sendBinary", [toArrayBuffer(data), this.id]);
+};
+Port.prototype.sendMany = function (frames, success, error) {
+    exec(success, error, "SerialPort", "sendMany", packFrames(frames).concat([this.id]));
+};
+Port.prototype.setWriter = function (options, success, error) {
+    exec(success, error, "SerialPort", "setWriter", [options || null, this.id]);
+};
+Port.prototype.transact = function (frame, matchRule, timeoutMs, success, error) {
+    exec(success, error, "SerialPort", "transact", [toArrayBuffer(frame), matchRule || null, timeoutMs || 1000, this.id]);
+};
+Port.prototype.setPipelining = function (maxInFlight, success, error) {
+    exec(success, error, "SerialPort", "setPipelining", [maxInFlight, this.id]);
+};
+Port.prototype.modbusRequest = function (request, success, error) {
+    exec(success, error, "SerialPort", "modbusRequest", [request, this.id]);
+};
+Port.prototype.modbusPoll = function (poll, success, error) {
+    exec(success, error, "SerialPort", "modbusPoll", [poll, this.id]);
+};
+Port.prototype.modbusStopPoll = function (pollId, success, error) {
+    exec(success, error, "SerialPort", "modbusStopPoll", [pollId, this.id]);
+};
+Port.prototype.modbusListen = function (success, error) {
+    exec(success, error, "SerialPort", "modbusListen", [this.id]);
+};
+Port.prototype.getStats = function (success, error) {
+    exec(success, error, "SerialPort", "getStats", [this.id]);
+};
+Port.prototype.resetStats = function (success, error) {
+    exec(success, error, "SerialPort", "resetStats", [this.id]);
+};
+Port.prototype.watchStats = function (intervalMs, success, error) {
+    exec(success, error, "SerialPort", "watchStats", [intervalMs, this.id]);
+};
+Port.prototype.sendBytes = function (hexData, success, error) {
+    exec(success, error, "SerialPort", "sendBytes", [hexData, this.id]);
+};
+Port.prototype.sendString = function (data, success, error) {
+    exec(success, error, "SerialPort", "sendString", [data, this.id]);
+};
+Port.prototype.setFramer = function (options, success, error) {
+    exec(success, error, "SerialPort", "setFramer", [options || null, this.id]);
+};
+Port.prototype.setCoalescing = function (options, success, error) {
+    exec(success, error, "SerialPort", "setCoalescing", [options || null, this.id]);
+};
+Port.prototype.close = function (success, error) {
+    exec(success, error, "SerialPort", "close", [this.id]);
+};
+
 module.exports = {
     /**
      * 初始化并打开串口
@@ -28,6 +125,49 @@ module.exports = {
 
         exec(success, error, "SerialPort", "init", [port, baudRate, intervalSleep, enableLog, logTag, databits, parity, stopbits, strategy]);
     },
+    /**
+     * 打开一个独立端口（可同时打开多个），与 init 打开的端口互不影响
+     * @param {String} port - 串口路径，同时作为端口 id，例如 "/dev/ttyS1"
+     * @param {Number} baudRate - 波特率
+     * @param {Object} options - 可选配置参数
+     * @param {Number} options.databits - 数据位：5/6/7/8，默认 8
+     * @param {Number} options.parity - 校验位：0-None 1-Odd 2-Even 3-Mark 4-Space，默认 0
+     * @param {Number} options.stopbits - 停止位：1/2，默认 1
+     * @param {String} options.readMode - tty 后端读取方式："blocking"（默认，数据到达即回调）或 "poll"（按 intervalSleep 轮询）
+     * @param {Number} options.readTimeoutMs - blocking 模式单次阻塞上限(ms)，只影响关闭速度，默认 100
+     * @param {Number} options.intervalSleep - poll 模式及 library 后端的轮询间隔(ms)，默认 50
+     * @param {String} options.backend - 读写实现："tty"（默认，每个端口独立读线程）或 "library"（底层库单例，同时只能一个）
+     * @param {Function} success - 成功回调，参数为端口句柄（Port）
+     * @param {Function} error - 错误回调
+     */
+    open: function (port, baudRate, options, success, error) {
+        var config = {};
+        options = options || {};
+        for (var key in options) {
+            config[key] = options[key];
+        }
+        config.port = port;
+        config.baudRate = baudRate;
+        exec(function (id) {
+            success && success(new Port(id));
+        }, error, "SerialPort", "open", [config]);
+    },
+    /**
+     * 获取已打开端口的句柄
+     * @param {String} id - 端口 id（设备路径）
+     * @returns {Port}
+     */
+    port: function (id) {
+        return new Port(id);
+    },
+    /**
+     * 列出已打开的端口
+     * @param {Function} success - 成功回调，参数为 [{ id, baudRate, backend, default }]
+     * @param {Function} error - 错误回调
+     */
+    listPorts: function (success, error) {
+        exec(success, error, "SerialPort", "listPorts", []);
+    },
     /**
      * 设置数据接收监听器
      * @param {Function} success - 数据接收回调函数，参数为十六进制字符串
@@ -36,6 +176,178 @@ module.exports = {
     listen: function (success, error) {
         exec(success, error, "SerialPort", "listen", []);
     },
+    /**
+     * 设置二进制数据接收监听器（不做 hex 转换，高波特率时推荐）
+     * @param {Function} success - 数据接收回调函数，参数为 ArrayBuffer
+     * @param {Function} error - 错误回调
+     */
+    listenBinary: function (success, error) {
+        exec(success, error, "SerialPort", "listenBinary", []);
+    },
+    /**
+     * 发送二进制数据
+     * @param {ArrayBuffer|Uint8Array|Array<Number>} data - 要发送的字节
+     * @param {Function} success - 成功回调，参数为发送的字节数
+     * @param {Function} error - 错误回调
+     */
+    sendBinary: function (data, success, error) {
+        exec(success, error, "SerialPort", "sendBinary", [toArrayBuffer(data)]);
+    },
+    /**
+     * 批量发送：多帧一次提交到写队列，按顺序写出，全部写完后回调一次
+     * @param {Array<ArrayBuffer|Uint8Array|Array<Number>>} frames - 帧列表
+     * @param {Function} success - 成功回调，参数为发送的总字节数
+     * @param {Function} error - 错误回调
+     */
+    sendMany: function (frames, success, error) {
+        exec(success, error, "SerialPort", "sendMany", packFrames(frames));
+    },
+    /**
+     * 请求/应答事务：写出请求，在原生层等待匹配的应答帧，超时从请求写出时开始计时
+     * 匹配的应答只回调给本次事务，不再推送给 listen/listenBinary；建议配合 setFramer 使用
+     * @param {ArrayBuffer|Uint8Array|Array<Number>} frame - 请求帧
+     * @param {Object|null} matchRule - 匹配规则，传 null 匹配收到的下一帧
+     * @param {Number} matchRule.minLength - 应答最小长度
+     * @param {Array<Object>} matchRule.bytes - 固定字节 [{ offset, value, mask }]，value/mask 为 hex 字符串或数字数组
+     * @param {Array<Object>} matchRule.echo - 与请求相同的字段 [{ offset, length, requestOffset }]，例如地址、序号
+     * @param {Number} timeoutMs - 超时(ms)，默认 1000
+     * @param {Function} success - 成功回调，参数为应答帧（ArrayBuffer）
+     * @param {Function} error - 错误回调（超时、端口关闭）
+     */
+    transact: function (frame, matchRule, timeoutMs, success, error) {
+        exec(success, error, "SerialPort", "transact", [toArrayBuffer(frame), matchRule || null, timeoutMs || 1000]);
+    },
+    /**
+     * 设置同时等待应答的事务数（流水线），默认 1 即严格一问一答
+     * 协议能按地址或序号区分应答时可大于 1，应答按提交顺序交给第一个匹配的事务
+     * @param {Number} maxInFlight - 在途事务数上限
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调
+     */
+    setPipelining: function (maxInFlight, success, error) {
+        exec(success, error, "SerialPort", "setPipelining", [maxInFlight]);
+    },
+    /**
+     * Modbus RTU 单次请求（首次调用时端口切换为 Modbus RTU：应答分帧、帧间 T3.5 静默、一问一答）
+     * @param {Object} request - 请求
+     * @param {Number} request.slave - 从站地址，默认 1；0 为广播（只写不等应答）
+     * @param {Number} request.function - 功能码：1/2/3/4/5/6/15/16
+     * @param {Number} request.address - 起始地址
+     * @param {Number} request.quantity - 读功能码的数量，默认 1
+     * @param {Array<Number>} request.values - 写功能码的值：线圈为 0/1，寄存器为 0-65535
+     * @param {Number} request.timeoutMs - 应答超时(ms)，默认 500
+     * @param {Function} success - 成功回调：读为值数组，写单个为写入值，写多个为 [写入数量]
+     * @param {Function} error - 错误回调（超时、异常应答 "Modbus exception N ..."）
+     */
+    modbusRequest: function (request, success, error) {
+        exec(success, error, "SerialPort", "modbusRequest", [request]);
+    },
+    /**
+     * 开始 Modbus 轮询，同 id 的任务会被替换；只在值变化时经 modbusListen 推送
+     * @param {Object} poll - 轮询任务
+     * @param {String} poll.id - 任务 id
+     * @param {Number} poll.slave - 从站地址，默认 1
+     * @param {Number} poll.function - 读功能码 1/2/3/4，默认 3
+     * @param {Number} poll.address - 起始地址
+     * @param {Number} poll.quantity - 数量，默认 1
+     * @param {Number} poll.intervalMs - 轮询周期(ms)，默认 1000
+     * @param {Number} poll.timeoutMs - 应答超时(ms)，默认 500
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调
+     */
+    modbusPoll: function (poll, success, error) {
+        exec(success, error, "SerialPort", "modbusPoll", [poll]);
+    },
+    /**
+     * 停止 Modbus 轮询
+     * @param {String} pollId - 任务 id
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调
+     */
+    modbusStopPoll: function (pollId, success, error) {
+        exec(success, error, "SerialPort", "modbusStopPoll", [pollId]);
+    },
+    /**
+     * 监听 Modbus 轮询结果
+     * @param {Function} success - 回调参数为 { poll, slave, function, changes: [{ address, value }] }，
+     *                             轮询失败时为 { poll, slave, function, error }（同一错误连续出现只推送一次）
+     * @param {Function} error - 错误回调
+     */
+    modbusListen: function (success, error) {
+        exec(success, error, "SerialPort", "modbusListen", []);
+    },
+    /**
+     * 获取端口指标
+     * @param {Function} success - 成功回调，参数为 { port, open, since, durationMs, rates, queues, counters, histograms }
+     * @param {Function} error - 错误回调
+     */
+    getStats: function (success, error) {
+        exec(success, error, "SerialPort", "getStats", []);
+    },
+    /**
+     * 清空端口指标
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调
+     */
+    resetStats: function (success, error) {
+        exec(success, error, "SerialPort", "resetStats", []);
+    },
+    /**
+     * 定时推送端口指标
+     * @param {Number} intervalMs - 推送周期(ms)，传 0 停止
+     * @param {Function} success - 每个周期回调一次，参数同 getStats
+     * @param {Function} error - 错误回调
+     */
+    watchStats: function (intervalMs, success, error) {
+        exec(success, error, "SerialPort", "watchStats", [intervalMs]);
+    },
+    /**
+     * 设置写队列：所有发送按调用顺序由同一线程写出
+     * @param {Object|null} options - 写队列配置，传 null 恢复默认
+     * @param {Number} options.gapMs - 帧间隔(ms)，从上一帧按波特率估算的发送结束时刻算起，默认 0
+     * @param {Boolean} options.coalesce - 合并相邻的小数据为一次写入（gapMs 为 0 时生效），默认 false
+     * @param {Number} options.coalesceMaxBytes - 单次合并写入的字节数上限，默认 256
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调
+     */
+    setWriter: function (options, success, error) {
+        exec(success, error, "SerialPort", "setWriter", [options || null]);
+    },
+    /**
+     * 设置原生分帧：只向 listen/listenBinary 推送完整且校验通过的帧（先分帧再合并）
+     * 字节类参数（header/start/end）支持 hex 字符串 "AA55" 或数字数组 [0xAA, 0x55]
+     * @param {Object|null} options - 分帧配置，传 null 或 { type: "none" } 关闭
+     * @param {String} options.type - 分帧类型：length / delimiter / slip / cobs
+     * @param {String|Array<Number>} options.header - length：帧头，可省略
+     * @param {Number} options.lengthOffset - length：长度字段偏移，默认 0
+     * @param {Number} options.lengthSize - length：长度字段字节数 1/2/4，默认 1
+     * @param {String} options.lengthEndian - length：长度字段字节序 "big"/"little"，默认 "big"
+     * @param {Number} options.lengthAdjust - length：帧总长 = 长度字段值 + lengthAdjust，默认按长度字段只计负载推算
+     * @param {String|Array<Number>} options.start - delimiter：起始分隔符，可省略
+     * @param {String|Array<Number>} options.end - delimiter：结束分隔符，例如 "0D0A"
+     * @param {Number} options.maxLength - 单帧最大字节数，默认 4096
+     * @param {String} options.checksum - 校验：none / sum8 / xor8 / crc16modbus / crc16ccitt，默认 none
+     * @param {String} options.checksumEndian - 校验值字节序，默认 crc16modbus 为 "little"，其余为 "big"
+     * @param {Number} options.checksumStart - length/delimiter：校验范围起始偏移（相对帧起点），默认 0
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调（配置无效）
+     */
+    setFramer: function (options, success, error) {
+        exec(success, error, "SerialPort", "setFramer", [options || null]);
+    },
+    /**
+     * 设置接收合并窗口：窗口内的多个数据块合并为一次回调
+     * 开启后 listen/listenBinary 回调参数变为 (数据, { lengths: [...], timestamps: [...] })
+     * @param {Object|null} options - 合并配置，传 null 或 { enabled: false } 关闭
+     * @param {Number} options.maxBytes - 累计字节数上限，默认 4096
+     * @param {Number} options.maxDelayMs - 第一个数据块到达后最多等待的时间(ms)，默认 20
+     * @param {Number} options.maxPackets - 数据块个数上限，默认 64
+     * @param {Function} success - 成功回调
+     * @param {Function} error - 错误回调
+     */
+    setCoalescing: function (options, success, error) {
+        exec(success, error, "SerialPort", "setCoalescing", [options || null]);
+    },
     /**
      * 发送字节数组（hex 字符串格式）
      * @param {String} hexData - 十六进制字符串，例如 "0A1B2C"，会自动转换为字节数组发送